@@ -0,0 +1,106 @@
+package com.mucifex.pathfinding.internal.pathfind.main.astar;
+
+import com.mucifex.pathfinding.internal.pathfind.main.LookManager;
+import com.mucifex.pathfinding.internal.pathfind.main.player.SimulatedPlayer;
+import com.mucifex.pathfinding.internal.pathfind.main.processor.ProcessorManager;
+import com.mucifex.pathfinding.internal.pathfind.main.walk.PathCache;
+import com.mucifex.pathfinding.internal.pathfind.main.walk.Walker;
+import com.mucifex.pathfinding.internal.pathfind.main.world.PassabilityCache;
+import com.mucifex.pathfinding.internal.pathfind.main.world.VoxelWorld;
+import com.mucifex.pathfinding.internal.pathfind.main.world.WorldAccess;
+import net.minecraft.util.BlockPos;
+import net.minecraft.util.Vec3;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * Walks a {@link SimulatedPlayer} from start to goal of every {@link SyntheticWorlds} world once per
+ * {@link Walker.SteeringMode} and prints the game ticks each took, so path following is compared on the time the
+ * player actually spends walking. Finished is the walker reaching the end of its path within the tick limit,
+ * distance is from there to the goal. Walked is the horizontal distance covered, a player sprinting straight ahead
+ * on flat ground makes about 0.28 blocks a tick. Planning is blocking and the path comes from the path cache after
+ * the first mode, so every mode follows the same path. Elements is how many path elements the processors make of
+ * that path, every one is a walk target of its own.
+ * Run with: ./gradlew followBenchmark -PfollowBenchmark.args="[lookahead distance]"
+ */
+public final class FollowBenchmark {
+    private static final int DEPTH = 25000;
+    // Ticks before a run counts as stuck, two minutes of game time
+    private static final int MAX_TICKS = 2400;
+
+    private FollowBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length > 0) {
+            Walker.setLookaheadDistance(Double.parseDouble(args[0]));
+        }
+
+        // The walker logs every tick, keep that out of the report
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        }));
+
+        Walker.SteeringMode previous = Walker.getSteeringMode();
+        Walker.setPlanningMode(Walker.PlanningMode.BLOCKING);
+        out.println("Lookahead: " + Walker.getLookaheadDistance() + ", tick limit: " + MAX_TICKS);
+        out.println(String.format("%-10s %-14s %8s %8s %9s %9s %11s %8s", "world", "steering", "ticks", "finished",
+                "distance", "walked", "blocks/tick", "elements"));
+        try {
+            for (String name : SyntheticWorlds.NAMES) {
+                SyntheticWorlds.Fixture fixture = SyntheticWorlds.create(name);
+                VoxelWorld world = SyntheticWorlds.toVoxelWorld(fixture.world);
+                WorldAccess.setBlocks(world);
+                PassabilityCache.getInstance().clear();
+                PathCache.getInstance().clear();
+                int elements = ProcessorManager.process(PathPlanners.getDefault()
+                        .plan(fixture.start, fixture.goal, DEPTH, fixture.world).getNodes(), fixture.world).size();
+
+                for (Walker.SteeringMode mode : Walker.SteeringMode.values()) {
+                    Walker.setSteeringMode(mode);
+                    out.println(run(name, mode, world, fixture.start, fixture.goal) + String.format(" %8d", elements));
+                }
+            }
+        } finally {
+            System.setOut(out);
+            Walker.setSteeringMode(previous);
+            WorldAccess.reset();
+            PassabilityCache.getInstance().clear();
+        }
+        System.exit(0);
+    }
+
+    private static String run(String name, Walker.SteeringMode mode, VoxelWorld world, BlockPos start, BlockPos goal) {
+        SimulatedPlayer player = new SimulatedPlayer(world, start.getX() + 0.5, start.getY(), start.getZ() + 0.5);
+        WorldAccess.setPlayer(player);
+        LookManager.setClock(player::getTimeMillis);
+        LookManager look = new LookManager();
+        Walker walker = new Walker();
+
+        walker.walk(start, goal, DEPTH);
+        int ticks = 0;
+        double walked = 0;
+        Vec3 last = player.getPosition();
+        while (walker.isActive() && ticks < MAX_TICKS) {
+            walker.tick();
+            player.tick();
+            look.update();
+            ticks++;
+
+            Vec3 position = player.getPosition();
+            walked += Math.sqrt((position.xCoord - last.xCoord) * (position.xCoord - last.xCoord)
+                    + (position.zCoord - last.zCoord) * (position.zCoord - last.zCoord));
+            last = position;
+        }
+        boolean finished = !walker.isActive();
+        walker.cancel();
+
+        double distance = last.distanceTo(new Vec3(goal).addVector(0.5, 0, 0.5));
+        return String.format("%-10s %-14s %8d %8s %9.2f %9.1f %11.3f", name, mode, ticks, finished, distance, walked,
+                walked / ticks);
+    }
+}
@@ -0,0 +1,71 @@
+package com.mucifex.pathfinding.internal.pathfind.main.astar;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The dense A* with the {@link Landmarks} bound on the {@link SyntheticWorlds}, next to PathfindingBenchmark.compute
+ * which runs it without. The tables are built around the start like they are around the player, once in setup.
+ * build is the background job that builds them, landmark picking included.
+ * Compare the expansions counters: ./gradlew jmh -Pjmh.include="LandmarkBenchmark|PathfindingBenchmark.compute$"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LandmarkBenchmark {
+    // Same budget as PathfindingBenchmark
+    private static final int DEPTH = 25000;
+
+    @Param({"plains", "caves", "maze", "stairs", "descent", "cliffs"})
+    public String world;
+
+    private SyntheticWorlds.Fixture fixture;
+
+    private PrintStream out;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class SearchCounters {
+        public long expansions;
+    }
+
+    @Setup
+    public void setup() {
+        // The search logs every result, keep that out of the benchmark
+        out = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        }));
+
+        fixture = SyntheticWorlds.create(world);
+        AStarPathFinder.setLandmarkHeuristic(true);
+        Landmarks.getInstance().rebuild(fixture.world, fixture.start);
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(out);
+    }
+
+    @Benchmark
+    public List<AStarNode> compute(SearchCounters counters) {
+        DenseAStarPathFinder search = new DenseAStarPathFinder(fixture.start, fixture.goal, DEPTH, fixture.world);
+        search.advance(Long.MAX_VALUE);
+        counters.expansions += search.getIterations();
+        return search.getResult();
+    }
+
+    @Benchmark
+    public boolean build() {
+        return Landmarks.getInstance().rebuild(fixture.world, fixture.start);
+    }
+}
@@ -0,0 +1,75 @@
+package com.mucifex.pathfinding.internal.pathfind.main.astar;
+
+import com.mucifex.pathfinding.internal.pathfind.main.world.WorldAccess;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The open lists of the real searches on the {@link SyntheticWorlds}, where cheaper routes to already open cells
+ * are common on the maze and caves. indexedHeap is DenseAStarPathFinder with its NodeGrid + OpenList,
+ * nodeQueue the object graph search with its NodeQueue over the live cache. Both turn a cheaper route into a
+ * decrease-key, run the same benchmark on an older checkout for the PriorityQueue.remove numbers.
+ * Landmarks are off so only the search itself is measured. Always run forked, JIT state from other benchmarks
+ * skews the numbers: ./gradlew jmh -Pjmh.include=OpenListBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class OpenListBenchmark {
+    // Same budget as PathfindingBenchmark
+    private static final int DEPTH = 25000;
+
+    @Param({"plains", "caves", "maze", "stairs", "descent", "cliffs"})
+    public String world;
+
+    private SyntheticWorlds.Fixture fixture;
+
+    private PrintStream out;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class SearchCounters {
+        public long expansions;
+    }
+
+    @Setup
+    public void setup() {
+        // The search logs every result, keep that out of the benchmark
+        out = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        }));
+
+        fixture = SyntheticWorlds.create(world);
+        AStarPathFinder.setLandmarkHeuristic(false);
+        // The object graph nodes read the live cache
+        WorldAccess.setBlocks(SyntheticWorlds.toVoxelWorld(fixture.world));
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(out);
+    }
+
+    @Benchmark
+    public List<AStarNode> indexedHeap(SearchCounters counters) {
+        DenseAStarPathFinder search = new DenseAStarPathFinder(fixture.start, fixture.goal, DEPTH, fixture.world);
+        search.advance(Long.MAX_VALUE);
+        counters.expansions += search.getIterations();
+        return search.getResult();
+    }
+
+    @Benchmark
+    public List<AStarNode> nodeQueue() {
+        return AStarPathFinder.compute(fixture.start, fixture.goal, DEPTH, AStarPathFinder.SearchMode.OBJECT_GRAPH);
+    }
+}
@@ -0,0 +1,126 @@
+package com.mucifex.pathfinding.internal.pathfind.main.astar;
+
+import com.mucifex.pathfinding.internal.pathfind.main.path.PathElm;
+import com.mucifex.pathfinding.internal.pathfind.main.path.impl.TravelNode;
+import com.mucifex.pathfinding.internal.pathfind.main.processor.ProcessorManager;
+import com.mucifex.pathfinding.internal.pathfind.main.processor.impl.TravelProcessor;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The pathfinding core on the generated {@link SyntheticWorlds}, headless through a PassabilitySnapshot.
+ * compute is the dense A* (the search Walker runs), computeJumpPoint the same search with Jump Point Search on
+ * flat ground, computeBidirectional the search from both ends (on cliffs it hands over to the dense search for
+ * the long drops), computeParallel the hash distributed search on AStarPathFinder.getParallelThreads() cores
+ * (its expansions add up every worker's, so they show the search overhead), process is the ProcessorManager pass over its result and shouldOptimise the TravelProcessor
+ * line check on node pairs taken from the same path.
+ * Run with -prof gc for the allocation rate: ./gradlew jmh -Pjmh.include=PathfindingBenchmark -Pjmh.args="-prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PathfindingBenchmark {
+    // Enough for every world to reach its goal rather than stopping at the depth limit
+    private static final int DEPTH = 25000;
+    // Node distance between the two ends of a shouldOptimise pair
+    private static final int PAIR_SPAN = 8;
+
+    @Param({"plains", "caves", "maze", "stairs", "descent", "cliffs"})
+    public String world;
+
+    private SyntheticWorlds.Fixture fixture;
+    private List<AStarNode> nodes;
+    private TravelProcessor travelProcessor;
+    private final List<TravelNode[]> pairs = new ArrayList<>();
+
+    private PrintStream out;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class SearchCounters {
+        public long expansions;
+    }
+
+    @Setup
+    public void setup() {
+        // The search logs every result, keep that out of the benchmark
+        out = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        }));
+
+        fixture = SyntheticWorlds.create(world);
+        nodes = DenseAStarPathFinder.compute(fixture.start, fixture.goal, DEPTH, fixture.world);
+        travelProcessor = new TravelProcessor(fixture.world);
+
+        for (int i = 0; i + PAIR_SPAN < nodes.size(); i++) {
+            AStarNode from = nodes.get(i);
+            AStarNode to = nodes.get(i + PAIR_SPAN);
+            pairs.add(new TravelNode[]{
+                    new TravelNode(from.getX(), from.getY(), from.getZ()),
+                    new TravelNode(to.getX(), to.getY(), to.getZ())
+            });
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(out);
+    }
+
+    @Benchmark
+    public List<AStarNode> compute(SearchCounters counters) {
+        DenseAStarPathFinder search = new DenseAStarPathFinder(fixture.start, fixture.goal, DEPTH, fixture.world);
+        search.advance(Long.MAX_VALUE);
+        counters.expansions += search.getIterations();
+        return search.getResult();
+    }
+
+    @Benchmark
+    public List<AStarNode> computeJumpPoint(SearchCounters counters) {
+        DenseAStarPathFinder search = new DenseAStarPathFinder(fixture.start, fixture.goal, DEPTH, fixture.world, true);
+        search.advance(Long.MAX_VALUE);
+        counters.expansions += search.getIterations();
+        return search.getResult();
+    }
+
+    @Benchmark
+    public List<AStarNode> computeBidirectional(SearchCounters counters) {
+        BidirectionalPathFinder search = new BidirectionalPathFinder(fixture.start, fixture.goal, DEPTH, fixture.world);
+        List<AStarNode> result = search.search();
+        counters.expansions += search.getExpansions();
+        return result;
+    }
+
+    @Benchmark
+    public List<AStarNode> computeParallel(SearchCounters counters) {
+        ParallelPathFinder search = new ParallelPathFinder(fixture.start, fixture.goal, DEPTH, fixture.world,
+                AStarPathFinder.getParallelThreads());
+        List<AStarNode> result = search.search();
+        counters.expansions += search.getExpansions();
+        return result;
+    }
+
+    @Benchmark
+    public List<PathElm> process() {
+        return ProcessorManager.process(nodes, fixture.world);
+    }
+
+    @Benchmark
+    public void shouldOptimise(Blackhole blackhole) {
+        for (TravelNode[] pair : pairs) {
+            blackhole.consume(travelProcessor.shouldOptimise(pair[0], pair[1]));
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.mucifex.pathfinding.internal.pathfind.main.astar;
+
+import com.mucifex.pathfinding.internal.pathfind.main.world.PassabilityCache;
+import com.mucifex.pathfinding.internal.pathfind.main.world.PassabilitySnapshot;
+import com.mucifex.pathfinding.internal.pathfind.main.world.VoxelWorld;
+import com.mucifex.pathfinding.internal.pathfind.main.world.WorldAccess;
+import net.minecraft.util.BlockPos;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Replays a corpus of start/goal pairs through every registered {@link PathPlanner} and prints their latency
+ * percentiles, expansions and path lengths side by side, one table per {@link SyntheticWorlds} world.
+ * The corpus is each world's own start and goal plus random pairs on its surface. Every world is loaded as the
+ * live world, so the planners run like they do for the walker, the object graph included.
+ * Run with: ./gradlew bakeOff -PbakeOff.args="[pairs per world] [rounds]"
+ */
+public final class PlannerBakeOff {
+    // Same budget as PathfindingBenchmark
+    private static final int DEPTH = 25000;
+    private static final int DEFAULT_PAIRS = 20;
+    private static final int DEFAULT_ROUNDS = 5;
+    // Pairs closer than this are too short to tell the planners apart
+    private static final int MIN_PAIR_DISTANCE = 32;
+    // A path ending this close to the goal counts as found, like the searches' own early success
+    private static final double REACHED_DISTANCE = 2.0;
+
+    private PlannerBakeOff() {
+    }
+
+    public static void main(String[] args) {
+        int pairs = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PAIRS;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ROUNDS;
+
+        // The searches log every result, keep that out of the report
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        }));
+
+        List<PathPlanner> planners = PathPlanners.getAll();
+        out.println("Planners: " + planners.size() + ", pairs per world: " + (pairs + 1) + ", rounds: " + rounds
+                + " (+1 warmup), depth: " + DEPTH);
+        try {
+            for (String name : SyntheticWorlds.NAMES) {
+                SyntheticWorlds.Fixture fixture = SyntheticWorlds.create(name);
+                VoxelWorld world = SyntheticWorlds.toVoxelWorld(fixture.world);
+                WorldAccess.setBlocks(world);
+                PassabilityCache.getInstance().clear();
+                Landmarks.getInstance().rebuild(fixture.world, new BlockPos(SyntheticWorlds.SIZE / 2,
+                        SyntheticWorlds.GROUND + 1, SyntheticWorlds.SIZE / 2));
+
+                List<BlockPos[]> corpus = corpus(fixture, world, pairs);
+                out.println();
+                out.println(name);
+                out.println(String.format("%-16s %6s %9s %9s %9s %11s %9s", "planner", "found",
+                        "p50 ms", "p90 ms", "p99 ms", "expansions", "length"));
+                for (PathPlanner planner : planners) {
+                    out.println(run(planner, corpus, rounds));
+                }
+            }
+        } finally {
+            System.setOut(out);
+            WorldAccess.reset();
+            PassabilityCache.getInstance().clear();
+        }
+        System.exit(0);
+    }
+
+    // Replays the corpus rounds + 1 times, the first round only warms up
+    private static String run(PathPlanner planner, List<BlockPos[]> corpus, int rounds) {
+        long[] nanos = new long[corpus.size() * rounds];
+        int samples = 0;
+        long expansions = 0;
+        int counted = 0;
+        double length = 0;
+        int found = 0;
+
+        for (int round = 0; round <= rounds; round++) {
+            for (BlockPos[] pair : corpus) {
+                PlannedPath result = planner.plan(pair[0], pair[1], DEPTH, PassabilityCache.getInstance());
+                if (round == 0) {
+                    continue;
+                }
+                nanos[samples++] = result.getNanos();
+                if (result.getExpansions() != PlannedPath.UNKNOWN_EXPANSIONS) {
+                    expansions += result.getExpansions();
+                    counted++;
+                }
+                length += result.getLength();
+                if (reaches(result.getNodes(), pair[1])) {
+                    found++;
+                }
+            }
+        }
+
+        Arrays.sort(nanos, 0, samples);
+        return String.format("%-16s %6s %9.3f %9.3f %9.3f %11s %9.1f", planner.getName(),
+                found / rounds + "/" + corpus.size(),
+                percentile(nanos, samples, 0.50), percentile(nanos, samples, 0.90), percentile(nanos, samples, 0.99),
+                counted == 0 ? "-" : String.valueOf(expansions / counted), length / samples);
+    }
+
+    private static boolean reaches(List<AStarNode> nodes, BlockPos goal) {
+        if (nodes.isEmpty()) {
+            return false;
+        }
+        AStarNode last = nodes.get(nodes.size() - 1);
+        int dx = last.getX() - goal.getX(), dy = last.getY() - goal.getY(), dz = last.getZ() - goal.getZ();
+        return Math.sqrt(dx * dx + dy * dy + dz * dz) <= REACHED_DISTANCE;
+    }
+
+    // Nearest rank percentile in milliseconds
+    private static double percentile(long[] sorted, int size, double fraction) {
+        int rank = (int) Math.ceil(fraction * size) - 1;
+        return sorted[Math.max(0, Math.min(size - 1, rank))] / 1_000_000.0;
+    }
+
+    // The fixture's own pair first, then random pairs standing on the surface
+    private static List<BlockPos[]> corpus(SyntheticWorlds.Fixture fixture, VoxelWorld world, int pairs) {
+        List<BlockPos[]> corpus = new ArrayList<>();
+        corpus.add(new BlockPos[]{fixture.start, fixture.goal});
+        Random random = new Random(7);
+        while (corpus.size() <= pairs) {
+            BlockPos start = surface(world, random);
+            BlockPos goal = surface(world, random);
+            if (start.distanceSq(goal) >= MIN_PAIR_DISTANCE * MIN_PAIR_DISTANCE) {
+                corpus.add(new BlockPos[]{start, goal});
+            }
+        }
+        return corpus;
+    }
+
+    private static BlockPos surface(VoxelWorld world, Random random) {
+        int x = random.nextInt(SyntheticWorlds.SIZE);
+        int z = random.nextInt(SyntheticWorlds.SIZE);
+        return new BlockPos(x, world.getTopSolid(x, z) + 1, z);
+    }
+}
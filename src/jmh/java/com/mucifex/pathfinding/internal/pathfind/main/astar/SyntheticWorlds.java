@@ -0,0 +1,289 @@
+package com.mucifex.pathfinding.internal.pathfind.main.astar;
+
+import com.mucifex.pathfinding.internal.pathfind.main.world.PassabilitySnapshot;
+import com.mucifex.pathfinding.internal.pathfind.main.world.VoxelWorld;
+import net.minecraft.util.BlockPos;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generated worlds for the benchmarks, built straight into a {@link PassabilitySnapshot} so the search
+ * runs without a game client. All worlds cover SIZE x SIZE blocks from 0, 0 with the ground top at GROUND
+ * and are generated from a fixed seed, so every run measures the same terrain.
+ */
+final class SyntheticWorlds {
+    static final int SIZE = 128;
+    static final int GROUND = 63;
+    // Where the stairs worlds' stairwell starts and how high it climbs
+    private static final int STAIRS_FOOT = 24;
+    private static final int STAIRS_HEIGHT = 40;
+    // Blocks of hill above the descent's top step, more than a step up
+    private static final int DESCENT_RIM = 2;
+
+    static final String[] NAMES = {"plains", "caves", "maze", "stairs", "descent", "cliffs"};
+
+    private SyntheticWorlds() {
+    }
+
+    static final class Fixture {
+        final String name;
+        final PassabilitySnapshot world;
+        final BlockPos start;
+        final BlockPos goal;
+
+        Fixture(String name, PassabilitySnapshot world, BlockPos start, BlockPos goal) {
+            this.name = name;
+            this.world = world;
+            this.start = start;
+            this.goal = goal;
+        }
+    }
+
+    static Fixture create(String name) {
+        Random random = new Random(42);
+        switch (name) {
+            case "plains":
+                return plains(random);
+            case "caves":
+                return caves(random);
+            case "maze":
+                return maze(random);
+            case "stairs":
+                return stairs();
+            case "descent":
+                return descent();
+            case "cliffs":
+                return cliffs(random);
+            default:
+                throw new IllegalArgumentException("Unknown world: " + name);
+        }
+    }
+
+    // The same world as a VoxelWorld, for what needs to load it as the live world
+    static VoxelWorld toVoxelWorld(PassabilitySnapshot snapshot) {
+        int maxChunk = (SIZE >> 4) - 1;
+        VoxelWorld world = new VoxelWorld(0, 0, maxChunk, maxChunk);
+        for (int x = 0; x < SIZE; x++) {
+            for (int z = 0; z < SIZE; z++) {
+                for (int y = 0; y < 256; y++) {
+                    if (snapshot.isSolid(x, y, z)) {
+                        world.setSolid(x, y, z, true);
+                    }
+                }
+            }
+        }
+        return world;
+    }
+
+    private static PassabilitySnapshot.Builder builder() {
+        return PassabilitySnapshot.builder(0, 0, (SIZE >> 4) - 1, (SIZE >> 4) - 1);
+    }
+
+    private static PassabilitySnapshot.Builder ground(PassabilitySnapshot.Builder builder) {
+        return builder.fill(0, GROUND - 2, 0, SIZE - 1, GROUND, SIZE - 1, true);
+    }
+
+    // Flat ground with scattered pillars and a few walls to route around
+    private static Fixture plains(Random random) {
+        PassabilitySnapshot.Builder builder = ground(builder());
+        for (int x = 8; x < SIZE - 8; x++) {
+            for (int z = 8; z < SIZE - 8; z++) {
+                if (random.nextInt(100) < 6) {
+                    builder.fill(x, GROUND + 1, z, x, GROUND + 2 + random.nextInt(2), z, true);
+                }
+            }
+        }
+        for (int i = 0; i < 12; i++) {
+            int x = 10 + random.nextInt(SIZE - 40);
+            int z = 10 + random.nextInt(SIZE - 40);
+            if (random.nextBoolean()) {
+                builder.fill(x, GROUND + 1, z, x + 20, GROUND + 3, z, true);
+            } else {
+                builder.fill(x, GROUND + 1, z, x, GROUND + 3, z + 20, true);
+            }
+        }
+        return clearEnds(builder, new BlockPos(3, GROUND + 1, 3), new BlockPos(SIZE - 4, GROUND + 1, SIZE - 4), "plains");
+    }
+
+    // Solid rock with wandering tunnels, one of them from start to goal, the rest dead ends
+    private static Fixture caves(Random random) {
+        int bottom = GROUND - 20;
+        int top = GROUND + 20;
+        PassabilitySnapshot.Builder builder = builder().fill(0, bottom, 0, SIZE - 1, top, SIZE - 1, true);
+
+        for (int i = 0; i < 30; i++) {
+            BlockPos from = new BlockPos(4 + random.nextInt(SIZE - 8), bottom + 4 + random.nextInt(top - bottom - 10), 4 + random.nextInt(SIZE - 8));
+            BlockPos to = new BlockPos(4 + random.nextInt(SIZE - 8), from.getY(), 4 + random.nextInt(SIZE - 8));
+            carveTunnel(builder, random, from, to, bottom + 2, top - 5);
+        }
+        // Carved last, so its floor is never cut away by a dead end crossing underneath
+        BlockPos start = new BlockPos(6, GROUND, 6);
+        BlockPos goal = new BlockPos(SIZE - 7, GROUND - 6, SIZE - 7);
+        carveTunnel(builder, random, start, goal, bottom + 2, top - 5);
+        return new Fixture("caves", builder.build(), start, goal);
+    }
+
+    private static void carveTunnel(PassabilitySnapshot.Builder builder, Random random, BlockPos from, BlockPos to, int minY, int maxY) {
+        int x = from.getX();
+        int y = from.getY();
+        int z = from.getZ();
+        while (x != to.getX() || z != to.getZ() || y != to.getY()) {
+            carve(builder, x, y, z);
+
+            // Mostly head for the target, sometimes wander off sideways
+            if (random.nextInt(4) == 0) {
+                if (random.nextBoolean()) x += random.nextBoolean() ? 1 : -1;
+                else z += random.nextBoolean() ? 1 : -1;
+            } else if (x != to.getX() && (z == to.getZ() || random.nextBoolean())) {
+                x += Integer.signum(to.getX() - x);
+            } else if (z != to.getZ()) {
+                z += Integer.signum(to.getZ() - z);
+            }
+            // Floor only heads for the target height, a block at a time, so the tunnel stays walkable
+            if (random.nextInt(3) == 0 && y != to.getY()) {
+                y += Integer.signum(to.getY() - y);
+            }
+            x = Math.max(2, Math.min(SIZE - 3, x));
+            z = Math.max(2, Math.min(SIZE - 3, z));
+            y = Math.max(minY, Math.min(maxY, y));
+        }
+        carve(builder, x, y, z);
+    }
+
+    // A 3x3 floor with 4 blocks of air above it, high enough to jump up the next step
+    private static void carve(PassabilitySnapshot.Builder builder, int x, int y, int z) {
+        builder.fill(x - 1, y - 1, z - 1, x + 1, y - 1, z + 1, true);
+        builder.fill(x - 1, y, z - 1, x + 1, y + 3, z + 1, false);
+    }
+
+    // A maze with loops and 2 block high walls on flat ground
+    private static Fixture maze(Random random) {
+        boolean[][] walls = generateMaze(SIZE - 1, 0.1, random);
+        PassabilitySnapshot.Builder builder = ground(builder());
+        for (int x = 0; x < walls.length; x++) {
+            for (int z = 0; z < walls.length; z++) {
+                if (walls[x][z]) {
+                    builder.fill(x, GROUND + 1, z, x, GROUND + 2, z, true);
+                }
+            }
+        }
+        return new Fixture("maze", builder.build(), new BlockPos(1, GROUND + 1, 1), new BlockPos(SIZE - 3, GROUND + 1, SIZE - 3));
+    }
+
+    // A stairwell cut into a hill, 3 wide and one block up every two blocks, the goal is on top of the hill
+    private static Fixture stairs() {
+        return new Fixture("stairs", stairwell(0), new BlockPos(4, GROUND + 1, SIZE / 2),
+                new BlockPos(SIZE - 8, GROUND + STAIRS_HEIGHT + 1, SIZE / 2));
+    }
+
+    // The same stairwell walked down from its top step, every step is a one block drop. The hill rises above the
+    // top step, so the way down is the stairs and not a drop off the hill's edge
+    private static Fixture descent() {
+        return new Fixture("descent", stairwell(DESCENT_RIM), new BlockPos(STAIRS_FOOT + 2 * STAIRS_HEIGHT - 1, GROUND + STAIRS_HEIGHT, SIZE / 2),
+                new BlockPos(4, GROUND + 1, SIZE / 2));
+    }
+
+    // rim is how many blocks the hill rises above the stairs' top step
+    private static PassabilitySnapshot stairwell(int rim) {
+        PassabilitySnapshot.Builder builder = ground(builder());
+        int top = GROUND + STAIRS_HEIGHT + rim;
+        int centre = SIZE / 2;
+        builder.fill(STAIRS_FOOT, GROUND + 1, 0, SIZE - 1, top, SIZE - 1, true);
+        for (int x = STAIRS_FOOT; x < STAIRS_FOOT + 2 * STAIRS_HEIGHT; x++) {
+            builder.fill(x, GROUND + (x - STAIRS_FOOT) / 2 + 1, centre - 1, x, top, centre + 1, false);
+        }
+        return builder.build();
+    }
+
+    // Rolling terrain with raised mesas, their cliffs can only be dropped down, not climbed
+    private static Fixture cliffs(Random random) {
+        int grid = 16;
+        int cells = SIZE / grid + 1;
+        int[][] heights = new int[cells][cells];
+        boolean[][] mesa = new boolean[cells][cells];
+        for (int cx = 0; cx < cells; cx++) {
+            for (int cz = 0; cz < cells; cz++) {
+                heights[cx][cz] = random.nextInt(10);
+                mesa[cx][cz] = random.nextInt(4) == 0;
+            }
+        }
+        // Start on a mesa, so the path has to drop off a cliff, and keep a chain of low cells down to the goal
+        mesa[0][0] = true;
+        for (int c = 1; c < cells - 1; c++) {
+            mesa[c][c - 1] = false;
+            mesa[c][c] = false;
+        }
+
+        PassabilitySnapshot.Builder builder = builder();
+        int[][] tops = new int[SIZE][SIZE];
+        for (int x = 0; x < SIZE; x++) {
+            for (int z = 0; z < SIZE; z++) {
+                int cx = x / grid;
+                int cz = z / grid;
+                double fx = (x % grid) / (double) grid;
+                double fz = (z % grid) / (double) grid;
+                double height = heights[cx][cz] * (1 - fx) * (1 - fz) + heights[cx + 1][cz] * fx * (1 - fz)
+                        + heights[cx][cz + 1] * (1 - fx) * fz + heights[cx + 1][cz + 1] * fx * fz;
+                tops[x][z] = GROUND + (int) height + (mesa[cx][cz] ? 5 : 0);
+                builder.fill(x, GROUND - 4, z, x, tops[x][z], z, true);
+            }
+        }
+        int end = SIZE - 4;
+        return new Fixture("cliffs", builder.build(), new BlockPos(3, tops[3][3] + 1, 3), new BlockPos(end, tops[end][end] + 1, end));
+    }
+
+    private static Fixture clearEnds(PassabilitySnapshot.Builder builder, BlockPos start, BlockPos goal, String name) {
+        builder.fill(start.getX() - 1, start.getY(), start.getZ() - 1, start.getX() + 1, start.getY() + 2, start.getZ() + 1, false);
+        builder.fill(goal.getX() - 1, goal.getY(), goal.getZ() - 1, goal.getX() + 1, goal.getY() + 2, goal.getZ() + 1, false);
+        return new Fixture(name, builder.build(), start, goal);
+    }
+
+    /**
+     * Recursive backtracker maze on the odd cells, with a share of the remaining walls removed to create loops.
+     */
+    static boolean[][] generateMaze(int size, double loopFactor, Random random) {
+        boolean[][] walls = new boolean[size][size];
+        for (boolean[] row : walls) {
+            Arrays.fill(row, true);
+        }
+
+        Deque<int[]> stack = new ArrayDeque<>();
+        walls[1][1] = false;
+        stack.push(new int[]{1, 1});
+        int[][] steps = {{2, 0}, {-2, 0}, {0, 2}, {0, -2}};
+
+        while (!stack.isEmpty()) {
+            int[] cell = stack.peek();
+            List<int[]> options = new ArrayList<>();
+            for (int[] step : steps) {
+                int nx = cell[0] + step[0];
+                int nz = cell[1] + step[1];
+                if (nx > 0 && nz > 0 && nx < size - 1 && nz < size - 1 && walls[nx][nz]) {
+                    options.add(step);
+                }
+            }
+            if (options.isEmpty()) {
+                stack.pop();
+                continue;
+            }
+            int[] step = options.get(random.nextInt(options.size()));
+            walls[cell[0] + step[0] / 2][cell[1] + step[1] / 2] = false;
+            walls[cell[0] + step[0]][cell[1] + step[1]] = false;
+            stack.push(new int[]{cell[0] + step[0], cell[1] + step[1]});
+        }
+
+        for (int x = 1; x < size - 1; x++) {
+            for (int z = 1; z < size - 1; z++) {
+                if (walls[x][z] && random.nextDouble() < loopFactor) {
+                    walls[x][z] = false;
+                }
+            }
+        }
+        return walls;
+    }
+}
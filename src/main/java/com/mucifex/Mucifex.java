@@ -1,6 +1,7 @@
 package com.mucifex;
 
 import com.mucifex.network.SocketManager;
+import com.mucifex.pathfinding.internal.pathfind.main.world.BlockClassifier;
 import com.mucifex.socket.PathfindingSocketServer;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.settings.KeyBinding;
@@ -111,6 +112,8 @@ public class Mucifex {
     
     @EventHandler
     public void postInit(FMLPostInitializationEvent event) {
+        // All blocks are registered by now, so the pathing passability table can be built
+        BlockClassifier.init();
         LOGGER.info("Mucifex has loaded!");
     }
     
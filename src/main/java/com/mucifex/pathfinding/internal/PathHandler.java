@@ -1,15 +1,23 @@
 package com.mucifex.pathfinding.internal;
 
-import net.minecraft.client.Minecraft;
 import net.minecraft.command.ICommand;
 import net.minecraft.util.BlockPos;
-import net.minecraft.util.ChatComponentText;
 import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
 import net.minecraftforge.fml.common.gameevent.TickEvent;
 import com.mucifex.pathfinding.internal.pathfind.main.LookManager;
 import com.mucifex.pathfinding.internal.pathfind.main.PathRenderer;
+import com.mucifex.pathfinding.internal.pathfind.main.astar.Goal;
+import com.mucifex.pathfinding.internal.pathfind.main.astar.Landmarks;
+import com.mucifex.pathfinding.internal.pathfind.main.astar.PathPlanner;
+import com.mucifex.pathfinding.internal.pathfind.main.hpa.ClusterGraph;
+import com.mucifex.pathfinding.internal.pathfind.main.hpa.Corridor;
+import com.mucifex.pathfinding.internal.pathfind.main.hpa.HierarchicalPlanner;
+import com.mucifex.pathfinding.internal.pathfind.main.walk.PathCache;
 import com.mucifex.pathfinding.internal.pathfind.main.walk.Walker;
+import com.mucifex.pathfinding.internal.pathfind.main.player.PlayerState;
+import com.mucifex.pathfinding.internal.pathfind.main.world.PassabilityCache;
+import com.mucifex.pathfinding.internal.pathfind.main.world.WorldAccess;
 import java.util.Arrays;
 import java.util.ArrayList;
 import java.util.List;
@@ -20,20 +28,27 @@ public class PathHandler {
     public static final String VERSION = "1.0";
     
     private Walker walker;
+    private final HierarchicalPlanner corridorPlanner = new HierarchicalPlanner();
     private boolean isLongDistancePathfinding = false;
-    private BlockPos finalDestination = null;
+    private Goal finalDestination = null;
+    // Planner every segment of the current trip plans with, null for the default one
+    private PathPlanner tripPlanner = null;
+    // Planning deadline for every segment of the current trip in milliseconds, 0 for a single search
+    private long tripDeadlineMillis = 0;
     private BlockPos lastPlayerPosition = null;
     private BlockPos currentWaypoint = null;
     private int stuckCounter = 0;
     private static final int SURVEY_RADIUS = 150; // Doubled from 75 to 150 for larger segments
     private static final int RECALCULATION_DELAY = 40; // Reduced for faster recalculation
     private static final double MIN_MOVEMENT_THRESHOLD = 3.0; // Minimum blocks moved to consider progress
+    private static final int CORRIDOR_CLUSTERS_AHEAD = 2; // Chunk borders each segment follows the corridor for
     private int recalculationTicks = 0;
     private int successfulSegments = 0;
     private boolean segmentInProgress = false;
     
     // New fields for stuck detection and auto-restart
     private static final int STUCK_DETECTION_TICKS = 100; // 5 seconds (20 ticks per second)
+    private static final int REPAIR_TICKS = 20; // Try repairing the current path in place after 1 second
     private int stuckDetectionCounter = 0;
     private boolean isMovementStuck = false;
     private long lastMovementTime = 0;
@@ -44,7 +59,7 @@ public class PathHandler {
         try {
             // Initialize components but don't register commands
             walker = new Walker();
-            registerListeners(walker, new PathRenderer(), new LookManager(), this);
+            registerListeners(walker, new PathRenderer(), new LookManager(), PassabilityCache.getInstance(), this);
         } catch (Exception e) {
             System.err.println("Error initializing PathHandler: " + e.getMessage());
             e.printStackTrace();
@@ -55,8 +70,26 @@ public class PathHandler {
      * Travel to the specified coordinates with smarter segmented pathfinding
      */
     public void travel(int x, int y, int z) {
+        travel(x, y, z, null, 0);
+    }
+
+    /**
+     * Travel to the specified coordinates, planning every segment with the given planner
+     * @param planner planner for this trip only, null for the default one, see PathPlanners
+     * @param deadlineMillis above 0 plans every segment with the anytime search, which starts walking on a quick
+     *                       path and takes over cheaper ones until this many milliseconds have passed
+     */
+    public void travel(int x, int y, int z, PathPlanner planner, long deadlineMillis) {
+        travel(Goal.at(new BlockPos(x, y, z)), planner, deadlineMillis);
+    }
+
+    /**
+     * Travel to whichever block of the goal is closest along the way. Every segment's search heads for the goal
+     * itself, so the block it ends on is picked by the search that walks there, see Walker.
+     */
+    public void travel(Goal goal, PathPlanner planner, long deadlineMillis) {
         try {
-            if (Minecraft.getMinecraft().thePlayer == null) {
+            if (!WorldAccess.getPlayer().isPresent()) {
                 System.err.println("Cannot pathfind: Player is null");
                 return;
             }
@@ -75,6 +108,8 @@ public class PathHandler {
             // Reset state without notifying sockets
             isLongDistancePathfinding = false;
             finalDestination = null;
+            tripPlanner = planner;
+            tripDeadlineMillis = deadlineMillis;
             currentWaypoint = null;
             segmentInProgress = false;
             recalculationTicks = 0;
@@ -101,13 +136,11 @@ public class PathHandler {
             lastMovementTime = System.currentTimeMillis();
             lastStuckPosition = null;
             
-            BlockPos targetPos = new BlockPos(x, y, z);
-            
             // Set the final destination in the path renderer
-            PathRenderer.getInstance().setFinalDestination(targetPos);
+            PathRenderer.getInstance().setFinalDestination(goal.nearestTo(currentPos.getX(), currentPos.getY(), currentPos.getZ()));
             
             // Check if the target is too far away
-            double distance = getDistance(currentPos, targetPos);
+            double distance = goal.distance(currentPos.getX(), currentPos.getY(), currentPos.getZ());
             
             // Send a chat message about the pathfinding status
             String message;
@@ -115,14 +148,14 @@ public class PathHandler {
             if (distance > SURVEY_RADIUS) {
                 // For long-distance pathfinding, we store the final destination
                 isLongDistancePathfinding = true;
-                finalDestination = targetPos;
+                finalDestination = goal;
                 
-                // Find best intermediate waypoint within our survey radius
-                BlockPos waypoint = findBestWaypointInRadius(currentPos, targetPos);
+                // Follow the cluster corridor towards the destination
+                BlockPos waypoint = findNextWaypoint(currentPos, goal);
                 currentWaypoint = waypoint;
                 
-                message = String.format("Starting segmented pathfinding to: %d, %d, %d (%.1f blocks away, using %d block segments)", 
-                    x, y, z, distance, SURVEY_RADIUS);
+                message = String.format("Starting segmented pathfinding to: %s (%.1f blocks away, using %d block segments)", 
+                    goal, distance, SURVEY_RADIUS);
                 
                 // Start pathfinding to nearby waypoint
                 if (walker != null) {
@@ -138,21 +171,21 @@ public class PathHandler {
                         
                     // Use appropriate node count based on distance for efficiency while preventing timeouts
                     int nodeCount = Math.min(15000, (int)(waypointDistance * 250));
-                    safeWalk(currentPos, waypoint, nodeCount);
+                    safeWalk(currentPos, Goal.at(waypoint), nodeCount);
                 }
             } else {
                 // Target is within survey radius, normal pathing
                 isLongDistancePathfinding = false;
                 finalDestination = null;
                 
-                message = String.format("Pathfinding to nearby location: %d, %d, %d (%.1f blocks away)", 
-                    x, y, z, distance);
+                message = String.format("Pathfinding to nearby location: %s (%.1f blocks away)", 
+                    goal, distance);
                 
                 if (walker != null) {
                     // Use node count based on distance for direct paths
                     // More nodes for shorter distances ensure accuracy, fewer for longer paths improve performance
                     int nodeCount = Math.min(12000, Math.max(5000, (int)(distance * 200)));
-                    safeWalk(currentPos, targetPos, nodeCount);
+                    safeWalk(currentPos, goal, nodeCount);
                 }
             }
             
@@ -169,14 +202,17 @@ public class PathHandler {
     /**
      * A safer version of walk that handles possible rendering issues
      */
-    private void safeWalk(BlockPos start, BlockPos target, int nodeCount) {
+    private void safeWalk(BlockPos start, Goal goal, int nodeCount) {
         try {
             if (walker != null) {
                 // Add additional debug info
-                System.out.println("DEBUG: Attempting to walk from " + posToString(start) + " to " + posToString(target) + " with " + nodeCount + " nodes");
+                System.out.println("DEBUG: Attempting to walk from " + posToString(start) + " to " + goal + " with " + nodeCount + " nodes");
+                
+                // Goals of several blocks are left to the search, it ends on whichever one it can stand in
+                BlockPos target = goal.getPoint() != null ? goal.getPoint() : goal.nearestTo(start.getX(), start.getY(), start.getZ());
                 
                 // Check if target position is even reachable - don't try to pathfind through solid blocks
-                if (!isPositionWalkable(target)) {
+                if (goal.getPoint() != null && !isPositionWalkable(target)) {
                     System.out.println("ERROR: Target position " + posToString(target) + " is not walkable - choosing alternative target");
                     
                     // Try to find a walkable position nearby instead
@@ -184,6 +220,7 @@ public class PathHandler {
                     if (walkableTarget != null) {
                         System.out.println("DEBUG: Found walkable alternative at " + posToString(walkableTarget));
                         target = walkableTarget;
+                        goal = Goal.at(target);
                     }
                 }
                 
@@ -195,7 +232,7 @@ public class PathHandler {
                     nodeCount = Math.min(nodeCount, 5000);
                 }
                 
-                walker.walk(start, target, nodeCount);
+                walker.walk(start, goal, nodeCount, tripPlanner, tripDeadlineMillis);
             }
         } catch (Exception e) {
             System.err.println("Error in safeWalk: " + e.getMessage());
@@ -264,40 +301,7 @@ public class PathHandler {
      */
     private boolean isBlockSolid(BlockPos block) {
         try {
-            // Cache the block state to avoid multiple lookups
-            net.minecraft.block.state.IBlockState state = Minecraft.getMinecraft().theWorld.getBlockState(block);
-            net.minecraft.block.Block blockType = state.getBlock();
-            
-            // Fast path for air blocks (most common case)
-            if (blockType.getMaterial() == net.minecraft.block.material.Material.air) {
-                return false;
-            }
-            
-            // Fast path for full solid blocks
-            if (blockType.getMaterial().blocksMovement() && !blockType.getMaterial().isLiquid()) {
-                // Check if it's a full cube (most solid blocks)
-                if (blockType.isFullCube()) {
-                    return true;
-                }
-            }
-            
-            // For non-standard blocks, check specific types
-            return blockType.isBlockSolid(Minecraft.getMinecraft().theWorld, block, null) ||
-                   blockType instanceof net.minecraft.block.BlockSlab ||
-                   blockType instanceof net.minecraft.block.BlockStainedGlass ||
-                   blockType instanceof net.minecraft.block.BlockPane ||
-                   blockType instanceof net.minecraft.block.BlockFence ||
-                   blockType instanceof net.minecraft.block.BlockPistonExtension ||
-                   blockType instanceof net.minecraft.block.BlockEnderChest ||
-                   blockType instanceof net.minecraft.block.BlockTrapDoor ||
-                   blockType instanceof net.minecraft.block.BlockPistonBase ||
-                   blockType instanceof net.minecraft.block.BlockChest ||
-                   blockType instanceof net.minecraft.block.BlockStairs ||
-                   blockType instanceof net.minecraft.block.BlockCactus ||
-                   blockType instanceof net.minecraft.block.BlockWall ||
-                   blockType instanceof net.minecraft.block.BlockGlass ||
-                   blockType instanceof net.minecraft.block.BlockSkull ||
-                   blockType instanceof net.minecraft.block.BlockSand;
+            return PassabilityCache.getInstance().isSolid(block);
         } catch (Exception e) {
             System.err.println("Error checking if block is solid: " + e.getMessage());
             return true; // Assume solid if error
@@ -340,6 +344,34 @@ public class PathHandler {
         return "(" + pos.getX() + ", " + pos.getY() + ", " + pos.getZ() + ")";
     }
     
+    /**
+     * Next segment target: the waypoint a cluster or two along the HPA* corridor to the destination.
+     * Falls back to sampling waypoints when no corridor leads anywhere, e.g. in unloaded or unmapped terrain.
+     */
+    private BlockPos findNextWaypoint(BlockPos current, Goal goal) {
+        // The corridor heads for the goal block nearest to where the player is now, picked again every segment
+        BlockPos destination = goal.nearestTo(current.getX(), current.getY(), current.getZ());
+        try {
+            Corridor corridor = corridorPlanner.plan(current, destination);
+            if (corridor.leadsAnywhere()) {
+                // A stuck segment retries with a shorter one
+                int clustersAhead = stuckCounter > 0 ? 1 : CORRIDOR_CLUSTERS_AHEAD;
+                BlockPos waypoint = corridor.getWaypointAhead(clustersAhead);
+                if (waypoint != null && getDistance(current, waypoint) >= MIN_MOVEMENT_THRESHOLD) {
+                    System.out.println("DEBUG: Corridor waypoint: " + posToString(waypoint) + " ("
+                        + (corridor.isComplete() ? "route to destination" : "closest reachable entrance") + ")");
+                    return waypoint;
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Error planning corridor: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        System.out.println("DEBUG: No corridor from " + posToString(current) + ", sampling waypoints instead");
+        return findBestWaypointInRadius(current, destination);
+    }
+
     /**
      * Find the best waypoint within survey radius that's closest to destination
      */
@@ -589,12 +621,23 @@ public class PathHandler {
      */
     @SubscribeEvent
     public void onClientTick(TickEvent.ClientTickEvent event) {
+        // Only process in END phase
+        if (event.phase != TickEvent.Phase.END) {
+            return;
+        }
+
+        tick();
+    }
+
+    /**
+     * One client tick of segment monitoring, after the player has moved
+     */
+    public void tick() {
         try {
-            // Only process in END phase
-            if (event.phase != TickEvent.Phase.END) {
-                return;
-            }
-            
+            updateLandmarks();
+            ClusterGraph.getInstance().tick();
+            prewarmPathCache();
+
             // Check for movement stuckness regardless of pathfinding state
             checkPlayerStuck();
             
@@ -615,7 +658,7 @@ public class PathHandler {
             recalculationTicks = 0;
             
             // Get player position
-            if (Minecraft.getMinecraft().thePlayer == null) {
+            if (!WorldAccess.getPlayer().isPresent()) {
                 return; // Player not available
             }
             
@@ -668,7 +711,7 @@ public class PathHandler {
             lastPlayerPosition = currentPos;
             
             // Calculate distance to final destination
-            double distanceToFinal = getDistance(currentPos, finalDestination);
+            double distanceToFinal = finalDestination.distance(currentPos.getX(), currentPos.getY(), currentPos.getZ());
             System.out.println("DEBUG: Distance to final destination: " + distanceToFinal + " blocks");
             
             // If a segment was in progress and now it's done, report progress
@@ -705,17 +748,17 @@ public class PathHandler {
                 sendChatMessage(String.format("Final destination in range (%.1f blocks). Completing path.", distanceToFinal));
                 System.out.println("DEBUG: Final destination in range, attempting direct path");
                 segmentInProgress = true;
-                currentWaypoint = finalDestination;
+                currentWaypoint = finalDestination.nearestTo(currentPos.getX(), currentPos.getY(), currentPos.getZ());
                 
                 // Try to pathfind directly to the final destination - optimized node count
                 safeWalk(currentPos, finalDestination, 10000);
             } else {
                 // This is where we find a new waypoint that we can actually reach
                 System.out.println("DEBUG: Finding next waypoint towards final destination");
-                BlockPos nextWaypoint = findBestWaypointInRadius(currentPos, finalDestination);
+                BlockPos nextWaypoint = findNextWaypoint(currentPos, finalDestination);
                 
                 // Only start new pathfinding if player is loaded
-                if (Minecraft.getMinecraft().thePlayer != null) {
+                if (WorldAccess.getPlayer().isPresent()) {
                     double waypointDistance = getDistance(currentPos, nextWaypoint);
                     double dx = nextWaypoint.getX() - currentPos.getX();
                     double dz = nextWaypoint.getZ() - currentPos.getZ();
@@ -737,11 +780,11 @@ public class PathHandler {
                     System.out.println("DEBUG: Using nodeCount " + nodeCount + " for pathfinding");
                     
                     // Start pathfinding with adjusted node count
-                    safeWalk(currentPos, nextWaypoint, nodeCount);
+                    safeWalk(currentPos, Goal.at(nextWaypoint), nodeCount);
                 }
             }
         } catch (Exception e) {
-            System.err.println("ERROR in onClientTick: " + e.getMessage());
+            System.err.println("ERROR in tick: " + e.getMessage());
             e.printStackTrace();
             // Reset pathfinding state if an error occurs
             completePath("Error occurred during pathfinding.");
@@ -805,9 +848,9 @@ public class PathHandler {
      */
     private void sendChatMessage(String message) {
         try {
-            Minecraft mc = Minecraft.getMinecraft();
-            if (mc != null && mc.thePlayer != null) {
-                mc.thePlayer.addChatMessage(new ChatComponentText("§a[Pathfinding] §f" + message));
+            PlayerState player = WorldAccess.getPlayer();
+            if (player.isPresent()) {
+                player.sendMessage("§a[Pathfinding] §f" + message);
             }
         } catch (Exception e) {
             System.err.println("Error sending chat message: " + e.getMessage());
@@ -818,6 +861,31 @@ public class PathHandler {
         Arrays.stream(listeners).forEachOrdered(MinecraftForge.EVENT_BUS::register);
     }
 
+    /**
+     * Keep the landmark tables for the search heuristic around the player while it is walking or a trip is planned,
+     * changes in between are taken in when the next walk starts
+     */
+    private void updateLandmarks() {
+        if (!((walker != null && walker.isActive()) || isLongDistancePathfinding) || !WorldAccess.getPlayer().isPresent()) {
+            return;
+        }
+        BlockPos currentPos = com.mucifex.pathfinding.internal.util.Util.getPlayerBlockPos();
+        if (currentPos != null) {
+            Landmarks.getInstance().tick(currentPos);
+        }
+    }
+
+    // Plans the most requested goals from where the player stands while it isn't going anywhere
+    private void prewarmPathCache() {
+        if ((walker != null && walker.isActive()) || isLongDistancePathfinding || !WorldAccess.getPlayer().isPresent()) {
+            return;
+        }
+        BlockPos currentPos = com.mucifex.pathfinding.internal.util.Util.getPlayerBlockPos();
+        if (currentPos != null) {
+            PathCache.getInstance().prewarm(currentPos);
+        }
+    }
+
     /**
      * Check if the player is stuck and attempt to restart pathfinding if needed
      */
@@ -831,7 +899,7 @@ public class PathHandler {
             }
         
             // Get current player position
-            if (Minecraft.getMinecraft().thePlayer == null) {
+            if (!WorldAccess.getPlayer().isPresent()) {
                 return; // Player not available
             }
             
@@ -866,6 +934,11 @@ public class PathHandler {
             // If not moving and in active pathfinding, increment stuck counter
             if (isActive && !hasMoved) {
                 stuckDetectionCounter++;
+
+                // Cheap first attempt: repair the path from where the player is with the walker's incremental search
+                if (stuckDetectionCounter == REPAIR_TICKS && walker.repair()) {
+                    System.out.println("DEBUG: Repaired path in place at " + posToString(currentPos));
+                }
                 
                 // If stuck for 5 seconds (100 ticks), trigger auto-restart
                 if (stuckDetectionCounter >= STUCK_DETECTION_TICKS) {
@@ -900,7 +973,7 @@ public class PathHandler {
                     // If we still have our final destination, restart pathfinding with a new waypoint
                     if (finalDestination != null) {
                         // Calculate new waypoint
-                        BlockPos newWaypoint = findBestWaypointInRadius(currentPos, finalDestination);
+                        BlockPos newWaypoint = findNextWaypoint(currentPos, finalDestination);
                         if (newWaypoint != null) {
                             System.out.println("DEBUG: Chosen new waypoint: " + posToString(newWaypoint));
                             
@@ -915,7 +988,7 @@ public class PathHandler {
                             // Use more nodes for auto-restart to increase chances of success
                             // But keep it reasonable to avoid timeouts
                             int nodeCount = Math.min(10000 + (stuckCounter * 2000), 16000);
-                            safeWalk(currentPos, newWaypoint, nodeCount);
+                            safeWalk(currentPos, Goal.at(newWaypoint), nodeCount);
                         }
                     }
                     
@@ -1,11 +1,11 @@
 package com.mucifex.pathfinding.internal.pathfind;
 
-import net.minecraft.util.ChatComponentText;
 import com.mucifex.pathfinding.internal.util.Util;
-import net.minecraft.client.Minecraft;
 import net.minecraft.command.CommandBase;
 import net.minecraft.command.ICommandSender;
 import net.minecraft.util.BlockPos;
+import com.mucifex.pathfinding.internal.pathfind.main.astar.PathPlanner;
+import com.mucifex.pathfinding.internal.pathfind.main.astar.PathPlanners;
 import com.mucifex.pathfinding.internal.pathfind.main.walk.Walker;
 
 public class TravelCommand extends CommandBase {
@@ -14,7 +14,7 @@ public class TravelCommand extends CommandBase {
     }
 
     public String getCommandUsage(ICommandSender sender) {
-        return null;
+        return "/travel <x> <y> <z> [algo]";
     }
 
     public boolean canCommandSenderUseCommand(ICommandSender sender) {
@@ -24,15 +24,36 @@ public class TravelCommand extends CommandBase {
     public void processCommand(ICommandSender sender, String[] args) {
         if(args.length > 2) {
             BlockPos currentPos = Util.getPlayerBlockPos();
-            Minecraft.getMinecraft().thePlayer.addChatMessage(new ChatComponentText(currentPos.toString()));
+            Util.msg(currentPos.toString());
 
             int x = Integer.parseInt(args[0]);
             int y = Integer.parseInt(args[1]);
             int z = Integer.parseInt(args[2]);
             BlockPos targetPos = new BlockPos(x,y,z);
 
+            // Optional planner name, see PathPlanners
+            PathPlanner planner = null;
+            if(args.length > 3) {
+                planner = PathPlanners.get(args[3]);
+                if(planner == null) {
+                    Util.msg("Unknown algo " + args[3] + ", one of: " + plannerNames());
+                    return;
+                }
+            }
+
             Util.msg("Computing...");
-            Walker.getInstance().walk(currentPos, targetPos, 10000);
+            Walker.getInstance().walk(currentPos, targetPos, 10000, planner);
+        }
+    }
+
+    private static String plannerNames() {
+        StringBuilder names = new StringBuilder();
+        for(PathPlanner planner : PathPlanners.getAll()) {
+            if(names.length() > 0) {
+                names.append(", ");
+            }
+            names.append(planner.getName());
         }
+        return names.toString();
     }
-}
\ No newline at end of file
+}
@@ -1,12 +1,17 @@
 package com.mucifex.pathfinding.internal.pathfind.main;
 
-import net.minecraft.client.Minecraft;
+import com.mucifex.pathfinding.internal.pathfind.main.player.PlayerState;
+import com.mucifex.pathfinding.internal.pathfind.main.world.WorldAccess;
 import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
 import net.minecraftforge.fml.common.gameevent.TickEvent;
 
+import java.util.function.LongSupplier;
+
 public class LookManager {
 
     private static LookManager instance;
+    // Time source for the turn speed, a simulated player swaps in its own clock
+    private static LongSupplier clock = System::currentTimeMillis;
 
     private boolean active;
     double yawTarget;
@@ -23,7 +28,7 @@ public class LookManager {
         this.yawTarget = yaw;
         this.pitchTarget = pitch;
         this.active = true;
-        this.lastUpdate = System.currentTimeMillis();
+        this.lastUpdate = clock.getAsLong();
     }
 
     public void cancel() {
@@ -31,34 +36,45 @@ public class LookManager {
     }
     @SubscribeEvent
     public void onRenderTickEnd(TickEvent.RenderTickEvent event) {
-        if(event.phase == TickEvent.Phase.START || Minecraft.getMinecraft().thePlayer == null || !active)
+        if(event.phase == TickEvent.Phase.START)
             return;
 
+        update();
+    }
+
+    // Turns the player towards the target, called every frame
+    public void update() {
+        PlayerState player = WorldAccess.getPlayer();
+        if(!player.isPresent() || !active)
+            return;
 
-        double yaw = Minecraft.getMinecraft().thePlayer.rotationYaw;
-        double pitch = Minecraft.getMinecraft().thePlayer.rotationPitch;
+
+        double yaw = player.getYaw();
+        double pitch = player.getPitch();
 
         if(Math.abs(yawTarget - yaw) < 1) {
-            Minecraft.getMinecraft().thePlayer.rotationYaw = (float)yawTarget;
-            Minecraft.getMinecraft().thePlayer.rotationPitch = (float)pitchTarget;
+            player.setRotation((float)yawTarget, (float)pitchTarget);
 
             active = false;
         }
 
 
-        long msElapsed = System.currentTimeMillis() - lastUpdate;
+        long msElapsed = clock.getAsLong() - lastUpdate;
 
         double diff = (double)msElapsed/200;
 
 
-        Minecraft.getMinecraft().thePlayer.rotationYaw += (yawTarget - yaw)*diff;
-        Minecraft.getMinecraft().thePlayer.rotationPitch += (pitchTarget - pitch)*diff;
+        player.setRotation(player.getYaw() + (float)((yawTarget - yaw)*diff), player.getPitch() + (float)((pitchTarget - pitch)*diff));
+
 
 
 
+        this.lastUpdate = clock.getAsLong();
 
-        this.lastUpdate = System.currentTimeMillis();
+    }
 
+    public static void setClock(LongSupplier millis) {
+        clock = millis;
     }
 
     public static LookManager getInstance() {
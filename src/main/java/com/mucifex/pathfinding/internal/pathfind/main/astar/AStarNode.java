@@ -1,11 +1,17 @@
 package com.mucifex.pathfinding.internal.pathfind.main.astar;
 
-import net.minecraft.block.*;
-import net.minecraft.client.Minecraft;
+import com.mucifex.pathfinding.internal.pathfind.main.world.ClearanceField;
+import com.mucifex.pathfinding.internal.pathfind.main.world.PassabilityCache;
+import com.mucifex.pathfinding.internal.pathfind.main.world.PassabilitySource;
 import net.minecraft.util.BlockPos;
 import net.minecraft.util.Vec3;
 
 public class AStarNode {
+    static final int MOVE_BLOCKED = 0;
+    static final int MOVE_WALK = 1;
+    static final int MOVE_JUMP = 2;
+    static final int MOVE_FALL = 3;
+
     private double hCost;
     private int gCost;
 
@@ -20,6 +26,12 @@ public class AStarNode {
 
     private boolean isFallNode;
 
+    // Reached by a sprint jump over a gap from the parent, see GapJumps
+    private boolean isGapJump;
+
+    // Position in the object graph search's NodeQueue, -1 when not queued
+    int heapIndex = -1;
+
     public AStarNode(BlockPos pos, AStarNode parentNode, AStarNode endNode) {
         this.x = pos.getX();
         this.y = pos.getY();
@@ -49,6 +61,22 @@ public class AStarNode {
         calculateHeuristic(endNode);
     }
 
+    /**
+     * Rebuilds a node from an already computed search state, without touching the world.
+     * Used by the dense grid search when it hands its result back as a node chain.
+     */
+    AStarNode(int x, int y, int z, AStarNode parent, int gCost, int hCost, boolean jumpNode, boolean fallNode) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.blockPos = new BlockPos(x, y, z);
+        this.parent = parent;
+        this.gCost = gCost;
+        this.hCost = hCost;
+        this.isJumpNode = jumpNode;
+        this.isFallNode = fallNode;
+    }
+
     public AStarNode(BlockPos pos) {
         this.x = pos.getX();
         this.y = pos.getY();
@@ -61,95 +89,90 @@ public class AStarNode {
             if (parent == null) {
                 return false;
             }
-            
-            // Check current position and head space (2 blocks high for player)
-            if (isBlockSolid(blockPos) || isBlockSolid(new BlockPos(x, y+1, z))) {
-                return false;
-            }
-    
-            // Check if we're trying to continue a fall without falling
-            if (parent.isFallNode() && parent.getY() == y) {
+
+            PassabilitySource world = PassabilityCache.getInstance();
+            if (x != parent.getX() && z != parent.getZ() && cutsCorner(world, x, y, z, parent.getX(), parent.getZ())) {
                 return false;
             }
-    
-            // Check if there's solid ground to stand on
-            BlockPos blockBelow = new BlockPos(x, y-1, z);
-            boolean hasSolidGround = isBlockSolid(blockBelow);
-            
-            // If we have solid ground, this is a valid walking position
-            if (hasSolidGround) {
-                return true;
-            }
-    
-            // Handle jumping - player can jump up 1 block
-            if (parent.blockPos.getY()-1 == y-2 && isBlockSolid(new BlockPos(x, y-2, z))) {
+
+            int move = classifyMove(world, x, y, z, parent.getX(), parent.getY(), parent.getZ(), parent.isFallNode());
+            if (move == MOVE_JUMP) {
                 setJumpNode(true);
-                return true;
-            }
-    
-            // Handle falling - continue falling if we're already falling
-            if (parent.isFallNode() && y == parent.getY() - 1) {
-                setFallNode(true);
-                return true;
-            }
-    
-            // Start falling if we're at an edge
-            BlockPos parentBelow = new BlockPos(parent.blockPos.getX(), parent.blockPos.getY() - 1, parent.blockPos.getZ());
-            if (parent.blockPos.getY() == y && isBlockSolid(parentBelow)) {
+            } else if (move == MOVE_FALL) {
                 setFallNode(true);
-                return true;
             }
-    
-            // No valid traversal found
-            return false;
+            return move != MOVE_BLOCKED;
         } catch (Exception e) {
             System.err.println("Error in canBeTraversed: " + e.getMessage());
             return false;
         }
     }
 
-    private boolean isBlockSolid(BlockPos block) {
-        // Cache the block state to avoid multiple lookups
-        net.minecraft.block.state.IBlockState state = Minecraft.getMinecraft().theWorld.getBlockState(block);
-        net.minecraft.block.Block blockType = state.getBlock();
-        
-        // Fast path for air blocks (most common case)
-        if (blockType.getMaterial() == net.minecraft.block.material.Material.air) {
-            return false;
+    /**
+     * Classifies the move from the parent cell (px, py, pz) into the cell (x, y, z).
+     * Shared by the object-graph search and the dense grid search so both walk the same graph.
+     * @return one of MOVE_BLOCKED, MOVE_WALK, MOVE_JUMP or MOVE_FALL
+     */
+    static int classifyMove(PassabilitySource world, int x, int y, int z, int px, int py, int pz, boolean parentFall) {
+        int cell = world.getCell(x, y, z);
+
+        // Check current position and head space (2 blocks high for player)
+        if ((cell & PassabilitySource.CELL_SOLID) != 0 || (cell & PassabilitySource.CELL_HEADROOM) == 0) {
+            return MOVE_BLOCKED;
         }
-        
-        // Fast path for full solid blocks
-        if (blockType.getMaterial().blocksMovement() && !blockType.getMaterial().isLiquid()) {
-            // Check if it's a full cube (most solid blocks)
-            if (blockType.isFullCube()) {
-                return true;
-            }
+
+        // Check if we're trying to continue a fall without falling
+        if (parentFall && py == y) {
+            return MOVE_BLOCKED;
         }
-        
-        // For non-standard blocks, check specific types
-        return blockType.isBlockSolid(Minecraft.getMinecraft().theWorld, block, null) ||
-               blockType instanceof BlockSlab ||
-               blockType instanceof BlockStainedGlass ||
-               blockType instanceof BlockPane ||
-               blockType instanceof BlockFence ||
-               blockType instanceof BlockPistonExtension ||
-               blockType instanceof BlockEnderChest ||
-               blockType instanceof BlockTrapDoor ||
-               blockType instanceof BlockPistonBase ||
-               blockType instanceof BlockChest ||
-               blockType instanceof BlockStairs ||
-               blockType instanceof BlockCactus ||
-               blockType instanceof BlockWall ||
-               blockType instanceof BlockGlass ||
-               blockType instanceof BlockSkull ||
-               blockType instanceof BlockSand;
+
+        // If we have solid ground, this is a valid walking position
+        if ((cell & PassabilitySource.CELL_FLOOR) != 0) {
+            return MOVE_WALK;
+        }
+
+        // Handle jumping - player can jump up 1 block
+        if (py-1 == y-2 && world.hasFloor(x, y-1, z)) {
+            return MOVE_JUMP;
+        }
+
+        // Handle falling - continue falling if we're already falling
+        if (parentFall && y == py - 1) {
+            return MOVE_FALL;
+        }
+
+        // Start falling if we're at an edge
+        if (py == y && world.hasFloor(px, py, pz)) {
+            return MOVE_FALL;
+        }
+
+        // No valid traversal found
+        return MOVE_BLOCKED;
+    }
+
+    /**
+     * A diagonal step from (px, pz) to (x, z) must not clip the corners of the two blocks it passes between,
+     * both need room for the player's feet and head.
+     */
+    static boolean cutsCorner(PassabilitySource world, int x, int y, int z, int px, int pz) {
+        return !isOpen(world, x, y, pz) || !isOpen(world, px, y, z);
     }
+
+    private static boolean isOpen(PassabilitySource world, int x, int y, int z) {
+        int cell = world.getCell(x, y, z);
+        return (cell & PassabilitySource.CELL_SOLID) == 0 && (cell & PassabilitySource.CELL_HEADROOM) != 0;
+    }
+
     private void calculateHeuristic(AStarNode endNode) {
+        this.hCost = heuristic(x, y, z, endNode.getX(), endNode.getY(), endNode.getZ());
+    }
+
+    static int heuristic(int x, int y, int z, int endX, int endY, int endZ) {
         // Use diagonal distance heuristic instead of Manhattan distance
         // This better accounts for the fact that diagonal movement is allowed
-        int dx = Math.abs(endNode.getX() - x);
-        int dy = Math.abs(endNode.getY() - y);
-        int dz = Math.abs(endNode.getZ() - z);
+        int dx = Math.abs(endX - x);
+        int dy = Math.abs(endY - y);
+        int dz = Math.abs(endZ - z);
         
         // Diagonal distance formula: Use the longer of the two horizontal distances 
         // plus a small fraction of the shorter one to encourage diagonal movement
@@ -160,48 +183,64 @@ public class AStarNode {
         int min = Math.min(dx, dz);
         
         // This creates a preference for diagonal paths when they're more direct
-        this.hCost = (straightCost * max) + ((diagonalCost - (2 * straightCost)) * min) + (straightCost * dy);
+        return (straightCost * max) + ((diagonalCost - (2 * straightCost)) * min) + (straightCost * dy);
     }
 
     /**
-     * Checks if there are walls adjacent to this node (horizontally)
-     * @return Number of adjacent wall blocks (0-4)
+     * Octile distance: straight steps cost 10 and diagonal ones 14 like the moves themselves, so it never
+     * overestimates and doesn't favour one of the many equally short diagonal orderings over another.
      */
-    private int countAdjacentWalls() {
-        int wallCount = 0;
-        
-        // Check the four cardinal directions (N, E, S, W)
-        if (isBlockSolid(new BlockPos(x+1, y, z))) wallCount++;
-        if (isBlockSolid(new BlockPos(x-1, y, z))) wallCount++;
-        if (isBlockSolid(new BlockPos(x, y, z+1))) wallCount++;
-        if (isBlockSolid(new BlockPos(x, y, z-1))) wallCount++;
-        
-        return wallCount;
+    static int octileHeuristic(int x, int y, int z, int endX, int endY, int endZ) {
+        int dx = Math.abs(endX - x);
+        int dz = Math.abs(endZ - z);
+        return 10 * Math.max(dx, dz) + 4 * Math.min(dx, dz) + 10 * Math.abs(endY - y);
     }
 
     public void setParent(AStarNode parent) {
         this.parent = parent;
 
-        int xDiff = Math.abs(x - parent.getX());
-        int yDiff = Math.abs(y - parent.getY());
-        int zDiff = Math.abs(z - parent.getZ());
+        // Set the g-cost (movement cost from start to this node)
+        this.gCost = parent.getGCost() + moveCost(PassabilityCache.getInstance(), x, y, z, parent.getX(), parent.getY(), parent.getZ());
+    }
+
+    /**
+     * Cost of stepping from the parent cell (px, py, pz) into (x, y, z), including the wall hugging penalty.
+     */
+    static int moveCost(PassabilitySource world, int x, int y, int z, int px, int py, int pz) {
+        return baseMoveCost(x - px, y - py, z - pz) + wallPenalty(world, x, y, z);
+    }
+
+    /**
+     * 10 a block walked and 14 a diagonal, the time each takes at full sprint, so the same travel time scale as
+     * {@link GapJumps}. Only these horizontal costs and the gap jumps are travel time: a block up or down adds a
+     * flat 10, which the heuristics' vertical term counts on.
+     */
+    static int baseMoveCost(int dx, int dy, int dz) {
+        int xDiff = Math.abs(dx);
+        int yDiff = Math.abs(dy);
+        int zDiff = Math.abs(dz);
 
-        // Calculate base movement cost
-        int baseCost;
         if (xDiff > 0 && zDiff > 0) {
             // Diagonal movement in XZ plane (costs ~1.4 instead of 2)
-            baseCost = 14 + (yDiff * 10);
-        } else {
-            // Straight movement
-            baseCost = (xDiff + yDiff + zDiff) * 10;
+            return 14 + (yDiff * 10);
         }
-        
-        // Apply wall hugging penalty based on adjacent walls
-        // Each wall adds a penalty to discourage wall-hugging behavior
-        int wallPenalty = countAdjacentWalls() * 8; // 8 points per adjacent wall
-        
-        // Set the g-cost (movement cost from start to this node)
-        this.gCost = parent.getGCost() + baseCost + wallPenalty;
+        // Straight movement
+        return (xDiff + yDiff + zDiff) * 10;
+    }
+
+    /**
+     * Penalty for ending up next to walls, to discourage wall-hugging behavior.
+     * Read from the precomputed clearance field, plus the optional open area preference of AStarPathFinder.
+     */
+    static int wallPenalty(PassabilitySource world, int x, int y, int z) {
+        int clearance = world.getClearance(x, y, z);
+        int penalty = ClearanceField.walls(clearance) * 8; // 8 points per adjacent wall
+
+        int preferred = AStarPathFinder.getPreferredClearance();
+        if (preferred > 0) {
+            penalty += Math.max(0, preferred - ClearanceField.distance(clearance)) * AStarPathFinder.getClearancePenalty();
+        }
+        return penalty;
     }
 
     public double getTotalCost() {
@@ -260,6 +299,14 @@ public class AStarNode {
     public boolean isJumpNode() {
         return isJumpNode;
     }
+
+    public void setGapJump(boolean gapJump) {
+        isGapJump = gapJump;
+    }
+
+    public boolean isGapJump() {
+        return isGapJump;
+    }
 }
 
 
@@ -1,5 +1,9 @@
 package com.mucifex.pathfinding.internal.pathfind.main.astar;
 
+import com.mucifex.pathfinding.internal.pathfind.main.world.ClearanceField;
+import com.mucifex.pathfinding.internal.pathfind.main.world.PassabilityCache;
+import com.mucifex.pathfinding.internal.pathfind.main.world.PassabilitySnapshot;
+import com.mucifex.pathfinding.internal.pathfind.main.world.PassabilitySource;
 import net.minecraft.util.BlockPos;
 
 import java.util.*;
@@ -11,13 +15,224 @@ public class AStarPathFinder {
     private static final int MAX_ALLOWED_DISTANCE = 200;
     // Distance threshold for early success detection
     private static final double CLOSE_ENOUGH_DISTANCE = 2.0;
-    
+    // Blocks around the start and goal a parallel search over the live cache takes a snapshot of
+    private static final int PARALLEL_SNAPSHOT_MARGIN = 64;
+
+    public enum SearchMode {
+        // One AStarNode per visited block, tracked in hash maps
+        OBJECT_GRAPH,
+        // Struct-of-arrays grid around the start, see DenseAStarPathFinder
+        DENSE_GRID,
+        // The dense grid with Jump Point Search on flat ground, far fewer expansions in open terrain
+        JUMP_POINT,
+        // Forward from the start and backwards from the goal at once, see BidirectionalPathFinder
+        BIDIRECTIONAL,
+        // Spread over parallelThreads cores, see ParallelPathFinder. With autoParallel on, DENSE_GRID searches
+        // switch to it on their own from parallelThreshold nodes.
+        PARALLEL
+    }
+
+    private static volatile SearchMode searchMode = SearchMode.DENSE_GRID;
+
+    // Optional preference for open areas: extra cost per block a node is closer to a wall than
+    // preferredClearance. 0 keeps only the adjacent wall penalty.
+    private static volatile int preferredClearance = 0;
+    private static volatile int clearancePenalty = 4;
+
+    // Leaves a core for the client and one for the render thread
+    private static volatile int parallelThreads = Math.max(1, Math.min(8, Runtime.getRuntime().availableProcessors() - 2));
+    // Node budget from which a DENSE_GRID search runs in parallel when autoParallel is on, above the 15000 the
+    // long segments of a trip ask for
+    private static volatile int parallelThreshold = 50000;
+    // Off by default, a DENSE_GRID search only goes parallel when asked to
+    private static volatile boolean autoParallel = false;
+
+    // Tighter heuristic from the Landmarks tables for the dense, anytime and parallel searches
+    private static volatile boolean landmarkHeuristic = true;
+
+    public static SearchMode getSearchMode() {
+        return searchMode;
+    }
+
+    public static void setSearchMode(SearchMode mode) {
+        searchMode = mode;
+    }
+
+    public static int getPreferredClearance() {
+        return preferredClearance;
+    }
+
+    public static int getClearancePenalty() {
+        return clearancePenalty;
+    }
+
+    public static int getParallelThreads() {
+        return parallelThreads;
+    }
+
+    public static int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    public static boolean isAutoParallel() {
+        return autoParallel;
+    }
+
+    /**
+     * @param enabled let DENSE_GRID searches of at least getParallelThreshold() nodes run in parallel
+     */
+    public static void setAutoParallel(boolean enabled) {
+        autoParallel = enabled;
+    }
+
+    /**
+     * @param threads cores a parallel search spreads over, 1 keeps every search on one thread
+     * @param threshold node budget from which DENSE_GRID searches run in parallel, with setAutoParallel on
+     */
+    public static void setParallelism(int threads, int threshold) {
+        parallelThreads = Math.max(1, threads);
+        parallelThreshold = Math.max(0, threshold);
+    }
+
+    public static boolean isLandmarkHeuristic() {
+        return landmarkHeuristic;
+    }
+
+    /**
+     * @param enabled build landmark tables around the player and bound the heuristic with them, see Landmarks
+     */
+    public static void setLandmarkHeuristic(boolean enabled) {
+        landmarkHeuristic = enabled;
+        if (!enabled) {
+            Landmarks.getInstance().clear();
+        }
+    }
+
+    /**
+     * @param blocks wall distance paths should keep when they can, up to ClearanceField.MAX_DISTANCE, 0 to disable
+     * @param penaltyPerBlock extra cost for every block closer than that
+     */
+    public static void setClearancePreference(int blocks, int penaltyPerBlock) {
+        preferredClearance = Math.max(0, Math.min(blocks, ClearanceField.MAX_DISTANCE));
+        clearancePenalty = Math.max(0, penaltyPerBlock);
+    }
+
     public static List<AStarNode> compute(BlockPos start, BlockPos end, int depth) {
-        PriorityQueue<AStarNode> openQueue = new PriorityQueue<>(Comparator.comparingDouble(AStarNode::getTotalCost));
+        return compute(start, end, depth, searchMode);
+    }
+
+    /**
+     * Searches with the given mode instead of the configured one, for a single request.
+     */
+    public static List<AStarNode> compute(BlockPos start, BlockPos end, int depth, SearchMode mode) {
+        return plan(start, end, depth, mode).getNodes();
+    }
+
+    /**
+     * Searches over the given source instead of the live world, e.g. a snapshot on a worker thread.
+     * Uses the dense grid search (with jump points in JUMP_POINT mode), the bidirectional or the parallel search, the
+     * object graph nodes read the live cache. Only a snapshot can be searched in parallel.
+     */
+    public static List<AStarNode> compute(BlockPos start, BlockPos end, int depth, PassabilitySource world) {
+        return compute(start, end, depth, world, searchMode);
+    }
+
+    public static List<AStarNode> compute(BlockPos start, BlockPos end, int depth, PassabilitySource world, SearchMode mode) {
+        return plan(start, end, depth, world, mode).getNodes();
+    }
+
+    /**
+     * Like compute over the live world, with the expansions and time the search took, see AStarPlanner.
+     */
+    public static PlannedPath plan(BlockPos start, BlockPos end, int depth, SearchMode mode) {
+        if (mode == SearchMode.OBJECT_GRAPH) {
+            long startTime = System.nanoTime();
+            List<AStarNode> nodes = computeObjectGraph(start, end, depth);
+            return new PlannedPath(nodes, PlannedPath.UNKNOWN_EXPANSIONS, System.nanoTime() - startTime);
+        }
+        if (isParallel(depth, mode)) {
+            // The workers can't share the live cache, they get a snapshot
+            return plan(start, end, depth, PassabilityCache.getInstance().snapshot(start, end, PARALLEL_SNAPSHOT_MARGIN), mode);
+        }
+        return plan(start, end, depth, PassabilityCache.getInstance(), mode);
+    }
+
+    /**
+     * Like compute over the given source, with the expansions and time the search took.
+     */
+    public static PlannedPath plan(BlockPos start, BlockPos end, int depth, PassabilitySource world, SearchMode mode) {
+        long startTime = System.nanoTime();
+        if (mode == SearchMode.BIDIRECTIONAL) {
+            BidirectionalPathFinder search = new BidirectionalPathFinder(start, end, depth, world);
+            List<AStarNode> nodes = search.search();
+            return new PlannedPath(nodes, search.getExpansions(), System.nanoTime() - startTime);
+        }
+        if (world instanceof PassabilitySnapshot && isParallel(depth, mode)) {
+            ParallelPathFinder search = new ParallelPathFinder(start, end, depth, (PassabilitySnapshot) world, parallelThreads);
+            List<AStarNode> nodes = search.search();
+            return new PlannedPath(nodes, search.getExpansions(), System.nanoTime() - startTime);
+        }
+        DenseAStarPathFinder search = new DenseAStarPathFinder(start, end, depth, world, mode == SearchMode.JUMP_POINT);
+        search.advance(Long.MAX_VALUE);
+        return new PlannedPath(search.getResult(), search.getIterations(), System.nanoTime() - startTime);
+    }
+
+    /**
+     * Searches for whichever block of the goal is reached first, see Goal. Several blocks or a box are searched by the
+     * dense grid search (with jump points in JUMP_POINT mode), the only one that can end on any of them.
+     */
+    public static PlannedPath plan(BlockPos start, Goal goal, int depth, PassabilitySource world, SearchMode mode) {
+        if (goal.getPoint() != null) {
+            return plan(start, goal.getPoint(), depth, world, mode);
+        }
+        long startTime = System.nanoTime();
+        DenseAStarPathFinder search = new DenseAStarPathFinder(start, goal, depth, world, mode == SearchMode.JUMP_POINT);
+        search.advance(Long.MAX_VALUE);
+        return new PlannedPath(search.getResult(), search.getIterations(), System.nanoTime() - startTime);
+    }
+
+    /**
+     * Starts a search that is advanced in slices with {@link DenseAStarPathFinder#advance}, reading the live cache.
+     * Lets the client thread plan a long segment a couple of milliseconds per tick.
+     * Only the dense grid can be resumed, the other modes slice a plain dense search.
+     */
+    public static DenseAStarPathFinder startSearch(BlockPos start, BlockPos end, int depth) {
+        return startSearch(start, end, depth, searchMode);
+    }
+
+    public static DenseAStarPathFinder startSearch(BlockPos start, BlockPos end, int depth, SearchMode mode) {
+        return new DenseAStarPathFinder(start, end, depth, PassabilityCache.getInstance(), mode == SearchMode.JUMP_POINT);
+    }
+
+    /**
+     * Starts a sliced search for whichever block of the goal is reached first, see Goal.
+     */
+    public static DenseAStarPathFinder startSearch(BlockPos start, Goal goal, int depth, SearchMode mode) {
+        return new DenseAStarPathFinder(start, goal, depth, PassabilityCache.getInstance(), mode == SearchMode.JUMP_POINT);
+    }
+
+    /**
+     * Starts an anytime search, which publishes a first path quickly and cheaper ones until the deadline, see
+     * AnytimePathFinder. Used whatever the search mode when a request comes with a deadline.
+     * @param deadlineNanos System.nanoTime() value to stop improving the path at
+     */
+    public static AnytimePathFinder startAnytimeSearch(BlockPos start, BlockPos end, int depth, PassabilitySource world, long deadlineNanos) {
+        return new AnytimePathFinder(start, end, depth, world, deadlineNanos);
+    }
+
+    private static boolean isParallel(int depth, SearchMode mode) {
+        return mode == SearchMode.PARALLEL
+                || (mode == SearchMode.DENSE_GRID && autoParallel && parallelThreads > 1 && depth >= parallelThreshold);
+    }
+
+    private static List<AStarNode> computeObjectGraph(BlockPos start, BlockPos end, int depth) {
+        NodeQueue openQueue = new NodeQueue();
         // Using HashSet instead of ArrayList for closed list for O(1) lookups
         Set<BlockPos> closedSet = new HashSet<>();
         // Track best nodes by position for quick replacement
         Map<BlockPos, AStarNode> openSet = new HashMap<>();
+        // Jumps found from the node being expanded, see GapJumps.find
+        int[] gapJumps = new int[GapJumps.MAX_JUMPS * GapJumps.STRIDE];
 
         AStarNode endNode = new AStarNode(end);
         AStarNode startNode = new AStarNode(start, endNode);
@@ -99,7 +314,7 @@ public class AStarPathFinder {
             }
 
             // Process neighbors more efficiently
-            populateNeighbours(openQueue, openSet, closedSet, currentNode, startNode, endNode);
+            populateNeighbours(openQueue, openSet, closedSet, currentNode, startNode, endNode, gapJumps);
         }
 
         // If we've exhausted the depth but didn't reach the target, return best partial path
@@ -107,68 +322,18 @@ public class AStarPathFinder {
         return getPath(bestNode);
     }
 
-    private static void populateNeighbours(PriorityQueue<AStarNode> openQueue, Map<BlockPos, AStarNode> openSet, Set<BlockPos> closedSet, AStarNode current, AStarNode startNode, AStarNode endNode) {
-        List<AStarNode> neighbours = new ArrayList<>();
-        
-        // Cardinal directions (N, E, S, W)
-        neighbours.add(new AStarNode(-1, 0, 0, current, endNode));  // West
-        neighbours.add(new AStarNode(1, 0, 0, current, endNode));   // East
-        neighbours.add(new AStarNode(0, 0, -1, current, endNode));  // North
-        neighbours.add(new AStarNode(0, 0, 1, current, endNode));   // South
-        
-        // Diagonal directions (NE, SE, SW, NW) - Added for more natural movement
-        neighbours.add(new AStarNode(1, 0, -1, current, endNode));  // Northeast
-        neighbours.add(new AStarNode(1, 0, 1, current, endNode));   // Southeast
-        neighbours.add(new AStarNode(-1, 0, 1, current, endNode));  // Southwest
-        neighbours.add(new AStarNode(-1, 0, -1, current, endNode)); // Northwest
-        
-        // Vertical movement
-        neighbours.add(new AStarNode(0, 1, 0, current, endNode));   // Up
-        neighbours.add(new AStarNode(0, -1, 0, current, endNode));  // Down
-        
-        // Calculate vector to end node for prioritizing movement toward target
-        int dx = endNode.getX() - current.getX();
-        int dz = endNode.getZ() - current.getZ();
-        int dy = endNode.getY() - current.getY();
-        
-        // Sort neighbors to prioritize those closer to the target and in open areas
-        Collections.sort(neighbours, (a, b) -> {
-            // Calculate direction vectors for both nodes
-            int axRel = a.getX() - current.getX();
-            int azRel = a.getZ() - current.getZ();
-            int ayRel = a.getY() - current.getY();
-            
-            int bxRel = b.getX() - current.getX();
-            int bzRel = b.getZ() - current.getZ();
-            int byRel = b.getY() - current.getY();
-            
-            // Calculate dot products of movement direction and target direction
-            // Higher values mean the movement is more aligned with the target direction
-            double aDot = (axRel * dx + azRel * dz + ayRel * dy) / 
-                    (Math.sqrt(axRel*axRel + azRel*azRel + ayRel*ayRel) * 
-                     Math.sqrt(dx*dx + dz*dz + dy*dy) + 0.0001); // Add small value to prevent div by zero
-            
-            double bDot = (bxRel * dx + bzRel * dz + byRel * dy) / 
-                    (Math.sqrt(bxRel*bxRel + bzRel*bzRel + byRel*byRel) * 
-                     Math.sqrt(dx*dx + dz*dz + dy*dy) + 0.0001);
-                     
-            // Prioritize nodes that move more directly toward the target
-            if (Math.abs(aDot - bDot) > 0.2) { // Only use direction if significant difference
-                return Double.compare(bDot, aDot); // Higher dot product first
-            }
-            
-            // If direction is similar, fall back to total cost
-            return Double.compare(a.getTotalCost(), b.getTotalCost());
-        });
-
-        for(AStarNode neighbour : neighbours) {
+    private static void populateNeighbours(NodeQueue openQueue, Map<BlockPos, AStarNode> openSet, Set<BlockPos> closedSet, AStarNode current, AStarNode startNode, AStarNode endNode, int[] gapJumps) {
+        // Walk the move table in place, the open queue orders the nodes by total cost anyway
+        for(int m = 0; m < MoveTable.SIZE; m++) {
             // Create BlockPos for the neighbor for faster lookups
-            BlockPos pos = new BlockPos(neighbour.getX(), neighbour.getY(), neighbour.getZ());
+            BlockPos pos = new BlockPos(current.getX() + MoveTable.DX[m], current.getY() + MoveTable.DY[m], current.getZ() + MoveTable.DZ[m]);
             
             // Skip if in closed set (already processed)
             if(closedSet.contains(pos))
                 continue;
 
+            AStarNode neighbour = new AStarNode(MoveTable.DX[m], MoveTable.DY[m], MoveTable.DZ[m], current, endNode);
+
             // Check if traversable before expensive operations
             if(!neighbour.canBeTraversed())
                 continue;
@@ -182,11 +347,57 @@ public class AStarPathFinder {
                 openSet.put(pos, neighbour);
             } else if(neighbour.getGCost() < existingNode.getGCost()) {
                 // Found a better path to this node - update it
-                openQueue.remove(existingNode);
-                openQueue.add(neighbour);
+                openQueue.replace(existingNode, neighbour);
                 openSet.put(pos, neighbour);
             }
         }
+
+        populateGapJumps(openQueue, openSet, closedSet, current, endNode, gapJumps);
+    }
+
+    // Sprint jumps over gaps from a node standing on the floor, see GapJumps
+    private static void populateGapJumps(NodeQueue openQueue, Map<BlockPos, AStarNode> openSet, Set<BlockPos> closedSet, AStarNode current, AStarNode endNode, int[] jumps) {
+        PassabilitySource world = PassabilityCache.getInstance();
+        if (current.isJumpNode() || current.isFallNode() || !world.hasFloor(current.getX(), current.getY(), current.getZ())) {
+            return;
+        }
+
+        // Walked straight in from the block behind, a jump on that way gets a running start
+        AStarNode parent = current.getParent();
+        int runDx = 0;
+        int runDz = 0;
+        if (parent != null && parent.getY() == current.getY()
+                && Math.abs(current.getX() - parent.getX()) + Math.abs(current.getZ() - parent.getZ()) == 1) {
+            runDx = current.getX() - parent.getX();
+            runDz = current.getZ() - parent.getZ();
+        }
+
+        int count = GapJumps.find(world, current.getX(), current.getY(), current.getZ(), runDx, runDz, jumps);
+        for (int j = 0; j < count; j++) {
+            int nx = jumps[j * GapJumps.STRIDE];
+            int ny = jumps[j * GapJumps.STRIDE + 1];
+            int nz = jumps[j * GapJumps.STRIDE + 2];
+            BlockPos pos = new BlockPos(nx, ny, nz);
+            if (closedSet.contains(pos)) {
+                continue;
+            }
+
+            int cost = current.getGCost() + jumps[j * GapJumps.STRIDE + 3] + AStarNode.wallPenalty(world, nx, ny, nz);
+            AStarNode existingNode = openSet.get(pos);
+            if (existingNode != null && cost >= existingNode.getGCost()) {
+                continue;
+            }
+
+            AStarNode neighbour = new AStarNode(nx, ny, nz, current, cost,
+                    AStarNode.heuristic(nx, ny, nz, endNode.getX(), endNode.getY(), endNode.getZ()), false, false);
+            neighbour.setGapJump(true);
+            if (existingNode != null) {
+                openQueue.replace(existingNode, neighbour);
+            } else {
+                openQueue.add(neighbour);
+            }
+            openSet.put(pos, neighbour);
+        }
     }
 
     private static List<AStarNode> getPath(AStarNode currentNode) {
@@ -0,0 +1,51 @@
+package com.mucifex.pathfinding.internal.pathfind.main.astar;
+
+import com.mucifex.pathfinding.internal.pathfind.main.world.PassabilityCache;
+import com.mucifex.pathfinding.internal.pathfind.main.world.PassabilitySource;
+import net.minecraft.util.BlockPos;
+
+/**
+ * The A* searches of {@link AStarPathFinder} as a {@link PathPlanner}, one per search mode.
+ * Without a mode it follows the configured one, which is the default planner.
+ */
+public final class AStarPlanner implements PathPlanner {
+    private final String name;
+    private final AStarPathFinder.SearchMode mode;
+
+    /**
+     * @param mode search mode to use, null for AStarPathFinder.getSearchMode() at the time of the request
+     */
+    public AStarPlanner(String name, AStarPathFinder.SearchMode mode) {
+        this.name = name;
+        this.mode = mode;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the mode searches run in, the configured one for the default planner
+     */
+    public AStarPathFinder.SearchMode getSearchMode() {
+        return mode != null ? mode : AStarPathFinder.getSearchMode();
+    }
+
+    @Override
+    public PlannedPath plan(BlockPos start, BlockPos end, int depth, PassabilitySource world) {
+        if (world == PassabilityCache.getInstance()) {
+            // Lets the object graph and the parallel search pick their own view of the live world
+            return AStarPathFinder.plan(start, end, depth, getSearchMode());
+        }
+        return AStarPathFinder.plan(start, end, depth, world, getSearchMode());
+    }
+
+    @Override
+    public PlannedPath plan(BlockPos start, Goal goal, int depth, PassabilitySource world) {
+        if (goal.getPoint() != null) {
+            return plan(start, goal.getPoint(), depth, world);
+        }
+        return AStarPathFinder.plan(start, goal, depth, world, getSearchMode());
+    }
+}
@@ -0,0 +1,311 @@
+package com.mucifex.pathfinding.internal.pathfind.main.astar;
+
+import com.mucifex.pathfinding.internal.pathfind.main.world.PassabilitySource;
+import net.minecraft.util.BlockPos;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Anytime Repairing A* (ARA*) over the {@link StandableGraph}. The first pass is a weighted A* with an inflated
+ * heuristic, which finds a path in a fraction of the expansions so the player can start walking. Every pass after
+ * that lowers the weight and publishes a cheaper path, down to a plain A* and the shortest one, or until the
+ * deadline passes.
+ *
+ * The passes share one {@link NodeGrid}: costs found earlier are kept, a pass only expands the cells the lower
+ * weight reorders. Cells that got cheaper after being expanded in the current pass wait in the inconsistent list
+ * and are opened again for the next pass, so every pass stays within epsilon of the shortest path.
+ *
+ * Like the bidirectional search, a goal that can't be reached over the graph's moves is handed to the dense search.
+ */
+public class AnytimePathFinder {
+    // Weights are kept in tenths so keys stay integers
+    private static final int EPSILON_SCALE = 10;
+    private static final int INITIAL_EPSILON = 30;
+    private static final int EPSILON_STEP = 5;
+    // How far up or down the start and goal may be moved to land on a standable block
+    private static final int SNAP_RANGE = 3;
+    // Room around the box spanned by the two ends for the search to route around obstacles
+    private static final int SEARCH_MARGIN = 64;
+    // Expansions between clock reads and checks for an interrupted worker
+    private static final int DEADLINE_CHECK_MASK = 63;
+
+    private final StandableGraph graph;
+    private final BlockPos start;
+    private final BlockPos end;
+    private final int depth;
+    private final long deadlineNanos;
+    private final long startCell;
+    private final long goalCell;
+    private final Landmarks.Bound landmarks;
+
+    private NodeGrid grid;
+    private OpenList open;
+    private int goalIndex = NodeGrid.NO_PARENT;
+    // Cells expanded in the current pass, and closed cells that got cheaper since
+    private int[] closed = new int[256];
+    private int closedSize;
+    private int[] inconsistent = new int[64];
+    private int inconsistentSize;
+    private final long[] neighbours = new long[StandableGraph.MAX_SUCCESSORS];
+    private final int[] neighbourCosts = new int[StandableGraph.MAX_SUCCESSORS];
+
+    private int epsilon = INITIAL_EPSILON;
+    private int expansions;
+    // Cost of the published path, and the closest cell to the goal for a partial one
+    private int bestCost = Integer.MAX_VALUE;
+    private int closestIndex = NodeGrid.NO_PARENT;
+    private int closestHeuristic = Integer.MAX_VALUE;
+    private List<AStarNode> result;
+    private boolean done;
+
+    /**
+     * @param deadlineNanos System.nanoTime() value after which no cheaper path is looked for. The first path is
+     *                      searched for until found, within depth expansions, however long that takes.
+     */
+    public AnytimePathFinder(BlockPos start, BlockPos end, int depth, PassabilitySource world, long deadlineNanos) {
+        this.graph = new StandableGraph(world);
+        this.start = start;
+        this.end = end;
+        this.depth = depth;
+        this.deadlineNanos = deadlineNanos;
+        this.startCell = graph.findStandable(start.getX(), start.getY(), start.getZ(), SNAP_RANGE);
+        this.goalCell = graph.findStandable(end.getX(), end.getY(), end.getZ(), SNAP_RANGE);
+        this.landmarks = goalCell == StandableGraph.NO_CELL ? null : Landmarks.getInstance().boundTo(
+                StandableGraph.unpackX(goalCell), StandableGraph.unpackY(goalCell), StandableGraph.unpackZ(goalCell), 0);
+    }
+
+    /**
+     * Runs until a cheaper path is published, the search is done or System.nanoTime() passes the slice deadline,
+     * or the search's own deadline once there is a path.
+     * @return true if {@link #getResult()} holds a path that wasn't there on the last call
+     */
+    public boolean advance(long sliceDeadlineNanos) {
+        if (done) {
+            return false;
+        }
+        if (grid == null && !begin()) {
+            return true;
+        }
+
+        while (true) {
+            if ((expansions & DEADLINE_CHECK_MASK) == 0) {
+                if (Thread.currentThread().isInterrupted()) {
+                    done = true;
+                    return false;
+                }
+                long now = System.nanoTime();
+                if (result != null && now - deadlineNanos >= 0) {
+                    System.out.println("DEBUG: Anytime search stopped at epsilon " + getEpsilon() + ", deadline reached");
+                    done = true;
+                    return false;
+                }
+                if (now - sliceDeadlineNanos >= 0) {
+                    return false;
+                }
+            }
+            if (expansions >= depth) {
+                return outOfExpansions();
+            }
+
+            // A pass ends once nothing open can lead to a cheaper goal at this weight
+            boolean goalSettled = grid.hasFlag(goalIndex, NodeGrid.SEEN)
+                    && (open.isEmpty() || open.peekCost() >= EPSILON_SCALE * grid.getGCost(goalIndex));
+            if (goalSettled) {
+                boolean improved = publish();
+                if (epsilon == EPSILON_SCALE) {
+                    System.out.println("DEBUG: Anytime search reached the shortest path after " + expansions + " expansions");
+                    done = true;
+                    return improved;
+                }
+                epsilon = Math.max(EPSILON_SCALE, epsilon - EPSILON_STEP);
+                reopen();
+                if (improved) {
+                    return true;
+                }
+                continue;
+            }
+            if (open.isEmpty()) {
+                if (result == null) {
+                    System.out.println("DEBUG: Anytime search can't reach the goal over safe moves, using the dense grid");
+                    result = DenseAStarPathFinder.compute(start, end, depth, graph.world);
+                    done = true;
+                    return true;
+                }
+                done = true;
+                return false;
+            }
+            expand(open.poll());
+        }
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    /**
+     * @return the cheapest path found so far, null before the first one
+     */
+    public List<AStarNode> getResult() {
+        return result;
+    }
+
+    /**
+     * @return the weight of the current pass, the published path is at most this times the shortest one
+     */
+    public double getEpsilon() {
+        return epsilon / (double) EPSILON_SCALE;
+    }
+
+    public int getExpansions() {
+        return expansions;
+    }
+
+    // Sets up the grid with the start open, false if the search ended right away
+    private boolean begin() {
+        if (startCell == StandableGraph.NO_CELL || goalCell == StandableGraph.NO_CELL) {
+            System.out.println("DEBUG: No standable start or goal for an anytime search, using the dense grid");
+            result = DenseAStarPathFinder.compute(start, end, depth, graph.world);
+            done = true;
+            return false;
+        }
+
+        int startX = StandableGraph.unpackX(startCell), startZ = StandableGraph.unpackZ(startCell);
+        int centerX = (startX + StandableGraph.unpackX(goalCell)) >> 1;
+        int centerZ = (startZ + StandableGraph.unpackZ(goalCell)) >> 1;
+        int radius = Math.max(Math.abs(startX - centerX), Math.abs(startZ - centerZ)) + 1 + SEARCH_MARGIN;
+        grid = new NodeGrid(centerX, centerZ, radius);
+        open = new OpenList(grid);
+
+        int startIndex = indexOf(startCell);
+        goalIndex = indexOf(goalCell);
+        grid.update(startIndex, 0, NodeGrid.NO_PARENT, (byte) 0);
+        open.insertOrDecrease(startIndex, key(startIndex), heuristic(startIndex));
+        return true;
+    }
+
+    private void expand(int index) {
+        grid.addFlag(index, NodeGrid.CLOSED);
+        closed = push(closed, closedSize++, index);
+        expansions++;
+
+        int x = grid.getX(index), y = grid.getY(index), z = grid.getZ(index);
+        int cost = grid.getGCost(index);
+        int heuristic = heuristic(index);
+        if (heuristic < closestHeuristic) {
+            closestHeuristic = heuristic;
+            closestIndex = index;
+        }
+
+        int count = 0;
+        for (int d = 0; d < StandableGraph.DX.length; d++) {
+            int ny = graph.stepTarget(x, y, z, StandableGraph.DX[d], StandableGraph.DZ[d]);
+            if (ny != StandableGraph.NO_STEP) {
+                neighbourCosts[count] = graph.moveCost(x, y, z, StandableGraph.DX[d], ny, StandableGraph.DZ[d]);
+                neighbours[count++] = StandableGraph.pack(x + StandableGraph.DX[d], ny, z + StandableGraph.DZ[d]);
+            }
+        }
+        int parent = grid.getParent(index);
+        count = graph.findJumps(StandableGraph.pack(x, y, z), parent == NodeGrid.NO_PARENT ? StandableGraph.NO_CELL
+                : StandableGraph.pack(grid.getX(parent), grid.getY(parent), grid.getZ(parent)), neighbours, neighbourCosts, count);
+        for (int i = 0; i < count; i++) {
+            long next = neighbours[i];
+            int nextIndex = indexOf(next);
+            if (nextIndex < 0) {
+                continue;
+            }
+            int nextCost = cost + neighbourCosts[i];
+            if (grid.hasFlag(nextIndex, NodeGrid.SEEN) && grid.getGCost(nextIndex) <= nextCost) {
+                continue;
+            }
+            grid.update(nextIndex, nextCost, index, (byte) 0);
+            if (grid.hasFlag(nextIndex, NodeGrid.CLOSED)) {
+                // Expanded already in this pass, it is opened again with the next one
+                inconsistent = push(inconsistent, inconsistentSize++, nextIndex);
+            } else {
+                open.insertOrDecrease(nextIndex, key(nextIndex), heuristic(nextIndex));
+            }
+        }
+    }
+
+    // Starts the next pass: the open and inconsistent cells are keyed again with the new weight
+    private void reopen() {
+        int[] pending = new int[open.size() + inconsistentSize];
+        int count = 0;
+        while (!open.isEmpty()) {
+            pending[count++] = open.poll();
+        }
+        System.arraycopy(inconsistent, 0, pending, count, inconsistentSize);
+        count += inconsistentSize;
+        inconsistentSize = 0;
+
+        for (int i = 0; i < closedSize; i++) {
+            grid.removeFlag(closed[i], NodeGrid.CLOSED);
+        }
+        closedSize = 0;
+
+        for (int i = 0; i < count; i++) {
+            open.insertOrDecrease(pending[i], key(pending[i]), heuristic(pending[i]));
+        }
+    }
+
+    // Takes the path to the goal as the result if it is cheaper than the last one
+    private boolean publish() {
+        int cost = grid.getGCost(goalIndex);
+        if (cost >= bestCost) {
+            return false;
+        }
+        bestCost = cost;
+        result = toNodes(goalIndex);
+        System.out.println(String.format("DEBUG: Anytime path of cost %d at epsilon %.1f after %d expansions",
+                cost, getEpsilon(), expansions));
+        return true;
+    }
+
+    // Ends the search, with a partial path if no complete one was found yet
+    private boolean outOfExpansions() {
+        done = true;
+        if (result != null) {
+            System.out.println("DEBUG: Anytime search stopped at epsilon " + getEpsilon() + ", out of expansions");
+            return false;
+        }
+        System.out.println("DEBUG: Anytime search found no path in " + expansions + " expansions, returning best partial path");
+        result = closestIndex == NodeGrid.NO_PARENT ? new ArrayList<>() : toNodes(closestIndex);
+        return true;
+    }
+
+    private List<AStarNode> toNodes(int index) {
+        List<Long> cells = new ArrayList<>();
+        for (int i = index; i != NodeGrid.NO_PARENT; i = grid.getParent(i)) {
+            cells.add(StandableGraph.pack(grid.getX(i), grid.getY(i), grid.getZ(i)));
+        }
+        Collections.reverse(cells);
+        return graph.toNodes(cells, goalCell);
+    }
+
+    private int key(int index) {
+        return EPSILON_SCALE * grid.getGCost(index) + epsilon * heuristic(index);
+    }
+
+    private int heuristic(int index) {
+        int x = grid.getX(index), y = grid.getY(index), z = grid.getZ(index);
+        int estimate = AStarNode.octileHeuristic(x, y, z,
+                StandableGraph.unpackX(goalCell), StandableGraph.unpackY(goalCell), StandableGraph.unpackZ(goalCell));
+        return landmarks == null ? estimate : Math.max(estimate, landmarks.lowerBound(x, y, z));
+    }
+
+    private int indexOf(long cell) {
+        return grid.index(StandableGraph.unpackX(cell), StandableGraph.unpackY(cell), StandableGraph.unpackZ(cell));
+    }
+
+    private static int[] push(int[] array, int size, int value) {
+        if (size == array.length) {
+            int[] grown = new int[size * 2];
+            System.arraycopy(array, 0, grown, 0, size);
+            array = grown;
+        }
+        array[size] = value;
+        return array;
+    }
+}
@@ -0,0 +1,246 @@
+package com.mucifex.pathfinding.internal.pathfind.main.astar;
+
+import com.mucifex.pathfinding.internal.pathfind.main.world.PassabilitySource;
+import net.minecraft.util.BlockPos;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Bidirectional A* over the {@link StandableGraph}, one search forward from the start and one backwards from the
+ * goal. The backward search follows the moves into a cell, so a drop the player can take down is never walked
+ * back up. Jumps over gaps always start from a standstill here, the backward side can't tell how the player
+ * reached the takeoff, so both sides see the same cost for them. Both sides use the average of the two heuristics as their potential, which keeps the reduced costs
+ * consistent on both sides, so the search can stop as soon as the two smallest keys add up to the best meeting
+ * cost found so far, and that path is the shortest one.
+ *
+ * Meant for distant goals behind walls, where a one sided search floods everything in front of the wall before
+ * it finds the way around. Both sides keep their cells in a {@link NodeGrid} centred between the two ends, so a
+ * cell has the same index on both sides and meeting is a flag test. If it runs out of expansions it returns the
+ * best complete path seen, or failing that the forward path that got closest to the goal like the other
+ * searches do. When the goal can't be reached over the moves the graph knows, like a drop longer than MAX_DROP,
+ * the dense search is run instead.
+ */
+public class BidirectionalPathFinder {
+    // How far up or down the start and goal may be moved to land on a standable block
+    private static final int SNAP_RANGE = 3;
+    // Room around the box spanned by the two ends for the searches to route around obstacles
+    private static final int SEARCH_MARGIN = 64;
+    // Iterations between checks for an interrupted worker
+    private static final int INTERRUPT_CHECK_MASK = 1023;
+
+    private final StandableGraph graph;
+    private final BlockPos start;
+    private final BlockPos end;
+    private final int depth;
+    private final long startCell;
+    private final long goalCell;
+
+    private Frontier forward;
+    private Frontier backward;
+    private final long[] neighbours = new long[StandableGraph.MAX_PREDECESSORS];
+    private final int[] neighbourCosts = new int[StandableGraph.MAX_PREDECESSORS];
+
+    // Cheapest complete path found so far and the cell index both searches reached it through
+    private int bestMeeting = Integer.MAX_VALUE;
+    private int meetingIndex = NodeGrid.NO_PARENT;
+    // Forward cell closest to the goal, for a partial path
+    private int closestIndex;
+    private int closestHeuristic;
+    private int expansions;
+
+    public BidirectionalPathFinder(BlockPos start, BlockPos end, int depth, PassabilitySource world) {
+        this.graph = new StandableGraph(world);
+        this.start = start;
+        this.end = end;
+        this.depth = depth;
+        this.startCell = graph.findStandable(start.getX(), start.getY(), start.getZ(), SNAP_RANGE);
+        this.goalCell = graph.findStandable(end.getX(), end.getY(), end.getZ(), SNAP_RANGE);
+    }
+
+    public static List<AStarNode> compute(BlockPos start, BlockPos end, int depth, PassabilitySource world) {
+        return new BidirectionalPathFinder(start, end, depth, world).search();
+    }
+
+    /**
+     * Runs the search, it can only be run once.
+     * @return the path in AStarNode form. A start or goal without a standable cell nearby is handed to the dense
+     *         search, which can still get close to it.
+     */
+    public List<AStarNode> search() {
+        if (startCell == StandableGraph.NO_CELL || goalCell == StandableGraph.NO_CELL) {
+            System.out.println("DEBUG: No standable start or goal for a bidirectional search, using the dense grid");
+            return DenseAStarPathFinder.compute(start, end, depth, graph.world);
+        }
+        if (startCell == goalCell) {
+            return graph.toNodes(Collections.singletonList(startCell), goalCell);
+        }
+
+        int startX = StandableGraph.unpackX(startCell), startZ = StandableGraph.unpackZ(startCell);
+        int centerX = (startX + StandableGraph.unpackX(goalCell)) >> 1;
+        int centerZ = (startZ + StandableGraph.unpackZ(goalCell)) >> 1;
+        int radius = Math.max(Math.abs(startX - centerX), Math.abs(startZ - centerZ)) + 1 + SEARCH_MARGIN;
+        forward = new Frontier(false, centerX, centerZ, radius);
+        backward = new Frontier(true, centerX, centerZ, radius);
+
+        int startIndex = forward.indexOf(startCell);
+        closestIndex = startIndex;
+        closestHeuristic = StandableGraph.heuristic(startCell, goalCell);
+        forward.relax(startIndex, startCell, NodeGrid.NO_PARENT, 0);
+        backward.relax(backward.indexOf(goalCell), goalCell, NodeGrid.NO_PARENT, 0);
+
+        boolean cutOff = false;
+        while (expansions < depth) {
+            if ((expansions & INTERRUPT_CHECK_MASK) == 0 && Thread.currentThread().isInterrupted()) {
+                return new ArrayList<>();
+            }
+            if (forward.open.isEmpty() || backward.open.isEmpty()) {
+                // One side ran out of cells, nothing further can meet
+                cutOff = true;
+                break;
+            }
+            // Keys are doubled so the averaged potentials stay integers
+            if (meetingIndex != NodeGrid.NO_PARENT
+                    && (long) forward.open.peekCost() + backward.open.peekCost() >= 2L * bestMeeting) {
+                break;
+            }
+
+            // Expand the side with the smaller frontier, that keeps the two balls about the same size
+            expand(forward.open.size() <= backward.open.size() ? forward : backward);
+        }
+
+        if (meetingIndex != NodeGrid.NO_PARENT) {
+            System.out.println("DEBUG: Bidirectional path found in " + expansions + " expansions");
+            return graph.toNodes(joinAt(meetingIndex), goalCell);
+        }
+        if (cutOff) {
+            System.out.println("DEBUG: Bidirectional search can't reach the goal over safe moves, using the dense grid");
+            return DenseAStarPathFinder.compute(start, end, depth, graph.world);
+        }
+
+        System.out.println("DEBUG: Bidirectional search found no meeting point in " + expansions
+                + " expansions, returning best partial path");
+        if (closestIndex == startIndex) {
+            return new ArrayList<>();
+        }
+        List<Long> cells = forward.chainTo(closestIndex);
+        Collections.reverse(cells);
+        return graph.toNodes(cells, goalCell);
+    }
+
+    public int getExpansions() {
+        return expansions;
+    }
+
+    private void expand(Frontier side) {
+        int index = side.open.poll();
+        side.grid.addFlag(index, NodeGrid.CLOSED);
+        expansions++;
+
+        long cell = side.cellAt(index);
+        int cost = side.grid.getGCost(index);
+        if (!side.reverse) {
+            int heuristic = StandableGraph.heuristic(cell, goalCell);
+            if (heuristic < closestHeuristic) {
+                closestHeuristic = heuristic;
+                closestIndex = index;
+            }
+        }
+
+        int count = side.reverse ? findPredecessors(cell) : findSuccessors(cell);
+        Frontier other = side.reverse ? forward : backward;
+        for (int i = 0; i < count; i++) {
+            long next = neighbours[i];
+            int nextIndex = side.indexOf(next);
+            int nextCost = cost + neighbourCosts[i];
+            if (nextIndex < 0 || !side.relax(nextIndex, next, index, nextCost)) {
+                continue;
+            }
+            if (other.grid.hasFlag(nextIndex, NodeGrid.SEEN)) {
+                int total = nextCost + other.grid.getGCost(nextIndex);
+                if (total < bestMeeting) {
+                    bestMeeting = total;
+                    meetingIndex = nextIndex;
+                }
+            }
+        }
+    }
+
+    private int findSuccessors(long cell) {
+        int x = StandableGraph.unpackX(cell), y = StandableGraph.unpackY(cell), z = StandableGraph.unpackZ(cell);
+        int count = 0;
+        for (int d = 0; d < StandableGraph.DX.length; d++) {
+            int ny = graph.stepTarget(x, y, z, StandableGraph.DX[d], StandableGraph.DZ[d]);
+            if (ny == StandableGraph.NO_STEP) {
+                continue;
+            }
+            neighbours[count] = StandableGraph.pack(x + StandableGraph.DX[d], ny, z + StandableGraph.DZ[d]);
+            neighbourCosts[count++] = graph.moveCost(x, y, z, StandableGraph.DX[d], ny, StandableGraph.DZ[d]);
+        }
+        return graph.findJumps(cell, StandableGraph.NO_CELL, neighbours, neighbourCosts, count);
+    }
+
+    // The cells with a move into the cell, with what that move costs
+    private int findPredecessors(long cell) {
+        int count = graph.findPredecessors(cell, neighbours);
+        int x = StandableGraph.unpackX(cell), y = StandableGraph.unpackY(cell), z = StandableGraph.unpackZ(cell);
+        for (int i = 0; i < count; i++) {
+            long from = neighbours[i];
+            int px = StandableGraph.unpackX(from), py = StandableGraph.unpackY(from), pz = StandableGraph.unpackZ(from);
+            neighbourCosts[i] = graph.moveCost(px, py, pz, x - px, y, z - pz);
+        }
+        return graph.findJumpPredecessors(cell, neighbours, neighbourCosts, count);
+    }
+
+    // Start to the meeting cell along the forward parents, then on to the goal along the backward ones
+    private List<Long> joinAt(int index) {
+        List<Long> cells = forward.chainTo(index);
+        Collections.reverse(cells);
+        List<Long> rest = backward.chainTo(index);
+        cells.addAll(rest.subList(1, rest.size()));
+        return cells;
+    }
+
+    private final class Frontier {
+        final boolean reverse;
+        // Parents point towards the start for the forward search, towards the goal for the backward one
+        final NodeGrid grid;
+        final OpenList open;
+
+        Frontier(boolean reverse, int centerX, int centerZ, int radius) {
+            this.reverse = reverse;
+            this.grid = new NodeGrid(centerX, centerZ, radius);
+            this.open = new OpenList(grid);
+        }
+
+        // Forward keys are 2g + h(goal) - h(start), backward ones 2g + h(start) - h(goal)
+        boolean relax(int index, long cell, int parent, int cost) {
+            if (grid.hasFlag(index, NodeGrid.SEEN) && grid.getGCost(index) <= cost) {
+                return false;
+            }
+            grid.update(index, cost, parent, (byte) 0);
+            int toGoal = StandableGraph.heuristic(cell, goalCell);
+            int toStart = StandableGraph.heuristic(startCell, cell);
+            open.insertOrDecrease(index, 2 * cost + (reverse ? toStart - toGoal : toGoal - toStart), reverse ? toStart : toGoal);
+            return true;
+        }
+
+        int indexOf(long cell) {
+            return grid.index(StandableGraph.unpackX(cell), StandableGraph.unpackY(cell), StandableGraph.unpackZ(cell));
+        }
+
+        long cellAt(int index) {
+            return StandableGraph.pack(grid.getX(index), grid.getY(index), grid.getZ(index));
+        }
+
+        // The cell and its parents up to where this side started
+        List<Long> chainTo(int index) {
+            List<Long> chain = new ArrayList<>();
+            for (int i = index; i != NodeGrid.NO_PARENT; i = grid.getParent(i)) {
+                chain.add(cellAt(i));
+            }
+            return chain;
+        }
+    }
+}
@@ -0,0 +1,594 @@
+package com.mucifex.pathfinding.internal.pathfind.main.astar;
+
+import com.mucifex.pathfinding.internal.pathfind.main.world.ClearanceField;
+import com.mucifex.pathfinding.internal.pathfind.main.world.PassabilityCache;
+import com.mucifex.pathfinding.internal.pathfind.main.world.PassabilitySource;
+import net.minecraft.util.BlockPos;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A* over a {@link NodeGrid} instead of a graph of {@link AStarNode} objects.
+ * Walks the same graph with the same costs and early exits as {@link AStarPathFinder}, but only creates
+ * AStarNodes for the final path, so the result can still be handed to the ProcessorManager.
+ * Only reads the world through the given {@link PassabilitySource}, so it can run on a worker thread over a
+ * snapshot. An interrupted worker stops the search early with an empty result.
+ *
+ * An instance is a resumable search: the open list, grid and best node so far are kept between
+ * {@link #advance} calls, so a caller can spread one search over several ticks.
+ *
+ * With jump points on, flat walking on one floor layer is expanded Jump Point Search style: a walkable cell
+ * (floor below, room for the player) reached along a direction only scans on in that direction until a cell
+ * with a forced neighbour, a step up or drop next to it, or the goal area, and only those cells enter the
+ * open list. Jumps, falls and cells next to height changes are expanded normally. The path is filled back in
+ * cell by cell, so the result has the same shape as a normal search. The pruning assumes every step costs the same,
+ * so cells with a wall penalty and the cells next to them stop a scan and are expanded normally as well: the result
+ * stays the cheapest path, at the price of pruning little in tight caves and mazes where most cells are penalised.
+ *
+ * Standing cells also get sprint jumps over gaps of up to three blocks from {@link GapJumps}, costed by their
+ * flight time on the same scale as walking.
+ *
+ * When the {@link Landmarks} tables cover the goal the heuristic is raised to their lower bound, which knows about
+ * the walls and drops between a cell and the goal.
+ *
+ * The search can also be given a {@link Goal} with several blocks or a box, it stops at the first one it reaches.
+ * The tables only bound the distance to a single block, so only single block goals use them.
+ */
+public class DenseAStarPathFinder {
+    // Maximum number of consecutive non-productive iterations before aborting
+    private static final int MAX_CONSECUTIVE_NON_PRODUCTIVE_ITERATIONS = 1000;
+    // Maximum allowed distance from the start position
+    private static final int MAX_ALLOWED_DISTANCE = 200;
+    // Distance threshold for early success detection
+    private static final double CLOSE_ENOUGH_DISTANCE = 2.0;
+
+    // Cost of the jump up a jump node took, see landmarkBound
+    private static final int JUMP_COST = 10;
+
+    // Iterations between checks for an interrupted worker
+    private static final int INTERRUPT_CHECK_MASK = 1023;
+    // Iterations between clock reads when running against a deadline
+    private static final int DEADLINE_CHECK_MASK = 63;
+
+    private final PassabilitySource world;
+    private final Goal goal;
+    // The block of a single block goal, null for the others
+    private final BlockPos end;
+    private final int depth;
+    private final boolean jumpPoints;
+    // Landmark lower bound towards the goal, null without landmark tables covering it
+    private final Landmarks.Bound landmarks;
+    private final int startX;
+    private final int startY;
+    private final int startZ;
+
+    private final NodeGrid grid;
+    private final OpenList openQueue;
+    private final int startIndex;
+    // Jumps found from the cell being expanded, see GapJumps.find
+    private final int[] gapJumps = new int[GapJumps.MAX_JUMPS * GapJumps.STRIDE];
+
+    private int iteration;
+    // Track consecutive non-productive iterations
+    private int nonProductiveIterations;
+    // Store best node distance to target
+    private double bestDistanceToTarget = Double.MAX_VALUE;
+    private int bestIndex;
+    // Lowest heuristic and highest total cost expanded so far, progress for the early exit when there are landmarks
+    // or several goal blocks
+    private int bestHeuristic = Integer.MAX_VALUE;
+    private int highestCost;
+
+    private List<AStarNode> result;
+
+    public DenseAStarPathFinder(BlockPos start, BlockPos end, int depth, PassabilitySource world) {
+        this(start, end, depth, world, false);
+    }
+
+    /**
+     * @param jumpPoints expand flat ground with Jump Point Search, see the class comment
+     */
+    public DenseAStarPathFinder(BlockPos start, BlockPos end, int depth, PassabilitySource world, boolean jumpPoints) {
+        this(start, Goal.at(end), depth, world, jumpPoints);
+    }
+
+    /**
+     * Searches for the nearest block of the goal, see Goal.
+     */
+    public DenseAStarPathFinder(BlockPos start, Goal goal, int depth, PassabilitySource world, boolean jumpPoints) {
+        this.world = world;
+        this.goal = goal;
+        this.end = goal.getPoint();
+        this.depth = depth;
+        this.jumpPoints = jumpPoints;
+        this.startX = start.getX();
+        this.startY = start.getY();
+        this.startZ = start.getZ();
+        this.landmarks = end == null ? null
+                : Landmarks.getInstance().boundTo(end.getX(), end.getY(), end.getZ(), CLOSE_ENOUGH_DISTANCE);
+
+        // One extra block so neighbours of the furthest allowed node still fit
+        grid = new NodeGrid(startX, startZ, MAX_ALLOWED_DISTANCE + 1);
+        openQueue = new OpenList(grid);
+
+        startIndex = grid.index(startX, startY, startZ);
+        bestIndex = startIndex;
+        if (startIndex < 0) {
+            result = new ArrayList<>();
+            return;
+        }
+        grid.update(startIndex, 0, NodeGrid.NO_PARENT, (byte) 0);
+        int startHeuristic = heuristic(startX, startY, startZ);
+        openQueue.insertOrDecrease(startIndex, startHeuristic, startHeuristic);
+    }
+
+    public static List<AStarNode> compute(BlockPos start, BlockPos end, int depth) {
+        return compute(start, end, depth, PassabilityCache.getInstance());
+    }
+
+    public static List<AStarNode> compute(BlockPos start, BlockPos end, int depth, PassabilitySource world) {
+        return compute(start, end, depth, world, false);
+    }
+
+    public static List<AStarNode> compute(BlockPos start, BlockPos end, int depth, PassabilitySource world, boolean jumpPoints) {
+        DenseAStarPathFinder search = new DenseAStarPathFinder(start, end, depth, world, jumpPoints);
+        search.advance(Long.MAX_VALUE);
+        return search.getResult();
+    }
+
+    /**
+     * Runs the search until it finishes or System.nanoTime() passes the deadline.
+     * @param deadlineNanos System.nanoTime() value to stop at, Long.MAX_VALUE to run to completion
+     * @return true once the search is done and {@link #getResult()} is available
+     */
+    public boolean advance(long deadlineNanos) {
+        boolean timed = deadlineNanos != Long.MAX_VALUE;
+        while (result == null) {
+            if ((iteration & INTERRUPT_CHECK_MASK) == 0 && Thread.currentThread().isInterrupted()) {
+                System.out.println("DEBUG: Search interrupted after " + iteration + " iterations");
+                result = new ArrayList<>();
+                break;
+            }
+            if (timed && (iteration & DEADLINE_CHECK_MASK) == 0 && System.nanoTime() - deadlineNanos >= 0) {
+                return false;
+            }
+            result = step();
+        }
+        return true;
+    }
+
+    public boolean isDone() {
+        return result != null;
+    }
+
+    /**
+     * @return the path, or null while the search is still running
+     */
+    public List<AStarNode> getResult() {
+        return result;
+    }
+
+    public int getIterations() {
+        return iteration;
+    }
+
+    // One iteration of the search, returns the path once it is finished
+    private List<AStarNode> step() {
+        if (iteration >= depth) {
+            // If we've exhausted the depth but didn't reach the target, return best partial path
+            System.out.println("DEBUG: Path depth exceeded, returning best partial path");
+            return getPath(bestIndex);
+        }
+        int i = iteration++;
+
+        if (openQueue.isEmpty()) {
+            // If no path found but we have a best node, return path to it
+            if (bestIndex != startIndex) {
+                System.out.println("DEBUG: No complete path found, returning best partial path");
+                return getPath(bestIndex);
+            }
+            return new ArrayList<>();
+        }
+
+        int current = openQueue.poll();
+        grid.addFlag(current, NodeGrid.CLOSED);
+
+        int x = grid.getX(current);
+        int y = grid.getY(current);
+        int z = grid.getZ(current);
+
+        // Calculate distance to target for early termination check
+        double distanceToTarget = goal.distance(x, y, z);
+
+        // Check if we've reached the target or are close enough
+        if (distanceToTarget == 0) {
+            System.out.println("DEBUG: Path found in " + i + " iterations");
+            return getPath(current);
+        }
+
+        // Early success: if we're close enough to target, consider it a success
+        if (goal.isReached(x, y, z)) {
+            System.out.println("DEBUG: Close enough to target (" + distanceToTarget + " blocks), returning path");
+            return getPath(current);
+        }
+
+        // Update best node if this is closer to target
+        if (distanceToTarget < bestDistanceToTarget) {
+            bestDistanceToTarget = distanceToTarget;
+            bestIndex = current;
+            nonProductiveIterations = 0; // Reset counter as we're making progress
+        } else if ((landmarks != null || end == null) && isHeuristicProgress(grid.getGCost(current), heuristic(x, y, z))) {
+            // Further from the target but closer along the way, or done with every shorter way there
+            nonProductiveIterations = 0;
+        } else {
+            nonProductiveIterations++;
+
+            // Early termination if we've been stuck for too long
+            if (nonProductiveIterations >= MAX_CONSECUTIVE_NON_PRODUCTIVE_ITERATIONS) {
+                System.out.println("DEBUG: Early termination due to lack of progress after " + nonProductiveIterations + " iterations");
+                return getPath(bestIndex);
+            }
+        }
+
+        // Check if we've gone too far from starting position (prevents runaway paths)
+        int distX = x - startX;
+        int distY = y - startY;
+        int distZ = z - startZ;
+        double distanceFromStart = Math.sqrt(distX*distX + distY*distY + distZ*distZ);
+
+        if (distanceFromStart > MAX_ALLOWED_DISTANCE) {
+            System.out.println("DEBUG: Early termination - path exceeds maximum allowed distance");
+            return getPath(bestIndex);
+        }
+
+        if (jumpPoints && isFlatNode(current, x, y, z) && !hasLayerChange(x, y, z) && !hasPenaltyNearby(x, y, z)) {
+            populateJumpPoints(current, x, y, z);
+            // A scan stops at the edge of a drop, but a gap can also be jumped from a little before it
+            populateGapJumps(current, x, y, z);
+        } else {
+            populateNeighbours(current, x, y, z);
+        }
+        return null;
+    }
+
+    private void populateNeighbours(int current, int x, int y, int z) {
+        boolean currentFall = grid.hasFlag(current, NodeGrid.FALL);
+        int currentCost = grid.getGCost(current);
+
+        for (int m = 0; m < MoveTable.SIZE; m++) {
+            int nx = x + MoveTable.DX[m];
+            int ny = y + MoveTable.DY[m];
+            int nz = z + MoveTable.DZ[m];
+
+            int neighbour = grid.index(nx, ny, nz);
+            if (neighbour < 0) {
+                continue;
+            }
+
+            // Skip if in closed set (already processed)
+            byte flags = grid.getFlags(neighbour);
+            if ((flags & NodeGrid.CLOSED) != 0) {
+                continue;
+            }
+
+            int move = AStarNode.classifyMove(world, nx, ny, nz, x, y, z, currentFall);
+            if (move == AStarNode.MOVE_BLOCKED) {
+                continue;
+            }
+            if (MoveTable.KIND[m] == MoveTable.KIND_DIAGONAL && AStarNode.cutsCorner(world, nx, ny, nz, x, z)) {
+                continue;
+            }
+
+            int cost = currentCost + MoveTable.BASE_COST[m] + AStarNode.wallPenalty(world, nx, ny, nz);
+            if ((flags & NodeGrid.SEEN) != 0 && cost >= grid.getGCost(neighbour)) {
+                continue;
+            }
+
+            byte moveFlags = move == AStarNode.MOVE_JUMP ? NodeGrid.JUMP : move == AStarNode.MOVE_FALL ? NodeGrid.FALL : 0;
+            grid.update(neighbour, cost, current, moveFlags);
+
+            // Either a new open cell or a decrease-key on the existing entry
+            int heuristic = heuristic(nx, ny, nz);
+            openQueue.insertOrDecrease(neighbour, cost + heuristic, heuristic);
+        }
+
+        if (!currentFall && !grid.hasFlag(current, NodeGrid.JUMP) && world.hasFloor(x, y, z)) {
+            populateGapJumps(current, x, y, z);
+        }
+    }
+
+    // Sprint jumps over gaps, see GapJumps
+    private void populateGapJumps(int current, int x, int y, int z) {
+        // Walked straight in from the cell behind, a jump on that way gets a running start. A jump point's parent
+        // can be several cells back on the same line
+        int parent = grid.getParent(current);
+        int runDx = 0;
+        int runDz = 0;
+        if (parent != NodeGrid.NO_PARENT && grid.getY(parent) == y
+                && (x == grid.getX(parent)) != (z == grid.getZ(parent))) {
+            runDx = Integer.signum(x - grid.getX(parent));
+            runDz = Integer.signum(z - grid.getZ(parent));
+        }
+
+        int count = GapJumps.find(world, x, y, z, runDx, runDz, gapJumps);
+        for (int j = 0; j < count; j++) {
+            int nx = gapJumps[j * GapJumps.STRIDE];
+            int ny = gapJumps[j * GapJumps.STRIDE + 1];
+            int nz = gapJumps[j * GapJumps.STRIDE + 2];
+            int neighbour = grid.index(nx, ny, nz);
+            if (neighbour < 0) {
+                continue;
+            }
+            byte flags = grid.getFlags(neighbour);
+            if ((flags & NodeGrid.CLOSED) != 0) {
+                continue;
+            }
+
+            int cost = grid.getGCost(current) + gapJumps[j * GapJumps.STRIDE + 3] + AStarNode.wallPenalty(world, nx, ny, nz);
+            if ((flags & NodeGrid.SEEN) != 0 && cost >= grid.getGCost(neighbour)) {
+                continue;
+            }
+            grid.update(neighbour, cost, current, NodeGrid.GAP);
+            int heuristic = heuristic(nx, ny, nz);
+            openQueue.insertOrDecrease(neighbour, cost + heuristic, heuristic);
+        }
+    }
+
+    // Walked onto from the same layer, not mid jump or fall or landed from a gap jump
+    private boolean isFlatNode(int current, int x, int y, int z) {
+        return !grid.hasFlag(current, NodeGrid.JUMP) && !grid.hasFlag(current, NodeGrid.FALL)
+                && !grid.hasFlag(current, NodeGrid.GAP) && isWalkable(x, y, z);
+    }
+
+    private void populateJumpPoints(int current, int x, int y, int z) {
+        int parent = grid.getParent(current);
+        int dx = 0;
+        int dz = 0;
+        if (parent != NodeGrid.NO_PARENT && grid.getY(parent) == y) {
+            dx = Integer.signum(x - grid.getX(parent));
+            dz = Integer.signum(z - grid.getZ(parent));
+        }
+
+        if (dx == 0 && dz == 0) {
+            // No direction to prune with, scan all eight
+            for (int m = 0; m < MoveTable.SIZE; m++) {
+                if (MoveTable.DY[m] == 0) {
+                    jumpFrom(current, x, y, z, MoveTable.DX[m], MoveTable.DZ[m]);
+                }
+            }
+            return;
+        }
+
+        // Natural neighbours for a walk that may not cut corners
+        if (dx != 0 && dz != 0) {
+            boolean sideX = isWalkable(x + dx, y, z);
+            boolean sideZ = isWalkable(x, y, z + dz);
+            if (sideZ) {
+                jumpFrom(current, x, y, z, 0, dz);
+            }
+            if (sideX) {
+                jumpFrom(current, x, y, z, dx, 0);
+            }
+            if (sideX && sideZ) {
+                jumpFrom(current, x, y, z, dx, dz);
+            }
+            return;
+        }
+
+        // Straight: ahead, both sides, and the diagonals ahead when their corners are open
+        int sideX = dz;
+        int sideZ = dx;
+        boolean ahead = isWalkable(x + dx, y, z + dz);
+        boolean left = isWalkable(x + sideX, y, z + sideZ);
+        boolean right = isWalkable(x - sideX, y, z - sideZ);
+        if (ahead) {
+            jumpFrom(current, x, y, z, dx, dz);
+            if (left) {
+                jumpFrom(current, x, y, z, dx + sideX, dz + sideZ);
+            }
+            if (right) {
+                jumpFrom(current, x, y, z, dx - sideX, dz - sideZ);
+            }
+        }
+        if (left) {
+            jumpFrom(current, x, y, z, sideX, sideZ);
+        }
+        if (right) {
+            jumpFrom(current, x, y, z, -sideX, -sideZ);
+        }
+    }
+
+    private void jumpFrom(int current, int x, int y, int z, int dx, int dz) {
+        int steps = jump(x, y, z, dx, dz);
+        if (steps == 0) {
+            return;
+        }
+
+        int jx = x + dx * steps;
+        int jz = z + dz * steps;
+        int target = grid.index(jx, y, jz);
+        byte flags = grid.getFlags(target);
+        if ((flags & NodeGrid.CLOSED) != 0) {
+            return;
+        }
+
+        int cost = grid.getGCost(current) + lineCost(x, y, z, dx, dz, steps);
+        if ((flags & NodeGrid.SEEN) != 0 && cost >= grid.getGCost(target)) {
+            return;
+        }
+        grid.update(target, cost, current, (byte) 0);
+        int heuristic = heuristic(jx, y, jz);
+        openQueue.insertOrDecrease(target, cost + heuristic, heuristic);
+    }
+
+    /**
+     * Scans from (x, z) towards (dx, dz) on the layer.
+     * @return steps to the first jump point, 0 if the scan runs into something without finding one
+     */
+    private int jump(int x, int y, int z, int dx, int dz) {
+        boolean diagonal = dx != 0 && dz != 0;
+        for (int steps = 1; ; steps++) {
+            int cx = x + dx * steps;
+            int cz = z + dz * steps;
+            int px = cx - dx;
+            int pz = cz - dz;
+            if (grid.index(cx, y, cz) < 0 || !isWalkable(cx, y, cz)) {
+                return 0;
+            }
+            if (diagonal && (!isWalkable(cx, y, pz) || !isWalkable(px, y, cz))) {
+                return 0;
+            }
+            if (isJumpTarget(cx, y, cz) || hasLayerChange(cx, y, cz) || hasPenaltyNearby(cx, y, cz)) {
+                return steps;
+            }
+
+            if (diagonal) {
+                if (jump(cx, y, cz, dx, 0) > 0 || jump(cx, y, cz, 0, dz) > 0) {
+                    return steps;
+                }
+            } else if (hasForcedNeighbour(cx, y, cz, dx, dz)) {
+                return steps;
+            }
+        }
+    }
+
+    // Just past the end of an obstacle beside a straight scan, the side opens up and needs a turn
+    private boolean hasForcedNeighbour(int x, int y, int z, int dx, int dz) {
+        int sideX = dz;
+        int sideZ = dx;
+        return (isWalkable(x + sideX, y, z + sideZ) && !isWalkable(x + sideX - dx, y, z + sideZ - dz))
+                || (isWalkable(x - sideX, y, z - sideZ) && !isWalkable(x - sideX - dx, y, z - sideZ - dz));
+    }
+
+    // The goal area or the search limit, the scan has to stop so step() sees the cell
+    private boolean isJumpTarget(int x, int y, int z) {
+        if (goal.isReached(x, y, z)) {
+            return true;
+        }
+        int distX = x - startX;
+        int distY = y - startY;
+        int distZ = z - startZ;
+        return distX*distX + distY*distY + distZ*distZ > MAX_ALLOWED_DISTANCE * MAX_ALLOWED_DISTANCE;
+    }
+
+    /**
+     * True if a neighbour on the layer is a drop or a block that can be stepped onto, the moves that leave
+     * the layer and need the normal expansion.
+     */
+    private boolean hasLayerChange(int x, int y, int z) {
+        boolean canJump = world.hasHeadroom(x, y + 1, z);
+        for (int m = 0; m < MoveTable.SIZE; m++) {
+            if (MoveTable.DY[m] != 0) {
+                continue;
+            }
+            int cell = world.getCell(x + MoveTable.DX[m], y, z + MoveTable.DZ[m]);
+            if ((cell & PassabilitySource.CELL_SOLID) != 0) {
+                if (canJump && world.hasHeadroom(x + MoveTable.DX[m], y + 1, z + MoveTable.DZ[m])
+                        && !world.isSolid(x + MoveTable.DX[m], y + 1, z + MoveTable.DZ[m])) {
+                    return true;
+                }
+            } else if ((cell & PassabilitySource.CELL_HEADROOM) != 0 && (cell & PassabilitySource.CELL_FLOOR) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // The cell or one next to it on the layer may cost more than a plain step, where pruning could skip a cheaper
+    // way. A cell beside a wall is at most 2 from it, one short of the preferred clearance at most that far
+    private boolean hasPenaltyNearby(int x, int y, int z) {
+        int distance = ClearanceField.distance(world.getClearance(x, y, z));
+        return distance <= Math.max(2, AStarPathFinder.getPreferredClearance());
+    }
+
+    // Floor below and room for the player, what a flat walk moves between
+    private boolean isWalkable(int x, int y, int z) {
+        int cell = world.getCell(x, y, z);
+        return (cell & PassabilitySource.CELL_SOLID) == 0
+                && (cell & PassabilitySource.CELL_FLOOR) != 0
+                && (cell & PassabilitySource.CELL_HEADROOM) != 0;
+    }
+
+    // Cost of walking steps cells from (x, z) towards (dx, dz), wall penalties included
+    private int lineCost(int x, int y, int z, int dx, int dz, int steps) {
+        int cost = 0;
+        for (int i = 1; i <= steps; i++) {
+            cost += AStarNode.moveCost(world, x + dx * i, y, z + dz * i, x + dx * (i - 1), y, z + dz * (i - 1));
+        }
+        return cost;
+    }
+
+    private int heuristic(int x, int y, int z) {
+        if (end == null) {
+            return goal.heuristic(x, y, z);
+        }
+        int estimate = jumpPoints
+                ? AStarNode.octileHeuristic(x, y, z, end.getX(), end.getY(), end.getZ())
+                : AStarNode.heuristic(x, y, z, end.getX(), end.getY(), end.getZ());
+        return landmarks == null ? estimate : Math.max(estimate, landmarkBound(x, y, z));
+    }
+
+    // With a landmark bound, or a closest goal block that may not be the one reached, the cells left to expand
+    // before the goal can lie in any direction, the search moves on as long as it gets closer along the way or
+    // works through a costlier layer of cells
+    private boolean isHeuristicProgress(int cost, int heuristic) {
+        boolean progress = heuristic < bestHeuristic || cost + heuristic > highestCost;
+        bestHeuristic = Math.min(bestHeuristic, heuristic);
+        highestCost = Math.max(highestCost, cost + heuristic);
+        return progress;
+    }
+
+    // A jump or fall node goes on through the floor below it, after one jump up at most
+    private int landmarkBound(int x, int y, int z) {
+        if (world.hasFloor(x, y, z)) {
+            return landmarks.lowerBound(x, y, z);
+        }
+        for (int floorY = y - 1; floorY >= 0; floorY--) {
+            if (world.hasFloor(x, floorY, z)) {
+                return Math.max(0, landmarks.lowerBound(x, floorY, z) - JUMP_COST);
+            }
+        }
+        return 0;
+    }
+
+    private List<AStarNode> getPath(int index) {
+        List<Integer> chain = new ArrayList<>();
+        for (int cell = index; cell != NodeGrid.NO_PARENT; cell = grid.getParent(cell)) {
+            chain.add(cell);
+        }
+
+        List<AStarNode> path = new ArrayList<>(chain.size());
+        AStarNode parent = null;
+        for (int i = chain.size() - 1; i >= 0; i--) {
+            int cell = chain.get(i);
+            int x = grid.getX(cell);
+            int y = grid.getY(cell);
+            int z = grid.getZ(cell);
+
+            // Fill in the cells a jump point scan skipped, they are on a straight or diagonal line. A gap jump
+            // flies over its cells
+            boolean gap = grid.hasFlag(cell, NodeGrid.GAP);
+            if (parent != null && !gap && (Math.abs(x - parent.getX()) > 1 || Math.abs(z - parent.getZ()) > 1)) {
+                int dx = Integer.signum(x - parent.getX());
+                int dz = Integer.signum(z - parent.getZ());
+                int steps = Math.max(Math.abs(x - parent.getX()), Math.abs(z - parent.getZ()));
+                for (int s = 1; s < steps; s++) {
+                    int fx = parent.getX() + dx;
+                    int fz = parent.getZ() + dz;
+                    int cost = parent.getGCost() + AStarNode.moveCost(world, fx, y, fz, parent.getX(), y, parent.getZ());
+                    AStarNode filled = new AStarNode(fx, y, fz, parent, cost, heuristic(fx, y, fz), false, false);
+                    path.add(filled);
+                    parent = filled;
+                }
+            }
+
+            AStarNode node = new AStarNode(x, y, z, parent, grid.getGCost(cell), heuristic(x, y, z),
+                    grid.hasFlag(cell, NodeGrid.JUMP), grid.hasFlag(cell, NodeGrid.FALL));
+            node.setGapJump(gap);
+            path.add(node);
+            parent = node;
+        }
+        return path;
+    }
+}
@@ -0,0 +1,193 @@
+package com.mucifex.pathfinding.internal.pathfind.main.astar;
+
+import com.mucifex.pathfinding.internal.pathfind.main.player.MovementPhysics;
+import com.mucifex.pathfinding.internal.pathfind.main.world.PassabilitySource;
+
+/**
+ * Sprint jumps over gaps of up to MAX_GAP blocks, straight along x or z, onto a block one higher, as high or one
+ * lower than the one jumped from. Every block on the way needs room for the player up to two above the takeoff,
+ * and the landing as many blocks of floor after it as the jump carries the player past its edge.
+ *
+ * Costs are travel time like the walking moves, where 10 is the time a block takes at full sprint: the ticks of
+ * the flight from {@link MovementPhysics#sprintJump} plus the ground covered before and after it. A jump in the
+ * direction the player was already walking gets a running start and reaches further than one from a standstill.
+ * A flight is a little faster than sprinting, so no cost goes below the octile distance between the takeoff and the
+ * landing, 10 a block, or the searches' heuristics would overestimate across a jump.
+ *
+ * Jumps found from a cell are written to out as x, y, z and cost of the landing, STRIDE ints each.
+ */
+final class GapJumps {
+    static final int MAX_GAP = 3;
+    static final int MIN_RISE = -1;
+    static final int MAX_RISE = 1;
+    static final int STRIDE = 4;
+    // Most jumps from one cell, out needs STRIDE times as many ints
+    static final int MAX_JUMPS = 4 * MAX_GAP;
+    // Furthest a jump and the floor it needs after the landing reach from the takeoff, for what watches block changes
+    static final int REACH;
+
+    private static final int[] DX = {1, -1, 0, 0};
+    private static final int[] DZ = {0, 0, 1, -1};
+
+    private static final int NO_JUMP = -1;
+    // Travel time cost of a tick, 10 a block at full sprint
+    private static final double COST_PER_TICK = 10 * MovementPhysics.SPRINT_BLOCKS_PER_TICK;
+    // From a block's centre to its edge, the walker jumps about where the takeoff's edge is and comes down with its
+    // centre past the landing's near edge
+    private static final double CENTRE_TO_EDGE = 0.5;
+
+    // [running ? 1 : 0][gap - 1][rise - MIN_RISE]
+    private static final int[][][] COST = new int[2][MAX_GAP][MAX_RISE - MIN_RISE + 1];
+    // Blocks past the landing the player comes down on at the furthest, from a running start
+    private static final int[][] RUNWAY = new int[MAX_GAP][MAX_RISE - MIN_RISE + 1];
+
+    static {
+        int reach = 0;
+        for (int gap = 1; gap <= MAX_GAP; gap++) {
+            for (int rise = MIN_RISE; rise <= MAX_RISE; rise++) {
+                for (int running = 0; running <= 1; running++) {
+                    MovementPhysics.Flight flight = MovementPhysics.sprintJump(running == 1, gap, rise);
+                    COST[running][gap - 1][rise - MIN_RISE] = flight == null ? NO_JUMP : cost(flight, gap, rise);
+                    checkAdmissible(COST[running][gap - 1][rise - MIN_RISE], gap, rise);
+                }
+                MovementPhysics.Flight furthest = MovementPhysics.sprintJump(true, gap, rise);
+                if (furthest != null) {
+                    RUNWAY[gap - 1][rise - MIN_RISE] = Math.max(0, (int) Math.floor(furthest.distance) - gap);
+                    reach = Math.max(reach, gap + 1 + RUNWAY[gap - 1][rise - MIN_RISE]);
+                }
+            }
+        }
+        REACH = reach;
+    }
+
+    private GapJumps() {
+    }
+
+    /**
+     * Finds the jumps from the standable cell (x, y, z).
+     * @param runDx direction the player walked into the cell in, 0 and 0 if it didn't. Only jumps that way get
+     *              a running start
+     * @return how many jumps were written to out
+     */
+    static int find(PassabilitySource world, int x, int y, int z, int runDx, int runDz, int[] out) {
+        return find(world, x, y, z, runDx, runDz, false, out);
+    }
+
+    /**
+     * Finds every jump from the standable cell (x, y, z) as if the player ran up to it, the cheapest and
+     * furthest they get, for the landmark tables' lower bounds.
+     */
+    static int findAll(PassabilitySource world, int x, int y, int z, int[] out) {
+        return find(world, x, y, z, 0, 0, true, out);
+    }
+
+    /**
+     * The cost of the jump from the standable cell (x, y, z) that lands on (lx, ly, lz), for the searches that go
+     * backwards and look for the jumps into a cell.
+     * @param out scratch for the jumps found on the way, MAX_GAP * STRIDE ints
+     * @return the cost, -1 if there is no such jump
+     */
+    static int costInto(PassabilitySource world, int x, int y, int z, int lx, int ly, int lz, boolean running, int[] out) {
+        int dx = Integer.signum(lx - x), dz = Integer.signum(lz - z);
+        int gap = Math.abs(lx - x) + Math.abs(lz - z) - 1;
+        if ((dx != 0 && dz != 0) || gap < 1 || gap > MAX_GAP || world.isSolid(x, y + 2, z)) {
+            return NO_JUMP;
+        }
+        int count = scan(world, x, y, z, dx, dz, running ? 1 : 0, out, 0);
+        for (int j = 0; j < count; j++) {
+            if (out[j * STRIDE] == lx && out[j * STRIDE + 1] == ly && out[j * STRIDE + 2] == lz) {
+                return out[j * STRIDE + 3];
+            }
+        }
+        return NO_JUMP;
+    }
+
+    private static int find(PassabilitySource world, int x, int y, int z, int runDx, int runDz, boolean allRunning,
+                            int[] out) {
+        // The head rises about a block and a quarter
+        if (world.isSolid(x, y + 2, z)) {
+            return 0;
+        }
+
+        int count = 0;
+        for (int d = 0; d < DX.length; d++) {
+            int running = allRunning || (DX[d] == runDx && DZ[d] == runDz) ? 1 : 0;
+            count = scan(world, x, y, z, DX[d], DZ[d], running, out, count);
+        }
+        return count;
+    }
+
+    // The jumps towards (dx, dz), written to out after the count already there
+    private static int scan(PassabilitySource world, int x, int y, int z, int dx, int dz, int running, int[] out,
+                            int count) {
+        // Whether the player can come down a block over the gap, for a landing one lower
+        boolean lowOpen = true;
+
+        for (int gap = 1; gap <= MAX_GAP; gap++) {
+            int gx = x + dx * gap, gz = z + dz * gap;
+            // Ground to walk on ends the gap, a wall ends the jump
+            if (world.hasFloor(gx, y, gz) || !isOpen(world, gx, y, y + 2, gz)) {
+                break;
+            }
+            lowOpen &= !world.isSolid(gx, y - 1, gz);
+
+            int lx = x + dx * (gap + 1), lz = z + dz * (gap + 1);
+            for (int rise = MAX_RISE; rise >= MIN_RISE; rise--) {
+                int cost = COST[running][gap - 1][rise - MIN_RISE];
+                if (cost == NO_JUMP || (rise < 0 && !lowOpen)
+                        || !canLand(world, lx, y + rise, lz, dx, dz, y + 2, RUNWAY[gap - 1][rise - MIN_RISE])) {
+                    continue;
+                }
+                out[count * STRIDE] = lx;
+                out[count * STRIDE + 1] = y + rise;
+                out[count * STRIDE + 2] = lz;
+                out[count * STRIDE + 3] = cost;
+                count++;
+                break;
+            }
+        }
+        return count;
+    }
+
+    // The landing and the runway after it are standable at the landing height, with room up to top for the flight
+    private static boolean canLand(PassabilitySource world, int x, int y, int z, int dx, int dz, int top, int runway) {
+        for (int i = 0; i <= runway; i++) {
+            int cx = x + dx * i, cz = z + dz * i;
+            int cell = world.getCell(cx, y, cz);
+            if ((cell & PassabilitySource.CELL_SOLID) != 0 || (cell & PassabilitySource.CELL_HEADROOM) == 0
+                    || (cell & PassabilitySource.CELL_FLOOR) == 0 || !isOpen(world, cx, y, top, cz)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isOpen(PassabilitySource world, int x, int fromY, int toY, int z) {
+        for (int y = fromY; y <= toY; y++) {
+            if (world.isSolid(x, y, z)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Half a block to the edge, the flight, and what is left to the landing's centre if it comes down short of it,
+    // at least the octile distance
+    private static int cost(MovementPhysics.Flight flight, int gap, int rise) {
+        double ground = CENTRE_TO_EDGE + Math.max(0, gap + CENTRE_TO_EDGE - flight.distance);
+        double ticks = flight.ticks + ground / MovementPhysics.SPRINT_BLOCKS_PER_TICK;
+        return Math.max((int) Math.ceil(ticks * COST_PER_TICK), octileDistance(gap, rise));
+    }
+
+    // What AStarNode.heuristic and octileHeuristic estimate from the takeoff to the landing
+    private static int octileDistance(int gap, int rise) {
+        return Math.max(AStarNode.heuristic(0, 0, 0, gap + 1, rise, 0), AStarNode.octileHeuristic(0, 0, 0, gap + 1, rise, 0));
+    }
+
+    private static void checkAdmissible(int cost, int gap, int rise) {
+        if (cost != NO_JUMP && cost < octileDistance(gap, rise)) {
+            throw new IllegalStateException("Gap jump over " + gap + " rising " + rise + " costs " + cost
+                    + ", less than the heuristic's " + octileDistance(gap, rise));
+        }
+    }
+}
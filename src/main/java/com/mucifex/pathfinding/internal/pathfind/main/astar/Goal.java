@@ -0,0 +1,220 @@
+package com.mucifex.pathfinding.internal.pathfind.main.astar;
+
+import net.minecraft.util.BlockPos;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Where a search may end: a single block, the nearest of a set of blocks, or anywhere inside a box.
+ * A search over a goal stops at the first goal block it reaches, so "the nearest of these 20 spots" is one search
+ * instead of 20.
+ *
+ * The heuristic is the octile distance to the nearest goal block. It is the minimum over per block heuristics that
+ * never overestimate and are consistent, so it is consistent as well.
+ */
+public abstract class Goal {
+    // Same tolerance as the searches' early success around a point goal
+    static final double CLOSE_ENOUGH_DISTANCE = 2.0;
+
+    public static Goal at(BlockPos pos) {
+        return new Point(pos);
+    }
+
+    /**
+     * @param positions at least one block, reaching any one of them ends the search
+     */
+    public static Goal anyOf(Collection<BlockPos> positions) {
+        if (positions.isEmpty()) {
+            throw new IllegalArgumentException("A goal needs at least one position");
+        }
+        return positions.size() == 1 ? new Point(positions.iterator().next()) : new AnyOf(positions);
+    }
+
+    /**
+     * @return a goal reached by standing in any block of the box, the corners in any order and both included
+     */
+    public static Goal region(BlockPos corner, BlockPos otherCorner) {
+        return new Region(corner, otherCorner);
+    }
+
+    /**
+     * @return distance in blocks from the block to the nearest goal block
+     */
+    public abstract double distance(int x, int y, int z);
+
+    /**
+     * @return true if a search standing in the block is done
+     */
+    public abstract boolean isReached(int x, int y, int z);
+
+    /**
+     * @return octile distance to the nearest goal block, in the searches' cost units
+     */
+    public abstract int heuristic(int x, int y, int z);
+
+    /**
+     * @return the goal block closest to the block
+     */
+    public abstract BlockPos nearestTo(int x, int y, int z);
+
+    /**
+     * @return the block of a single block goal, null for the others
+     */
+    public BlockPos getPoint() {
+        return null;
+    }
+
+    private static final class Point extends Goal {
+        private final BlockPos pos;
+
+        Point(BlockPos pos) {
+            this.pos = pos;
+        }
+
+        @Override
+        public double distance(int x, int y, int z) {
+            return Math.sqrt(distanceSq(x, y, z, pos));
+        }
+
+        @Override
+        public boolean isReached(int x, int y, int z) {
+            return distanceSq(x, y, z, pos) <= CLOSE_ENOUGH_DISTANCE * CLOSE_ENOUGH_DISTANCE;
+        }
+
+        @Override
+        public int heuristic(int x, int y, int z) {
+            return AStarNode.octileHeuristic(x, y, z, pos.getX(), pos.getY(), pos.getZ());
+        }
+
+        @Override
+        public BlockPos nearestTo(int x, int y, int z) {
+            return pos;
+        }
+
+        @Override
+        public BlockPos getPoint() {
+            return pos;
+        }
+
+        @Override
+        public String toString() {
+            return pos.getX() + "," + pos.getY() + "," + pos.getZ();
+        }
+    }
+
+    private static final class AnyOf extends Goal {
+        // Flattened x, y, z triples, read once per expanded node
+        private final int[] coords;
+
+        AnyOf(Collection<BlockPos> positions) {
+            List<BlockPos> list = new ArrayList<>(positions);
+            coords = new int[list.size() * 3];
+            for (int i = 0; i < list.size(); i++) {
+                coords[i * 3] = list.get(i).getX();
+                coords[i * 3 + 1] = list.get(i).getY();
+                coords[i * 3 + 2] = list.get(i).getZ();
+            }
+        }
+
+        @Override
+        public double distance(int x, int y, int z) {
+            return Math.sqrt(nearestDistanceSq(x, y, z));
+        }
+
+        @Override
+        public boolean isReached(int x, int y, int z) {
+            return nearestDistanceSq(x, y, z) <= CLOSE_ENOUGH_DISTANCE * CLOSE_ENOUGH_DISTANCE;
+        }
+
+        @Override
+        public int heuristic(int x, int y, int z) {
+            int best = Integer.MAX_VALUE;
+            for (int i = 0; i < coords.length; i += 3) {
+                best = Math.min(best, AStarNode.octileHeuristic(x, y, z, coords[i], coords[i + 1], coords[i + 2]));
+            }
+            return best;
+        }
+
+        @Override
+        public BlockPos nearestTo(int x, int y, int z) {
+            int nearest = 0;
+            long best = Long.MAX_VALUE;
+            for (int i = 0; i < coords.length; i += 3) {
+                long distance = distanceSq(x, y, z, coords[i], coords[i + 1], coords[i + 2]);
+                if (distance < best) {
+                    best = distance;
+                    nearest = i;
+                }
+            }
+            return new BlockPos(coords[nearest], coords[nearest + 1], coords[nearest + 2]);
+        }
+
+        private long nearestDistanceSq(int x, int y, int z) {
+            long best = Long.MAX_VALUE;
+            for (int i = 0; i < coords.length; i += 3) {
+                best = Math.min(best, distanceSq(x, y, z, coords[i], coords[i + 1], coords[i + 2]));
+            }
+            return best;
+        }
+
+        @Override
+        public String toString() {
+            return (coords.length / 3) + " goals";
+        }
+    }
+
+    private static final class Region extends Goal {
+        private final int minX, minY, minZ;
+        private final int maxX, maxY, maxZ;
+
+        Region(BlockPos corner, BlockPos otherCorner) {
+            minX = Math.min(corner.getX(), otherCorner.getX());
+            minY = Math.min(corner.getY(), otherCorner.getY());
+            minZ = Math.min(corner.getZ(), otherCorner.getZ());
+            maxX = Math.max(corner.getX(), otherCorner.getX());
+            maxY = Math.max(corner.getY(), otherCorner.getY());
+            maxZ = Math.max(corner.getZ(), otherCorner.getZ());
+        }
+
+        @Override
+        public double distance(int x, int y, int z) {
+            return Math.sqrt(distanceSq(x, y, z, clamp(x, minX, maxX), clamp(y, minY, maxY), clamp(z, minZ, maxZ)));
+        }
+
+        @Override
+        public boolean isReached(int x, int y, int z) {
+            return x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ;
+        }
+
+        // The octile distance only grows with each axis distance, so the closest block of the box has the lowest
+        @Override
+        public int heuristic(int x, int y, int z) {
+            return AStarNode.octileHeuristic(x, y, z, clamp(x, minX, maxX), clamp(y, minY, maxY), clamp(z, minZ, maxZ));
+        }
+
+        @Override
+        public BlockPos nearestTo(int x, int y, int z) {
+            return new BlockPos(clamp(x, minX, maxX), clamp(y, minY, maxY), clamp(z, minZ, maxZ));
+        }
+
+        @Override
+        public String toString() {
+            return "region " + minX + "," + minY + "," + minZ + " to " + maxX + "," + maxY + "," + maxZ;
+        }
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private static long distanceSq(int x, int y, int z, BlockPos pos) {
+        return distanceSq(x, y, z, pos.getX(), pos.getY(), pos.getZ());
+    }
+
+    private static long distanceSq(int x, int y, int z, int toX, int toY, int toZ) {
+        long dx = x - toX, dy = y - toY, dz = z - toZ;
+        return dx * dx + dy * dy + dz * dz;
+    }
+}
@@ -0,0 +1,436 @@
+package com.mucifex.pathfinding.internal.pathfind.main.astar;
+
+import com.mucifex.pathfinding.internal.pathfind.main.world.ClearanceField;
+import com.mucifex.pathfinding.internal.pathfind.main.world.PassabilityCache;
+import com.mucifex.pathfinding.internal.pathfind.main.world.PassabilitySource;
+import com.mucifex.pathfinding.internal.pathfind.main.world.WorldAccess;
+import net.minecraft.util.BlockPos;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * D* Lite towards one goal. The search runs backwards from the goal over standable cells and is kept between
+ * calls, so when blocks change near the route or the player is pushed off it, {@link #plan} only re-expands the
+ * cells whose cost actually changed instead of searching again from scratch.
+ *
+ * Walks the moves of the {@link StandableGraph}, with jumps over gaps from a standstill since the search can't
+ * tell how the player will reach a takeoff. The path comes back in the AStarNode shape the
+ * ProcessorManager expects.
+ *
+ * Only touch this from the client thread, it reads the live {@link PassabilityCache}.
+ */
+public class IncrementalPathFinder {
+    private static final int INFINITE = Integer.MAX_VALUE / 4;
+    // How far up or down the start and goal may be moved to land on a standable block
+    private static final int SNAP_RANGE = 3;
+    // Changed boxes with more cells than this only update the cells already searched instead of every cell
+    private static final int MAX_REPAIR_VOLUME = 32768;
+    // Expansions between clock reads when running against a deadline
+    private static final int DEADLINE_CHECK_MASK = 63;
+
+    private final StandableGraph graph;
+    private final BlockPos goal;
+    private final int maxExpansions;
+
+    private final Map<Long, State> states = new HashMap<>();
+    private final PriorityQueue<Entry> open = new PriorityQueue<>();
+    private final List<int[]> pendingChanges = new ArrayList<>();
+    private final long[] predecessors = new long[StandableGraph.MAX_PREDECESSORS];
+    private final int[] predecessorCosts = new int[StandableGraph.MAX_PREDECESSORS];
+    private final long[] successors = new long[StandableGraph.MAX_SUCCESSORS];
+    private final int[] successorCosts = new int[StandableGraph.MAX_SUCCESSORS];
+
+    // The BlockAccess world the search tree belongs to
+    private Object worldIdentity;
+    private long goalCell = StandableGraph.NO_CELL;
+    private long lastStart = StandableGraph.NO_CELL;
+    // Heuristic offset for a start that moved since the keys in the open list were computed
+    private long km;
+    // Expansions since the tree was last consistent, the search gives up past maxExpansions
+    private int expansions;
+    private int totalExpansions;
+    private boolean exhausted;
+
+    // Bounds of the cells the search has touched, changes outside them can't affect it
+    private int minX = Integer.MAX_VALUE;
+    private int minY = Integer.MAX_VALUE;
+    private int minZ = Integer.MAX_VALUE;
+    private int maxX = Integer.MIN_VALUE;
+    private int maxY = Integer.MIN_VALUE;
+    private int maxZ = Integer.MIN_VALUE;
+
+    public IncrementalPathFinder(BlockPos goal, int maxExpansions) {
+        this(goal, maxExpansions, PassabilityCache.getInstance());
+    }
+
+    public IncrementalPathFinder(BlockPos goal, int maxExpansions, PassabilitySource world) {
+        this.goal = goal;
+        this.maxExpansions = maxExpansions;
+        this.graph = new StandableGraph(world);
+    }
+
+    public BlockPos getGoal() {
+        return goal;
+    }
+
+    /**
+     * @return expansions of the search since it was created, repairs included
+     */
+    public int getTotalExpansions() {
+        return totalExpansions;
+    }
+
+    /**
+     * Marks the blocks in the box as changed, the search repairs around them on the next call.
+     */
+    public void blocksChanged(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        // Blocks of one fill or explosion arrive one by one, merge them while the repaired areas would overlap
+        int[] last = pendingChanges.isEmpty() ? null : pendingChanges.get(pendingChanges.size() - 1);
+        int reach = ClearanceField.MAX_DISTANCE;
+        if (last != null && minX <= last[3] + reach && maxX >= last[0] - reach && minY <= last[4] + reach
+                && maxY >= last[1] - reach && minZ <= last[5] + reach && maxZ >= last[2] - reach) {
+            last[0] = Math.min(last[0], minX);
+            last[1] = Math.min(last[1], minY);
+            last[2] = Math.min(last[2], minZ);
+            last[3] = Math.max(last[3], maxX);
+            last[4] = Math.max(last[4], maxY);
+            last[5] = Math.max(last[5], maxZ);
+            return;
+        }
+        pendingChanges.add(new int[]{minX, minY, minZ, maxX, maxY, maxZ});
+    }
+
+    /**
+     * Brings the search up to date for the start within the deadline, see {@link #plan}.
+     * @return true if the search is consistent for the start and a path can be read off it
+     */
+    public boolean advance(BlockPos start, long deadline) {
+        checkWorld();
+        if (exhausted) {
+            return false;
+        }
+
+        long startCell = graph.findStandable(start.getX(), start.getY(), start.getZ(), SNAP_RANGE);
+        if (startCell == StandableGraph.NO_CELL) {
+            return false;
+        }
+        if (goalCell == StandableGraph.NO_CELL) {
+            goalCell = graph.findStandable(goal.getX(), goal.getY(), goal.getZ(), SNAP_RANGE);
+            if (goalCell == StandableGraph.NO_CELL) {
+                return false;
+            }
+            State goalState = state(goalCell);
+            goalState.rhs = 0;
+            enqueue(goalCell, goalState, startCell);
+        }
+
+        if (lastStart != StandableGraph.NO_CELL && lastStart != startCell) {
+            km += StandableGraph.heuristic(lastStart, startCell);
+        }
+        lastStart = startCell;
+
+        applyChanges(startCell);
+        return computeShortestPath(startCell, deadline);
+    }
+
+    /**
+     * Repairs the search for the start and reads the path off it.
+     * @return the path from the start to the goal in AStarNode form, empty if the goal can't be reached
+     *         within maxExpansions
+     */
+    public List<AStarNode> plan(BlockPos start) {
+        long startTime = System.nanoTime();
+        int before = totalExpansions;
+        if (!advance(start, Long.MAX_VALUE)) {
+            System.out.println("DEBUG: Incremental search found no path to " + goal
+                    + (exhausted ? " within " + maxExpansions + " expansions" : ""));
+            return new ArrayList<>();
+        }
+
+        List<AStarNode> path = extractPath(lastStart);
+        System.out.println(String.format("DEBUG: Incremental path of %d nodes in %.3f ms, %d expansions, %d cells kept",
+                path.size(), (System.nanoTime() - startTime) / 1e6, totalExpansions - before, states.size()));
+        return path;
+    }
+
+    /**
+     * Throws the search tree away, the next call searches from scratch.
+     */
+    public void reset() {
+        states.clear();
+        open.clear();
+        pendingChanges.clear();
+        goalCell = StandableGraph.NO_CELL;
+        lastStart = StandableGraph.NO_CELL;
+        km = 0;
+        expansions = 0;
+        exhausted = false;
+        minX = minY = minZ = Integer.MAX_VALUE;
+        maxX = maxY = maxZ = Integer.MIN_VALUE;
+    }
+
+    private void checkWorld() {
+        Object current = WorldAccess.getBlocks().getWorld();
+        if (current != worldIdentity) {
+            reset();
+            worldIdentity = current;
+        }
+    }
+
+    private boolean computeShortestPath(long startCell, long deadline) {
+        State start = state(startCell);
+        while (true) {
+            Entry top = peek();
+            if (top == null) {
+                if (start.rhs >= INFINITE) {
+                    exhausted = true;
+                }
+                break;
+            }
+            long startKey1 = Math.min(start.g, start.rhs) + km;
+            long startKey2 = Math.min(start.g, start.rhs);
+            if (compare(top.key1, top.key2, startKey1, startKey2) >= 0 && start.rhs == start.g) {
+                break;
+            }
+            if (expansions >= maxExpansions) {
+                exhausted = true;
+                return false;
+            }
+            if ((expansions & DEADLINE_CHECK_MASK) == 0 && System.nanoTime() > deadline) {
+                return false;
+            }
+
+            open.poll();
+            long cell = top.cell;
+            State u = states.get(cell);
+            long key1 = Math.min(u.g, u.rhs) + StandableGraph.heuristic(startCell, cell) + km;
+            long key2 = Math.min(u.g, u.rhs);
+            if (compare(top.key1, top.key2, key1, key2) < 0) {
+                // The start moved since this key was computed
+                enqueue(cell, u, startCell);
+                continue;
+            }
+
+            u.queued = false;
+            expansions++;
+            totalExpansions++;
+            int count = graph.findPredecessors(cell, predecessors);
+            count = graph.findJumpPredecessors(cell, predecessors, predecessorCosts, count);
+            if (u.g > u.rhs) {
+                u.g = u.rhs;
+            } else {
+                u.g = INFINITE;
+                updateVertex(cell, startCell);
+            }
+            for (int i = 0; i < count; i++) {
+                updateVertex(predecessors[i], startCell);
+            }
+        }
+
+        if (start.rhs >= INFINITE) {
+            return false;
+        }
+        expansions = 0;
+        return start.g == start.rhs;
+    }
+
+    private void updateVertex(long cell, long startCell) {
+        State s = states.get(cell);
+        if (s == null) {
+            if (!graph.isStandable(StandableGraph.unpackX(cell), StandableGraph.unpackY(cell), StandableGraph.unpackZ(cell))) {
+                return;
+            }
+            s = state(cell);
+        }
+        if (cell != goalCell) {
+            s.rhs = bestSuccessorCost(cell);
+        }
+        s.queued = false;
+        if (s.g != s.rhs) {
+            enqueue(cell, s, startCell);
+        }
+    }
+
+    private void enqueue(long cell, State s, long startCell) {
+        long key2 = Math.min(s.g, s.rhs);
+        s.key1 = key2 + StandableGraph.heuristic(startCell, cell) + km;
+        s.key2 = key2;
+        s.queued = true;
+        open.add(new Entry(s.key1, s.key2, cell));
+    }
+
+    // The top of the open list, dropping entries that were updated or removed since they were added
+    private Entry peek() {
+        Entry top;
+        while ((top = open.peek()) != null) {
+            State s = states.get(top.cell);
+            if (s != null && s.queued && s.key1 == top.key1 && s.key2 == top.key2) {
+                return top;
+            }
+            open.poll();
+        }
+        return null;
+    }
+
+    // Recomputes the cells whose moves can read a changed block: the wall penalty reaches MAX_DISTANCE blocks
+    // sideways from where a move ends, a jump ends MAX_GAP + 1 blocks away and reads up to REACH blocks ahead,
+    // a drop reads MAX_DROP blocks down and a step up two blocks above the cell
+    private void applyChanges(long startCell) {
+        if (pendingChanges.isEmpty()) {
+            return;
+        }
+        int reach = Math.max(ClearanceField.MAX_DISTANCE + GapJumps.MAX_GAP + 1, GapJumps.REACH);
+        for (int[] box : pendingChanges) {
+            int x1 = box[0] - reach, y1 = Math.max(0, box[1] - 3), z1 = box[2] - reach;
+            int x2 = box[3] + reach, y2 = Math.min(255, box[4] + StandableGraph.MAX_DROP + 2), z2 = box[5] + reach;
+            if (x2 < minX || x1 > maxX || y2 < minY || y1 > maxY || z2 < minZ || z1 > maxZ) {
+                continue;
+            }
+
+            long volume = (long) (x2 - x1 + 1) * (y2 - y1 + 1) * (z2 - z1 + 1);
+            if (volume <= MAX_REPAIR_VOLUME) {
+                for (int x = x1; x <= x2; x++) {
+                    for (int y = y1; y <= y2; y++) {
+                        for (int z = z1; z <= z2; z++) {
+                            updateVertex(StandableGraph.pack(x, y, z), startCell);
+                        }
+                    }
+                }
+            } else {
+                // A whole chunk or more: cells the search never reached are picked up again through their
+                // neighbours once those change
+                for (Long cell : new ArrayList<>(states.keySet())) {
+                    int x = StandableGraph.unpackX(cell), y = StandableGraph.unpackY(cell), z = StandableGraph.unpackZ(cell);
+                    if (x >= x1 && x <= x2 && y >= y1 && y <= y2 && z >= z1 && z <= z2) {
+                        updateVertex(cell, startCell);
+                    }
+                }
+            }
+        }
+        pendingChanges.clear();
+        // Changed costs can open up a path the search had given up on
+        exhausted = false;
+    }
+
+    // Cheapest move from the cell plus the distance to the goal from where it ends
+    private int bestSuccessorCost(long cell) {
+        int x = StandableGraph.unpackX(cell), y = StandableGraph.unpackY(cell), z = StandableGraph.unpackZ(cell);
+        if (!graph.isStandable(x, y, z)) {
+            return INFINITE;
+        }
+        int best = INFINITE;
+        for (int d = 0; d < StandableGraph.DX.length; d++) {
+            int ny = graph.stepTarget(x, y, z, StandableGraph.DX[d], StandableGraph.DZ[d]);
+            if (ny == StandableGraph.NO_STEP) {
+                continue;
+            }
+            State next = states.get(StandableGraph.pack(x + StandableGraph.DX[d], ny, z + StandableGraph.DZ[d]));
+            if (next == null || next.g >= INFINITE) {
+                continue;
+            }
+            best = Math.min(best, next.g + graph.moveCost(x, y, z, StandableGraph.DX[d], ny, StandableGraph.DZ[d]));
+        }
+        int jumps = graph.findJumps(cell, StandableGraph.NO_CELL, successors, successorCosts, 0);
+        for (int i = 0; i < jumps; i++) {
+            State next = states.get(successors[i]);
+            if (next != null && next.g < INFINITE) {
+                best = Math.min(best, next.g + successorCosts[i]);
+            }
+        }
+        return best;
+    }
+
+    // Follows the cheapest move at every cell, a consistent tree always leads downhill to the goal
+    private List<AStarNode> extractPath(long startCell) {
+        List<Long> cells = new ArrayList<>();
+        cells.add(startCell);
+        long cell = startCell;
+        // The limit only guards against a broken tree
+        for (int steps = 0; cell != goalCell && steps < states.size(); steps++) {
+            int x = StandableGraph.unpackX(cell), y = StandableGraph.unpackY(cell), z = StandableGraph.unpackZ(cell);
+            long best = StandableGraph.NO_CELL;
+            int bestCost = INFINITE;
+            for (int d = 0; d < StandableGraph.DX.length; d++) {
+                int ny = graph.stepTarget(x, y, z, StandableGraph.DX[d], StandableGraph.DZ[d]);
+                if (ny == StandableGraph.NO_STEP) {
+                    continue;
+                }
+                long next = StandableGraph.pack(x + StandableGraph.DX[d], ny, z + StandableGraph.DZ[d]);
+                State state = states.get(next);
+                if (state == null || state.g >= INFINITE) {
+                    continue;
+                }
+                int cost = state.g + graph.moveCost(x, y, z, StandableGraph.DX[d], ny, StandableGraph.DZ[d]);
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    best = next;
+                }
+            }
+            int jumps = graph.findJumps(cell, StandableGraph.NO_CELL, successors, successorCosts, 0);
+            for (int i = 0; i < jumps; i++) {
+                State state = states.get(successors[i]);
+                if (state != null && state.g < INFINITE && state.g + successorCosts[i] < bestCost) {
+                    bestCost = state.g + successorCosts[i];
+                    best = successors[i];
+                }
+            }
+            if (best == StandableGraph.NO_CELL) {
+                System.out.println("DEBUG: Incremental search tree is broken at " + x + ", " + y + ", " + z);
+                return new ArrayList<>();
+            }
+            cells.add(best);
+            cell = best;
+        }
+        return cell == goalCell ? graph.toNodes(cells, goalCell) : new ArrayList<AStarNode>();
+    }
+
+    private State state(long cell) {
+        State s = states.get(cell);
+        if (s == null) {
+            s = new State();
+            states.put(cell, s);
+            int x = StandableGraph.unpackX(cell), y = StandableGraph.unpackY(cell), z = StandableGraph.unpackZ(cell);
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            minZ = Math.min(minZ, z);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+            maxZ = Math.max(maxZ, z);
+        }
+        return s;
+    }
+
+    private static int compare(long a1, long a2, long b1, long b2) {
+        return a1 != b1 ? Long.compare(a1, b1) : Long.compare(a2, b2);
+    }
+
+    // g is the distance to the goal as last expanded, rhs the one-step lookahead from the successors
+    private static final class State {
+        int g = INFINITE;
+        int rhs = INFINITE;
+        long key1;
+        long key2;
+        boolean queued;
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+        final long key1;
+        final long key2;
+        final long cell;
+
+        Entry(long key1, long key2, long cell) {
+            this.key1 = key1;
+            this.key2 = key2;
+            this.cell = cell;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return compare(key1, key2, other.key1, other.key2);
+        }
+    }
+}
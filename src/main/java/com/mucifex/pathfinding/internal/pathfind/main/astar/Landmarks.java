@@ -0,0 +1,790 @@
+package com.mucifex.pathfinding.internal.pathfind.main.astar;
+
+import com.mucifex.pathfinding.internal.pathfind.main.world.PassabilityCache;
+import com.mucifex.pathfinding.internal.pathfind.main.world.PassabilitySnapshot;
+import com.mucifex.pathfinding.internal.pathfind.main.world.PassabilitySource;
+import com.mucifex.pathfinding.internal.pathfind.main.world.WorldAccess;
+import net.minecraft.util.BlockPos;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Landmark (ALT) lower bounds for the search heuristic. A handful of landmark cells are picked far apart in the
+ * terrain around the player, and the exact cost from each of them to every cell it reaches and back is worked out
+ * in the background. By the triangle inequality a cell is at least d(L, goal) - d(L, cell) and
+ * d(cell, L) - d(goal, L) away from the goal for every landmark L, which counts the walls, cliffs and water a
+ * straight line heuristic walks through.
+ *
+ * The tables are over the {@link StandableGraph} with drops of any height, the {@link GapJumps} at their running
+ * start cost and without the wall penalty. Every move a search makes costs at least as much, so the bound stays
+ * admissible for the dense search as well as the ones over the graph. Cells outside the tables get no bound and the
+ * search uses its own heuristic there. The tables only see paths that stay inside their area, so they also keep the
+ * cost from every cell to the edge of the area and from the edge back, and a path that goes out and comes back in is
+ * at least those two.
+ *
+ * The tables follow the world through the PassabilityCache's change listener. A change that only adds moves, like
+ * a chunk loading or a block being mined, lowers the distances in place starting from the moves around it. When a
+ * move went away every table is worked out again for the same landmarks, and when the player leaves the area new
+ * landmarks are picked around them.
+ */
+public class Landmarks implements PassabilityCache.ChangeListener {
+    private static Landmarks instance;
+
+    // Every landmark costs two table reads per heuristic call
+    private static final int LANDMARK_COUNT = 8;
+    // Blocks around the player the tables cover, about as far as a client keeps chunks loaded
+    private static final int AREA_RADIUS = 128;
+    // Blocks around the centre the tables read, a gap jump landing inside the area needs floor past its edge
+    private static final int WORLD_RADIUS = AREA_RADIUS + GapJumps.REACH;
+    // Furthest a move goes along x or z, a path out of the area leaves and comes back in from this close to the edge
+    private static final int EDGE_WIDTH = GapJumps.MAX_GAP + 1;
+    // How far the player may get from the centre before the tables are built around them again
+    private static final int RECENTER_DISTANCE = 48;
+    // Ticks between table jobs, chunks load in bursts and one update takes in all of them
+    private static final int UPDATE_INTERVAL_TICKS = 20;
+    // The dense search falls from any height
+    private static final int MAX_DROP = 255;
+    // How far up or down the player and goal may be moved to land on a standable block
+    private static final int SNAP_RANGE = 3;
+    // A block change can affect the moves of cells this far below it, and of any cell above that can drop past it
+    private static final int CHANGE_REACH_BELOW = 3;
+
+    static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private volatile Table table;
+    // Bumped when the world changes, so a job still running for the old one doesn't publish its tables
+    private volatile int generation;
+    private ExecutorService executor;
+
+    // Only touched on the client thread
+    private Object world;
+    private Future<?> job;
+    private int idleTicks = UPDATE_INTERVAL_TICKS;
+    // Centre of the current or pending tables, changes outside their area are ignored
+    private boolean hasArea;
+    private int areaX;
+    private int areaZ;
+    // Blocks changed since the snapshot of the current or pending tables
+    private boolean dirty;
+    private int dirtyMinX, dirtyMinY, dirtyMinZ, dirtyMaxX, dirtyMaxY, dirtyMaxZ;
+
+    public Landmarks() {
+        instance = this;
+        PassabilityCache.getInstance().addChangeListener(this);
+    }
+
+    public static Landmarks getInstance() {
+        if (instance == null) {
+            instance = new Landmarks();
+        }
+        return instance;
+    }
+
+    /**
+     * Starts building or updating the tables when that is due, called every client tick of a walk with the player's
+     * block. Changes made in between are taken in on the next tick.
+     */
+    public void tick(BlockPos player) {
+        if (!AStarPathFinder.isLandmarkHeuristic()) {
+            return;
+        }
+        Object current = WorldAccess.getBlocks().getWorld();
+        if (current != world) {
+            // Nothing in the tables applies to another world
+            world = current;
+            generation++;
+            table = null;
+            hasArea = false;
+            dirty = false;
+        }
+        if (current == null || (job != null && !job.isDone()) || ++idleTicks < UPDATE_INTERVAL_TICKS) {
+            return;
+        }
+
+        int jobGeneration = generation;
+        Table last = table;
+        boolean moved = !hasArea || Math.max(Math.abs(player.getX() - areaX), Math.abs(player.getZ() - areaZ)) > RECENTER_DISTANCE;
+        if (moved || last == null || !(last.source instanceof PassabilitySnapshot)) {
+            int x = player.getX(), y = player.getY(), z = player.getZ();
+            PassabilitySnapshot area = PassabilityCache.getInstance().snapshot(player, player, WORLD_RADIUS);
+            schedule(() -> publish(build(area, x, y, z), jobGeneration));
+            hasArea = true;
+            areaX = x;
+            areaZ = z;
+        } else if (dirty) {
+            int minX = dirtyMinX, minY = dirtyMinY, minZ = dirtyMinZ, maxX = dirtyMaxX, maxY = dirtyMaxY, maxZ = dirtyMaxZ;
+            // Only the sections that changed are captured again, the job that built the tables is done reading the rest
+            PassabilitySnapshot area = PassabilityCache.getInstance().refresh((PassabilitySnapshot) last.source,
+                    minX, minY, minZ, maxX, maxY, maxZ);
+            schedule(() -> publish(update(last, area, minX, minY, minZ, maxX, maxY, maxZ), jobGeneration));
+        } else {
+            return;
+        }
+        idleTicks = 0;
+        dirty = false;
+    }
+
+    /**
+     * Builds the tables around the position over the given source on the calling thread, replacing the current
+     * ones. For setting up the tables without a game client.
+     * @return false if there is no standable cell near the position to build them from
+     */
+    public boolean rebuild(PassabilitySource source, BlockPos center) {
+        Table built = build(source, center.getX(), center.getY(), center.getZ());
+        table = built;
+        return built != null;
+    }
+
+    public void clear() {
+        generation++;
+        table = null;
+        hasArea = false;
+        dirty = false;
+    }
+
+    @Override
+    public void onBlocksChanged(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        if (!hasArea || maxX < areaX - WORLD_RADIUS || minX > areaX + WORLD_RADIUS
+                || maxZ < areaZ - WORLD_RADIUS || minZ > areaZ + WORLD_RADIUS) {
+            return;
+        }
+        if (!dirty) {
+            dirty = true;
+            dirtyMinX = minX;
+            dirtyMinY = minY;
+            dirtyMinZ = minZ;
+            dirtyMaxX = maxX;
+            dirtyMaxY = maxY;
+            dirtyMaxZ = maxZ;
+            return;
+        }
+        dirtyMinX = Math.min(dirtyMinX, minX);
+        dirtyMinY = Math.min(dirtyMinY, minY);
+        dirtyMinZ = Math.min(dirtyMinZ, minZ);
+        dirtyMaxX = Math.max(dirtyMaxX, maxX);
+        dirtyMaxY = Math.max(dirtyMaxY, maxY);
+        dirtyMaxZ = Math.max(dirtyMaxZ, maxZ);
+    }
+
+    /**
+     * The lower bound towards one goal, shared by the searches' heuristic calls. Every standable cell within radius
+     * of the goal counts as reaching it, like the dense search stopping close enough.
+     * @return null if landmarks are off or the tables don't cover the goal
+     */
+    public Bound boundTo(int x, int y, int z, double radius) {
+        Table current = table;
+        if (current == null || !AStarPathFinder.isLandmarkHeuristic()) {
+            return null;
+        }
+
+        int count = current.landmarks.length;
+        int[] goalForward = new int[count];
+        int[] goalBackward = new int[count];
+        Arrays.fill(goalForward, UNREACHABLE);
+        boolean covered = false;
+        int reach = (int) radius;
+        // A goal cell outside the area is reached by leaving it, with nothing to pay coming back
+        int goalFromEdge = current.distanceFromCenter(x, z) + reach > AREA_RADIUS ? 0 : UNREACHABLE;
+        for (int dx = -reach; dx <= reach; dx++) {
+            for (int dy = -reach; dy <= reach; dy++) {
+                for (int dz = -reach; dz <= reach; dz++) {
+                    if (dx * dx + dy * dy + dz * dz > radius * radius) {
+                        continue;
+                    }
+                    int id = current.graph.index.get(StandableGraph.pack(x + dx, y + dy, z + dz));
+                    if (id < 0) {
+                        continue;
+                    }
+                    covered = true;
+                    // The goal cell the bound is least sure about: the one nearest the landmark, furthest back to it
+                    for (int i = 0; i < count; i++) {
+                        goalForward[i] = Math.min(goalForward[i], current.forward[i][id]);
+                        int back = current.backward[i][id];
+                        goalBackward[i] = back == UNREACHABLE ? UNREACHABLE : Math.max(goalBackward[i], back);
+                    }
+                    goalFromEdge = Math.min(goalFromEdge, current.fromEdge[id]);
+                }
+            }
+        }
+        return covered ? new Bound(current, goalForward, goalBackward, goalFromEdge) : null;
+    }
+
+    public boolean isReady() {
+        return table != null;
+    }
+
+    private void schedule(Runnable task) {
+        if (executor == null) {
+            executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "Mucifex-Landmarks");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+        }
+        job = executor.submit(() -> {
+            try {
+                task.run();
+            } catch (Exception e) {
+                System.err.println("Error building landmark tables: " + e.getMessage());
+                e.printStackTrace();
+            }
+        });
+    }
+
+    private void publish(Table built, int jobGeneration) {
+        if (jobGeneration == generation) {
+            table = built;
+        }
+    }
+
+    // New tables around the position, the landmarks spread out as far as the terrain reaches
+    private static Table build(PassabilitySource source, int x, int y, int z) {
+        long startTime = System.nanoTime();
+        StandableGraph moves = new StandableGraph(source, MAX_DROP);
+        long root = moves.findStandable(x, y, z, SNAP_RANGE);
+        if (root == StandableGraph.NO_CELL) {
+            System.out.println("DEBUG: No standable cell at " + x + "," + y + "," + z + " to build landmark tables from");
+            return null;
+        }
+        Graph graph = Graph.explore(moves, root, x, z);
+
+        // The first landmark is the cell furthest from the player, every next one the cell furthest from the others
+        int[] landmarks = new int[LANDMARK_COUNT];
+        int[][] forward = new int[LANDMARK_COUNT][];
+        int[][] backward = new int[LANDMARK_COUNT][];
+        int[] spread = distances(graph, 0, false);
+        int picked = 0;
+        while (picked < LANDMARK_COUNT) {
+            int furthest = furthest(spread);
+            if (furthest < 0) {
+                break;
+            }
+            landmarks[picked] = furthest;
+            forward[picked] = distances(graph, furthest, false);
+            backward[picked] = distances(graph, furthest, true);
+            for (int i = 0; i < graph.size; i++) {
+                spread[i] = picked == 0 ? forward[0][i] : Math.min(spread[i], forward[picked][i]);
+            }
+            picked++;
+        }
+        if (picked == 0) {
+            System.out.println("DEBUG: Nowhere to walk around " + x + "," + y + "," + z + ", no landmark tables");
+            return null;
+        }
+
+        Table built = new Table(source, x, z, graph, Arrays.copyOf(landmarks, picked), Arrays.copyOf(forward, picked),
+                Arrays.copyOf(backward, picked), edgeDistances(graph, x, z, true), edgeDistances(graph, x, z, false));
+        System.out.println(String.format("DEBUG: Landmark tables built over %d cells with %d landmarks in %.1fms",
+                graph.size, picked, (System.nanoTime() - startTime) / 1e6));
+        return built;
+    }
+
+    // The tables over the world after the blocks in the box changed
+    private static Table update(Table last, PassabilitySource source, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        long startTime = System.nanoTime();
+        StandableGraph moves = new StandableGraph(source, MAX_DROP);
+        long root = last.graph.cells[0];
+        int rootX = StandableGraph.unpackX(root), rootY = StandableGraph.unpackY(root), rootZ = StandableGraph.unpackZ(root);
+        if (!moves.isStandable(rootX, rootY, rootZ)) {
+            return build(source, last.centerX, rootY, last.centerZ);
+        }
+        Graph graph = Graph.explore(moves, root, last.centerX, last.centerZ);
+        Region region = new Region(minX, minY, minZ, maxX, maxY, maxZ);
+
+        // Where every old cell is in the new graph, a cell that is gone took moves with it
+        int[] moved = new int[last.graph.size];
+        boolean[] fresh = new boolean[graph.size];
+        Arrays.fill(fresh, true);
+        boolean raised = false;
+        for (int i = 0; i < last.graph.size; i++) {
+            moved[i] = graph.index.get(last.graph.cells[i]);
+            if (moved[i] < 0) {
+                raised = true;
+            } else {
+                fresh[moved[i]] = false;
+            }
+        }
+        int count = last.landmarks.length;
+        int[] landmarks = new int[count];
+        for (int i = 0; i < count; i++) {
+            landmarks[i] = moved[last.landmarks[i]];
+            if (landmarks[i] < 0) {
+                return build(source, last.centerX, rootY, last.centerZ);
+            }
+        }
+        raised = raised || hasRaisedMoves(last.graph, graph, moved, region);
+
+        int[][] forward = new int[count][];
+        int[][] backward = new int[count][];
+        for (int i = 0; i < count; i++) {
+            if (raised) {
+                forward[i] = distances(graph, landmarks[i], false);
+                backward[i] = distances(graph, landmarks[i], true);
+            } else {
+                // Nothing got more expensive, the old distances only come down from the new moves
+                forward[i] = carry(last.forward[i], moved, graph.size);
+                backward[i] = carry(last.backward[i], moved, graph.size);
+                lower(graph, forward[i], fresh, region, false);
+                lower(graph, backward[i], fresh, region, true);
+            }
+        }
+        int[] toEdge;
+        int[] fromEdge;
+        if (raised) {
+            toEdge = edgeDistances(graph, last.centerX, last.centerZ, true);
+            fromEdge = edgeDistances(graph, last.centerX, last.centerZ, false);
+        } else {
+            toEdge = carry(last.toEdge, moved, graph.size);
+            fromEdge = carry(last.fromEdge, moved, graph.size);
+            // New cells at the edge start at 0 like the old ones
+            seedEdge(graph, toEdge, last.centerX, last.centerZ);
+            seedEdge(graph, fromEdge, last.centerX, last.centerZ);
+            lower(graph, toEdge, fresh, region, true);
+            lower(graph, fromEdge, fresh, region, false);
+        }
+
+        System.out.println(String.format("DEBUG: Landmark tables %s over %d cells in %.1fms",
+                raised ? "recomputed" : "lowered", graph.size, (System.nanoTime() - startTime) / 1e6));
+        return new Table(source, last.centerX, last.centerZ, graph, landmarks, forward, backward, toEdge, fromEdge);
+    }
+
+    // True if a move of an old cell near the change is gone or costs more
+    private static boolean hasRaisedMoves(Graph last, Graph graph, int[] moved, Region region) {
+        for (int from = 0; from < last.size; from++) {
+            if (!region.contains(last.cells[from])) {
+                continue;
+            }
+            int newFrom = moved[from];
+            for (int e = last.edgeStart[from]; e < last.edgeStart[from + 1]; e++) {
+                int newTo = moved[last.edgeTarget[e]];
+                boolean kept = false;
+                for (int n = graph.edgeStart[newFrom]; n < graph.edgeStart[newFrom + 1] && !kept; n++) {
+                    kept = graph.edgeTarget[n] == newTo && graph.edgeCost[n] <= last.edgeCost[e];
+                }
+                if (!kept) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static int[] carry(int[] old, int[] moved, int size) {
+        int[] distance = new int[size];
+        Arrays.fill(distance, UNREACHABLE);
+        for (int i = 0; i < old.length; i++) {
+            distance[moved[i]] = old[i];
+        }
+        return distance;
+    }
+
+    // Relaxes the moves that can be new, out of new cells and cells near the change, and passes on what came down
+    private static void lower(Graph graph, int[] distance, boolean[] fresh, Region region, boolean reverse) {
+        LongHeap heap = new LongHeap();
+        for (int from = 0; from < graph.size; from++) {
+            if (!fresh[from] && !region.contains(graph.cells[from])) {
+                continue;
+            }
+            for (int e = graph.edgeStart[from]; e < graph.edgeStart[from + 1]; e++) {
+                int to = graph.edgeTarget[e];
+                int tail = reverse ? to : from;
+                int head = reverse ? from : to;
+                if (distance[tail] != UNREACHABLE && distance[tail] + graph.edgeCost[e] < distance[head]) {
+                    distance[head] = distance[tail] + graph.edgeCost[e];
+                    heap.push(((long) distance[head] << 32) | head);
+                }
+            }
+        }
+        propagate(graph, distance, heap, reverse);
+    }
+
+    // Cost from the source to every cell, or from every cell to it over the moves turned around
+    private static int[] distances(Graph graph, int source, boolean reverse) {
+        int[] distance = new int[graph.size];
+        Arrays.fill(distance, UNREACHABLE);
+        distance[source] = 0;
+        LongHeap heap = new LongHeap();
+        heap.push(source);
+        propagate(graph, distance, heap, reverse);
+        return distance;
+    }
+
+    // Cost from the edge of the area to every cell, or from every cell to the edge over the moves turned around
+    private static int[] edgeDistances(Graph graph, int centerX, int centerZ, boolean reverse) {
+        int[] distance = new int[graph.size];
+        Arrays.fill(distance, UNREACHABLE);
+        LongHeap heap = new LongHeap();
+        seedEdge(graph, distance, centerX, centerZ);
+        for (int i = 0; i < graph.size; i++) {
+            if (distance[i] == 0) {
+                heap.push(i);
+            }
+        }
+        propagate(graph, distance, heap, reverse);
+        return distance;
+    }
+
+    // Puts the cells a move can leave the area from, or come back in to, at 0
+    private static void seedEdge(Graph graph, int[] distance, int centerX, int centerZ) {
+        for (int i = 0; i < graph.size; i++) {
+            long cell = graph.cells[i];
+            int fromCenter = Math.max(Math.abs(StandableGraph.unpackX(cell) - centerX), Math.abs(StandableGraph.unpackZ(cell) - centerZ));
+            if (fromCenter > AREA_RADIUS - EDGE_WIDTH) {
+                distance[i] = 0;
+            }
+        }
+    }
+
+    // Dijkstra from the cells in the heap, keyed cost << 32 | cell
+    private static void propagate(Graph graph, int[] distance, LongHeap heap, boolean reverse) {
+        int[] start = reverse ? graph.reverseStart : graph.edgeStart;
+        int[] target = reverse ? graph.reverseSource : graph.edgeTarget;
+        int[] cost = reverse ? graph.reverseCost : graph.edgeCost;
+        while (!heap.isEmpty()) {
+            long key = heap.pop();
+            int cell = (int) key;
+            int cellCost = (int) (key >>> 32);
+            if (cellCost != distance[cell]) {
+                continue;
+            }
+            for (int e = start[cell]; e < start[cell + 1]; e++) {
+                int next = target[e];
+                int nextCost = cellCost + cost[e];
+                if (nextCost < distance[next]) {
+                    distance[next] = nextCost;
+                    heap.push(((long) nextCost << 32) | next);
+                }
+            }
+        }
+    }
+
+    // The reachable cell with the largest distance, -1 if every one is at 0 or unreachable
+    private static int furthest(int[] distance) {
+        int best = -1;
+        int bestDistance = 0;
+        for (int i = 0; i < distance.length; i++) {
+            if (distance[i] != UNREACHABLE && distance[i] > bestDistance) {
+                bestDistance = distance[i];
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Lower bound on the cost from a cell to one goal. Read only, so a parallel search's workers can share it.
+     */
+    public static final class Bound {
+        private final Table table;
+        private final int[] goalForward;
+        private final int[] goalBackward;
+        // Cost from the edge of the area to the goal, for the paths that leave the area
+        private final int goalFromEdge;
+
+        private Bound(Table table, int[] goalForward, int[] goalBackward, int goalFromEdge) {
+            this.table = table;
+            this.goalForward = goalForward;
+            this.goalBackward = goalBackward;
+            this.goalFromEdge = goalFromEdge;
+        }
+
+        /**
+         * @return at most the cost of the cheapest path from the cell to the goal, whether it stays inside the area or
+         *         not, 0 for a cell the tables don't cover
+         */
+        public int lowerBound(int x, int y, int z) {
+            int id = table.graph.index.get(StandableGraph.pack(x, y, z));
+            if (id < 0) {
+                return 0;
+            }
+            int best = 0;
+            for (int i = 0; i < goalForward.length; i++) {
+                int fromLandmark = table.forward[i][id];
+                if (goalForward[i] != UNREACHABLE && fromLandmark != UNREACHABLE) {
+                    best = Math.max(best, goalForward[i] - fromLandmark);
+                }
+                int toLandmark = table.backward[i][id];
+                if (toLandmark != UNREACHABLE && goalBackward[i] != UNREACHABLE) {
+                    best = Math.max(best, toLandmark - goalBackward[i]);
+                }
+            }
+            // The landmarks only bound the paths inside the area, one through the outside costs at least this
+            int toEdge = table.toEdge[id];
+            if (toEdge != UNREACHABLE && goalFromEdge != UNREACHABLE) {
+                best = Math.min(best, toEdge + goalFromEdge);
+            }
+            return best;
+        }
+    }
+
+    private static final class Table {
+        // Blocks the tables were built over
+        final PassabilitySource source;
+        final int centerX;
+        final int centerZ;
+        final Graph graph;
+        // Cell ids of the landmarks
+        final int[] landmarks;
+        // Cost from landmark i to every cell, and from every cell to landmark i
+        final int[][] forward;
+        final int[][] backward;
+        // Cost from every cell to the edge of the area, and from the edge to every cell
+        final int[] toEdge;
+        final int[] fromEdge;
+
+        Table(PassabilitySource source, int centerX, int centerZ, Graph graph, int[] landmarks, int[][] forward,
+              int[][] backward, int[] toEdge, int[] fromEdge) {
+            this.source = source;
+            this.centerX = centerX;
+            this.centerZ = centerZ;
+            this.graph = graph;
+            this.landmarks = landmarks;
+            this.forward = forward;
+            this.backward = backward;
+            this.toEdge = toEdge;
+            this.fromEdge = fromEdge;
+        }
+
+        // Chebyshev distance along x and z, the area is every cell at most AREA_RADIUS from the centre
+        int distanceFromCenter(int x, int z) {
+            return Math.max(Math.abs(x - centerX), Math.abs(z - centerZ));
+        }
+    }
+
+    /**
+     * The cells reachable from the player inside the area, numbered in the order they were reached, with their moves
+     * in compressed rows both ways.
+     */
+    private static final class Graph {
+        final CellIndex index;
+        final long[] cells;
+        final int size;
+        final int[] edgeStart;
+        final int[] edgeTarget;
+        final int[] edgeCost;
+        final int[] reverseStart;
+        final int[] reverseSource;
+        final int[] reverseCost;
+
+        private Graph(CellIndex index, long[] cells, int size, int[] edgeStart, int[] edgeTarget, int[] edgeCost) {
+            this.index = index;
+            this.cells = cells;
+            this.size = size;
+            this.edgeStart = edgeStart;
+            this.edgeTarget = edgeTarget;
+            this.edgeCost = edgeCost;
+
+            int edges = edgeStart[size];
+            reverseStart = new int[size + 1];
+            reverseSource = new int[edges];
+            reverseCost = new int[edges];
+            for (int e = 0; e < edges; e++) {
+                reverseStart[edgeTarget[e] + 1]++;
+            }
+            for (int i = 0; i < size; i++) {
+                reverseStart[i + 1] += reverseStart[i];
+            }
+            int[] fill = Arrays.copyOf(reverseStart, size);
+            for (int from = 0; from < size; from++) {
+                for (int e = edgeStart[from]; e < edgeStart[from + 1]; e++) {
+                    int slot = fill[edgeTarget[e]]++;
+                    reverseSource[slot] = from;
+                    reverseCost[slot] = edgeCost[e];
+                }
+            }
+        }
+
+        static Graph explore(StandableGraph moves, long root, int centerX, int centerZ) {
+            CellIndex index = new CellIndex();
+            long[] cells = new long[1024];
+            int[] edgeStart = new int[1025];
+            int[] edgeTarget = new int[8192];
+            int[] edgeCost = new int[8192];
+            // Moves out of the cell being explored, x, y, z and cost each: the steps, then the gap jumps
+            int[] out = new int[(StandableGraph.DX.length + GapJumps.MAX_JUMPS) * GapJumps.STRIDE];
+            int[] jumps = new int[GapJumps.MAX_JUMPS * GapJumps.STRIDE];
+            int size = 0;
+            int edges = 0;
+
+            index.put(root, size);
+            cells[size++] = root;
+            for (int from = 0; from < size; from++) {
+                if (from + 1 >= edgeStart.length) {
+                    edgeStart = Arrays.copyOf(edgeStart, edgeStart.length * 2);
+                }
+                edgeStart[from] = edges;
+                long cell = cells[from];
+                int x = StandableGraph.unpackX(cell), y = StandableGraph.unpackY(cell), z = StandableGraph.unpackZ(cell);
+                int count = 0;
+                for (int d = 0; d < StandableGraph.DX.length; d++) {
+                    int ny = moves.stepTarget(x, y, z, StandableGraph.DX[d], StandableGraph.DZ[d]);
+                    if (ny == StandableGraph.NO_STEP) {
+                        continue;
+                    }
+                    out[count * GapJumps.STRIDE] = x + StandableGraph.DX[d];
+                    out[count * GapJumps.STRIDE + 1] = ny;
+                    out[count * GapJumps.STRIDE + 2] = z + StandableGraph.DZ[d];
+                    out[count * GapJumps.STRIDE + 3] = StandableGraph.baseCost(y, StandableGraph.DX[d], ny, StandableGraph.DZ[d]);
+                    count++;
+                }
+                // Every jump with a running start, the cheapest the searches can make it
+                int jumped = GapJumps.findAll(moves.world, x, y, z, jumps);
+                System.arraycopy(jumps, 0, out, count * GapJumps.STRIDE, jumped * GapJumps.STRIDE);
+                count += jumped;
+
+                for (int m = 0; m < count; m++) {
+                    int nx = out[m * GapJumps.STRIDE];
+                    int ny = out[m * GapJumps.STRIDE + 1];
+                    int nz = out[m * GapJumps.STRIDE + 2];
+                    if (Math.abs(nx - centerX) > AREA_RADIUS || Math.abs(nz - centerZ) > AREA_RADIUS) {
+                        continue;
+                    }
+                    long next = StandableGraph.pack(nx, ny, nz);
+                    int to = index.get(next);
+                    if (to < 0) {
+                        to = size;
+                        index.put(next, to);
+                        if (size == cells.length) {
+                            cells = Arrays.copyOf(cells, size * 2);
+                        }
+                        cells[size++] = next;
+                    }
+                    if (edges == edgeTarget.length) {
+                        edgeTarget = Arrays.copyOf(edgeTarget, edges * 2);
+                        edgeCost = Arrays.copyOf(edgeCost, edges * 2);
+                    }
+                    edgeTarget[edges] = to;
+                    edgeCost[edges++] = out[m * GapJumps.STRIDE + 3];
+                }
+            }
+            edgeStart[size] = edges;
+            return new Graph(index, cells, size, edgeStart, edgeTarget, edgeCost);
+        }
+    }
+
+    // Cells whose moves can have changed with the blocks in a box
+    private static final class Region {
+        final int minX, minY, minZ, maxX, maxZ;
+
+        Region(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+            // A step reaches one block sideways and a gap jump GapJumps.REACH, and a drop passes any block below
+            // the cell it starts from
+            this.minX = minX - GapJumps.REACH;
+            this.minY = minY - CHANGE_REACH_BELOW;
+            this.minZ = minZ - GapJumps.REACH;
+            this.maxX = maxX + GapJumps.REACH;
+            this.maxZ = maxZ + GapJumps.REACH;
+        }
+
+        boolean contains(long cell) {
+            int x = StandableGraph.unpackX(cell), y = StandableGraph.unpackY(cell), z = StandableGraph.unpackZ(cell);
+            return x >= minX && x <= maxX && z >= minZ && z <= maxZ && y >= minY;
+        }
+    }
+
+    // Open addressing from packed cell to id
+    private static final class CellIndex {
+        long[] keys = emptyKeys(2048);
+        int[] ids = new int[2048];
+        int size;
+
+        int get(long cell) {
+            int mask = keys.length - 1;
+            for (int slot = hash(cell) & mask; keys[slot] != StandableGraph.NO_CELL; slot = (slot + 1) & mask) {
+                if (keys[slot] == cell) {
+                    return ids[slot];
+                }
+            }
+            return -1;
+        }
+
+        void put(long cell, int id) {
+            if (size * 2 >= keys.length) {
+                grow();
+            }
+            int mask = keys.length - 1;
+            int slot = hash(cell) & mask;
+            while (keys[slot] != StandableGraph.NO_CELL) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = cell;
+            ids[slot] = id;
+            size++;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldIds = ids;
+            keys = emptyKeys(oldKeys.length * 2);
+            ids = new int[keys.length];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != StandableGraph.NO_CELL) {
+                    put(oldKeys[i], oldIds[i]);
+                }
+            }
+        }
+
+        private static long[] emptyKeys(int length) {
+            long[] keys = new long[length];
+            Arrays.fill(keys, StandableGraph.NO_CELL);
+            return keys;
+        }
+
+        private static int hash(long cell) {
+            return (int) ((cell * 0x9E3779B97F4A7C15L) >>> 32);
+        }
+    }
+
+    // Binary min-heap of longs, stale entries are skipped by the reader
+    private static final class LongHeap {
+        private long[] heap = new long[1024];
+        private int size;
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void push(long key) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >> 1;
+                if (heap[parent] <= key) {
+                    break;
+                }
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = key;
+        }
+
+        long pop() {
+            long top = heap[0];
+            long last = heap[--size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && heap[child + 1] < heap[child]) {
+                    child++;
+                }
+                if (heap[child] >= last) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = last;
+            return top;
+        }
+    }
+}
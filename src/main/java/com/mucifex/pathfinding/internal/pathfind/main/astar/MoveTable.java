@@ -0,0 +1,33 @@
+package com.mucifex.pathfinding.internal.pathfind.main.astar;
+
+/**
+ * The moves the search tries from every cell, as parallel arrays so expanding a node is a plain index loop.
+ * The kind is the shape of the move, {@link AStarNode#classifyMove} still decides what it turns into
+ * (a straight or diagonal step into air becomes the start of a fall, for example).
+ */
+final class MoveTable {
+    static final int KIND_WALK = 0;
+    static final int KIND_DIAGONAL = 1;
+    // Straight up, only valid as a jump onto a block
+    static final int KIND_JUMP = 2;
+    // Straight down, only valid while falling
+    static final int KIND_FALL = 3;
+
+    static final int[] DX = {-1, 1, 0, 0, 1, 1, -1, -1, 0, 0};
+    static final int[] DY = {0, 0, 0, 0, 0, 0, 0, 0, 1, -1};
+    static final int[] DZ = {0, 0, -1, 1, -1, 1, 1, -1, 0, 0};
+
+    // Same as AStarNode.baseMoveCost for each offset
+    static final int[] BASE_COST = {10, 10, 10, 10, 14, 14, 14, 14, 10, 10};
+
+    static final int[] KIND = {
+            KIND_WALK, KIND_WALK, KIND_WALK, KIND_WALK,
+            KIND_DIAGONAL, KIND_DIAGONAL, KIND_DIAGONAL, KIND_DIAGONAL,
+            KIND_JUMP, KIND_FALL
+    };
+
+    static final int SIZE = DX.length;
+
+    private MoveTable() {
+    }
+}
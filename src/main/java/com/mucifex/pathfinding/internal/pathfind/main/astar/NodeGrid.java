@@ -0,0 +1,159 @@
+package com.mucifex.pathfinding.internal.pathfind.main.astar;
+
+/**
+ * Bounded dense node store for the A* search.
+ * Cells are addressed relative to the search origin and kept as struct-of-arrays (g-cost, parent index, flags)
+ * in 16x16x16 pages that are only allocated once the search touches them, so a search allocates a few pages
+ * instead of one node object per visited block.
+ */
+public class NodeGrid {
+    static final byte OPEN = 1;
+    static final byte CLOSED = 2;
+    static final byte JUMP = 4;
+    static final byte FALL = 8;
+    // The cell has a valid g-cost and parent
+    static final byte SEEN = 16;
+    // Reached by a sprint jump over a gap from its parent
+    static final byte GAP = 32;
+
+    static final int NO_PARENT = -1;
+
+    private static final int PAGE_BITS = 4;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final int CELL_BITS = PAGE_BITS * 3;
+    private static final int CELL_MASK = (1 << CELL_BITS) - 1;
+    private static final int WORLD_HEIGHT = 256;
+    private static final int PAGES_Y = WORLD_HEIGHT >> PAGE_BITS;
+
+    private final int minX;
+    private final int minZ;
+    private final int size;
+    private final int pagesXZ;
+
+    private final int[][] gCost;
+    private final int[][] parent;
+    private final byte[][] flags;
+    // Position of the cell inside the OpenList heap, only meaningful while the cell is OPEN
+    private final int[][] heapIndex;
+
+    private int allocatedPages;
+
+    /**
+     * @param originX x the grid is centred on (the search start)
+     * @param originZ z the grid is centred on (the search start)
+     * @param radius  how far from the origin on x and z cells can be stored
+     */
+    public NodeGrid(int originX, int originZ, int radius) {
+        this.minX = originX - radius;
+        this.minZ = originZ - radius;
+        this.size = radius * 2 + 1;
+        this.pagesXZ = (size + PAGE_MASK) >> PAGE_BITS;
+
+        int pageCount = pagesXZ * PAGES_Y * pagesXZ;
+        this.gCost = new int[pageCount][];
+        this.parent = new int[pageCount][];
+        this.flags = new byte[pageCount][];
+        this.heapIndex = new int[pageCount][];
+    }
+
+    /**
+     * @return the cell index of the position, or -1 if it lies outside the grid
+     */
+    public int index(int x, int y, int z) {
+        int lx = x - minX;
+        int lz = z - minZ;
+        if (lx < 0 || lz < 0 || lx >= size || lz >= size || y < 0 || y >= WORLD_HEIGHT) {
+            return -1;
+        }
+
+        int page = ((lx >> PAGE_BITS) * PAGES_Y + (y >> PAGE_BITS)) * pagesXZ + (lz >> PAGE_BITS);
+        int cell = ((y & PAGE_MASK) << (PAGE_BITS * 2)) | ((lz & PAGE_MASK) << PAGE_BITS) | (lx & PAGE_MASK);
+        return (page << CELL_BITS) | cell;
+    }
+
+    public int getX(int index) {
+        int page = index >>> CELL_BITS;
+        return minX + ((page / (PAGES_Y * pagesXZ)) << PAGE_BITS) + (index & PAGE_MASK);
+    }
+
+    public int getY(int index) {
+        int page = index >>> CELL_BITS;
+        return (((page / pagesXZ) % PAGES_Y) << PAGE_BITS) + ((index >> (PAGE_BITS * 2)) & PAGE_MASK);
+    }
+
+    public int getZ(int index) {
+        int page = index >>> CELL_BITS;
+        return minZ + ((page % pagesXZ) << PAGE_BITS) + ((index >> PAGE_BITS) & PAGE_MASK);
+    }
+
+    public int getGCost(int index) {
+        int[] page = gCost[index >>> CELL_BITS];
+        return page == null ? 0 : page[index & CELL_MASK];
+    }
+
+    public int getParent(int index) {
+        int[] page = parent[index >>> CELL_BITS];
+        return page == null ? NO_PARENT : page[index & CELL_MASK];
+    }
+
+    public byte getFlags(int index) {
+        byte[] page = flags[index >>> CELL_BITS];
+        return page == null ? 0 : page[index & CELL_MASK];
+    }
+
+    public boolean hasFlag(int index, byte flag) {
+        return (getFlags(index) & flag) != 0;
+    }
+
+    public void setFlags(int index, byte value) {
+        int page = ensurePage(index >>> CELL_BITS);
+        flags[page][index & CELL_MASK] = value;
+    }
+
+    public void addFlag(int index, byte flag) {
+        int page = ensurePage(index >>> CELL_BITS);
+        flags[page][index & CELL_MASK] |= flag;
+    }
+
+    public void removeFlag(int index, byte flag) {
+        int page = ensurePage(index >>> CELL_BITS);
+        flags[page][index & CELL_MASK] &= ~flag;
+    }
+
+    /**
+     * Records a (better) route into the cell. Movement flags are replaced since they depend on the parent.
+     */
+    public void update(int index, int cost, int parentIndex, byte moveFlags) {
+        int page = ensurePage(index >>> CELL_BITS);
+        int cell = index & CELL_MASK;
+        gCost[page][cell] = cost;
+        parent[page][cell] = parentIndex;
+        flags[page][cell] = (byte) ((flags[page][cell] & (OPEN | CLOSED)) | moveFlags | SEEN);
+    }
+
+    int getHeapIndex(int index) {
+        return heapIndex[index >>> CELL_BITS][index & CELL_MASK];
+    }
+
+    void setHeapIndex(int index, int position) {
+        int page = ensurePage(index >>> CELL_BITS);
+        heapIndex[page][index & CELL_MASK] = position;
+    }
+
+    public int getAllocatedPages() {
+        return allocatedPages;
+    }
+
+    private int ensurePage(int page) {
+        if (flags[page] == null) {
+            int cells = 1 << CELL_BITS;
+            gCost[page] = new int[cells];
+            parent[page] = new int[cells];
+            flags[page] = new byte[cells];
+            heapIndex[page] = new int[cells];
+            allocatedPages++;
+        }
+        return page;
+    }
+}
@@ -0,0 +1,81 @@
+package com.mucifex.pathfinding.internal.pathfind.main.astar;
+
+import java.util.Arrays;
+
+/**
+ * Open list for the object graph search: a binary min-heap of AStarNodes ordered by total cost.
+ * Each node keeps its heap position, so a cheaper node for an open position takes the old one's place and moves up
+ * in O(log n) instead of PriorityQueue.remove's linear scan.
+ */
+class NodeQueue {
+    private AStarNode[] nodes = new AStarNode[256];
+    private int size;
+
+    void add(AStarNode node) {
+        if (size == nodes.length) {
+            nodes = Arrays.copyOf(nodes, size * 2);
+        }
+        siftUp(size++, node);
+    }
+
+    /**
+     * Puts the cheaper node in the place of the open one for the same position.
+     */
+    void replace(AStarNode open, AStarNode cheaper) {
+        int position = open.heapIndex;
+        open.heapIndex = -1;
+        siftUp(position, cheaper);
+    }
+
+    AStarNode poll() {
+        AStarNode top = nodes[0];
+        top.heapIndex = -1;
+        AStarNode last = nodes[--size];
+        nodes[size] = null;
+        if (size > 0) {
+            siftDown(0, last);
+        }
+        return top;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    private void siftUp(int position, AStarNode node) {
+        double cost = node.getTotalCost();
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (nodes[parent].getTotalCost() <= cost) {
+                break;
+            }
+            place(nodes[parent], position);
+            position = parent;
+        }
+        place(node, position);
+    }
+
+    private void siftDown(int position, AStarNode node) {
+        double cost = node.getTotalCost();
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && nodes[child + 1].getTotalCost() < nodes[child].getTotalCost()) {
+                child++;
+            }
+            if (cost <= nodes[child].getTotalCost()) {
+                break;
+            }
+            place(nodes[child], position);
+            position = child;
+        }
+        place(node, position);
+    }
+
+    private void place(AStarNode node, int position) {
+        nodes[position] = node;
+        node.heapIndex = position;
+    }
+}
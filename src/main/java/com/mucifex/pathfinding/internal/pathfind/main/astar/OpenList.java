@@ -0,0 +1,135 @@
+package com.mucifex.pathfinding.internal.pathfind.main.astar;
+
+import java.util.Arrays;
+
+/**
+ * Open list for the dense grid search: an indexed 4-ary min-heap of NodeGrid cells.
+ * Each cell's heap position is kept in the grid, so a cheaper route to an open cell is a real
+ * O(log n) decrease-key instead of PriorityQueue.remove's linear scan.
+ * Cells are ordered by f-cost, ties go to the lower heuristic (the cell closer to the goal).
+ */
+public class OpenList {
+    private static final int ARITY_BITS = 2;
+    private static final int ARITY = 1 << ARITY_BITS;
+
+    private final NodeGrid grid;
+    private int[] cells = new int[256];
+    // f-cost in the high 32 bits, heuristic in the low 32 bits
+    private long[] keys = new long[256];
+    private int size;
+
+    public OpenList(NodeGrid grid) {
+        this.grid = grid;
+    }
+
+    /**
+     * Adds the cell, or moves it up if it is already open with a higher cost.
+     * The cell's OPEN flag is maintained here.
+     */
+    public void insertOrDecrease(int cell, int fCost, int hCost) {
+        long key = ((long) fCost << 32) | (hCost & 0xFFFFFFFFL);
+
+        if (grid.hasFlag(cell, NodeGrid.OPEN)) {
+            int position = grid.getHeapIndex(cell);
+            if (key < keys[position]) {
+                keys[position] = key;
+                siftUp(position);
+            }
+            return;
+        }
+
+        if (size == cells.length) {
+            cells = Arrays.copyOf(cells, size * 2);
+            keys = Arrays.copyOf(keys, size * 2);
+        }
+        cells[size] = cell;
+        keys[size] = key;
+        grid.addFlag(cell, NodeGrid.OPEN);
+        siftUp(size++);
+    }
+
+    /**
+     * Removes and returns the cheapest cell, clearing its OPEN flag.
+     */
+    public int poll() {
+        int top = cells[0];
+        grid.removeFlag(top, NodeGrid.OPEN);
+
+        size--;
+        if (size > 0) {
+            cells[0] = cells[size];
+            keys[0] = keys[size];
+            siftDown(0);
+        }
+        return top;
+    }
+
+    /**
+     * @return the f-cost of the cheapest cell, the list must not be empty
+     */
+    public int peekCost() {
+        return (int) (keys[0] >> 32);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void siftUp(int position) {
+        int cell = cells[position];
+        long key = keys[position];
+
+        while (position > 0) {
+            int up = (position - 1) >>> ARITY_BITS;
+            if (keys[up] <= key) {
+                break;
+            }
+            move(up, position);
+            position = up;
+        }
+        place(cell, key, position);
+    }
+
+    private void siftDown(int position) {
+        int cell = cells[position];
+        long key = keys[position];
+
+        while (true) {
+            int first = (position << ARITY_BITS) + 1;
+            if (first >= size) {
+                break;
+            }
+
+            int best = first;
+            int last = Math.min(first + ARITY, size);
+            for (int child = first + 1; child < last; child++) {
+                if (keys[child] < keys[best]) {
+                    best = child;
+                }
+            }
+
+            if (key <= keys[best]) {
+                break;
+            }
+            move(best, position);
+            position = best;
+        }
+        place(cell, key, position);
+    }
+
+    private void move(int from, int to) {
+        cells[to] = cells[from];
+        keys[to] = keys[from];
+        grid.setHeapIndex(cells[to], to);
+    }
+
+    private void place(int cell, long key, int position) {
+        cells[position] = cell;
+        keys[position] = key;
+        grid.setHeapIndex(cell, position);
+    }
+}
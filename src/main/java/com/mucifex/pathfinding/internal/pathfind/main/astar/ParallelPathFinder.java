@@ -0,0 +1,507 @@
+package com.mucifex.pathfinding.internal.pathfind.main.astar;
+
+import com.mucifex.pathfinding.internal.pathfind.main.world.PassabilitySnapshot;
+import com.mucifex.pathfinding.internal.pathfind.main.world.PassabilitySource;
+import net.minecraft.util.BlockPos;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hash distributed A* (HDA*) over the {@link StandableGraph}, for searches with a budget large enough to be worth
+ * several cores. Every cell has one owning worker, picked by a hash of its packed position, and only the owner
+ * keeps, opens and expands it. Neighbours of other workers' cells are sent to their owner in batches through a
+ * lock free queue, so the workers never wait on each other. The hash is taken over 4x4x4 bricks of cells rather than
+ * single cells, most moves stay inside a brick and don't need a message.
+ *
+ * Workers expand in their own order, so a cell can be expanded again when a cheaper route to it arrives later. The
+ * search is over once no worker has an open cell cheaper than the best path to the goal and no batch is on its way,
+ * see {@link #isFinished()}. The path is then read back through the parents kept by each cell's owner.
+ *
+ * Worlds must be a PassabilitySnapshot, each worker reads its own {@link PassabilitySnapshot#fork()}. Like the
+ * other graph searches, a goal that can't be reached over the graph's moves is handed to the dense search.
+ */
+public class ParallelPathFinder {
+    // How far up or down the start and goal may be moved to land on a standable block
+    private static final int SNAP_RANGE = 3;
+    // Cells of a message batch, every cell takes three longs: the cell, its parent and the cost
+    private static final int BATCH_CELLS = 64;
+    // Expansions between flushes of the outgoing batches and updates of the shared expansion count
+    private static final int EXPANSION_SLICE = 64;
+    // How long an idle worker waits before looking for messages again, senders wake it up earlier
+    private static final long IDLE_PARK_NANOS = 50_000L;
+
+    private static ExecutorService workerPool;
+
+    private final PassabilitySource world;
+    private final BlockPos start;
+    private final BlockPos end;
+    private final int depth;
+    private final int threads;
+    private final StandableGraph graph;
+    private final long startCell;
+    private final long goalCell;
+    // Read only, shared by the workers
+    private final Landmarks.Bound landmarks;
+
+    private Worker[] workers;
+    private final AtomicInteger bestCost = new AtomicInteger(Integer.MAX_VALUE);
+    private final AtomicInteger expansions = new AtomicInteger();
+    // Cells sent and not yet taken in, and how often a worker woke up from idle, for termination detection
+    private final AtomicLong inFlight = new AtomicLong();
+    private final AtomicLong activations = new AtomicLong();
+    private volatile boolean stopped;
+
+    /**
+     * @param threads workers to spread the search over, the calling thread is one of them
+     */
+    public ParallelPathFinder(BlockPos start, BlockPos end, int depth, PassabilitySnapshot world, int threads) {
+        this.world = world;
+        this.start = start;
+        this.end = end;
+        this.depth = depth;
+        this.threads = Math.max(1, threads);
+        this.graph = new StandableGraph(world);
+        this.startCell = graph.findStandable(start.getX(), start.getY(), start.getZ(), SNAP_RANGE);
+        this.goalCell = graph.findStandable(end.getX(), end.getY(), end.getZ(), SNAP_RANGE);
+        this.landmarks = goalCell == StandableGraph.NO_CELL ? null : Landmarks.getInstance().boundTo(
+                StandableGraph.unpackX(goalCell), StandableGraph.unpackY(goalCell), StandableGraph.unpackZ(goalCell), 0);
+    }
+
+    public static List<AStarNode> compute(BlockPos start, BlockPos end, int depth, PassabilitySnapshot world, int threads) {
+        return new ParallelPathFinder(start, end, depth, world, threads).search();
+    }
+
+    /**
+     * Runs the search on the calling thread and threads - 1 pool threads, it can only be run once.
+     */
+    public List<AStarNode> search() {
+        if (startCell == StandableGraph.NO_CELL || goalCell == StandableGraph.NO_CELL) {
+            System.out.println("DEBUG: No standable start or goal for a parallel search, using the dense grid");
+            return DenseAStarPathFinder.compute(start, end, depth, world);
+        }
+        if (startCell == goalCell) {
+            return graph.toNodes(Collections.singletonList(startCell), goalCell);
+        }
+
+        long startTime = System.nanoTime();
+        workers = new Worker[threads];
+        workers[0] = new Worker(0, graph);
+        for (int i = 1; i < threads; i++) {
+            workers[i] = new Worker(i, new StandableGraph(((PassabilitySnapshot) world).fork()));
+        }
+        ownerOf(startCell).receive(startCell, StandableGraph.NO_CELL, 0);
+
+        CountDownLatch finished = new CountDownLatch(threads - 1);
+        ExecutorService pool = getWorkerPool();
+        for (int i = 1; i < threads; i++) {
+            Worker worker = workers[i];
+            pool.execute(() -> {
+                try {
+                    worker.run();
+                } finally {
+                    finished.countDown();
+                }
+            });
+        }
+        workers[0].run();
+
+        boolean interrupted = Thread.interrupted();
+        while (true) {
+            try {
+                finished.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+            return new ArrayList<>();
+        }
+
+        int cost = bestCost.get();
+        double millis = (System.nanoTime() - startTime) / 1e6;
+        if (cost != Integer.MAX_VALUE) {
+            System.out.println(String.format("DEBUG: Parallel path found on %d threads in %d expansions, %.3f ms",
+                    threads, expansions.get(), millis));
+            return toNodes(goalCell);
+        }
+        if (expansions.get() < depth) {
+            System.out.println("DEBUG: Parallel search can't reach the goal over safe moves, using the dense grid");
+            return DenseAStarPathFinder.compute(start, end, depth, world);
+        }
+
+        System.out.println("DEBUG: Parallel search found no path in " + expansions.get() + " expansions, returning best partial path");
+        Worker closest = workers[0];
+        for (Worker worker : workers) {
+            if (worker.closestHeuristic < closest.closestHeuristic) {
+                closest = worker;
+            }
+        }
+        return closest.closestCell == StandableGraph.NO_CELL ? new ArrayList<>() : toNodes(closest.closestCell);
+    }
+
+    public int getExpansions() {
+        return expansions.get();
+    }
+
+    /**
+     * Done when every worker is idle and nothing is on its way. The activation count read before and after rules
+     * out a worker that took in a batch, and so went back to work, between its idle flag being read and the
+     * in flight count.
+     */
+    private boolean isFinished() {
+        long before = activations.get();
+        for (Worker worker : workers) {
+            if (!worker.idle) {
+                return false;
+            }
+        }
+        return inFlight.get() == 0 && activations.get() == before;
+    }
+
+    private Worker ownerOf(long cell) {
+        int x = StandableGraph.unpackX(cell) >> 2, y = StandableGraph.unpackY(cell) >> 2, z = StandableGraph.unpackZ(cell) >> 2;
+        long hash = StandableGraph.pack(x, y, z) * 0x9E3779B97F4A7C15L;
+        return workers[(int) ((hash >>> 32) % threads)];
+    }
+
+    // Parents are kept by the owner of each cell, the workers are all done by now
+    private List<AStarNode> toNodes(long cell) {
+        List<Long> cells = new ArrayList<>();
+        for (long c = cell; c != StandableGraph.NO_CELL; c = ownerOf(c).cells.getParent(c)) {
+            cells.add(c);
+            if (cells.size() > expansions.get() + 1) {
+                System.err.println("Parallel search left a parent cycle at " + StandableGraph.unpackX(c) + ", "
+                        + StandableGraph.unpackY(c) + ", " + StandableGraph.unpackZ(c));
+                return new ArrayList<>();
+            }
+        }
+        Collections.reverse(cells);
+        return graph.toNodes(cells, goalCell);
+    }
+
+    private int heuristic(long cell) {
+        int estimate = StandableGraph.heuristic(cell, goalCell);
+        return landmarks == null ? estimate : Math.max(estimate,
+                landmarks.lowerBound(StandableGraph.unpackX(cell), StandableGraph.unpackY(cell), StandableGraph.unpackZ(cell)));
+    }
+
+    private static synchronized ExecutorService getWorkerPool() {
+        if (workerPool == null) {
+            AtomicInteger threadCount = new AtomicInteger();
+            workerPool = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "Mucifex-Pathfinder-Worker-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                thread.setPriority(Thread.NORM_PRIORITY - 1);
+                return thread;
+            });
+        }
+        return workerPool;
+    }
+
+    private final class Worker {
+        final int id;
+        final StandableGraph graph;
+        final CellTable cells = new CellTable();
+        final ConcurrentLinkedQueue<long[]> inbox = new ConcurrentLinkedQueue<>();
+        final long[][] outbox;
+        final int[] outboxSize;
+        final long[] neighbours = new long[StandableGraph.MAX_SUCCESSORS];
+        final int[] neighbourCosts = new int[StandableGraph.MAX_SUCCESSORS];
+        volatile Thread thread;
+        volatile boolean idle;
+
+        // Open cells with lazy deletion, an entry is stale once its cost is above the table's
+        long[] openKeys = new long[256];
+        long[] openCells = new long[256];
+        int openSize;
+
+        long closestCell = StandableGraph.NO_CELL;
+        int closestHeuristic = Integer.MAX_VALUE;
+
+        Worker(int id, StandableGraph graph) {
+            this.id = id;
+            this.graph = graph;
+            this.outbox = new long[threads][];
+            this.outboxSize = new int[threads];
+        }
+
+        void run() {
+            thread = Thread.currentThread();
+            int sliceExpansions = 0;
+            while (!stopped) {
+                if (id == 0 && Thread.currentThread().isInterrupted()) {
+                    stopped = true;
+                    break;
+                }
+                drainInbox();
+
+                int best = bestCost.get();
+                if (openSize > 0 && (int) (openKeys[0] >> 32) < best) {
+                    if (expand(best)) {
+                        sliceExpansions++;
+                    }
+                    if (sliceExpansions == EXPANSION_SLICE) {
+                        flushAll();
+                        sliceExpansions = 0;
+                        if (expansions.addAndGet(EXPANSION_SLICE) >= depth) {
+                            stopped = true;
+                        }
+                    }
+                    continue;
+                }
+
+                flushAll();
+                expansions.addAndGet(sliceExpansions);
+                sliceExpansions = 0;
+                idle = true;
+                if (id == 0 && isFinished()) {
+                    stopped = true;
+                    break;
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+            expansions.addAndGet(sliceExpansions);
+            // Wake up the idle ones so they see the stop
+            if (id == 0) {
+                for (Worker worker : workers) {
+                    LockSupport.unpark(worker.thread);
+                }
+            }
+        }
+
+        void drainInbox() {
+            long[] batch;
+            while ((batch = inbox.poll()) != null) {
+                if (idle) {
+                    activations.incrementAndGet();
+                    idle = false;
+                }
+                for (int i = 0; i < batch.length; i += 3) {
+                    receive(batch[i], batch[i + 1], (int) batch[i + 2]);
+                }
+                inFlight.addAndGet(-batch.length / 3);
+            }
+        }
+
+        // A route to a cell this worker owns
+        void receive(long cell, long parent, int cost) {
+            int slot = cells.slotOf(cell);
+            if (cells.isSeen(slot) && cells.cost[slot] <= cost) {
+                return;
+            }
+            cells.set(slot, cost, parent);
+            if (cell == goalCell) {
+                int best;
+                while (cost < (best = bestCost.get()) && !bestCost.compareAndSet(best, cost)) {
+                    // Another worker lowered it in the meantime, compare again
+                }
+                return;
+            }
+            int heuristic = heuristic(cell);
+            push(((long) (cost + heuristic) << 32) | heuristic, cell);
+        }
+
+        // Expands the cheapest open cell, false if it was stale
+        boolean expand(int best) {
+            long cell = openCells[0];
+            long key = openKeys[0];
+            pop();
+
+            int slot = cells.slotOf(cell);
+            int cost = cells.cost[slot];
+            int heuristic = (int) key;
+            if (cost + heuristic != (int) (key >> 32) || cost + heuristic >= best) {
+                return false;
+            }
+            if (heuristic < closestHeuristic) {
+                closestHeuristic = heuristic;
+                closestCell = cell;
+            }
+
+            int x = StandableGraph.unpackX(cell), y = StandableGraph.unpackY(cell), z = StandableGraph.unpackZ(cell);
+            int count = 0;
+            for (int d = 0; d < StandableGraph.DX.length; d++) {
+                int ny = graph.stepTarget(x, y, z, StandableGraph.DX[d], StandableGraph.DZ[d]);
+                if (ny != StandableGraph.NO_STEP) {
+                    neighbourCosts[count] = graph.moveCost(x, y, z, StandableGraph.DX[d], ny, StandableGraph.DZ[d]);
+                    neighbours[count++] = StandableGraph.pack(x + StandableGraph.DX[d], ny, z + StandableGraph.DZ[d]);
+                }
+            }
+            count = graph.findJumps(cell, cells.parent[slot], neighbours, neighbourCosts, count);
+            for (int i = 0; i < count; i++) {
+                long next = neighbours[i];
+                int nextCost = cost + neighbourCosts[i];
+                Worker owner = ownerOf(next);
+                if (owner == this) {
+                    receive(next, cell, nextCost);
+                } else {
+                    send(owner, next, cell, nextCost);
+                }
+            }
+            return true;
+        }
+
+        void send(Worker owner, long cell, long parent, int cost) {
+            long[] batch = outbox[owner.id];
+            if (batch == null) {
+                batch = outbox[owner.id] = new long[BATCH_CELLS * 3];
+            }
+            int size = outboxSize[owner.id];
+            batch[size] = cell;
+            batch[size + 1] = parent;
+            batch[size + 2] = cost;
+            outboxSize[owner.id] = size + 3;
+            if (size + 3 == batch.length) {
+                flush(owner);
+            }
+        }
+
+        void flushAll() {
+            for (Worker worker : workers) {
+                if (outboxSize[worker.id] > 0) {
+                    flush(worker);
+                }
+            }
+        }
+
+        // Counted as in flight before it is queued, so the receiver can't take it in first
+        void flush(Worker owner) {
+            int size = outboxSize[owner.id];
+            inFlight.addAndGet(size / 3);
+            owner.inbox.offer(Arrays.copyOf(outbox[owner.id], size));
+            outboxSize[owner.id] = 0;
+            if (owner.idle) {
+                LockSupport.unpark(owner.thread);
+            }
+        }
+
+        void push(long key, long cell) {
+            if (openSize == openKeys.length) {
+                openKeys = Arrays.copyOf(openKeys, openSize * 2);
+                openCells = Arrays.copyOf(openCells, openSize * 2);
+            }
+            int position = openSize++;
+            while (position > 0) {
+                int parent = (position - 1) >> 1;
+                if (openKeys[parent] <= key) {
+                    break;
+                }
+                openKeys[position] = openKeys[parent];
+                openCells[position] = openCells[parent];
+                position = parent;
+            }
+            openKeys[position] = key;
+            openCells[position] = cell;
+        }
+
+        void pop() {
+            openSize--;
+            long key = openKeys[openSize];
+            long cell = openCells[openSize];
+            int position = 0;
+            while (true) {
+                int child = (position << 1) + 1;
+                if (child >= openSize) {
+                    break;
+                }
+                if (child + 1 < openSize && openKeys[child + 1] < openKeys[child]) {
+                    child++;
+                }
+                if (key <= openKeys[child]) {
+                    break;
+                }
+                openKeys[position] = openKeys[child];
+                openCells[position] = openCells[child];
+                position = child;
+            }
+            openKeys[position] = key;
+            openCells[position] = cell;
+        }
+    }
+
+    /**
+     * Open addressing table of the cells a worker owns, with their cost and parent.
+     */
+    private static final class CellTable {
+        long[] keys = emptyKeys(1024);
+        int[] cost = new int[1024];
+        long[] parent = new long[1024];
+        int size;
+
+        // Slot of the cell, added unseen (cost MAX_VALUE) if it wasn't in the table yet
+        int slotOf(long cell) {
+            int mask = keys.length - 1;
+            int slot = hash(cell) & mask;
+            while (keys[slot] != cell) {
+                if (keys[slot] == StandableGraph.NO_CELL) {
+                    if (size * 2 >= keys.length) {
+                        grow();
+                        return slotOf(cell);
+                    }
+                    keys[slot] = cell;
+                    cost[slot] = Integer.MAX_VALUE;
+                    size++;
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        boolean isSeen(int slot) {
+            return cost[slot] != Integer.MAX_VALUE;
+        }
+
+        void set(int slot, int newCost, long newParent) {
+            cost[slot] = newCost;
+            parent[slot] = newParent;
+        }
+
+        long getParent(long cell) {
+            return parent[slotOf(cell)];
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldCost = cost;
+            long[] oldParent = parent;
+            keys = emptyKeys(oldKeys.length * 2);
+            cost = new int[keys.length];
+            parent = new long[keys.length];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != StandableGraph.NO_CELL) {
+                    int slot = hash(oldKeys[i]) & mask;
+                    while (keys[slot] != StandableGraph.NO_CELL) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    cost[slot] = oldCost[i];
+                    parent[slot] = oldParent[i];
+                }
+            }
+        }
+
+        private static long[] emptyKeys(int length) {
+            long[] keys = new long[length];
+            Arrays.fill(keys, StandableGraph.NO_CELL);
+            return keys;
+        }
+
+        private static int hash(long cell) {
+            return (int) ((cell * 0x9E3779B97F4A7C15L) >>> 32);
+        }
+    }
+}
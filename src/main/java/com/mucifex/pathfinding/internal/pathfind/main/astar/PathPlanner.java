@@ -0,0 +1,33 @@
+package com.mucifex.pathfinding.internal.pathfind.main.astar;
+
+import com.mucifex.pathfinding.internal.pathfind.main.world.PassabilitySource;
+import net.minecraft.util.BlockPos;
+
+/**
+ * A path planning algorithm the walker can be asked to use, registered by name in {@link PathPlanners}.
+ * The A* searches of AStarPathFinder are the built in ones, see AStarPlanner.
+ */
+public interface PathPlanner {
+    /**
+     * @return the name requests select this planner by, lower case
+     */
+    String getName();
+
+    /**
+     * Plans a path from start to end, or the best partial path it finds.
+     * Called on the client thread with the live PassabilityCache, or on a worker thread with a snapshot.
+     * @param depth node budget of the search
+     */
+    PlannedPath plan(BlockPos start, BlockPos end, int depth, PassabilitySource world);
+
+    /**
+     * Plans a path to whichever block of the goal it reaches first. Planners that only know single blocks leave
+     * the other goals to the dense grid search.
+     */
+    default PlannedPath plan(BlockPos start, Goal goal, int depth, PassabilitySource world) {
+        if (goal.getPoint() != null) {
+            return plan(start, goal.getPoint(), depth, world);
+        }
+        return AStarPathFinder.plan(start, goal, depth, world, AStarPathFinder.SearchMode.DENSE_GRID);
+    }
+}
@@ -0,0 +1,51 @@
+package com.mucifex.pathfinding.internal.pathfind.main.astar;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Registry of the {@link PathPlanner}s a request can select by name, in registration order.
+ * "astar" is the default and follows the configured search mode, every search mode is registered by its own name
+ * as well (dense_grid, jump_point, ...).
+ */
+public final class PathPlanners {
+    public static final String DEFAULT_NAME = "astar";
+
+    private static final Map<String, PathPlanner> planners = new LinkedHashMap<>();
+    private static final PathPlanner defaultPlanner = new AStarPlanner(DEFAULT_NAME, null);
+
+    static {
+        register(defaultPlanner);
+        for (AStarPathFinder.SearchMode mode : AStarPathFinder.SearchMode.values()) {
+            register(new AStarPlanner(mode.name().toLowerCase(Locale.ROOT), mode));
+        }
+    }
+
+    private PathPlanners() {
+    }
+
+    /**
+     * Adds a planner, replacing any registered under the same name.
+     */
+    public static synchronized void register(PathPlanner planner) {
+        planners.put(planner.getName().toLowerCase(Locale.ROOT), planner);
+    }
+
+    /**
+     * @return the planner registered under name, ignoring case, null if there is none
+     */
+    public static synchronized PathPlanner get(String name) {
+        return name == null ? null : planners.get(name.trim().toLowerCase(Locale.ROOT));
+    }
+
+    public static synchronized List<PathPlanner> getAll() {
+        return new ArrayList<>(planners.values());
+    }
+
+    public static PathPlanner getDefault() {
+        return defaultPlanner;
+    }
+}
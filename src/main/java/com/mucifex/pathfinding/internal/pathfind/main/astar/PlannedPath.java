@@ -0,0 +1,52 @@
+package com.mucifex.pathfinding.internal.pathfind.main.astar;
+
+import java.util.List;
+
+/**
+ * Result of a {@link PathPlanner}: the path in AStarNode form and what it took to find it.
+ */
+public class PlannedPath {
+    // Expansion count of a planner that doesn't keep one
+    public static final int UNKNOWN_EXPANSIONS = -1;
+
+    private final List<AStarNode> nodes;
+    private final int expansions;
+    private final long nanos;
+
+    public PlannedPath(List<AStarNode> nodes, int expansions, long nanos) {
+        this.nodes = nodes;
+        this.expansions = expansions;
+        this.nanos = nanos;
+    }
+
+    /**
+     * @return the path, empty if none was found
+     */
+    public List<AStarNode> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return nodes the search expanded, UNKNOWN_EXPANSIONS if the planner doesn't count them
+     */
+    public int getExpansions() {
+        return expansions;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    /**
+     * @return length of the path in blocks, summed over the straight lines between its nodes
+     */
+    public double getLength() {
+        double length = 0;
+        for (int i = 1; i < nodes.size(); i++) {
+            AStarNode from = nodes.get(i - 1), to = nodes.get(i);
+            int dx = to.getX() - from.getX(), dy = to.getY() - from.getY(), dz = to.getZ() - from.getZ();
+            length += Math.sqrt(dx * dx + dy * dy + dz * dz);
+        }
+        return length;
+    }
+}
@@ -0,0 +1,290 @@
+package com.mucifex.pathfinding.internal.pathfind.main.astar;
+
+import com.mucifex.pathfinding.internal.pathfind.main.world.PassabilitySource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The cells a player can stand in and the moves between them: the 8 flat steps without cutting corners, a step
+ * up of one block and drops of up to MAX_DROP blocks unless another limit is given, with the dense search's base
+ * costs and wall penalty. On top of those the sprint jumps over gaps from {@link GapJumps}, see {@link #findJumps}.
+ * Moves are not symmetric, a drop can't be walked back up, so a search running backwards from the goal asks
+ * for {@link #findPredecessors} instead of turning the forward moves around.
+ *
+ * Cells are packed into longs with {@link #pack}. Paths over the graph are handed out in the AStarNode shape
+ * the ProcessorManager expects, see {@link #toNodes}.
+ */
+final class StandableGraph {
+    static final int MAX_DROP = 3;
+    static final int NO_STEP = Integer.MIN_VALUE;
+    static final long NO_CELL = -1L;
+    // Most cells that can have a step into one cell: every direction, from one below to MAX_DROP above
+    static final int MAX_STEP_PREDECESSORS = 8 * (MAX_DROP + 2);
+    // Most cells that can have a jump into one cell: every straight direction, gap length and rise
+    static final int MAX_JUMP_PREDECESSORS = 4 * GapJumps.MAX_GAP * (GapJumps.MAX_RISE - GapJumps.MIN_RISE + 1);
+    static final int MAX_PREDECESSORS = MAX_STEP_PREDECESSORS + MAX_JUMP_PREDECESSORS;
+    // Most moves out of one cell, steps and jumps
+    static final int MAX_SUCCESSORS = 8 + GapJumps.MAX_JUMPS;
+
+    static final int[] DX = {1, -1, 0, 0, 1, 1, -1, -1};
+    static final int[] DZ = {0, 0, 1, -1, 1, -1, 1, -1};
+
+    final PassabilitySource world;
+    private final int maxDrop;
+    // Jumps found by the last findJumps or costInto call
+    private final int[] jumps = new int[GapJumps.MAX_JUMPS * GapJumps.STRIDE];
+
+    StandableGraph(PassabilitySource world) {
+        this(world, MAX_DROP);
+    }
+
+    /**
+     * @param maxDrop longest drop a move may end in, the landmark tables take any height like the dense search
+     */
+    StandableGraph(PassabilitySource world, int maxDrop) {
+        this.world = world;
+        this.maxDrop = maxDrop;
+    }
+
+    /**
+     * Where a move from the standable cell towards (dx, dz) ends: the same height, one block up onto a block or
+     * the floor at most maxDrop blocks down. Diagonal moves need both corners open at the height they pass.
+     * @return the height the move ends at, NO_STEP if it can't be made
+     */
+    int stepTarget(int x, int y, int z, int dx, int dz) {
+        int nx = x + dx;
+        int nz = z + dz;
+        boolean diagonal = dx != 0 && dz != 0;
+        int cell = world.getCell(nx, y, nz);
+        if ((cell & PassabilitySource.CELL_SOLID) != 0) {
+            // Jump onto the block, needs room above the player's head first
+            if (!world.hasHeadroom(x, y + 1, z)) {
+                return NO_STEP;
+            }
+            if (diagonal && (!isOpen(nx, y + 1, z) || !isOpen(x, y + 1, nz))) {
+                return NO_STEP;
+            }
+            return isStandable(nx, y + 1, nz) ? y + 1 : NO_STEP;
+        }
+        if ((cell & PassabilitySource.CELL_HEADROOM) == 0) {
+            return NO_STEP;
+        }
+        if (diagonal && (!isOpen(nx, y, z) || !isOpen(x, y, nz))) {
+            return NO_STEP;
+        }
+        if ((cell & PassabilitySource.CELL_FLOOR) != 0) {
+            return y;
+        }
+        for (int ny = y - 1; ny >= y - maxDrop && ny >= 0; ny--) {
+            if (world.hasFloor(nx, ny, nz)) {
+                return ny;
+            }
+        }
+        return NO_STEP;
+    }
+
+    /**
+     * Cost of the move from (x, y, z) towards (dx, dz) that ends at height ny.
+     */
+    int moveCost(int x, int y, int z, int dx, int ny, int dz) {
+        return baseCost(y, dx, ny, dz) + AStarNode.wallPenalty(world, x + dx, ny, z + dz);
+    }
+
+    /**
+     * Cost of the move without the wall penalty, no search pays less for it.
+     */
+    static int baseCost(int y, int dx, int ny, int dz) {
+        return AStarNode.baseMoveCost(dx, 0, dz) + 10 * Math.abs(ny - y);
+    }
+
+    /**
+     * Fills out with the cells that have a move into the cell, out needs room for 8 * (maxDrop + 2) of them.
+     * @return how many were found
+     */
+    int findPredecessors(long cell, long[] out) {
+        int x = unpackX(cell), y = unpackY(cell), z = unpackZ(cell);
+        int count = 0;
+        for (int d = 0; d < DX.length; d++) {
+            int px = x - DX[d];
+            int pz = z - DZ[d];
+            for (int py = Math.max(0, y - 1); py <= Math.min(255, y + maxDrop); py++) {
+                if (isStandable(px, py, pz) && stepTarget(px, py, pz, DX[d], DZ[d]) == y) {
+                    out[count++] = pack(px, py, pz);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Appends the sprint jumps over gaps from the standable cell to out and their cost with the wall penalty to
+     * costs. A jump straight on from the way parent stepped into the cell gets a running start, every other one
+     * and every one without a parent starts from a standstill.
+     * The searches that also run backwards pass NO_CELL, so a jump costs the same whichever way it is found.
+     * @return count plus the jumps found, out and costs need room for GapJumps.MAX_JUMPS more
+     */
+    int findJumps(long cell, long parent, long[] out, int[] costs, int count) {
+        int x = unpackX(cell), y = unpackY(cell), z = unpackZ(cell);
+        int runDx = 0, runDz = 0;
+        if (parent != NO_CELL && unpackY(parent) == y
+                && Math.abs(x - unpackX(parent)) + Math.abs(z - unpackZ(parent)) == 1) {
+            runDx = x - unpackX(parent);
+            runDz = z - unpackZ(parent);
+        }
+        int found = GapJumps.find(world, x, y, z, runDx, runDz, jumps);
+        for (int j = 0; j < found; j++) {
+            int nx = jumps[j * GapJumps.STRIDE], ny = jumps[j * GapJumps.STRIDE + 1], nz = jumps[j * GapJumps.STRIDE + 2];
+            out[count] = pack(nx, ny, nz);
+            costs[count++] = jumps[j * GapJumps.STRIDE + 3] + AStarNode.wallPenalty(world, nx, ny, nz);
+        }
+        return count;
+    }
+
+    /**
+     * Appends the cells with a standing jump into the cell to out and its cost to costs, the moves findJumps
+     * finds without a parent.
+     * @return count plus the cells found, out and costs need room for MAX_JUMP_PREDECESSORS more
+     */
+    int findJumpPredecessors(long cell, long[] out, int[] costs, int count) {
+        int x = unpackX(cell), y = unpackY(cell), z = unpackZ(cell);
+        int penalty = -1;
+        for (int d = 0; d < 4; d++) {
+            for (int gap = 1; gap <= GapJumps.MAX_GAP; gap++) {
+                int px = x - DX[d] * (gap + 1), pz = z - DZ[d] * (gap + 1);
+                for (int rise = GapJumps.MIN_RISE; rise <= GapJumps.MAX_RISE; rise++) {
+                    int py = y - rise;
+                    if (!isStandable(px, py, pz)) {
+                        continue;
+                    }
+                    int cost = GapJumps.costInto(world, px, py, pz, x, y, z, false, jumps);
+                    if (cost < 0) {
+                        continue;
+                    }
+                    if (penalty < 0) {
+                        penalty = AStarNode.wallPenalty(world, x, y, z);
+                    }
+                    out[count] = pack(px, py, pz);
+                    costs[count++] = cost + penalty;
+                }
+            }
+        }
+        return count;
+    }
+
+    // A move of more than one block sideways, only jumps make those
+    static boolean isJump(long from, long to) {
+        return Math.abs(unpackX(to) - unpackX(from)) > 1 || Math.abs(unpackZ(to) - unpackZ(from)) > 1;
+    }
+
+    boolean isOpen(int x, int y, int z) {
+        int cell = world.getCell(x, y, z);
+        return (cell & PassabilitySource.CELL_SOLID) == 0 && (cell & PassabilitySource.CELL_HEADROOM) != 0;
+    }
+
+    boolean isStandable(int x, int y, int z) {
+        if (y < 0 || y > 255) {
+            return false;
+        }
+        int cell = world.getCell(x, y, z);
+        return (cell & PassabilitySource.CELL_SOLID) == 0
+                && (cell & (PassabilitySource.CELL_FLOOR | PassabilitySource.CELL_HEADROOM))
+                == (PassabilitySource.CELL_FLOOR | PassabilitySource.CELL_HEADROOM);
+    }
+
+    /**
+     * @return a standable cell in the column at most range blocks from y, nearest first and below before above
+     *         since the player may be mid jump, NO_CELL if there is none
+     */
+    long findStandable(int x, int y, int z, int range) {
+        for (int offset = 0; offset <= range; offset++) {
+            if (isStandable(x, y - offset, z)) {
+                return pack(x, y - offset, z);
+            }
+            if (offset > 0 && isStandable(x, y + offset, z)) {
+                return pack(x, y + offset, z);
+            }
+        }
+        return NO_CELL;
+    }
+
+    /**
+     * Turns a walk over standable cells into AStarNodes: a step up becomes a jump node above the cell it is taken
+     * from, a drop fall nodes from the edge down to just above the landing and a jump over a gap a gap jump node
+     * on the landing, like the dense search produces.
+     */
+    List<AStarNode> toNodes(List<Long> cells, long goalCell) {
+        List<AStarNode> path = new ArrayList<>();
+        if (cells.isEmpty()) {
+            return path;
+        }
+
+        long first = cells.get(0);
+        AStarNode node = new AStarNode(unpackX(first), unpackY(first), unpackZ(first), null, 0, heuristic(first, goalCell), false, false);
+        path.add(node);
+        for (int i = 1; i < cells.size(); i++) {
+            int x = node.getX(), y = node.getY(), z = node.getZ();
+            long cell = cells.get(i);
+            int nx = unpackX(cell), ny = unpackY(cell), nz = unpackZ(cell);
+            if (isJump(cells.get(i - 1), cell)) {
+                node = new AStarNode(nx, ny, nz, node, node.getGCost() + jumpCost(cells, i), heuristic(cell, goalCell), false, false);
+                node.setGapJump(true);
+                path.add(node);
+                continue;
+            }
+            int g = node.getGCost() + moveCost(x, y, z, nx - x, ny, nz - z);
+            if (ny > y) {
+                // Jump straight up first, then step onto the block
+                node = new AStarNode(x, y + 1, z, node, node.getGCost(), 0, true, false);
+                path.add(node);
+            } else if (ny < y) {
+                for (int fy = y; fy > ny; fy--) {
+                    node = new AStarNode(nx, fy, nz, node, node.getGCost(), 0, false, true);
+                    path.add(node);
+                }
+            }
+            node = new AStarNode(nx, ny, nz, node, g, heuristic(cell, goalCell), false, false);
+            path.add(node);
+        }
+        return path;
+    }
+
+    // Cost of the jump into cells[i], with a running start if the step before it was straight on like findJumps
+    private int jumpCost(List<Long> cells, int i) {
+        long from = cells.get(i - 1), to = cells.get(i);
+        int fx = unpackX(from), fy = unpackY(from), fz = unpackZ(from);
+        int tx = unpackX(to), ty = unpackY(to), tz = unpackZ(to);
+        int cost = -1;
+        if (i >= 2) {
+            long parent = cells.get(i - 2);
+            if (unpackY(parent) == fy && fx - unpackX(parent) == Integer.signum(tx - fx)
+                    && fz - unpackZ(parent) == Integer.signum(tz - fz)) {
+                cost = GapJumps.costInto(world, fx, fy, fz, tx, ty, tz, true, jumps);
+            }
+        }
+        if (cost < 0) {
+            cost = GapJumps.costInto(world, fx, fy, fz, tx, ty, tz, false, jumps);
+        }
+        return Math.max(cost, 0) + AStarNode.wallPenalty(world, tx, ty, tz);
+    }
+
+    static int heuristic(long from, long to) {
+        return AStarNode.octileHeuristic(unpackX(from), unpackY(from), unpackZ(from), unpackX(to), unpackY(to), unpackZ(to));
+    }
+
+    static long pack(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+
+    static int unpackX(long cell) {
+        return (int) (cell >> 38);
+    }
+
+    static int unpackY(long cell) {
+        return (int) (cell & 0xFFF);
+    }
+
+    static int unpackZ(long cell) {
+        return (int) (cell << 26 >> 38);
+    }
+}
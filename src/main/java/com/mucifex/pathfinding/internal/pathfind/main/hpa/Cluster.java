@@ -0,0 +1,50 @@
+package com.mucifex.pathfinding.internal.pathfind.main.hpa;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One chunk column of the {@link ClusterGraph}: the entrance cells on its border, the cost between every two
+ * of them through the column and the cells across the border each entrance steps onto.
+ */
+final class Cluster {
+    static final int NO_PATH = -1;
+
+    final int chunkX;
+    final int chunkZ;
+    // Sum of the section versions the cluster was built from, see ClusterGraph.stamp
+    final long stamp;
+
+    // Packed entrance cells, see ClusterGraph.pack
+    final long[] portals;
+    // costs[i][j] is the cheapest walk from portal i to portal j staying inside the column, NO_PATH if there is none
+    final int[][] costs;
+    // exits[i] are the cells in neighbouring columns portal i steps onto, exitCosts[i] what each step costs
+    final long[][] exits;
+    final int[][] exitCosts;
+
+    private final Map<Long, Integer> indices = new HashMap<>();
+    // Last ClusterGraph query the stamp was checked in, so a query checks every cluster only once
+    int checkedQuery = -1;
+
+    Cluster(int chunkX, int chunkZ, long stamp, long[] portals, int[][] costs, long[][] exits, int[][] exitCosts) {
+        this.chunkX = chunkX;
+        this.chunkZ = chunkZ;
+        this.stamp = stamp;
+        this.portals = portals;
+        this.costs = costs;
+        this.exits = exits;
+        this.exitCosts = exitCosts;
+        for (int i = 0; i < portals.length; i++) {
+            indices.put(portals[i], i);
+        }
+    }
+
+    /**
+     * @return the index of the portal at the packed cell, -1 if the cell is not an entrance of this cluster
+     */
+    int indexOf(long cell) {
+        Integer index = indices.get(cell);
+        return index == null ? -1 : index;
+    }
+}
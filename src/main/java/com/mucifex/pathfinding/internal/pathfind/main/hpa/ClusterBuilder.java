@@ -0,0 +1,320 @@
+package com.mucifex.pathfinding.internal.pathfind.main.hpa;
+
+import com.mucifex.pathfinding.internal.pathfind.main.world.PassabilitySource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds {@link Cluster}s and runs the searches inside one chunk column over a {@link PassabilitySource}.
+ * Keeps the scratch space of its searches, so every thread needs its own: the client thread searches the live
+ * cache, the background builds read a snapshot. Columns that aren't loaded read as air without floor, so no
+ * entrance leads into them.
+ */
+final class ClusterBuilder {
+    private static final int CELLS = 16 * 16 * 256;
+
+    private static final int[] DX = {1, -1, 0, 0};
+    private static final int[] DZ = {0, 0, 1, -1};
+
+    private final PassabilitySource source;
+
+    // visited holds the search generation a cell was reached in
+    private final int[] dist = new int[CELLS];
+    private final int[] visited = new int[CELLS];
+    private int generation;
+    private long[] heap = new long[256];
+    private int heapSize;
+
+    ClusterBuilder(PassabilitySource source) {
+        this.source = source;
+    }
+
+    Cluster build(int chunkX, int chunkZ, long stamp) {
+        // Portal cell -> {exit cell, cost} pairs, in the order the portals are found
+        Map<Long, List<long[]>> found = new LinkedHashMap<>();
+
+        // This column is the low side of its east and south borders and the high side of the west and north ones
+        addCrossings(found, crossings(chunkX, chunkZ, 1, 0), false);
+        addCrossings(found, crossings(chunkX, chunkZ, 0, 1), false);
+        addCrossings(found, crossings(chunkX - 1, chunkZ, 1, 0), true);
+        addCrossings(found, crossings(chunkX, chunkZ - 1, 0, 1), true);
+
+        int count = found.size();
+        long[] portals = new long[count];
+        long[][] exits = new long[count][];
+        int[][] exitCosts = new int[count][];
+        int i = 0;
+        for (Map.Entry<Long, List<long[]>> entry : found.entrySet()) {
+            portals[i] = entry.getKey();
+            List<long[]> steps = entry.getValue();
+            exits[i] = new long[steps.size()];
+            exitCosts[i] = new int[steps.size()];
+            for (int s = 0; s < steps.size(); s++) {
+                exits[i][s] = steps.get(s)[0];
+                exitCosts[i][s] = (int) steps.get(s)[1];
+            }
+            i++;
+        }
+
+        int[][] costs = new int[count][];
+        for (i = 0; i < count; i++) {
+            search(chunkX, chunkZ, portals[i], false);
+            costs[i] = new int[count];
+            for (int j = 0; j < count; j++) {
+                costs[i][j] = costAt(chunkX, chunkZ, portals[j]);
+            }
+        }
+
+        return new Cluster(chunkX, chunkZ, stamp, portals, costs, exits, exitCosts);
+    }
+
+    /**
+     * @return a standable cell in the column at most range blocks above or below y, nearest first, NO_CELL if none
+     */
+    long findStandable(int x, int y, int z, int range) {
+        for (int offset = 0; offset <= range; offset++) {
+            if (isStandable(x, y - offset, z)) {
+                return ClusterGraph.pack(x, y - offset, z);
+            }
+            if (offset > 0 && isStandable(x, y + offset, z)) {
+                return ClusterGraph.pack(x, y + offset, z);
+            }
+        }
+        return ClusterGraph.NO_CELL;
+    }
+
+    /**
+     * Cheapest walks inside the cell's cluster, from the source to each target or, reversed, from each target to
+     * the source.
+     * @return the cost for every target, Cluster.NO_PATH for targets that can't be reached
+     */
+    int[] searchCosts(long source, boolean reverse, long[] targets) {
+        int chunkX = ClusterGraph.unpackX(source) >> 4;
+        int chunkZ = ClusterGraph.unpackZ(source) >> 4;
+        search(chunkX, chunkZ, source, reverse);
+
+        int[] costs = new int[targets.length];
+        for (int i = 0; i < targets.length; i++) {
+            costs[i] = costAt(chunkX, chunkZ, targets[i]);
+        }
+        return costs;
+    }
+
+    private void addCrossings(Map<Long, List<long[]>> found, List<long[]> crossings, boolean highSide) {
+        for (long[] crossing : crossings) {
+            long own = highSide ? crossing[1] : crossing[0];
+            long other = highSide ? crossing[0] : crossing[1];
+            List<long[]> steps = found.computeIfAbsent(own, key -> new ArrayList<>());
+
+            int x = ClusterGraph.unpackX(own);
+            int y = ClusterGraph.unpackY(own);
+            int z = ClusterGraph.unpackZ(own);
+            int otherY = ClusterGraph.unpackY(other);
+            if (stepTarget(x, y, z, ClusterGraph.unpackX(other) - x, ClusterGraph.unpackZ(other) - z) == otherY) {
+                steps.add(new long[]{other, ClusterGraph.stepCost(y, otherY)});
+            }
+        }
+    }
+
+    /**
+     * Entrances on the border between a column and its neighbour at +dx or +dz, as {low side cell, high side cell}.
+     * Both columns get the same list, whichever of them is being built.
+     */
+    private List<long[]> crossings(int chunkX, int chunkZ, int dx, int dz) {
+        List<long[]> result = new ArrayList<>();
+
+        // Low side border cells, t runs along the border
+        int baseX = (chunkX << 4) + (dx == 1 ? 15 : 0);
+        int baseZ = (chunkZ << 4) + (dz == 1 ? 15 : 0);
+        for (int y = 0; y < 256; y++) {
+            int runStart = 0;
+            int runTarget = ClusterGraph.NO_STEP;
+            for (int t = 0; t <= 16; t++) {
+                int target = t < 16 ? crossingTarget(baseX + t * dz, y, baseZ + t * dx, dx, dz) : ClusterGraph.NO_STEP;
+                if (target == runTarget && target != ClusterGraph.NO_STEP) {
+                    continue;
+                }
+                if (runTarget != ClusterGraph.NO_STEP) {
+                    int middle = (runStart + t - 1) / 2;
+                    int x = baseX + middle * dz;
+                    int z = baseZ + middle * dx;
+                    result.add(new long[]{ClusterGraph.pack(x, y, z), ClusterGraph.pack(x + dx, runTarget, z + dz)});
+                }
+                runStart = t;
+                runTarget = target;
+            }
+        }
+        return result;
+    }
+
+    // Height of the cell across the border that can be reached from the low side cell or reaches it, NO_STEP if none
+    private int crossingTarget(int x, int y, int z, int dx, int dz) {
+        if (!isStandable(x, y, z)) {
+            return ClusterGraph.NO_STEP;
+        }
+        int forward = stepTarget(x, y, z, dx, dz);
+        if (forward != ClusterGraph.NO_STEP) {
+            return forward;
+        }
+        for (int otherY = y - 1; otherY <= y + ClusterGraph.MAX_DROP; otherY++) {
+            if (isStandable(x + dx, otherY, z + dz) && stepTarget(x + dx, otherY, z + dz, -dx, -dz) == y) {
+                return otherY;
+            }
+        }
+        return ClusterGraph.NO_STEP;
+    }
+
+    /**
+     * Where a step from the standable cell towards (dx, dz) ends: the same height, one block up onto a block or
+     * the floor at most MAX_DROP blocks down.
+     * @return the height the step ends at, NO_STEP if it can't be made
+     */
+    int stepTarget(int x, int y, int z, int dx, int dz) {
+        int nx = x + dx;
+        int nz = z + dz;
+        int cell = source.getCell(nx, y, nz);
+        if ((cell & PassabilitySource.CELL_SOLID) != 0) {
+            // Jump onto the block, needs room above the player's head first
+            return source.hasHeadroom(x, y + 1, z) && isStandable(nx, y + 1, nz) ? y + 1 : ClusterGraph.NO_STEP;
+        }
+        if ((cell & PassabilitySource.CELL_HEADROOM) == 0) {
+            return ClusterGraph.NO_STEP;
+        }
+        if ((cell & PassabilitySource.CELL_FLOOR) != 0) {
+            return y;
+        }
+        for (int ny = y - 1; ny >= y - ClusterGraph.MAX_DROP && ny >= 0; ny--) {
+            if (source.hasFloor(nx, ny, nz)) {
+                return ny;
+            }
+        }
+        return ClusterGraph.NO_STEP;
+    }
+
+    boolean isStandable(int x, int y, int z) {
+        if (y < 0 || y > 255) {
+            return false;
+        }
+        int cell = source.getCell(x, y, z);
+        return (cell & PassabilitySource.CELL_SOLID) == 0
+                && (cell & (PassabilitySource.CELL_FLOOR | PassabilitySource.CELL_HEADROOM))
+                == (PassabilitySource.CELL_FLOOR | PassabilitySource.CELL_HEADROOM);
+    }
+
+    // Dijkstra over the standable cells of one column, forward from the source or backwards to it
+    private void search(int chunkX, int chunkZ, long source, boolean reverse) {
+        generation++;
+        heapSize = 0;
+        int minX = chunkX << 4;
+        int minZ = chunkZ << 4;
+
+        int start = localIndex(ClusterGraph.unpackX(source), ClusterGraph.unpackY(source), ClusterGraph.unpackZ(source));
+        dist[start] = 0;
+        visited[start] = generation;
+        push(start);
+
+        while (heapSize > 0) {
+            long entry = pop();
+            int cost = (int) (entry >>> 16);
+            int index = (int) (entry & 0xFFFF);
+            if (cost > dist[index]) {
+                continue;
+            }
+
+            int x = minX + (index & 15);
+            int z = minZ + ((index >> 4) & 15);
+            int y = index >>> 8;
+            for (int d = 0; d < DX.length; d++) {
+                int nx = x + DX[d];
+                int nz = z + DZ[d];
+                if ((nx >> 4) != chunkX || (nz >> 4) != chunkZ) {
+                    continue;
+                }
+
+                if (!reverse) {
+                    int ny = stepTarget(x, y, z, DX[d], DZ[d]);
+                    if (ny != ClusterGraph.NO_STEP) {
+                        relax(localIndex(nx, ny, nz), cost + ClusterGraph.stepCost(y, ny));
+                    }
+                    continue;
+                }
+
+                // Cells next to this one that step onto it
+                for (int ny = y - 1; ny <= y + ClusterGraph.MAX_DROP; ny++) {
+                    if (isStandable(nx, ny, nz) && stepTarget(nx, ny, nz, -DX[d], -DZ[d]) == y) {
+                        relax(localIndex(nx, ny, nz), cost + ClusterGraph.stepCost(ny, y));
+                    }
+                }
+            }
+        }
+    }
+
+    private void relax(int index, int cost) {
+        if (visited[index] == generation && cost >= dist[index]) {
+            return;
+        }
+        visited[index] = generation;
+        dist[index] = cost;
+        push(index);
+    }
+
+    private int costAt(int chunkX, int chunkZ, long cell) {
+        int x = ClusterGraph.unpackX(cell);
+        int z = ClusterGraph.unpackZ(cell);
+        if ((x >> 4) != chunkX || (z >> 4) != chunkZ) {
+            return Cluster.NO_PATH;
+        }
+        int index = localIndex(x, ClusterGraph.unpackY(cell), z);
+        return visited[index] == generation ? dist[index] : Cluster.NO_PATH;
+    }
+
+    // Binary min-heap of (cost << 16 | cell index)
+    private void push(int index) {
+        if (heapSize == heap.length) {
+            heap = Arrays.copyOf(heap, heapSize * 2);
+        }
+        long entry = ((long) dist[index] << 16) | index;
+        int i = heapSize++;
+        while (i > 0) {
+            int parent = (i - 1) >> 1;
+            if (heap[parent] <= entry) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = entry;
+    }
+
+    private long pop() {
+        long top = heap[0];
+        long last = heap[--heapSize];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (heap[child] >= last) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        if (heapSize > 0) {
+            heap[i] = last;
+        }
+        return top;
+    }
+
+    private static int localIndex(int x, int y, int z) {
+        return (y << 8) | ((z & 15) << 4) | (x & 15);
+    }
+}
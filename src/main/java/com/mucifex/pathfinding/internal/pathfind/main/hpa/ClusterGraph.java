@@ -0,0 +1,331 @@
+package com.mucifex.pathfinding.internal.pathfind.main.hpa;
+
+import com.mucifex.pathfinding.internal.pathfind.main.world.PassabilityCache;
+import com.mucifex.pathfinding.internal.pathfind.main.world.PassabilitySnapshot;
+import com.mucifex.pathfinding.internal.pathfind.main.world.WorldAccess;
+import net.minecraft.util.BlockPos;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Abstract graph for long trips, one cluster per chunk column.
+ * The entrances of a cluster are standable cells on its border with a step into the neighbouring column; every
+ * run of such cells along a border at the same height becomes one entrance in its middle. Each cluster stores the
+ * cost between its entrances through the column, so a route across many chunks is a search over a few entrances
+ * per chunk instead of every block.
+ *
+ * Clusters are built in the background as chunks load, and rebuilt when a section of the column or of a
+ * neighbouring column changes, by comparing the PassabilityCache section versions. The client thread snapshots the
+ * columns and a thread of their own builds them, so a query only reads the clusters that are ready and asks for the
+ * missing ones. Moves are a subset of what the block level search can do (straight steps, one block up, drops of up
+ * to MAX_DROP), so a route found here can always be walked. Client thread only, like the PassabilityCache.
+ */
+public class ClusterGraph implements PassabilityCache.ChangeListener {
+    // Deepest drop the graph uses, the block level search may fall further
+    static final int MAX_DROP = 3;
+    // Cost of one block of movement, the same unit as the A* costs
+    static final int STEP_COST = 10;
+    static final int NO_STEP = Integer.MIN_VALUE;
+    static final long NO_CELL = -1L;
+
+    // Cached clusters before the ones far from the current query are dropped
+    private static final int MAX_CLUSTERS = 4096;
+    private static final int KEEP_RADIUS = 32;
+    // Columns one background job builds at most, all of them within BATCH_RADIUS chunks of the first
+    private static final int BATCH_SIZE = 64;
+    private static final int BATCH_RADIUS = 4;
+
+    private static final int[] DX = {1, -1, 0, 0};
+    private static final int[] DZ = {0, 0, 1, -1};
+
+    private static ClusterGraph instance;
+
+    private final PassabilityCache cache;
+    private final Map<Long, Cluster> clusters = new HashMap<>();
+    // Searches of the queries over the live cache
+    private final ClusterBuilder live;
+    // The BlockAccess world the clusters belong to, section versions restart with a new one
+    private Object world;
+    private int query;
+    private int builtCount;
+
+    // Columns waiting for a build, in the order they were asked for
+    private final Set<Long> pending = new LinkedHashSet<>();
+    // Finished by the background job, taken in on the client thread
+    private final Queue<Cluster> ready = new ConcurrentLinkedQueue<>();
+    // Bumped on a world change, so a job still running for the old one doesn't hand in its clusters
+    private volatile int buildGeneration;
+    private ExecutorService executor;
+    private Future<?> job;
+
+    public ClusterGraph(PassabilityCache cache) {
+        this.cache = cache;
+        this.live = new ClusterBuilder(cache);
+        instance = this;
+        cache.addChangeListener(this);
+    }
+
+    public static ClusterGraph getInstance() {
+        if (instance == null) {
+            instance = new ClusterGraph(PassabilityCache.getInstance());
+        }
+        return instance;
+    }
+
+    public void clear() {
+        clusters.clear();
+        pending.clear();
+        ready.clear();
+        buildGeneration++;
+    }
+
+    public int getClusterCount() {
+        return clusters.size();
+    }
+
+    /**
+     * @return clusters taken in since the last {@link #beginQuery}
+     */
+    public int getBuiltCount() {
+        return builtCount;
+    }
+
+    /**
+     * @return true while columns are waiting for a build or being built
+     */
+    public boolean isBuilding() {
+        return !pending.isEmpty() || (job != null && !job.isDone()) || !ready.isEmpty();
+    }
+
+    /**
+     * Takes in the finished clusters and starts building the next columns, called every client tick.
+     */
+    public void tick() {
+        checkWorld();
+        takeReady();
+        if (world == null || pending.isEmpty() || (job != null && !job.isDone())) {
+            return;
+        }
+
+        // The first column asked for and the ones near it, one snapshot covers them all
+        List<int[]> batch = new ArrayList<>();
+        Iterator<Long> iterator = pending.iterator();
+        int firstX = 0, firstZ = 0;
+        int minX = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+        while (iterator.hasNext() && batch.size() < BATCH_SIZE) {
+            long key = iterator.next();
+            int chunkX = (int) (key >> 32);
+            int chunkZ = (int) key;
+            if (batch.isEmpty()) {
+                firstX = chunkX;
+                firstZ = chunkZ;
+            } else if (Math.max(Math.abs(chunkX - firstX), Math.abs(chunkZ - firstZ)) > BATCH_RADIUS) {
+                continue;
+            }
+            iterator.remove();
+            if (!WorldAccess.getBlocks().isChunkLoaded(chunkX, chunkZ)) {
+                continue;
+            }
+            batch.add(new int[]{chunkX, chunkZ});
+            minX = Math.min(minX, chunkX);
+            minZ = Math.min(minZ, chunkZ);
+            maxX = Math.max(maxX, chunkX);
+            maxZ = Math.max(maxZ, chunkZ);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        long[] stamps = new long[batch.size()];
+        for (int i = 0; i < stamps.length; i++) {
+            stamps[i] = stamp(batch.get(i)[0], batch.get(i)[1]);
+        }
+        // Entrances step one block into the neighbouring columns
+        PassabilitySnapshot snapshot = cache.snapshot(new BlockPos(minX << 4, 0, minZ << 4),
+                new BlockPos((maxX << 4) + 15, 0, (maxZ << 4) + 15), 1);
+        int jobGeneration = buildGeneration;
+        schedule(() -> {
+            ClusterBuilder builder = new ClusterBuilder(snapshot);
+            for (int i = 0; i < stamps.length && jobGeneration == buildGeneration; i++) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                ready.add(builder.build(batch.get(i)[0], batch.get(i)[1], stamps[i]));
+            }
+        });
+    }
+
+    /**
+     * Starts a query around the chunk: drops everything on a world change, takes in the finished clusters, asks for
+     * the loaded columns around it that have none and trims the cache. Clusters are checked against the current section versions once per query.
+     */
+    void beginQuery(int chunkX, int chunkZ) {
+        checkWorld();
+        query++;
+        builtCount = 0;
+        takeReady();
+
+        // Chunks that loaded before the graph listened for them, nearest first
+        for (int ring = 0; ring <= KEEP_RADIUS; ring++) {
+            for (int x = chunkX - ring; x <= chunkX + ring; x++) {
+                for (int z = chunkZ - ring; z <= chunkZ + ring; z++) {
+                    if (Math.max(Math.abs(x - chunkX), Math.abs(z - chunkZ)) == ring
+                            && !clusters.containsKey(chunkKey(x, z)) && WorldAccess.getBlocks().isChunkLoaded(x, z)) {
+                        pending.add(chunkKey(x, z));
+                    }
+                }
+            }
+        }
+
+        if (clusters.size() > MAX_CLUSTERS) {
+            Iterator<Cluster> iterator = clusters.values().iterator();
+            while (iterator.hasNext()) {
+                Cluster cluster = iterator.next();
+                if (Math.max(Math.abs(cluster.chunkX - chunkX), Math.abs(cluster.chunkZ - chunkZ)) > KEEP_RADIUS) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the last cluster built for the chunk column, null if the chunk is not loaded or none is ready yet.
+     * A missing or outdated cluster is queued for a build.
+     */
+    Cluster getCluster(int chunkX, int chunkZ) {
+        if (!WorldAccess.getBlocks().isChunkLoaded(chunkX, chunkZ)) {
+            return null;
+        }
+
+        long key = chunkKey(chunkX, chunkZ);
+        Cluster cluster = clusters.get(key);
+        if (cluster != null && cluster.checkedQuery == query) {
+            return cluster;
+        }
+
+        if (cluster == null || cluster.stamp != stamp(chunkX, chunkZ)) {
+            pending.add(key);
+        }
+        if (cluster != null) {
+            cluster.checkedQuery = query;
+        }
+        return cluster;
+    }
+
+    Cluster getCluster(long cell) {
+        return getCluster(unpackX(cell) >> 4, unpackZ(cell) >> 4);
+    }
+
+    /**
+     * @return a standable cell in the column at most range blocks above or below y, nearest first, NO_CELL if none
+     */
+    long findStandable(int x, int y, int z, int range) {
+        return live.findStandable(x, y, z, range);
+    }
+
+    /**
+     * Cheapest walks inside the cell's cluster, from the source to each target or, reversed, from each target to
+     * the source.
+     * @return the cost for every target, Cluster.NO_PATH for targets that can't be reached
+     */
+    int[] searchCosts(long source, boolean reverse, long[] targets) {
+        return live.searchCosts(source, reverse, targets);
+    }
+
+    // A loaded chunk, or a change in a column, queues the column and the neighbours whose entrances it holds
+    @Override
+    public void onBlocksChanged(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        for (int chunkX = (minX >> 4) - 1; chunkX <= (maxX >> 4) + 1; chunkX++) {
+            for (int chunkZ = (minZ >> 4) - 1; chunkZ <= (maxZ >> 4) + 1; chunkZ++) {
+                boolean inside = chunkX >= minX >> 4 && chunkX <= maxX >> 4 && chunkZ >= minZ >> 4 && chunkZ <= maxZ >> 4;
+                long key = chunkKey(chunkX, chunkZ);
+                if (inside || clusters.containsKey(key)) {
+                    pending.add(key);
+                }
+            }
+        }
+    }
+
+    private void checkWorld() {
+        Object current = WorldAccess.getBlocks().getWorld();
+        if (current != world) {
+            world = current;
+            clear();
+        }
+    }
+
+    private void takeReady() {
+        Cluster cluster;
+        while ((cluster = ready.poll()) != null) {
+            clusters.put(chunkKey(cluster.chunkX, cluster.chunkZ), cluster);
+            builtCount++;
+        }
+    }
+
+    private void schedule(Runnable task) {
+        if (executor == null) {
+            executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "Mucifex-Clusters");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+        }
+        job = executor.submit(() -> {
+            try {
+                task.run();
+            } catch (Exception e) {
+                System.err.println("Error building clusters: " + e.getMessage());
+                e.printStackTrace();
+            }
+        });
+    }
+
+    // Sum of the versions of the column and its four neighbours, versions only go up so any change moves the sum
+    private long stamp(int chunkX, int chunkZ) {
+        long stamp = 0;
+        for (int d = -1; d < DX.length; d++) {
+            int x = (chunkX + (d < 0 ? 0 : DX[d])) << 4;
+            int z = (chunkZ + (d < 0 ? 0 : DZ[d])) << 4;
+            for (int sectionY = 0; sectionY < 16; sectionY++) {
+                stamp += cache.getSectionVersion(x, sectionY << 4, z);
+            }
+        }
+        return stamp;
+    }
+
+    static int stepCost(int fromY, int toY) {
+        return STEP_COST * (1 + Math.abs(toY - fromY));
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    static long pack(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+
+    static int unpackX(long cell) {
+        return (int) (cell >> 38);
+    }
+
+    static int unpackY(long cell) {
+        return (int) (cell & 0xFFF);
+    }
+
+    static int unpackZ(long cell) {
+        return (int) (cell << 26 >> 38);
+    }
+}
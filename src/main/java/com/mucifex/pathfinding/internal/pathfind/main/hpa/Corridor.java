@@ -0,0 +1,72 @@
+package com.mucifex.pathfinding.internal.pathfind.main.hpa;
+
+import net.minecraft.util.BlockPos;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A route through the {@link ClusterGraph}: the start, the chunk border entrances on the way and the goal.
+ * Consecutive waypoints can be far apart, the block level search fills in the walk between them.
+ * An incomplete corridor ends at the entrance closest to a goal that is not loaded or not reachable yet.
+ */
+public class Corridor {
+    static final Corridor NONE = new Corridor(Collections.<BlockPos>emptyList(), false, 0);
+
+    private final List<BlockPos> waypoints;
+    private final boolean complete;
+    private final int cost;
+
+    Corridor(List<BlockPos> waypoints, boolean complete, int cost) {
+        this.waypoints = waypoints;
+        this.complete = complete;
+        this.cost = cost;
+    }
+
+    public List<BlockPos> getWaypoints() {
+        return waypoints;
+    }
+
+    /**
+     * @return true if the corridor ends at the goal
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    /**
+     * @return false if the corridor doesn't lead anywhere from the start
+     */
+    public boolean leadsAnywhere() {
+        return waypoints.size() > 1;
+    }
+
+    /**
+     * The furthest waypoint that stays within the given number of chunk borders from the start, what the block
+     * level search should walk to next.
+     */
+    public BlockPos getWaypointAhead(int clusters) {
+        if (waypoints.isEmpty()) {
+            return null;
+        }
+
+        BlockPos chosen = waypoints.get(0);
+        int crossed = 0;
+        for (int i = 1; i < waypoints.size(); i++) {
+            BlockPos previous = waypoints.get(i - 1);
+            BlockPos waypoint = waypoints.get(i);
+            if ((previous.getX() >> 4) != (waypoint.getX() >> 4) || (previous.getZ() >> 4) != (waypoint.getZ() >> 4)) {
+                crossed++;
+            }
+            if (crossed > clusters) {
+                break;
+            }
+            chosen = waypoint;
+        }
+        return chosen;
+    }
+}
@@ -0,0 +1,158 @@
+package com.mucifex.pathfinding.internal.pathfind.main.hpa;
+
+import net.minecraft.util.BlockPos;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Long distance planner over the {@link ClusterGraph} (HPA*). The start and goal are connected to the entrances
+ * of their own chunk with a search inside that chunk, then A* runs over the entrances only, which takes
+ * milliseconds even across the whole loaded area. The result is a {@link Corridor} the Walker follows a cluster
+ * or two at a time.
+ */
+public class HierarchicalPlanner {
+    // Entrances expanded before the search gives up and returns the closest one it reached
+    private static final int MAX_EXPANSIONS = 50000;
+    // How far up or down the start and goal may be moved to land on a standable block
+    private static final int SNAP_RANGE = 4;
+
+    private final ClusterGraph graph;
+
+    public HierarchicalPlanner() {
+        this(ClusterGraph.getInstance());
+    }
+
+    public HierarchicalPlanner(ClusterGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Plans from start towards goal over the loaded chunks whose clusters are built. If the goal's chunk isn't
+     * loaded or can't be reached, the corridor stops at the entrance closest to it. Missing clusters are built in
+     * the background for the next plan.
+     */
+    public Corridor plan(BlockPos start, BlockPos goal) {
+        long startTime = System.nanoTime();
+        graph.beginQuery(start.getX() >> 4, start.getZ() >> 4);
+
+        long startCell = graph.findStandable(start.getX(), start.getY(), start.getZ(), SNAP_RANGE);
+        Cluster startCluster = startCell != ClusterGraph.NO_CELL ? graph.getCluster(startCell) : null;
+        if (startCluster == null) {
+            System.out.println("DEBUG: No corridor, start " + start + " is not standable or not loaded");
+            return Corridor.NONE;
+        }
+
+        long goalCell = ClusterGraph.NO_CELL;
+        Cluster goalCluster = graph.getCluster(goal.getX() >> 4, goal.getZ() >> 4);
+        if (goalCluster != null) {
+            goalCell = graph.findStandable(goal.getX(), goal.getY(), goal.getZ(), SNAP_RANGE);
+        }
+
+        // Start to its own entrances, and straight to the goal if it is in the same chunk
+        boolean sameCluster = goalCell != ClusterGraph.NO_CELL && goalCluster == startCluster;
+        long[] startTargets = startCluster.portals;
+        if (sameCluster) {
+            startTargets = Arrays.copyOf(startTargets, startTargets.length + 1);
+            startTargets[startTargets.length - 1] = goalCell;
+        }
+        int[] startCosts = graph.searchCosts(startCell, false, startTargets);
+        // Entrances of the goal's chunk to the goal
+        int[] goalCosts = goalCell != ClusterGraph.NO_CELL
+                ? graph.searchCosts(goalCell, true, goalCluster.portals) : null;
+
+        Map<Long, Integer> costs = new HashMap<>();
+        Map<Long, Long> parents = new HashMap<>();
+        PriorityQueue<long[]> open = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+        costs.put(startCell, 0);
+        open.add(new long[]{heuristic(startCell, goal), 0, startCell});
+
+        long best = startCell;
+        int bestHeuristic = heuristic(startCell, goal);
+        boolean complete = false;
+        int expansions = 0;
+
+        while (!open.isEmpty() && expansions < MAX_EXPANSIONS) {
+            long[] entry = open.poll();
+            long cell = entry[2];
+            int cost = (int) entry[1];
+            if (cost > costs.get(cell)) {
+                continue;
+            }
+            expansions++;
+
+            if (cell == goalCell) {
+                best = cell;
+                complete = true;
+                break;
+            }
+            int heuristic = heuristic(cell, goal);
+            if (heuristic < bestHeuristic) {
+                best = cell;
+                bestHeuristic = heuristic;
+            }
+
+            if (cell == startCell) {
+                for (int i = 0; i < startTargets.length; i++) {
+                    relax(open, costs, parents, cell, startTargets[i], cost, startCosts[i], goal);
+                }
+            }
+
+            Cluster cluster = graph.getCluster(cell);
+            int index = cluster != null ? cluster.indexOf(cell) : -1;
+            if (index < 0) {
+                continue;
+            }
+            for (int j = 0; j < cluster.portals.length; j++) {
+                relax(open, costs, parents, cell, cluster.portals[j], cost, cluster.costs[index][j], goal);
+            }
+            for (int e = 0; e < cluster.exits[index].length; e++) {
+                // Only entrances of loaded chunks are walked into
+                if (graph.getCluster(cluster.exits[index][e]) != null) {
+                    relax(open, costs, parents, cell, cluster.exits[index][e], cost, cluster.exitCosts[index][e], goal);
+                }
+            }
+            if (goalCosts != null && cluster == goalCluster) {
+                relax(open, costs, parents, cell, goalCell, cost, goalCosts[index], goal);
+            }
+        }
+
+        List<BlockPos> waypoints = new ArrayList<>();
+        for (Long cell = best; cell != null; cell = parents.get(cell)) {
+            waypoints.add(new BlockPos(ClusterGraph.unpackX(cell), ClusterGraph.unpackY(cell), ClusterGraph.unpackZ(cell)));
+        }
+        Collections.reverse(waypoints);
+
+        System.out.println(String.format("DEBUG: Corridor of %d waypoints (%s) in %.2f ms, %d entrances expanded, %d clusters taken in",
+                waypoints.size(), complete ? "complete" : "partial", (System.nanoTime() - startTime) / 1e6,
+                expansions, graph.getBuiltCount()));
+        return new Corridor(waypoints, complete, costs.get(best));
+    }
+
+    private static void relax(PriorityQueue<long[]> open, Map<Long, Integer> costs, Map<Long, Long> parents,
+                              long from, long to, int cost, int edgeCost, BlockPos goal) {
+        if (edgeCost == Cluster.NO_PATH || to == from) {
+            return;
+        }
+        int newCost = cost + edgeCost;
+        Integer known = costs.get(to);
+        if (known != null && known <= newCost) {
+            return;
+        }
+        costs.put(to, newCost);
+        parents.put(to, from);
+        open.add(new long[]{newCost + heuristic(to, goal), newCost, to});
+    }
+
+    // Manhattan distance in steps, no move of the graph covers more than one block per step
+    private static int heuristic(long cell, BlockPos goal) {
+        return ClusterGraph.STEP_COST * (Math.abs(ClusterGraph.unpackX(cell) - goal.getX())
+                + Math.abs(ClusterGraph.unpackY(cell) - goal.getY())
+                + Math.abs(ClusterGraph.unpackZ(cell) - goal.getZ()));
+    }
+}
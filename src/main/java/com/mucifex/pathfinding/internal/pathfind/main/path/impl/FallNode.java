@@ -1,17 +1,31 @@
 package com.mucifex.pathfinding.internal.pathfind.main.path.impl;
 
+import net.minecraft.util.BlockPos;
 import net.minecraft.util.Vec3;
 import com.mucifex.pathfinding.internal.util.Util;
 import com.mucifex.pathfinding.internal.pathfind.main.path.Node;
 import com.mucifex.pathfinding.internal.pathfind.main.path.PathElm;
 
 public class FallNode extends Node implements PathElm {
+    // Blocks fallen through from this one straight down, the player lands drop blocks below it
+    private final int drop;
+
     public FallNode(int x, int y, int z) {
+        this(x, y, z, 1);
+    }
+
+    public FallNode(int x, int y, int z, int drop) {
         super(x, y, z);
+        this.drop = drop;
+    }
+
+    public int getDrop() {
+        return drop;
     }
 
     @Override
     public boolean playerOn(Vec3 playerPos) {
-        return Util.toBlockPos(playerPos).equals(getBlockPos());
+        BlockPos pos = Util.toBlockPos(playerPos);
+        return pos.getX() == getX() && pos.getZ() == getZ() && pos.getY() <= getY() && pos.getY() > getY() - drop;
     }
 }
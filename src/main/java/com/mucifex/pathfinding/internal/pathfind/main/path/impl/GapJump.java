@@ -0,0 +1,49 @@
+package com.mucifex.pathfinding.internal.pathfind.main.path.impl;
+
+import net.minecraft.util.BlockPos;
+import net.minecraft.util.Vec3;
+import com.mucifex.pathfinding.internal.util.Util;
+import com.mucifex.pathfinding.internal.pathfind.main.path.Node;
+import com.mucifex.pathfinding.internal.pathfind.main.path.PathElm;
+
+/**
+ * A sprint jump from the block the player stands on over a gap straight along x or z, onto a landing up to one
+ * block higher or lower.
+ */
+public class GapJump implements PathElm {
+
+    private final Node from;
+    private final Node to;
+
+    public GapJump(Node from, Node to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    public Node getFrom() {
+        return from;
+    }
+
+    public Node getTo() {
+        return to;
+    }
+
+    /**
+     * @return blocks jumped over between the takeoff and the landing
+     */
+    public int getGap() {
+        return Math.abs(to.getX() - from.getX()) + Math.abs(to.getZ() - from.getZ()) - 1;
+    }
+
+    // Anywhere over the gap or the landing, from the lower of the two floors up to the top of the jump
+    @Override
+    public boolean playerOn(Vec3 playerPos) {
+        BlockPos pos = Util.toBlockPos(playerPos);
+        int dx = Integer.signum(to.getX() - from.getX());
+        int dz = Integer.signum(to.getZ() - from.getZ());
+        int along = dx != 0 ? (pos.getX() - from.getX()) * dx : (pos.getZ() - from.getZ()) * dz;
+        boolean onLine = dx != 0 ? pos.getZ() == from.getZ() : pos.getX() == from.getX();
+        return onLine && along >= 1 && along <= getGap() + 1
+                && pos.getY() >= Math.min(from.getY(), to.getY()) && pos.getY() <= from.getY() + 2;
+    }
+}
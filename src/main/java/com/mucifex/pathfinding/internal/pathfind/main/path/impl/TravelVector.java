@@ -9,10 +9,17 @@ public class TravelVector implements PathElm {
 
     private final Node from;
     private final Node to;
+    // Crosses one block steps up or down on the way, taken by jumping or walking off
+    private final boolean stepped;
 
     public TravelVector(Node from, Node to) {
+        this(from, to, false);
+    }
+
+    public TravelVector(Node from, Node to, boolean stepped) {
         this.from = from;
         this.to = to;
+        this.stepped = stepped;
     }
 
     public Node getFrom() {
@@ -23,6 +30,10 @@ public class TravelVector implements PathElm {
         return to;
     }
 
+    public boolean isStepped() {
+        return stepped;
+    }
+
     @Override
     public boolean playerOn(Vec3 playerPos) {
         Vec3 fromVec = new Vec3(from.getBlockPos()).add(new Vec3(0.5, 0, 0.5));
@@ -0,0 +1,69 @@
+package com.mucifex.pathfinding.internal.pathfind.main.player;
+
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.entity.EntityPlayerSP;
+import net.minecraft.client.settings.KeyBinding;
+import net.minecraft.util.ChatComponentText;
+import net.minecraft.util.Vec3;
+
+/**
+ * The client player, movement goes through the key bindings like real input.
+ */
+public class MinecraftPlayerState implements PlayerState {
+    private static EntityPlayerSP player() {
+        return Minecraft.getMinecraft().thePlayer;
+    }
+
+    @Override
+    public boolean isPresent() {
+        return player() != null;
+    }
+
+    @Override
+    public Vec3 getPosition() {
+        return player().getPositionVector();
+    }
+
+    @Override
+    public Vec3 getMotion() {
+        EntityPlayerSP player = player();
+        return new Vec3(player.motionX, player.motionY, player.motionZ);
+    }
+
+    @Override
+    public boolean isOnGround() {
+        return player().onGround;
+    }
+
+    @Override
+    public float getEyeHeight() {
+        return player().getEyeHeight();
+    }
+
+    @Override
+    public float getYaw() {
+        return player().rotationYaw;
+    }
+
+    @Override
+    public float getPitch() {
+        return player().rotationPitch;
+    }
+
+    @Override
+    public void setRotation(float yaw, float pitch) {
+        EntityPlayerSP player = player();
+        player.rotationYaw = yaw;
+        player.rotationPitch = pitch;
+    }
+
+    @Override
+    public void setKeyPressed(int keyCode, boolean pressed) {
+        KeyBinding.setKeyBindState(keyCode, pressed);
+    }
+
+    @Override
+    public void sendMessage(String message) {
+        player().addChatMessage(new ChatComponentText(message));
+    }
+}
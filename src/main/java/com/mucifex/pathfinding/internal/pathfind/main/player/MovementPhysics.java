@@ -0,0 +1,120 @@
+package com.mucifex.pathfinding.internal.pathfind.main.player;
+
+import com.mucifex.pathfinding.internal.pathfind.main.world.PassabilitySource;
+import net.minecraft.util.Vec3;
+
+/**
+ * The 1.8 player movement numbers, per client tick. The {@link SimulatedPlayer} moves by them, the walker
+ * predicts with them where the player ends up once it lets go of the keys and the planner how far and how fast
+ * a jump over a gap goes.
+ */
+public final class MovementPhysics {
+    public static final double WALK_SPEED = 0.1;
+    public static final double SPRINT_SPEED = 0.13;
+    public static final double AIR_SPEED = 0.02;
+    public static final double SPRINT_AIR_SPEED = 0.026;
+    // Horizontal motion kept after a tick: block slipperiness 0.6 times 0.91 on the ground, 0.91 in the air
+    public static final double GROUND_DRAG = 0.546;
+    public static final double AIR_DRAG = 0.91;
+    public static final double GRAVITY = 0.08;
+    public static final double VERTICAL_DRAG = 0.98;
+    public static final double JUMP_MOTION = 0.42;
+    public static final double SPRINT_JUMP_BOOST = 0.2;
+    public static final int JUMP_COOLDOWN = 10;
+    // Forward key input, the client scales every movement key by this
+    public static final double FORWARD_INPUT = 0.98;
+    // Blocks a tick sprinting on flat ground once up to speed, where the ground drag takes what a tick adds
+    public static final double SPRINT_BLOCKS_PER_TICK = SPRINT_SPEED * FORWARD_INPUT / (1 - GROUND_DRAG);
+    // The client zeroes horizontal motion below this
+    private static final double STOPPED_SPEED = 0.005;
+    // Longer than any jump, a fall still going after this is not predicted any further
+    private static final int MAX_PREDICTED_TICKS = 60;
+
+    private MovementPhysics() {
+    }
+
+    /**
+     * Runs the player's motion forward with no keys held until it comes to rest: air drag and gravity until it
+     * lands on a block of the world, ground drag after that.
+     * @return the horizontal distance still travelled, y is 0
+     */
+    public static Vec3 stoppingOffset(Vec3 position, Vec3 motion, boolean onGround, PassabilitySource world) {
+        double x = position.xCoord, y = position.yCoord, z = position.zCoord;
+        double motionX = motion.xCoord, motionY = onGround ? 0 : motion.yCoord, motionZ = motion.zCoord;
+
+        for (int tick = 0; tick < MAX_PREDICTED_TICKS; tick++) {
+            if (Math.abs(motionX) < STOPPED_SPEED && Math.abs(motionZ) < STOPPED_SPEED) {
+                break;
+            }
+            x += motionX;
+            z += motionZ;
+
+            if (!onGround) {
+                y += motionY;
+                motionY = (motionY - GRAVITY) * VERTICAL_DRAG;
+                int floorY = (int) Math.floor(y);
+                if (motionY < 0 && world.isSolid((int) Math.floor(x), floorY - 1, (int) Math.floor(z))
+                        && y + motionY < floorY) {
+                    onGround = true;
+                }
+            }
+
+            double drag = onGround ? GROUND_DRAG : AIR_DRAG;
+            motionX *= drag;
+            motionZ *= drag;
+        }
+        return new Vec3(x - position.xCoord, 0, z - position.zCoord);
+    }
+
+    /**
+     * Where a sprint jump straight ahead comes down, with the forward key held the whole way.
+     */
+    public static final class Flight {
+        // Ticks from pressing jump to landing
+        public final int ticks;
+        // Blocks travelled forward by then
+        public final double distance;
+
+        Flight(int ticks, double distance) {
+            this.ticks = ticks;
+            this.distance = distance;
+        }
+    }
+
+    /**
+     * Runs a sprint jump forward from where it is started until the player comes down on a block rise blocks
+     * higher than the one it jumps from, that starts reach blocks ahead.
+     * @param running already sprinting at full speed when jumping, otherwise from a standstill
+     * @param rise height of the landing block's top over the takeoff's, from -1 up to 1
+     * @return the flight, null if the player comes down below the landing's top before getting over it
+     */
+    public static Flight sprintJump(boolean running, double reach, int rise) {
+        // Motion left after the last tick on the ground, the jump adds the sprint boost on top
+        double motion = (running ? SPRINT_BLOCKS_PER_TICK * GROUND_DRAG : 0) + SPRINT_JUMP_BOOST;
+        double motionY = JUMP_MOTION;
+        double distance = 0, y = 0;
+        boolean over = false;
+        boolean onGround = true;
+
+        for (int tick = 1; tick <= MAX_PREDICTED_TICKS; tick++) {
+            motion += (onGround ? SPRINT_SPEED : SPRINT_AIR_SPEED) * FORWARD_INPUT;
+            distance += motion;
+            y += motionY;
+
+            if (!over && distance >= reach) {
+                if (y < rise) {
+                    return null;
+                }
+                over = true;
+            }
+            if (motionY < 0 && y <= rise) {
+                return over ? new Flight(tick, distance) : null;
+            }
+
+            motionY = (motionY - GRAVITY) * VERTICAL_DRAG;
+            motion *= onGround ? GROUND_DRAG : AIR_DRAG;
+            onGround = false;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,41 @@
+package com.mucifex.pathfinding.internal.pathfind.main.player;
+
+import net.minecraft.util.Vec3;
+
+/**
+ * The player as the pathing stack sees it: where it is, where it looks and which movement keys it holds.
+ * {@link MinecraftPlayerState} is the client player, a {@link SimulatedPlayer} moves itself in a VoxelWorld.
+ */
+public interface PlayerState {
+    /**
+     * @return false while there is no player, e.g. in the main menu
+     */
+    boolean isPresent();
+
+    /**
+     * @return feet position
+     */
+    Vec3 getPosition();
+
+    Vec3 getMotion();
+
+    /**
+     * @return true while standing on a block, false mid jump or fall
+     */
+    boolean isOnGround();
+
+    float getEyeHeight();
+
+    float getYaw();
+
+    float getPitch();
+
+    void setRotation(float yaw, float pitch);
+
+    /**
+     * @param keyCode an LWJGL Keyboard key code, e.g. Keyboard.KEY_W
+     */
+    void setKeyPressed(int keyCode, boolean pressed);
+
+    void sendMessage(String message);
+}
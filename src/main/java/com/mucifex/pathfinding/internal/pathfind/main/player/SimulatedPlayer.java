@@ -0,0 +1,212 @@
+package com.mucifex.pathfinding.internal.pathfind.main.player;
+
+import com.mucifex.pathfinding.internal.pathfind.main.world.VoxelWorld;
+import net.minecraft.util.Vec3;
+import org.lwjgl.input.Keyboard;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A player that moves itself through a {@link VoxelWorld} from the keys the pathing stack presses,
+ * with the 1.8 walking, sprinting, jumping and falling numbers of {@link MovementPhysics} and box collision against
+ * full blocks.
+ * One {@link #tick()} is one client tick. A headless run installs the world and the player in WorldAccess,
+ * creates a Walker and a LookManager and mirrors the client every tick: Walker.tick(), then player.tick(),
+ * then LookManager.update() with its clock set to {@link #getTimeMillis()}.
+ */
+public class SimulatedPlayer implements PlayerState {
+    private static final double HALF_WIDTH = 0.3;
+    private static final double HEIGHT = 1.8;
+    private static final float EYE_HEIGHT = 1.62f;
+
+    private final VoxelWorld world;
+    private final boolean[] keys = new boolean[256];
+    // Chat messages sent to the player, kept for headless runs to check instead of printed
+    private final List<String> messages = new ArrayList<>();
+
+    private double x;
+    private double y;
+    private double z;
+    private double motionX;
+    private double motionY;
+    private double motionZ;
+    private float yaw;
+    private float pitch;
+    private boolean onGround;
+    private int jumpTicks;
+    private long ticks;
+
+    public SimulatedPlayer(VoxelWorld world, double x, double y, double z) {
+        this.world = world;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+    }
+
+    public void tick() {
+        ticks++;
+        if (jumpTicks > 0) {
+            jumpTicks--;
+        }
+
+        double forward = ((keys[Keyboard.KEY_W] ? 1 : 0) - (keys[Keyboard.KEY_S] ? 1 : 0)) * MovementPhysics.FORWARD_INPUT;
+        double strafe = ((keys[Keyboard.KEY_A] ? 1 : 0) - (keys[Keyboard.KEY_D] ? 1 : 0)) * MovementPhysics.FORWARD_INPUT;
+        boolean sprinting = keys[Keyboard.KEY_LCONTROL] && forward >= 0.8;
+        double yawRadians = Math.toRadians(yaw);
+
+        if (keys[Keyboard.KEY_SPACE] && onGround && jumpTicks == 0) {
+            motionY = MovementPhysics.JUMP_MOTION;
+            if (sprinting) {
+                motionX -= Math.sin(yawRadians) * MovementPhysics.SPRINT_JUMP_BOOST;
+                motionZ += Math.cos(yawRadians) * MovementPhysics.SPRINT_JUMP_BOOST;
+            }
+            jumpTicks = MovementPhysics.JUMP_COOLDOWN;
+        }
+
+        double speed = onGround ? (sprinting ? MovementPhysics.SPRINT_SPEED : MovementPhysics.WALK_SPEED)
+                : (sprinting ? MovementPhysics.SPRINT_AIR_SPEED : MovementPhysics.AIR_SPEED);
+        double input = forward * forward + strafe * strafe;
+        if (input >= 1.0E-4) {
+            double scale = speed / Math.max(1, Math.sqrt(input));
+            forward *= scale;
+            strafe *= scale;
+            motionX += strafe * Math.cos(yawRadians) - forward * Math.sin(yawRadians);
+            motionZ += forward * Math.cos(yawRadians) + strafe * Math.sin(yawRadians);
+        }
+
+        double drag = onGround ? MovementPhysics.GROUND_DRAG : MovementPhysics.AIR_DRAG;
+        move(motionX, motionY, motionZ);
+
+        motionY = (motionY - MovementPhysics.GRAVITY) * MovementPhysics.VERTICAL_DRAG;
+        motionX *= drag;
+        motionZ *= drag;
+    }
+
+    // Moves along y, then x, then z, stopping each axis at the first solid block in the way
+    private void move(double dx, double dy, double dz) {
+        double movedY = clip(dy, 1);
+        y += movedY;
+        double movedX = clip(dx, 0);
+        x += movedX;
+        double movedZ = clip(dz, 2);
+        z += movedZ;
+
+        onGround = dy < 0 && movedY != dy;
+        if (movedY != dy) motionY = 0;
+        if (movedX != dx) motionX = 0;
+        if (movedZ != dz) motionZ = 0;
+    }
+
+    private double clip(double delta, int axis) {
+        if (delta == 0) {
+            return 0;
+        }
+        // The direction is fixed up front, a block the box already touches clips delta past 0
+        boolean positive = delta > 0;
+        double[] min = {x - HALF_WIDTH, y, z - HALF_WIDTH};
+        double[] max = {x + HALF_WIDTH, y + HEIGHT, z + HALF_WIDTH};
+        if (positive) {
+            max[axis] += delta;
+        } else {
+            min[axis] += delta;
+        }
+
+        // Blocks the swept box overlaps, shrunk a little so standing flush against a block doesn't count
+        double epsilon = 1.0E-7;
+        for (int bx = floor(min[0] + epsilon); bx <= floor(max[0] - epsilon); bx++) {
+            for (int by = floor(min[1] + epsilon); by <= floor(max[1] - epsilon); by++) {
+                for (int bz = floor(min[2] + epsilon); bz <= floor(max[2] - epsilon); bz++) {
+                    if (!world.isSolid(bx, by, bz)) {
+                        continue;
+                    }
+                    int block = axis == 0 ? bx : axis == 1 ? by : bz;
+                    if (positive) {
+                        delta = Math.min(delta, block - (axis == 0 ? x + HALF_WIDTH : axis == 1 ? y + HEIGHT : z + HALF_WIDTH));
+                    } else {
+                        delta = Math.max(delta, block + 1 - (axis == 0 ? x - HALF_WIDTH : axis == 1 ? y : z - HALF_WIDTH));
+                    }
+                }
+            }
+        }
+        // Already touching, don't move backwards
+        return positive ? Math.max(delta, 0) : Math.min(delta, 0);
+    }
+
+    private static int floor(double value) {
+        return (int) Math.floor(value);
+    }
+
+    @Override
+    public boolean isOnGround() {
+        return onGround;
+    }
+
+    public boolean isKeyPressed(int keyCode) {
+        return keys[keyCode];
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * @return simulated time, 50 ms per tick
+     */
+    public long getTimeMillis() {
+        return ticks * 50;
+    }
+
+    @Override
+    public boolean isPresent() {
+        return true;
+    }
+
+    @Override
+    public Vec3 getPosition() {
+        return new Vec3(x, y, z);
+    }
+
+    @Override
+    public Vec3 getMotion() {
+        return new Vec3(motionX, motionY, motionZ);
+    }
+
+    @Override
+    public float getEyeHeight() {
+        return EYE_HEIGHT;
+    }
+
+    @Override
+    public float getYaw() {
+        return yaw;
+    }
+
+    @Override
+    public float getPitch() {
+        return pitch;
+    }
+
+    @Override
+    public void setRotation(float yaw, float pitch) {
+        this.yaw = yaw;
+        this.pitch = pitch;
+    }
+
+    @Override
+    public void setKeyPressed(int keyCode, boolean pressed) {
+        if (keyCode >= 0 && keyCode < keys.length) {
+            keys[keyCode] = pressed;
+        }
+    }
+
+    @Override
+    public void sendMessage(String message) {
+        messages.add(message);
+    }
+
+    public List<String> getMessages() {
+        return Collections.unmodifiableList(messages);
+    }
+}
@@ -3,11 +3,14 @@ package com.mucifex.pathfinding.internal.pathfind.main.processor;
 import com.mucifex.pathfinding.internal.pathfind.main.astar.AStarNode;
 import com.mucifex.pathfinding.internal.pathfind.main.path.PathElm;
 import com.mucifex.pathfinding.internal.pathfind.main.path.impl.FallNode;
+import com.mucifex.pathfinding.internal.pathfind.main.path.impl.GapJump;
 import com.mucifex.pathfinding.internal.pathfind.main.path.impl.JumpNode;
 import com.mucifex.pathfinding.internal.pathfind.main.path.impl.TravelNode;
 import com.mucifex.pathfinding.internal.pathfind.main.processor.impl.FallProcessor;
 import com.mucifex.pathfinding.internal.pathfind.main.processor.impl.JumpProcessor;
 import com.mucifex.pathfinding.internal.pathfind.main.processor.impl.TravelProcessor;
+import com.mucifex.pathfinding.internal.pathfind.main.world.PassabilityCache;
+import com.mucifex.pathfinding.internal.pathfind.main.world.PassabilitySource;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -17,12 +20,17 @@ public class ProcessorManager {
 
 
     public static List<PathElm> process(List<AStarNode> aStarNodes) {
+        return process(aStarNodes, PassabilityCache.getInstance());
+    }
+
+    // world is what the processors check the optimised path against, a snapshot when planning off the client thread
+    public static List<PathElm> process(List<AStarNode> aStarNodes, PassabilitySource world) {
         List<PathElm> pathElms = convertRepresentation(aStarNodes);
 
         List<Processor> processors = new ArrayList<>();
-        processors.add(new TravelProcessor());
+        processors.add(new TravelProcessor(world));
         processors.add(new FallProcessor());
-        processors.add(new JumpProcessor());
+        processors.add(new JumpProcessor(world));
 
         for(Processor processor : processors) {
             processor.process(pathElms);
@@ -48,11 +56,20 @@ public class ProcessorManager {
                 continue;
             }
 
+            // a jump over a gap takes off from the node before it, the landing is part of it
+            if(node.isGapJump() && i > 0) {
+                AStarNode from = aStarNodes.get(i - 1);
+                pathElms.add(new GapJump(new TravelNode(from.getX(), from.getY(), from.getZ()),
+                        new TravelNode(node.getX(), node.getY(), node.getZ())));
+                continue;
+            }
+
             if(node.isFallNode()) {
                 pathElms.add(new FallNode(node.getX(), node.getY(), node.getZ()));
 
-                // skip directly in front of fall, unless if its the last node
-                if(i != aStarNodes.size() - 1)
+                // skip the landing directly below the last fall node, unless if its the last node.
+                // A longer fall keeps a node per block, the FallProcessor joins them
+                if(i != aStarNodes.size() - 1 && !aStarNodes.get(i + 1).isFallNode())
                     i+=1;
                 continue;
             }
@@ -1,15 +1,50 @@
 package com.mucifex.pathfinding.internal.pathfind.main.processor.impl;
 
 import com.mucifex.pathfinding.internal.pathfind.main.path.PathElm;
+import com.mucifex.pathfinding.internal.pathfind.main.path.impl.FallNode;
 import com.mucifex.pathfinding.internal.pathfind.main.processor.Processor;
 
+import java.util.ArrayList;
 import java.util.List;
 
-//TODO add more optimisations. Probably connect fall nodes if they are unobstructed.
+// Connects fall nodes straight below each other into one drop, a fall is only ever straight down once it has
+// started so nothing can be in the way.
 
 public class FallProcessor extends Processor {
+    // Longest drop one element covers, the fall damage free height. Longer falls keep a node every this many blocks
+    private static final int MAX_DROP = 3;
 
     @Override
     public void process(List<PathElm> elms) {
+        List<PathElm> newPath = new ArrayList<>(elms.size());
+
+        int a = 0;
+        while(a < elms.size()) {
+            PathElm elm = elms.get(a);
+
+            if(!(elm instanceof FallNode)) {
+                newPath.add(elm);
+                a++;
+                continue;
+            }
+
+            FallNode top = (FallNode)elm;
+            int drop = top.getDrop();
+            int last = a;
+            while(last + 1 < elms.size() && elms.get(last + 1) instanceof FallNode) {
+                FallNode next = (FallNode)elms.get(last + 1);
+                if(next.getX() != top.getX() || next.getZ() != top.getZ() || next.getY() != top.getY() - drop
+                        || drop + next.getDrop() > MAX_DROP)
+                    break;
+                drop += next.getDrop();
+                last++;
+            }
+
+            newPath.add(last == a ? elm : new FallNode(top.getX(), top.getY(), top.getZ(), drop));
+            a = last + 1;
+        }
+
+        elms.clear();
+        elms.addAll(newPath);
     }
 }
@@ -1,15 +1,210 @@
 package com.mucifex.pathfinding.internal.pathfind.main.processor.impl;
 
+import com.mucifex.pathfinding.internal.pathfind.main.path.Node;
 import com.mucifex.pathfinding.internal.pathfind.main.path.PathElm;
+import com.mucifex.pathfinding.internal.pathfind.main.path.impl.FallNode;
+import com.mucifex.pathfinding.internal.pathfind.main.path.impl.JumpNode;
+import com.mucifex.pathfinding.internal.pathfind.main.path.impl.TravelNode;
+import com.mucifex.pathfinding.internal.pathfind.main.path.impl.TravelVector;
 import com.mucifex.pathfinding.internal.pathfind.main.processor.Processor;
+import com.mucifex.pathfinding.internal.pathfind.main.world.PassabilityCache;
+import com.mucifex.pathfinding.internal.pathfind.main.world.PassabilitySource;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
-//TODO add more optimisations. Connect nodes if the jump is a slab or stair, which means we can just walk up it instead of jumping.
+// Connects nodes over gentle slopes and stairs, the walker jumps each step as it comes instead of stopping at
+// every jump node.
 
 public class JumpProcessor extends Processor {
+    // Blocks of the centre line from one step to the next at the least, a step is never taken mid jump
+    private static final int MIN_STEP_SPACING = 2;
+    // Blocks of travel before a step up where the player is already jumping, and after a step down where it is
+    // still on the ledge, the box needs room at the upper level there
+    private static final double STEP_LEAD = 1.0;
 
+    private final PassabilitySource world;
+
+    // Standing height of each block on the centre line of the last check and the segment fraction where it starts
+    private int[] heights = new int[64];
+    private double[] enters = new double[64];
+    private int cells;
+    private int lastStep;
+    private int prevX, prevZ;
+    private double lead;
+    // First centre block still inside the window of the corner block being checked, corners move forward too
+    private int window;
+
+    private final VoxelTraversal.Visitor centre = this::visitCentre;
+    private final VoxelTraversal.Visitor corner = this::visitCorner;
+
+    public JumpProcessor() {
+        this(PassabilityCache.getInstance());
+    }
+
+    public JumpProcessor(PassabilitySource world) {
+        this.world = world;
+    }
+
+    // Greedy forward scan like the TravelProcessor's, over the travel elements it left behind and the jump nodes
+    // and one block falls between them, the line check decides whether their steps can be taken on the way
     @Override
     public void process(List<PathElm> elms) {
+        List<PathElm> newPath = new ArrayList<>(elms.size());
+
+        int a = 0;
+        while(a < elms.size()) {
+            PathElm elm = elms.get(a);
+            Node start = startOf(elm);
+
+            if(start == null) {
+                newPath.add(elm);
+                a++;
+                continue;
+            }
+
+            int last = a;
+            boolean stepped = false;
+            for(int b = a + 1 ; b < elms.size() ; b++) {
+                PathElm next = elms.get(b);
+                if(next instanceof JumpNode || isStepDown(next))
+                    continue;
+
+                Node end = endOf(next);
+                if(end == null || !isWalkable(start, end))
+                    break;
+
+                last = b;
+                stepped = lastStep >= 0;
+            }
+
+            if(last == a) {
+                newPath.add(elm);
+            } else {
+                newPath.add(new TravelVector(start, endOf(elms.get(last)), stepped));
+            }
+            a = last + 1;
+        }
+
+        elms.clear();
+        elms.addAll(newPath);
+    }
+
+    /**
+     * @return true if the player can walk straight from the centre of start to the centre of end, taking one block
+     * steps up and down on the way, at least MIN_STEP_SPACING blocks apart
+     */
+    public boolean isWalkable(Node start, Node end) {
+        double fromX = start.getX() + 0.5, fromZ = start.getZ() + 0.5;
+        double toX = end.getX() + 0.5, toZ = end.getZ() + 0.5;
+        double length = Math.sqrt((toX - fromX) * (toX - fromX) + (toZ - fromZ) * (toZ - fromZ));
+        if(length == 0)
+            return false;
+
+        cells = 0;
+        lastStep = -1;
+        prevX = start.getX();
+        prevZ = start.getZ();
+        heights[0] = start.getY();
+        if(!VoxelTraversal.traverse(fromX, 0, fromZ, toX, 0, toZ, centre) || heights[cells - 1] != end.getY())
+            return false;
+
+        // The box overlaps exactly the blocks its corners pass through, it needs room at the highest level the
+        // player stands on around the time a corner is over the block
+        lead = STEP_LEAD / length;
+        double w = TravelProcessor.SWEEP_HALF_WIDTH;
+        for(int sx = -1 ; sx <= 1 ; sx += 2) {
+            for(int sz = -1 ; sz <= 1 ; sz += 2) {
+                window = 0;
+                if(!VoxelTraversal.traverse(fromX + sx * w, 0, fromZ + sz * w, toX + sx * w, 0, toZ + sz * w, corner))
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean visitCentre(int x, int y, int z, double enter, double exit) {
+        if(cells == 0) {
+            record(heights[0], enter);
+            return true;
+        }
+
+        int height = heights[cells - 1];
+
+        // Grazed through a corner, never stood on
+        if(enter == exit)
+            return TravelProcessor.canStand(world, x, height, z, false);
+
+        int next;
+        if(TravelProcessor.canStand(world, x, height, z, true)) {
+            next = height;
+        } else if(TravelProcessor.canStand(world, x, height + 1, z, true) && !world.isSolid(prevX, height + 2, prevZ)
+                && canStepUp(prevX, height, prevZ, x, z)) {
+            // Step up, with room for the head above the block the jump starts from
+            next = height + 1;
+        } else if(TravelProcessor.canStand(world, x, height - 1, z, true) && !world.isSolid(x, height + 1, z)) {
+            next = height - 1;
+        } else {
+            return false;
+        }
+
+        if(next != height) {
+            if(lastStep >= 0 && cells - lastStep < MIN_STEP_SPACING)
+                return false;
+            lastStep = cells;
+        }
+
+        prevX = x;
+        prevZ = z;
+        record(next, enter);
+        return true;
+    }
+
+    private boolean visitCorner(int x, int y, int z, double enter, double exit) {
+        while(window + 1 < cells && enters[window + 1] < enter - lead)
+            window++;
+
+        int top = heights[window];
+        for(int i = window + 1 ; i < cells && enters[i] <= exit + lead ; i++)
+            top = Math.max(top, heights[i]);
+        return TravelProcessor.canStand(world, x, top, z, false);
+    }
+
+    // From a partial floor a step up is more than a block unless it lands on a partial floor as well
+    private boolean canStepUp(int fromX, int fromY, int fromZ, int toX, int toZ) {
+        return (world.getCell(fromX, fromY, fromZ) & PassabilitySource.CELL_PARTIAL_FLOOR) == 0
+                || (world.getCell(toX, fromY + 1, toZ) & PassabilitySource.CELL_PARTIAL_FLOOR) != 0;
+    }
+
+    private void record(int height, double enter) {
+        if(cells == heights.length) {
+            heights = Arrays.copyOf(heights, cells * 2);
+            enters = Arrays.copyOf(enters, cells * 2);
+        }
+        heights[cells] = height;
+        enters[cells] = enter;
+        cells++;
+    }
+
+    // A drop of one block, walked off like a step down
+    private static boolean isStepDown(PathElm elm) {
+        return elm instanceof FallNode && ((FallNode)elm).getDrop() == 1;
+    }
+
+    private static Node startOf(PathElm elm) {
+        if(elm instanceof TravelNode)
+            return (TravelNode)elm;
+        if(elm instanceof TravelVector)
+            return ((TravelVector)elm).getFrom();
+        return null;
+    }
+
+    private static Node endOf(PathElm elm) {
+        if(elm instanceof TravelNode)
+            return (TravelNode)elm;
+        if(elm instanceof TravelVector)
+            return ((TravelVector)elm).getTo();
+        return null;
     }
 }
@@ -1,135 +1,122 @@
 package com.mucifex.pathfinding.internal.pathfind.main.processor.impl;
 
-import net.minecraft.util.BlockPos;
-import net.minecraft.util.Vec3;
-import net.minecraft.util.Vec3i;
-import com.mucifex.pathfinding.internal.util.Util;
 import com.mucifex.pathfinding.internal.pathfind.main.path.PathElm;
 import com.mucifex.pathfinding.internal.pathfind.main.path.impl.TravelNode;
 import com.mucifex.pathfinding.internal.pathfind.main.path.impl.TravelVector;
 import com.mucifex.pathfinding.internal.pathfind.main.processor.Processor;
+import com.mucifex.pathfinding.internal.pathfind.main.world.PassabilityCache;
+import com.mucifex.pathfinding.internal.pathfind.main.world.PassabilitySource;
 
 import java.util.ArrayList;
 import java.util.List;
 
 public class TravelProcessor extends Processor {
+    // Half the width of the box swept along a vector: the player's 0.3 and some room for the steering.
+    // Below half a block, so the box only ever overlaps the blocks its four corners are in
+    static final double SWEEP_HALF_WIDTH = 0.4;
+
+    private final PassabilitySource world;
+    // Built once, a traversal per check allocates nothing
+    private final VoxelTraversal.Visitor standsOnFloor;
+    private final VoxelTraversal.Visitor clear;
+    private final VoxelTraversal.Visitor open;
+
+    public TravelProcessor() {
+        this(PassabilityCache.getInstance());
+    }
 
+    public TravelProcessor(PassabilitySource world) {
+        this.world = world;
+        this.standsOnFloor = (x, y, z, enter, exit) -> canStand(world, x, y, z, true);
+        this.clear = (x, y, z, enter, exit) -> canStand(world, x, y, z, false);
+        this.open = (x, y, z, enter, exit) -> !world.isSolid(x, y, z);
+    }
 
-
-
-    // Here we detect paths on the same y level with ray trace to shorten the route (travel nodes)
-
-
+    // Here we detect paths on the same y level with ray trace to shorten the route (travel nodes).
+    // Greedy forward scan (string pulling): a vector grows from its first node for as long as the next node is
+    // still in line of sight, so every node is checked against a single anchor and the pass is linear in path length
     @Override
     public void process(List<PathElm> elms) {
-        List<PathElm> newPath = new ArrayList<>();
+        List<PathElm> newPath = new ArrayList<>(elms.size());
 
-        PathIter:
-        for(int a = 0 ; a < elms.size() ; a++) {
+        int a = 0;
+        while(a < elms.size()) {
             PathElm elm = elms.get(a);
 
             if(!(elm instanceof TravelNode)) {
                 newPath.add(elm);
+                a++;
                 continue;
             }
 
-            TravelNode start = (TravelNode)elms.get(a);
-
-            for(int b = elms.size() - 1 ; b > a ; b--) {
-                if(!(elms.get(b) instanceof TravelNode)) {
-                    continue;
-                }
-
-                TravelNode end = (TravelNode)elms.get(b);
-
-                if(shouldOptimise(start, end)) {
-                    a = b;
-                    newPath.add(new TravelVector(start, end));
-                    continue PathIter;
-                }
+            TravelNode start = (TravelNode)elm;
+            int last = a;
+            while(last + 1 < elms.size() && elms.get(last + 1) instanceof TravelNode
+                    && shouldOptimise(start, (TravelNode)elms.get(last + 1))) {
+                last++;
             }
 
-            newPath.add(elm);
+            newPath.add(last == a ? elm : new TravelVector(start, (TravelNode)elms.get(last)));
+            a = last + 1;
         }
 
         elms.clear();
         elms.addAll(newPath);
     }
 
-
-
-
-    // instead of getting surrounding blocks we could just shoot 2 vectors at an offset to each other
+    /**
+     * @return true if the player can walk straight from the centre of start to the centre of end: same y, floor
+     * under the whole centre line and the player sized box clear at feet and head height the whole way
+     */
     public boolean shouldOptimise(TravelNode start, TravelNode end) {
         if(start.getY() != end.getY())
             return false;
 
-        Vec3 startVec = new Vec3(start.getBlockPos());
-        Vec3 endVec = new Vec3(end.getBlockPos());
-
-        Vec3 differenceVector = endVec.subtract(startVec);
-        Vec3 normalDelta = differenceVector.normalize();
-
-        List<BlockPos> blocksWithinVector = new ArrayList<>();
+        return isStraightWalkable(start.getX() + 0.5, start.getZ() + 0.5, end.getX() + 0.5, end.getZ() + 0.5, start.getY());
+    }
 
-        // populate the blocks in the path in the vector
-        for(int scale = 0 ; scale < endVec.distanceTo(startVec) ; scale++) {
-            Vec3 blockVec = startVec.add(Util.vecMultiply(normalDelta, scale));
-            BlockPos blockPos = Util.toBlockPos(blockVec);
+    /**
+     * The shouldOptimise check between any two points of a layer, e.g. from where the player stands.
+     * @return true if there is floor under the whole line and the player sized box swept along it stays clear
+     */
+    public boolean isStraightWalkable(double fromX, double fromZ, double toX, double toZ, int y) {
+        if(!VoxelTraversal.traverse(fromX, y, fromZ, toX, y, toZ, standsOnFloor))
+            return false;
 
-            if(!blocksWithinVector.contains(blockPos))
-                blocksWithinVector.add(blockPos);
+        // The box overlaps exactly the blocks its corners pass through
+        for(int sx = -1 ; sx <= 1 ; sx += 2) {
+            for(int sz = -1 ; sz <= 1 ; sz += 2) {
+                double offsetX = sx * SWEEP_HALF_WIDTH, offsetZ = sz * SWEEP_HALF_WIDTH;
+                if(!VoxelTraversal.traverse(fromX + offsetX, y, fromZ + offsetZ, toX + offsetX, y, toZ + offsetZ, clear))
+                    return false;
+            }
         }
-        if(!blocksWithinVector.contains(Util.toBlockPos(endVec)))
-            blocksWithinVector.add(Util.toBlockPos(endVec));
-
-        blocksWithinVector.remove(Util.toBlockPos(startVec));
-
-        for(BlockPos block : blocksWithinVector) {
-            int x = block.getX();
-            int y = block.getY();
-            int z = block.getZ();
-
-            // can optimise this by caching state
-            BlockPos[] surroundings = new BlockPos[] {
-                    new BlockPos(x+1, y, z+1),
-                    new BlockPos(x, y, z+1),
-                    new BlockPos(x-1, y, z+1),
-
-                    new BlockPos(x+1, y, z),
-                    new BlockPos(x, y, z),
-                    new BlockPos(x-1, y, z),
-
-                    new BlockPos(x+1, y, z-1),
-                    new BlockPos(x, y, z-1),
-                    new BlockPos(x-1, y, z-1),
-
-                    new BlockPos(x+1, y+1, z+1),
-                    new BlockPos(x, y+1, z+1),
-                    new BlockPos(x-1, y+1, z+1),
-
-                    new BlockPos(x+1, y+1, z),
-                    new BlockPos(x, y+1, z),
-                    new BlockPos(x-1, y+1, z),
 
-                    new BlockPos(x+1, y+1, z-1),
-                    new BlockPos(x, y+1, z-1),
-                    new BlockPos(x-1, y+1, z-1),
-            };
+        return true;
+    }
 
-            for(BlockPos surroundingBlock : surroundings) {
-                if(Util.isBlockSolid(surroundingBlock)) {
+    /**
+     * Whether the player can sprint jump along a line isStraightWalkable allows, the block above the head is open
+     * over the whole box swept along it.
+     */
+    public boolean hasJumpRoom(double fromX, double fromZ, double toX, double toZ, int y) {
+        for(int sx = -1 ; sx <= 1 ; sx += 2) {
+            for(int sz = -1 ; sz <= 1 ; sz += 2) {
+                double offsetX = sx * SWEEP_HALF_WIDTH, offsetZ = sz * SWEEP_HALF_WIDTH;
+                if(!VoxelTraversal.traverse(fromX + offsetX, y + 2, fromZ + offsetZ, toX + offsetX, y + 2, toZ + offsetZ, open))
                     return false;
-                }
             }
-
-            if(!Util.isBlockSolid(block.subtract(new Vec3i(0, 1, 0))))
-                return false;
-
         }
-
         return true;
     }
 
-
+    // Room for the player's feet and head, and with floor something to walk on: no liquid the player would swim in
+    // or ladder it would climb walking into it
+    static boolean canStand(PassabilitySource world, int x, int y, int z, boolean floor) {
+        int cell = world.getCell(x, y, z);
+        if((cell & PassabilitySource.CELL_SOLID) != 0 || (cell & PassabilitySource.CELL_HEADROOM) == 0)
+            return false;
+        int walk = PassabilitySource.CELL_FLOOR | PassabilitySource.CELL_LIQUID | PassabilitySource.CELL_CLIMBABLE;
+        return !floor || (cell & walk) == PassabilitySource.CELL_FLOOR;
+    }
 }
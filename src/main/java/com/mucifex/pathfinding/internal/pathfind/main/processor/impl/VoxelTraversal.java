@@ -0,0 +1,87 @@
+package com.mucifex.pathfinding.internal.pathfind.main.processor.impl;
+
+/**
+ * 3D DDA voxel traversal (Amanatides & Woo): visits every block a segment passes through, in order, with the
+ * fractions of the segment where it enters and leaves each one. Shared by the processors' line of sight checks
+ * and the walker's index of the blocks a path covers.
+ */
+public final class VoxelTraversal {
+    // Crossings closer than this count as passing through a block corner
+    private static final double CORNER_EPSILON = 1e-9;
+
+    public interface Visitor {
+        /**
+         * @param enter fraction of the segment where it enters the block, 0 for the first one
+         * @param exit fraction where it leaves it, 1 for the last one
+         * @return false to stop the traversal
+         */
+        boolean visit(int x, int y, int z, double enter, double exit);
+    }
+
+    private VoxelTraversal() {
+    }
+
+    /**
+     * Passing exactly through a corner visits the blocks touched on the way as well, so nothing the segment
+     * grazes is skipped.
+     * @return false if the visitor stopped the traversal
+     */
+    public static boolean traverse(double x0, double y0, double z0, double x1, double y1, double z1, Visitor visitor) {
+        int x = (int)Math.floor(x0), y = (int)Math.floor(y0), z = (int)Math.floor(z0);
+        int endX = (int)Math.floor(x1), endY = (int)Math.floor(y1), endZ = (int)Math.floor(z1);
+
+        double dx = x1 - x0, dy = y1 - y0, dz = z1 - z0;
+        int stepX = (int)Math.signum(dx), stepY = (int)Math.signum(dy), stepZ = (int)Math.signum(dz);
+
+        // Segment fraction where the next block boundary on each axis is crossed, and between two boundaries
+        double maxX = boundary(x0, x, stepX, dx), maxY = boundary(y0, y, stepY, dy), maxZ = boundary(z0, z, stepZ, dz);
+        double deltaX = stepX == 0 ? Double.POSITIVE_INFINITY : Math.abs(1 / dx);
+        double deltaY = stepY == 0 ? Double.POSITIVE_INFINITY : Math.abs(1 / dy);
+        double deltaZ = stepZ == 0 ? Double.POSITIVE_INFINITY : Math.abs(1 / dz);
+
+        double enter = 0;
+        while(true) {
+            double next = Math.min(maxX, Math.min(maxY, maxZ));
+            boolean last = (x == endX && y == endY && z == endZ) || next > 1;
+            if(!visitor.visit(x, y, z, enter, last ? 1 : next))
+                return false;
+            if(last)
+                return true;
+
+            boolean crossX = maxX - next < CORNER_EPSILON;
+            boolean crossY = maxY - next < CORNER_EPSILON;
+            boolean crossZ = maxZ - next < CORNER_EPSILON;
+
+            if((crossX ? 1 : 0) + (crossY ? 1 : 0) + (crossZ ? 1 : 0) > 1) {
+                if(crossX && !visitor.visit(x + stepX, y, z, next, next))
+                    return false;
+                if(crossY && !visitor.visit(x, y + stepY, z, next, next))
+                    return false;
+                if(crossZ && !visitor.visit(x, y, z + stepZ, next, next))
+                    return false;
+            }
+
+            if(crossX) {
+                x += stepX;
+                maxX += deltaX;
+            }
+            if(crossY) {
+                y += stepY;
+                maxY += deltaY;
+            }
+            if(crossZ) {
+                z += stepZ;
+                maxZ += deltaZ;
+            }
+            enter = next;
+        }
+    }
+
+    private static double boundary(double from, int block, int step, double delta) {
+        if(step > 0)
+            return (block + 1 - from) / delta;
+        if(step < 0)
+            return (block - from) / delta;
+        return Double.POSITIVE_INFINITY;
+    }
+}
@@ -0,0 +1,503 @@
+package com.mucifex.pathfinding.internal.pathfind.main.walk;
+
+import com.mucifex.pathfinding.internal.pathfind.main.astar.AStarNode;
+import com.mucifex.pathfinding.internal.pathfind.main.astar.Goal;
+import com.mucifex.pathfinding.internal.pathfind.main.astar.PathPlanner;
+import com.mucifex.pathfinding.internal.pathfind.main.astar.PathPlanners;
+import com.mucifex.pathfinding.internal.pathfind.main.path.PathElm;
+import com.mucifex.pathfinding.internal.pathfind.main.processor.ProcessorManager;
+import com.mucifex.pathfinding.internal.pathfind.main.world.PassabilityCache;
+import com.mucifex.pathfinding.internal.pathfind.main.world.PassabilitySnapshot;
+import com.mucifex.pathfinding.internal.pathfind.main.world.WorldAccess;
+import net.minecraft.util.BlockPos;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * LRU cache of processed paths keyed by start cell, goal cell and planner, for bots shuttling between the same
+ * places. Every entry keeps the versions of the chunk sections its route crosses, see
+ * PassabilityCache.getSectionVersion, and is dropped on lookup once one of them changed.
+ *
+ * A start that isn't cached but is close to a cached route for the same goal is spliced onto it: the walker plans
+ * a short bridge from the start to the closest node of the route in its planning mode, then follows the rest of
+ * the route.
+ *
+ * The goals walked to most often are prewarmed while the player is idle, planned from where the player stands on
+ * the PlanningExecutor. The cache itself is only touched from the client thread.
+ */
+public class PathCache implements PassabilityCache.ChangeListener {
+    private static PathCache instance;
+
+    private static final int CAPACITY = 64;
+    // How far from a cached route a start may be to be spliced onto it
+    private static final int SPLICE_DISTANCE = 8;
+    // Node budget of the bridge search onto a cached route
+    static final int SPLICE_DEPTH = 2000;
+    // Block changes remembered for paths planned over a snapshot, older plans aren't cached
+    private static final int CHANGE_HISTORY = 64;
+    // Blocks around a route node a change can affect it from, the floor below to the jump headroom above
+    private static final int ROUTE_BELOW = 1;
+    private static final int ROUTE_ABOVE = 2;
+    // Goals counted for prewarming, the least requested other than the newest are dropped first
+    private static final int TRACKED_GOALS = 32;
+    private static final int PREWARM_MIN_REQUESTS = 2;
+    private static final int PREWARM_INTERVAL_TICKS = 40;
+    // Only goals a single segment of a trip can reach, see PathHandler.SURVEY_RADIUS
+    private static final int PREWARM_RANGE = 150;
+    private static final int PREWARM_DEPTH = 12000;
+    private static final int PREWARM_SNAPSHOT_MARGIN = 32;
+
+    private static volatile boolean enabled = true;
+    private static volatile boolean prewarming = true;
+
+    private final Map<Key, Entry> entries = new LinkedHashMap<Key, Entry>(CAPACITY, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            return size() > CAPACITY;
+        }
+    };
+    // Requests per goal and planner, start left out
+    private final Map<Key, Integer> requests = new LinkedHashMap<>();
+    // Ring of the last CHANGE_HISTORY changed boxes, six ints each, and how many changes there were in total
+    private final int[] changes = new int[CHANGE_HISTORY * 6];
+    private long changeCount;
+    private Object world;
+
+    private int prewarmTicks;
+    private Future<?> prewarmFuture;
+    private final AtomicReference<Prewarmed> prewarmed = new AtomicReference<>();
+    // Prewarms that found no path, not tried again until a block changes
+    private final Set<Key> failedPrewarms = new HashSet<>();
+
+    private int hits;
+    private int splices;
+    private int misses;
+
+    public PathCache() {
+        instance = this;
+        PassabilityCache.getInstance().addChangeListener(this);
+    }
+
+    public static synchronized PathCache getInstance() {
+        if (instance == null) {
+            instance = new PathCache();
+        }
+        return instance;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        PathCache.enabled = enabled;
+        if (!enabled && instance != null) {
+            instance.clear();
+        }
+    }
+
+    public static boolean isPrewarming() {
+        return prewarming;
+    }
+
+    public static void setPrewarming(boolean prewarming) {
+        PathCache.prewarming = prewarming;
+    }
+
+    /**
+     * A cached path, the processed form and the nodes it was processed from. For a splice the block of the cached
+     * route to join and the route's nodes after it instead, the bridge to the block is left to the caller.
+     * The lists are the caller's own.
+     */
+    public static final class Hit {
+        // null for a splice
+        public final List<PathElm> path;
+        public final List<AStarNode> nodes;
+        // Route node the bridge has to end on, null for a whole path
+        public final BlockPos join;
+
+        Hit(List<PathElm> path, List<AStarNode> nodes, BlockPos join) {
+            this.path = path;
+            this.nodes = nodes;
+            this.join = join;
+        }
+
+        public boolean isSplice() {
+            return join != null;
+        }
+
+        /**
+         * @return what the bridge search heads for, the join block exactly
+         */
+        public Goal getBridgeGoal() {
+            return Goal.region(join, join);
+        }
+
+        /**
+         * @return the bridge followed by the rest of the cached route, null if the bridge doesn't end on the join block
+         */
+        public List<AStarNode> joinBridge(List<AStarNode> bridge) {
+            if (bridge.isEmpty() || !isAt(bridge.get(bridge.size() - 1), join)) {
+                return null;
+            }
+            List<AStarNode> joined = new ArrayList<>(bridge);
+            joined.addAll(nodes);
+            System.out.println("DEBUG: Path cache spliced " + bridge.size() + " nodes onto a cached path");
+            return joined;
+        }
+    }
+
+    /**
+     * @return the cached path from start to goal, or where to join a route starting nearby if there is none from
+     *         start, null if neither is cached or still valid
+     */
+    public Hit lookup(BlockPos start, BlockPos goal, String planner) {
+        if (!enabled) {
+            return null;
+        }
+        checkWorld();
+
+        Key key = new Key(start, goal, planner);
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            if (entry.isValid()) {
+                hits++;
+                System.out.println("DEBUG: Path cache hit for " + goal);
+                return new Hit(new ArrayList<>(entry.path), new ArrayList<>(entry.nodes), null);
+            }
+            entries.remove(key);
+        }
+
+        Hit spliced = findSplice(start, goal, planner);
+        if (spliced != null) {
+            splices++;
+            return spliced;
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * @return a stamp to hand to {@link #put} with a path planned from the blocks as they are now
+     */
+    public long stamp() {
+        return changeCount;
+    }
+
+    /**
+     * Caches a path that reaches its goal. A path planned over a snapshot is dropped if a block along it changed
+     * since stamp was taken, the versions it is stamped with would hide that change.
+     * @return true if the path was cached
+     */
+    public boolean put(BlockPos start, BlockPos goal, String planner, List<AStarNode> nodes, List<PathElm> path, long stamp) {
+        if (!enabled || nodes.isEmpty() || path == null || path.isEmpty()) {
+            return false;
+        }
+        AStarNode last = nodes.get(nodes.size() - 1);
+        if (!Goal.at(goal).isReached(last.getX(), last.getY(), last.getZ()) || changedSince(stamp, nodes)) {
+            return false;
+        }
+        checkWorld();
+        entries.put(new Key(start, goal, planner), new Entry(new ArrayList<>(nodes), new ArrayList<>(path)));
+        return true;
+    }
+
+    /**
+     * Counts a walk to the goal for prewarming.
+     */
+    public void recordRequest(BlockPos goal, String planner) {
+        Key key = new Key(null, goal, planner);
+        requests.merge(key, 1, Integer::sum);
+        if (requests.size() > TRACKED_GOALS) {
+            Key rarest = null;
+            for (Map.Entry<Key, Integer> request : requests.entrySet()) {
+                if (!request.getKey().equals(key) && (rarest == null || request.getValue() < requests.get(rarest))) {
+                    rarest = request.getKey();
+                }
+            }
+            requests.remove(rarest);
+        }
+    }
+
+    /**
+     * Called every tick the player isn't walking anywhere. Every PREWARM_INTERVAL_TICKS the most requested goal in
+     * range without a path cached from the player's cell is planned on the PlanningExecutor, one at a time.
+     */
+    public void prewarm(BlockPos player) {
+        Prewarmed result = prewarmed.getAndSet(null);
+        if (result != null && !put(result.start, result.goal, result.planner, result.nodes, result.path, result.stamp)) {
+            failedPrewarms.add(new Key(result.start, result.goal, result.planner));
+        }
+        if (!enabled || !prewarming || ++prewarmTicks < PREWARM_INTERVAL_TICKS) {
+            return;
+        }
+        prewarmTicks = 0;
+        if (prewarmFuture != null && !prewarmFuture.isDone()) {
+            return;
+        }
+        // Done, or cancelled when the executor dropped it from its queue
+        prewarmFuture = null;
+        checkWorld();
+
+        Key next = null;
+        for (Map.Entry<Key, Integer> request : requests.entrySet()) {
+            Key key = request.getKey();
+            if (request.getValue() < PREWARM_MIN_REQUESTS || (next != null && request.getValue() <= requests.get(next))) {
+                continue;
+            }
+            double distance = Math.sqrt(key.goal.distanceSq(player));
+            if (distance <= SPLICE_DISTANCE || distance > PREWARM_RANGE || PathPlanners.get(key.planner) == null) {
+                continue;
+            }
+            Key cached = new Key(player, key.goal, key.planner);
+            Entry entry = entries.get(cached);
+            if ((entry == null || !entry.isValid()) && !failedPrewarms.contains(cached)) {
+                next = key;
+            }
+        }
+        if (next == null) {
+            return;
+        }
+
+        final BlockPos goal = next.goal;
+        final PathPlanner planner = PathPlanners.get(next.planner);
+        final long stamp = stamp();
+        final PassabilitySnapshot snapshot = PassabilityCache.getInstance().snapshot(player, goal, PREWARM_SNAPSHOT_MARGIN);
+        System.out.println("DEBUG: Prewarming path cache for " + goal);
+        prewarmFuture = PlanningExecutor.getInstance().submit(() -> {
+            try {
+                List<AStarNode> nodes = planner.plan(player, goal, PREWARM_DEPTH, snapshot).getNodes();
+                // Cut short by cancelPrewarm, not a failure to remember
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                prewarmed.set(new Prewarmed(player, goal, planner.getName(), nodes,
+                        ProcessorManager.process(nodes, snapshot), stamp));
+            } catch (Exception e) {
+                System.err.println("Error prewarming path: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Stops a prewarm still queued or running, the walker calls this before it plans a walk.
+     */
+    public void cancelPrewarm() {
+        if (prewarmFuture != null) {
+            prewarmFuture.cancel(true);
+            prewarmFuture = null;
+        }
+        prewarmTicks = 0;
+    }
+
+    public void clear() {
+        entries.clear();
+        requests.clear();
+        failedPrewarms.clear();
+        prewarmed.set(null);
+        cancelPrewarm();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int getHits() {
+        return hits;
+    }
+
+    public int getSplices() {
+        return splices;
+    }
+
+    public int getMisses() {
+        return misses;
+    }
+
+    // Remembered for plans still running over a snapshot, the cached entries check their section versions instead
+    @Override
+    public void onBlocksChanged(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        int slot = (int) (changeCount % CHANGE_HISTORY) * 6;
+        changes[slot] = minX;
+        changes[slot + 1] = minY;
+        changes[slot + 2] = minZ;
+        changes[slot + 3] = maxX;
+        changes[slot + 4] = maxY;
+        changes[slot + 5] = maxZ;
+        changeCount++;
+        failedPrewarms.clear();
+    }
+
+    // The closest usable node of a cached route to the same goal and the route after it
+    private Hit findSplice(BlockPos start, BlockPos goal, String planner) {
+        Entry best = null;
+        int bestIndex = -1;
+        long bestDistance = (long) SPLICE_DISTANCE * SPLICE_DISTANCE + 1;
+        for (Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Key, Entry> cached = it.next();
+            if (!cached.getKey().goal.equals(goal) || !cached.getKey().planner.equals(planner)) {
+                continue;
+            }
+            Entry entry = cached.getValue();
+            if (!entry.isValid()) {
+                it.remove();
+                continue;
+            }
+            for (int i = 0; i < entry.nodes.size(); i++) {
+                AStarNode node = entry.nodes.get(i);
+                // Mid jump or fall the player can't be put down
+                if (node.isJumpNode() || node.isFallNode()) {
+                    continue;
+                }
+                long dx = node.getX() - start.getX(), dy = node.getY() - start.getY(), dz = node.getZ() - start.getZ();
+                long distance = dx * dx + dy * dy + dz * dz;
+                if (distance < bestDistance) {
+                    bestDistance = distance;
+                    best = entry;
+                    bestIndex = i;
+                }
+            }
+        }
+        if (best == null) {
+            return null;
+        }
+
+        AStarNode join = best.nodes.get(bestIndex);
+        return new Hit(null, new ArrayList<>(best.nodes.subList(bestIndex + 1, best.nodes.size())),
+                new BlockPos(join.getX(), join.getY(), join.getZ()));
+    }
+
+    // True if one of the changes since stamp is next to a node, or too many came since to tell
+    private boolean changedSince(long stamp, List<AStarNode> nodes) {
+        if (changeCount - stamp > CHANGE_HISTORY) {
+            return true;
+        }
+        for (long change = stamp; change < changeCount; change++) {
+            int slot = (int) (change % CHANGE_HISTORY) * 6;
+            for (AStarNode node : nodes) {
+                if (node.getX() >= changes[slot] && node.getX() <= changes[slot + 3]
+                        && node.getY() + ROUTE_ABOVE >= changes[slot + 1] && node.getY() - ROUTE_BELOW <= changes[slot + 4]
+                        && node.getZ() >= changes[slot + 2] && node.getZ() <= changes[slot + 5]) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Entries and goals of another world are dropped, section versions start over with it
+    private void checkWorld() {
+        Object current = WorldAccess.getBlocks().getWorld();
+        if (current != world) {
+            entries.clear();
+            requests.clear();
+            world = current;
+        }
+    }
+
+    private static boolean isAt(AStarNode node, BlockPos pos) {
+        return node.getX() == pos.getX() && node.getY() == pos.getY() && node.getZ() == pos.getZ();
+    }
+
+    private static final class Key {
+        // null for the request counts
+        final BlockPos start;
+        final BlockPos goal;
+        final String planner;
+
+        Key(BlockPos start, BlockPos goal, String planner) {
+            this.start = start;
+            this.goal = goal;
+            this.planner = planner;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return Objects.equals(start, key.start) && goal.equals(key.goal) && planner.equals(key.planner);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(start, goal, planner);
+        }
+    }
+
+    private static final class Entry {
+        final List<AStarNode> nodes;
+        final List<PathElm> path;
+        // One block per chunk section the route reaches, three ints each, and the section's version when cached
+        final int[] sectionBlocks;
+        final int[] versions;
+
+        Entry(List<AStarNode> nodes, List<PathElm> path) {
+            this.nodes = nodes;
+            this.path = path;
+
+            Set<Long> sections = new LinkedHashSet<>();
+            List<int[]> blocks = new ArrayList<>();
+            for (AStarNode node : nodes) {
+                for (int y = node.getY() - ROUTE_BELOW; y <= node.getY() + ROUTE_ABOVE; y++) {
+                    if (y < 0 || y > 255) {
+                        continue;
+                    }
+                    long section = ((long) (node.getX() >> 4) << 36) ^ ((long) (y >> 4) << 32) ^ ((node.getZ() >> 4) & 0xFFFFFFFFL);
+                    if (sections.add(section)) {
+                        blocks.add(new int[]{node.getX(), y, node.getZ()});
+                    }
+                }
+            }
+            sectionBlocks = new int[blocks.size() * 3];
+            versions = new int[blocks.size()];
+            PassabilityCache cache = PassabilityCache.getInstance();
+            for (int i = 0; i < blocks.size(); i++) {
+                int[] block = blocks.get(i);
+                sectionBlocks[i * 3] = block[0];
+                sectionBlocks[i * 3 + 1] = block[1];
+                sectionBlocks[i * 3 + 2] = block[2];
+                versions[i] = cache.getSectionVersion(block[0], block[1], block[2]);
+            }
+        }
+
+        boolean isValid() {
+            PassabilityCache cache = PassabilityCache.getInstance();
+            for (int i = 0; i < versions.length; i++) {
+                if (cache.getSectionVersion(sectionBlocks[i * 3], sectionBlocks[i * 3 + 1], sectionBlocks[i * 3 + 2]) != versions[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class Prewarmed {
+        final BlockPos start;
+        final BlockPos goal;
+        final String planner;
+        final List<AStarNode> nodes;
+        final List<PathElm> path;
+        final long stamp;
+
+        Prewarmed(BlockPos start, BlockPos goal, String planner, List<AStarNode> nodes, List<PathElm> path, long stamp) {
+            this.start = start;
+            this.goal = goal;
+            this.planner = planner;
+            this.nodes = nodes;
+            this.path = path;
+            this.stamp = stamp;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.mucifex.pathfinding.internal.pathfind.main.walk;
+
+import com.mucifex.pathfinding.internal.pathfind.main.path.Node;
+import com.mucifex.pathfinding.internal.pathfind.main.path.PathElm;
+import com.mucifex.pathfinding.internal.pathfind.main.path.impl.GapJump;
+import com.mucifex.pathfinding.internal.pathfind.main.path.impl.TravelVector;
+import com.mucifex.pathfinding.internal.pathfind.main.processor.impl.VoxelTraversal;
+import net.minecraft.util.Vec3;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The walker's progress along a processed path: the elements in an array that never changes and a cursor that
+ * only moves forward, so finishing an element is an increment instead of shifting the rest of the path.
+ * Finding the element the player is on checks a small window past the cursor, and further ahead only the elements
+ * over the player's block column, so a tick costs the same on a long path as on a short one.
+ */
+final class PathCursor {
+    // Elements past the cursor always checked, the ones a fast player runs over between two ticks. A TravelVector
+    // counts the player on it anywhere in a cone, not only over its line, so only these see that
+    static final int LOOKAHEAD = 8;
+
+    private static final PathCursor EMPTY = new PathCursor(Collections.emptyList());
+
+    private final PathElm[] elms;
+    // Block column (x, z) -> indices of the elements over it, ascending
+    private final Map<Long, int[]> columns = new HashMap<>();
+    private int index;
+
+    PathCursor(List<PathElm> path) {
+        elms = path.toArray(new PathElm[0]);
+        for (int i = 0; i < elms.length; i++) {
+            index(i);
+        }
+    }
+
+    static PathCursor empty() {
+        return EMPTY;
+    }
+
+    boolean isDone() {
+        return index >= elms.length;
+    }
+
+    /**
+     * @return the element being walked, null once the path is done
+     */
+    PathElm current() {
+        return peek(0);
+    }
+
+    /**
+     * @return the element offset places after the current one, null past the end
+     */
+    PathElm peek(int offset) {
+        int i = index + offset;
+        return i < elms.length ? elms[i] : null;
+    }
+
+    void advance() {
+        if (index < elms.length) {
+            index++;
+        }
+    }
+
+    /**
+     * Moves the cursor forward to the element, never back.
+     */
+    void skipTo(int elementIndex) {
+        index = Math.max(index, Math.min(elementIndex, elms.length));
+    }
+
+    int getIndex() {
+        return index;
+    }
+
+    /**
+     * @return the elements from the current one on, a read-only view
+     */
+    List<PathElm> getRemaining() {
+        return Collections.unmodifiableList(Arrays.asList(elms).subList(index, elms.length));
+    }
+
+    /**
+     * @return index of the first element from the current one on that the player is on, -1 if none
+     */
+    int findPlayerOn(Vec3 position) {
+        int end = Math.min(elms.length, index + LOOKAHEAD);
+        for (int i = index; i < end; i++) {
+            if (elms[i].playerOn(position)) {
+                return i;
+            }
+        }
+
+        int[] candidates = columns.get(key((int) Math.floor(position.xCoord), (int) Math.floor(position.zCoord)));
+        if (candidates != null) {
+            for (int i : candidates) {
+                if (i >= end && elms[i].playerOn(position)) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private void index(int i) {
+        PathElm elm = elms[i];
+        if (elm instanceof TravelVector) {
+            Node from = ((TravelVector) elm).getFrom();
+            Node to = ((TravelVector) elm).getTo();
+            VoxelTraversal.traverse(from.getX() + 0.5, 0, from.getZ() + 0.5, to.getX() + 0.5, 0, to.getZ() + 0.5,
+                    (x, y, z, enter, exit) -> {
+                        add(x, z, i);
+                        return true;
+                    });
+        } else if (elm instanceof GapJump) {
+            // The columns it flies over and lands on, the takeoff belongs to the element before
+            Node from = ((GapJump) elm).getFrom();
+            Node to = ((GapJump) elm).getTo();
+            int dx = Integer.signum(to.getX() - from.getX());
+            int dz = Integer.signum(to.getZ() - from.getZ());
+            for (int step = 1; step <= ((GapJump) elm).getGap() + 1; step++) {
+                add(from.getX() + dx * step, from.getZ() + dz * step, i);
+            }
+        } else if (elm instanceof Node) {
+            add(((Node) elm).getX(), ((Node) elm).getZ(), i);
+        }
+    }
+
+    private void add(int x, int z, int i) {
+        long key = key(x, z);
+        int[] indices = columns.get(key);
+        if (indices == null) {
+            columns.put(key, new int[]{i});
+        } else if (indices[indices.length - 1] != i) {
+            indices = Arrays.copyOf(indices, indices.length + 1);
+            indices[indices.length - 1] = i;
+            columns.put(key, indices);
+        }
+    }
+
+    private static long key(int x, int z) {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+}
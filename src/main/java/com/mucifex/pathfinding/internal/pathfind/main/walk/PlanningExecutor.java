@@ -0,0 +1,66 @@
+package com.mucifex.pathfinding.internal.pathfind.main.walk;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Background thread the Walker runs its path searches on, so a long search doesn't stall the client tick.
+ * One worker with a small queue: a newer request makes the queued ones stale, so when the queue is full
+ * the oldest waiting search is dropped. Its future is cancelled, so whoever polls or waits on it sees it done.
+ */
+public class PlanningExecutor {
+    private static final int QUEUE_CAPACITY = 2;
+    // Keep the worker around between the segments of a long trip
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static PlanningExecutor instance;
+
+    private final ThreadPoolExecutor executor;
+
+    private PlanningExecutor() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(1, 1, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "Mucifex-Pathfinder-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                },
+                PlanningExecutor::discardOldest);
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    public static PlanningExecutor getInstance() {
+        if (instance == null) {
+            instance = new PlanningExecutor();
+        }
+        return instance;
+    }
+
+    /**
+     * Queues a search. Cancelling the returned future interrupts the worker, which the search checks for.
+     */
+    public Future<?> submit(Runnable task) {
+        return executor.submit(task);
+    }
+
+    public int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+
+    // DiscardOldestPolicy, but the dropped task is a future someone may hold, so it is cancelled and not just lost
+    private static void discardOldest(Runnable task, ThreadPoolExecutor pool) {
+        if (pool.isShutdown()) {
+            return;
+        }
+        Runnable dropped = pool.getQueue().poll();
+        if (dropped instanceof Future) {
+            ((Future<?>) dropped).cancel(false);
+        }
+        pool.execute(task);
+    }
+}
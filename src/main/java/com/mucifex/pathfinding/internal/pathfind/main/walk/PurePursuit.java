@@ -0,0 +1,119 @@
+package com.mucifex.pathfinding.internal.pathfind.main.walk;
+
+import com.mucifex.pathfinding.internal.pathfind.main.path.PathElm;
+import com.mucifex.pathfinding.internal.pathfind.main.path.impl.TravelNode;
+import com.mucifex.pathfinding.internal.pathfind.main.path.impl.TravelVector;
+import com.mucifex.pathfinding.internal.pathfind.main.processor.impl.TravelProcessor;
+import com.mucifex.pathfinding.internal.pathfind.main.walk.target.WalkTarget;
+import com.mucifex.pathfinding.internal.pathfind.main.walk.target.impl.TravelTarget;
+import com.mucifex.pathfinding.internal.pathfind.main.walk.target.impl.TravelVectorTarget;
+import net.minecraft.util.BlockPos;
+import net.minecraft.util.Vec3;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pure pursuit steering: aims at the point a lookahead distance further along the path instead of at the next node,
+ * so corners are rounded at full speed rather than overshot and corrected. The path ahead is the current target
+ * followed by the travel elements after it on the same layer, jumps, falls and stepped vectors still get their node.
+ * The point is only taken if the player can walk straight to it, otherwise the current target is.
+ */
+final class PurePursuit {
+    // Elements after the current one the pursued stretch of path may reach into
+    private static final int MAX_ELEMENTS = PathCursor.LOOKAHEAD;
+
+    private final TravelProcessor lineOfSight = new TravelProcessor();
+    private final List<Vec3> waypoints = new ArrayList<>();
+
+    /**
+     * @return the block centre to steer towards, at the current target's height
+     */
+    Vec3 aim(Vec3 position, WalkTarget target, PathCursor path, double lookahead) {
+        BlockPos current = target.getCurrentTarget();
+        Vec3 next = centre(current);
+        if (!(target instanceof TravelTarget || target instanceof TravelVectorTarget)
+                || horizontalDistance(position, next) >= lookahead) {
+            return next;
+        }
+
+        collectWaypoints(current, target.getElm(), path);
+
+        // First point of the stretch a lookahead away from the player, or its end if all of it is closer
+        Vec3 aim = waypoints.get(waypoints.size() - 1);
+        for (int i = 1; i < waypoints.size(); i++) {
+            if (horizontalDistance(position, waypoints.get(i)) >= lookahead) {
+                aim = circleExit(position, waypoints.get(i - 1), waypoints.get(i), lookahead);
+                break;
+            }
+        }
+
+        if (aim == waypoints.get(0)
+                || !lineOfSight.isStraightWalkable(position.xCoord, position.zCoord, aim.xCoord, aim.zCoord, current.getY())) {
+            return next;
+        }
+        return aim;
+    }
+
+    private void collectWaypoints(BlockPos current, PathElm currentElm, PathCursor path) {
+        waypoints.clear();
+        waypoints.add(centre(current));
+
+        // A vector still heading for its base goes on to its end
+        if (currentElm instanceof TravelVector && ((TravelVector) currentElm).getFrom().getBlockPos().equals(current)) {
+            if (((TravelVector) currentElm).isStepped()) {
+                return;
+            }
+            waypoints.add(centre(((TravelVector) currentElm).getTo().getBlockPos()));
+        }
+
+        for (int i = 1; i <= MAX_ELEMENTS; i++) {
+            PathElm elm = path.peek(i);
+            if (elm instanceof TravelNode) {
+                if (!add(((TravelNode) elm).getBlockPos(), current.getY())) {
+                    return;
+                }
+            } else if (elm instanceof TravelVector && !((TravelVector) elm).isStepped()) {
+                if (!add(((TravelVector) elm).getFrom().getBlockPos(), current.getY())
+                        || !add(((TravelVector) elm).getTo().getBlockPos(), current.getY())) {
+                    return;
+                }
+            } else {
+                return;
+            }
+        }
+    }
+
+    // Only points on the layer the player walks on, a level change ends the stretch
+    private boolean add(BlockPos pos, int y) {
+        if (pos.getY() != y) {
+            return false;
+        }
+        waypoints.add(centre(pos));
+        return true;
+    }
+
+    // Point where the segment from inside the circle around the player to outside it crosses the circle
+    private static Vec3 circleExit(Vec3 position, Vec3 from, Vec3 to, double radius) {
+        double dx = to.xCoord - from.xCoord, dz = to.zCoord - from.zCoord;
+        double fx = from.xCoord - position.xCoord, fz = from.zCoord - position.zCoord;
+        double a = dx * dx + dz * dz;
+        double b = 2 * (fx * dx + fz * dz);
+        double c = fx * fx + fz * fz - radius * radius;
+        double discriminant = b * b - 4 * a * c;
+        if (a == 0 || discriminant < 0) {
+            return to;
+        }
+        double t = Math.max(0, Math.min(1, (-b + Math.sqrt(discriminant)) / (2 * a)));
+        return new Vec3(from.xCoord + t * dx, to.yCoord, from.zCoord + t * dz);
+    }
+
+    private static double horizontalDistance(Vec3 a, Vec3 b) {
+        double dx = a.xCoord - b.xCoord, dz = a.zCoord - b.zCoord;
+        return Math.sqrt(dx * dx + dz * dz);
+    }
+
+    private static Vec3 centre(BlockPos pos) {
+        return new Vec3(pos).addVector(0.5, 0, 0.5);
+    }
+}
@@ -1,9 +1,6 @@
 package com.mucifex.pathfinding.internal.pathfind.main.walk;
 
-import net.minecraft.client.Minecraft;
-import net.minecraft.client.settings.KeyBinding;
 import net.minecraft.util.BlockPos;
-import net.minecraft.util.ChatComponentText;
 import net.minecraft.util.Tuple;
 import net.minecraft.util.Vec3;
 import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
@@ -16,39 +13,122 @@ import com.mucifex.pathfinding.internal.pathfind.main.PathRenderer;
 import com.mucifex.pathfinding.internal.pathfind.main.processor.ProcessorManager;
 import com.mucifex.pathfinding.internal.pathfind.main.astar.AStarNode;
 import com.mucifex.pathfinding.internal.pathfind.main.astar.AStarPathFinder;
+import com.mucifex.pathfinding.internal.pathfind.main.astar.AStarPlanner;
+import com.mucifex.pathfinding.internal.pathfind.main.astar.AnytimePathFinder;
+import com.mucifex.pathfinding.internal.pathfind.main.astar.DenseAStarPathFinder;
+import com.mucifex.pathfinding.internal.pathfind.main.astar.Goal;
+import com.mucifex.pathfinding.internal.pathfind.main.astar.IncrementalPathFinder;
+import com.mucifex.pathfinding.internal.pathfind.main.astar.PathPlanner;
+import com.mucifex.pathfinding.internal.pathfind.main.astar.PathPlanners;
 import com.mucifex.pathfinding.internal.pathfind.main.path.PathElm;
 import com.mucifex.pathfinding.internal.pathfind.main.path.impl.FallNode;
+import com.mucifex.pathfinding.internal.pathfind.main.path.impl.GapJump;
 import com.mucifex.pathfinding.internal.pathfind.main.path.impl.JumpNode;
 import com.mucifex.pathfinding.internal.pathfind.main.path.impl.TravelNode;
 import com.mucifex.pathfinding.internal.pathfind.main.path.impl.TravelVector;
+import com.mucifex.pathfinding.internal.pathfind.main.player.MovementPhysics;
+import com.mucifex.pathfinding.internal.pathfind.main.player.PlayerState;
 import com.mucifex.pathfinding.internal.pathfind.main.walk.target.WalkTarget;
 import com.mucifex.pathfinding.internal.pathfind.main.walk.target.impl.FallTarget;
+import com.mucifex.pathfinding.internal.pathfind.main.walk.target.impl.GapJumpTarget;
 import com.mucifex.pathfinding.internal.pathfind.main.walk.target.impl.JumpTarget;
 import com.mucifex.pathfinding.internal.pathfind.main.walk.target.impl.TravelTarget;
 import com.mucifex.pathfinding.internal.pathfind.main.walk.target.impl.TravelVectorTarget;
+import com.mucifex.pathfinding.internal.pathfind.main.world.PassabilityCache;
+import com.mucifex.pathfinding.internal.pathfind.main.world.PassabilitySnapshot;
+import com.mucifex.pathfinding.internal.pathfind.main.world.PassabilitySource;
+import com.mucifex.pathfinding.internal.pathfind.main.world.WorldAccess;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class Walker {
+    // Blocks around the start and goal captured for an async search. Everything outside reads as solid,
+    // so this needs to leave the search room to route around obstacles.
+    private static final int SNAPSHOT_MARGIN = 64;
+    // Further than this sideways from the line to the current target counts as pushed off the path
+    private static final double DISPLACEMENT_DISTANCE = 3.0;
+    // A block change this close to the path repairs it
+    private static final int CHANGE_MARGIN = 2;
+    // A cheaper path from the anytime search is taken over from its node closest to the player, if that is this close
+    private static final double SPLICE_DISTANCE = 1.5;
+
+    public enum PlanningMode {
+        // Search inside the walk call, stalls the tick for the whole search
+        BLOCKING,
+        // Search on the PlanningExecutor over a snapshot of the area
+        ASYNC,
+        // Search on the client thread, advanced within tickBudgetNanos every tick
+        TIME_SLICED
+    }
+
+    public enum SteeringMode {
+        // Straight at the next node, with a stopping distance guessed from 12 ticks of ground drag
+        NODE,
+        // At a point lookaheadDistance along the path, with the stopping distance from MovementPhysics
+        PURE_PURSUIT
+    }
+
     private static Walker instance;
+    private static PlanningMode planningMode = PlanningMode.ASYNC;
+    private static long tickBudgetNanos = 2_000_000L;
+    private static volatile SteeringMode steeringMode = SteeringMode.PURE_PURSUIT;
+    private static volatile double lookaheadDistance = 3.0;
     private boolean isActive;
     private boolean enableRendering = true;
 
-    List<PathElm> path;
+    // Progress along the processed path, replaced as a whole when a new path is installed
+    PathCursor path;
     WalkTarget currentTarget;
 
+    // Async planning state. planGeneration is only touched on the client thread, a result is applied only if
+    // its generation is still the latest, so results of replaced or cancelled requests are dropped.
+    private int planGeneration;
+    private boolean planning;
+    private Future<?> planFuture;
+    private DenseAStarPathFinder slicedSearch;
+    // Anytime search of a TIME_SLICED walk with a deadline, kept advancing after its first path is followed
+    private AnytimePathFinder anytimeSearch;
+    private final AtomicReference<PlanResult> completedPlan = new AtomicReference<>();
+
+    // Incremental search kept alive for the goal of the current walk, warmed up a slice per tick while following
+    // the path so block changes and displacements are repaired from it instead of planning from scratch
+    private IncrementalPathFinder repairSearch;
+    // Goal of the current walk, replanning goes back to it
+    private Goal walkGoal;
+    private int walkNodeCount;
+    // Planner asked for with the current walk, null for the default one
+    private PathPlanner walkPlanner;
+    // Planning deadline asked for with the current walk, 0 for a single search
+    private long walkDeadlineMillis;
+    // Start and goal of the walk whose first planned path goes into the PathCache, null once it did
+    private BlockPos cacheStart;
+    // Cached route the walk being planned joins, only the bridge onto it is searched. null to plan the whole way
+    private PathCache.Hit splice;
+    private BlockPos spliceStart;
+    private BlockPos cacheGoal;
+    private long cacheStamp;
+    private List<AStarNode> routeNodes = new ArrayList<>();
+    private boolean repairPending;
+    // Where the player was when the current target position was taken up, for displacement checks
+    private Vec3 segmentStart;
+    private BlockPos segmentTarget;
+    private final PurePursuit pursuit = new PurePursuit();
+
     public Walker() {
         instance = this;
-        // Initialize path as empty list to avoid null pointer exceptions
-        path = new ArrayList<>();
+        // Initialize path as empty to avoid null pointer exceptions
+        path = PathCursor.empty();
+        PassabilityCache.getInstance().addChangeListener(this::onBlocksChanged);
     }
     
     private void sendDebugMessage(String message) {
         try {
-            Minecraft mc = Minecraft.getMinecraft();
-            if (mc != null && mc.thePlayer != null) {
-                // Uncomment for debug: mc.thePlayer.addChatMessage(new ChatComponentText("§e[Debug] §f" + message));
+            PlayerState player = WorldAccess.getPlayer();
+            if (player.isPresent()) {
+                // Uncomment for debug: player.sendMessage("§e[Debug] §f" + message);
             }
         } catch (Exception e) {
             // Ignore chat errors
@@ -56,8 +136,36 @@ public class Walker {
     }
 
     public void walk(BlockPos start, BlockPos end, int nodeCount) {
+        walk(start, end, nodeCount, null);
+    }
+
+    public void walk(BlockPos start, BlockPos end, int nodeCount, PathPlanner planner) {
+        walk(start, end, nodeCount, planner, 0);
+    }
+
+    /**
+     * Walks to end planning with the given planner, null for the default one that follows the search mode set in
+     * AStarPathFinder.
+     * @param deadlineMillis above 0 plans with the anytime search instead, see AnytimePathFinder: walking starts on
+     *                       its first path and cheaper ones are taken over until this many milliseconds have passed
+     */
+    public void walk(BlockPos start, BlockPos end, int nodeCount, PathPlanner planner, long deadlineMillis) {
+        walk(start, end != null ? Goal.at(end) : null, nodeCount, planner, deadlineMillis);
+    }
+
+    /**
+     * Walks to whichever block of the goal the search reaches first, planned in the planning mode like a walk to
+     * a single block. Goals of several blocks aren't cached and plan without the anytime search, which only knows
+     * single blocks, so the deadline is ignored for them.
+     */
+    public void walk(BlockPos start, Goal goal, int nodeCount, PathPlanner planner, long deadlineMillis) {
+        walk(start, goal, nodeCount, planner, deadlineMillis, true);
+    }
+
+    // requested is false for the walker planning again on its own, which isn't counted for prewarming
+    private void walk(BlockPos start, Goal goal, int nodeCount, PathPlanner planner, long deadlineMillis, boolean requested) {
         try {
-            if (start == null || end == null) {
+            if (start == null || goal == null) {
                 sendDebugMessage("Cannot pathfind with null positions");
                 return;
             }
@@ -66,14 +174,82 @@ public class Walker {
             
             // Always enable rendering regardless of distance
             enableRendering = true;
+
+            BlockPos end = goal.getPoint();
+            // Walking to the same goal again keeps the search tree built so far, a goal of several blocks gets one
+            // once a plan picked its block
+            if (end == null) {
+                repairSearch = null;
+            } else if (repairSearch == null || !repairSearch.getGoal().equals(end)) {
+                repairSearch = new IncrementalPathFinder(end, nodeCount);
+            }
+            walkGoal = goal;
+            walkNodeCount = nodeCount;
+            walkPlanner = planner;
+            walkDeadlineMillis = end != null ? deadlineMillis : 0;
+            repairPending = false;
+            routeNodes = new ArrayList<>();
+
+            // A path cached for this start and goal, or one starting close enough to splice onto, skips planning
+            PathCache cache = PathCache.getInstance();
+            String plannerName = getWalkPlanner().getName();
+            cacheStart = null;
+            splice = null;
+            // A speculative search must not hold up the planning thread this walk needs
+            cache.cancelPrewarm();
+            if (end != null) {
+                if (requested) {
+                    cache.recordRequest(end, plannerName);
+                }
+                PathCache.Hit hit = cache.lookup(start, end, plannerName);
+                if (hit != null && !hit.isSplice()) {
+                    cancelPlanning();
+                    releaseAllKeys();
+                    installPath(hit.path, hit.nodes);
+                    return;
+                }
+                splice = hit;
+                spliceStart = start;
+                cacheStart = start;
+                cacheGoal = end;
+                cacheStamp = cache.stamp();
+            }
+
+            if (planningMode == PlanningMode.ASYNC) {
+                if (walkDeadlineMillis > 0 && splice == null) {
+                    walkAnytimeAsync(start, end, nodeCount);
+                } else {
+                    walkAsync(start, goal, nodeCount);
+                }
+                return;
+            }
+            if (planningMode == PlanningMode.TIME_SLICED) {
+                walkTimeSliced(start, goal, nodeCount);
+                return;
+            }
+            cancelPlanning();
             
-            // Compute path nodes with the A* algorithm
-            List<AStarNode> nodes = AStarPathFinder.compute(start, end, nodeCount);
+            // Compute path nodes with the A* algorithm, or the best the anytime search finds by the deadline
+            List<AStarNode> nodes;
+            if (walkDeadlineMillis > 0 && splice == null) {
+                AnytimePathFinder search = AStarPathFinder.startAnytimeSearch(start, end, nodeCount,
+                        PassabilityCache.getInstance(), getAnytimeDeadline());
+                while (!search.isDone()) {
+                    search.advance(Long.MAX_VALUE);
+                }
+                nodes = search.getResult() != null ? search.getResult() : new ArrayList<>();
+            } else {
+                nodes = plan(getWalkPlanner(), start, goal, nodeCount, splice, PassabilityCache.getInstance());
+            }
             
             // Process nodes into path elements
-            path = ProcessorManager.process(nodes);
+            List<PathElm> elms = ProcessorManager.process(nodes);
+            path = new PathCursor(elms);
+            routeNodes = nodes;
+            cachePlannedPath(nodes, elms);
+            watchGoalBlock(nodes);
             
-            if (path == null || path.isEmpty()) {
+            if (path.isDone()) {
                 sendDebugMessage("No valid path found");
                 isActive = false;
                 currentTarget = null;
@@ -81,31 +257,440 @@ public class Walker {
             }
             
             // Always render the path
-            PathRenderer.getInstance().render(path);
+            renderPath(elms);
             
             currentTarget = null;
             
         } catch (Exception e) {
             sendDebugMessage("Error in walk method: " + e.getMessage());
             isActive = false;
-            path = new ArrayList<>();
+            path = PathCursor.empty();
             currentTarget = null;
         }
     }
 
+    /**
+     * Snapshots the area on the client thread and runs the search on the PlanningExecutor.
+     * The walker stays active but idle until the result is picked up in the next tick.
+     */
+    private void walkAsync(BlockPos start, Goal goal, int nodeCount) {
+        cancelPlanning();
+
+        // Stop following the old path while the new one is computed
+        path = PathCursor.empty();
+        currentTarget = null;
+        releaseAllKeys();
+
+        final int generation = planGeneration;
+        final PathPlanner planner = getWalkPlanner();
+        final PathCache.Hit joining = splice;
+        final PassabilitySnapshot snapshot = PassabilityCache.getInstance().snapshot(start, farEnd(start, goal), SNAPSHOT_MARGIN);
+        planning = true;
+
+        planFuture = PlanningExecutor.getInstance().submit(() -> {
+            List<PathElm> result;
+            List<AStarNode> nodes;
+            try {
+                nodes = plan(planner, start, goal, nodeCount, joining, snapshot);
+                result = ProcessorManager.process(nodes, snapshot);
+            } catch (Exception e) {
+                System.err.println("Error computing path: " + e.getMessage());
+                nodes = new ArrayList<>();
+                result = new ArrayList<>();
+            }
+            completedPlan.set(new PlanResult(generation, result, nodes));
+        });
+    }
+
+    /**
+     * Runs the anytime search on the PlanningExecutor over a snapshot, handing over its first path and every
+     * cheaper one after it until the deadline.
+     */
+    private void walkAnytimeAsync(BlockPos start, BlockPos end, int nodeCount) {
+        cancelPlanning();
+
+        path = PathCursor.empty();
+        currentTarget = null;
+        releaseAllKeys();
+
+        final int generation = planGeneration;
+        final PassabilitySnapshot snapshot = PassabilityCache.getInstance().snapshot(start, end, SNAPSHOT_MARGIN);
+        final AnytimePathFinder search = AStarPathFinder.startAnytimeSearch(start, end, nodeCount, snapshot, getAnytimeDeadline());
+        planning = true;
+
+        planFuture = PlanningExecutor.getInstance().submit(() -> {
+            try {
+                while (!search.isDone()) {
+                    if (search.advance(Long.MAX_VALUE)) {
+                        List<AStarNode> nodes = search.getResult();
+                        completedPlan.set(new PlanResult(generation, ProcessorManager.process(nodes, snapshot), nodes));
+                    }
+                }
+            } catch (Exception e) {
+                System.err.println("Error computing path: " + e.getMessage());
+                if (search.getResult() == null) {
+                    completedPlan.set(new PlanResult(generation, new ArrayList<>(), new ArrayList<>()));
+                }
+            }
+        });
+    }
+
+    /**
+     * Starts a resumable search on the client thread, advanced by a slice of the tick budget every tick.
+     */
+    private void walkTimeSliced(BlockPos start, Goal goal, int nodeCount) {
+        cancelPlanning();
+
+        path = PathCursor.empty();
+        currentTarget = null;
+        releaseAllKeys();
+
+        if (walkDeadlineMillis > 0 && splice == null) {
+            anytimeSearch = AStarPathFinder.startAnytimeSearch(start, goal.getPoint(), nodeCount,
+                    PassabilityCache.getInstance(), getAnytimeDeadline());
+        } else if (getWalkPlanner() instanceof AStarPlanner) {
+            AStarPathFinder.SearchMode mode = ((AStarPlanner) getWalkPlanner()).getSearchMode();
+            slicedSearch = splice != null
+                    ? AStarPathFinder.startSearch(start, splice.getBridgeGoal(), PathCache.SPLICE_DEPTH, mode)
+                    : AStarPathFinder.startSearch(start, goal, nodeCount, mode);
+        } else {
+            // Other planners can't be resumed, they plan in one go
+            List<AStarNode> nodes = plan(getWalkPlanner(), start, goal, nodeCount, splice, PassabilityCache.getInstance());
+            installPath(ProcessorManager.process(nodes), nodes);
+            return;
+        }
+        planning = true;
+    }
+
+    // The path to the goal, or when splicing the bridge onto the cached route followed by the route. A bridge that
+    // doesn't get there plans the whole way instead
+    private static List<AStarNode> plan(PathPlanner planner, BlockPos start, Goal goal, int nodeCount,
+                                        PathCache.Hit splice, PassabilitySource world) {
+        if (splice != null) {
+            List<AStarNode> joined = splice.joinBridge(
+                    planner.plan(start, splice.getBridgeGoal(), PathCache.SPLICE_DEPTH, world).getNodes());
+            if (joined != null) {
+                return joined;
+            }
+            System.out.println("DEBUG: No bridge onto the cached path, planning the whole way");
+        }
+        return planner.plan(start, goal, nodeCount, world).getNodes();
+    }
+
+    // Corner of the snapshot opposite the start, the goal block nearest to it
+    private static BlockPos farEnd(BlockPos start, Goal goal) {
+        return goal.getPoint() != null ? goal.getPoint() : goal.nearestTo(start.getX(), start.getY(), start.getZ());
+    }
+
+    // Repairs of a walk to a goal of several blocks head for the block its plan ended on, one that didn't get
+    // there leaves them to planning again
+    private void watchGoalBlock(List<AStarNode> nodes) {
+        if (walkGoal == null || walkGoal.getPoint() != null || nodes.isEmpty()) {
+            return;
+        }
+        AStarNode last = nodes.get(nodes.size() - 1);
+        if (!walkGoal.isReached(last.getX(), last.getY(), last.getZ())) {
+            return;
+        }
+        BlockPos goalBlock = new BlockPos(last.getX(), last.getY(), last.getZ());
+        if (repairSearch == null || !repairSearch.getGoal().equals(goalBlock)) {
+            repairSearch = new IncrementalPathFinder(goalBlock, walkNodeCount);
+        }
+    }
+
+    private long getAnytimeDeadline() {
+        return System.nanoTime() + walkDeadlineMillis * 1_000_000L;
+    }
+
+    private PathPlanner getWalkPlanner() {
+        return walkPlanner != null ? walkPlanner : PathPlanners.getDefault();
+    }
+
+    private void advanceSlicedSearch() {
+        if (slicedSearch == null) {
+            return;
+        }
+
+        try {
+            if (!slicedSearch.advance(System.nanoTime() + tickBudgetNanos)) {
+                return;
+            }
+            List<AStarNode> nodes = slicedSearch.getResult();
+            System.out.println("DEBUG: Time sliced search finished after " + slicedSearch.getIterations() + " iterations");
+            slicedSearch = null;
+            if (splice != null) {
+                PathCache.Hit joining = splice;
+                splice = null;
+                nodes = joining.joinBridge(nodes);
+                if (nodes == null) {
+                    System.out.println("DEBUG: No bridge onto the cached path, planning the whole way");
+                    walkTimeSliced(spliceStart, walkGoal, walkNodeCount);
+                    return;
+                }
+            }
+            planning = false;
+            installPath(ProcessorManager.process(nodes), nodes);
+        } catch (Exception e) {
+            sendDebugMessage("Error in time sliced search: " + e.getMessage());
+            slicedSearch = null;
+            planning = false;
+            installPath(new ArrayList<>(), new ArrayList<>());
+        }
+    }
+
+    // Advances the anytime search within the tick budget, also while the player follows one of its paths.
+    // Its paths are handed over like async results.
+    private void advanceAnytimeSearch() {
+        if (anytimeSearch == null) {
+            return;
+        }
+
+        try {
+            if (anytimeSearch.advance(System.nanoTime() + tickBudgetNanos)) {
+                List<AStarNode> nodes = anytimeSearch.getResult();
+                completedPlan.set(new PlanResult(planGeneration, null, nodes));
+            }
+            if (anytimeSearch.isDone()) {
+                anytimeSearch = null;
+            }
+        } catch (Exception e) {
+            sendDebugMessage("Error in anytime search: " + e.getMessage());
+            anytimeSearch = null;
+            if (planning) {
+                planning = false;
+                installPath(new ArrayList<>(), new ArrayList<>());
+            }
+        }
+    }
+
+    // Drops any search in flight, its result will be ignored if it still arrives
+    private void cancelPlanning() {
+        planGeneration++;
+        planning = false;
+        slicedSearch = null;
+        anytimeSearch = null;
+        if (planFuture != null) {
+            planFuture.cancel(true);
+            planFuture = null;
+        }
+    }
+
+    // Takes over a finished async search, if it is the one we are waiting for
+    private void applyCompletedPlan() {
+        PlanResult result = completedPlan.getAndSet(null);
+        if (result == null) {
+            return;
+        }
+        if (result.generation != planGeneration) {
+            System.out.println("DEBUG: Discarding stale path result");
+            return;
+        }
+        if (!planning) {
+            // A cheaper path from the anytime search while an earlier one is followed, kept for the next tick
+            // if it can't be taken over yet
+            if (!applyImprovedPath(result.nodes)) {
+                completedPlan.compareAndSet(null, result);
+            }
+            return;
+        }
+
+        // The future is kept, an anytime search goes on looking for cheaper paths
+        planning = false;
+        installPath(result.path != null ? result.path : ProcessorManager.process(result.nodes), result.nodes);
+    }
+
+    /**
+     * Follows a cheaper path from the anytime search from its node closest to the player onwards.
+     * @return false while the player is mid jump or fall, a path that doesn't pass the player is dropped
+     */
+    private boolean applyImprovedPath(List<AStarNode> nodes) {
+        if (currentTarget instanceof JumpTarget || currentTarget instanceof FallTarget
+                || currentTarget instanceof GapJumpTarget) {
+            return false;
+        }
+
+        Vec3 position = WorldAccess.getPlayer().getPosition();
+        int closest = -1;
+        double closestDistance = SPLICE_DISTANCE * SPLICE_DISTANCE;
+        for (int i = 0; i < nodes.size(); i++) {
+            AStarNode node = nodes.get(i);
+            if (node.isJumpNode() || node.isFallNode() || Math.abs(node.getY() - position.yCoord) > 1) {
+                continue;
+            }
+            double dx = node.getX() + 0.5 - position.xCoord;
+            double dz = node.getZ() + 0.5 - position.zCoord;
+            if (dx * dx + dz * dz <= closestDistance) {
+                closestDistance = dx * dx + dz * dz;
+                closest = i;
+            }
+        }
+        if (closest < 0) {
+            System.out.println("DEBUG: Dropping cheaper path, the player has already left it");
+            return true;
+        }
+
+        System.out.println("DEBUG: Switching to a cheaper path from node " + closest);
+        List<AStarNode> rest = new ArrayList<>(nodes.subList(closest, nodes.size()));
+        installPath(ProcessorManager.process(rest), rest);
+        return true;
+    }
+
+    // Starts following a path produced by a non blocking search or a repair
+    private void installPath(List<PathElm> newPath, List<AStarNode> nodes) {
+        cachePlannedPath(nodes, newPath);
+        watchGoalBlock(nodes);
+        path = newPath != null ? new PathCursor(newPath) : PathCursor.empty();
+        routeNodes = nodes;
+        currentTarget = null;
+        segmentStart = null;
+        segmentTarget = null;
+
+        if (path.isDone()) {
+            sendDebugMessage("No valid path found");
+            isActive = false;
+            return;
+        }
+
+        renderPath(newPath);
+    }
+
+    // Caches the first path planned for the current walk, repairs and cheaper anytime paths aren't
+    private void cachePlannedPath(List<AStarNode> nodes, List<PathElm> newPath) {
+        if (cacheStart == null) {
+            return;
+        }
+        PathCache.getInstance().put(cacheStart, cacheGoal, getWalkPlanner().getName(), nodes, newPath, cacheStamp);
+        cacheStart = null;
+    }
+
+    /**
+     * Replans from the player's position with the search kept for the current goal, which only re-expands
+     * the part of it that changed.
+     * @return true if a new path is being followed
+     */
+    public boolean repair() {
+        if (!isActive || planning || repairSearch == null) {
+            return false;
+        }
+
+        try {
+            List<AStarNode> nodes = repairSearch.plan(Util.getPlayerBlockPos());
+            if (nodes.size() < 2) {
+                return false;
+            }
+            WorldAccess.getPlayer().setKeyPressed(Keyboard.KEY_SPACE, false);
+            // Cheaper paths an anytime search is still finding over the old blocks would undo the repair
+            cancelPlanning();
+            installPath(ProcessorManager.process(nodes), nodes);
+            return isActive;
+        } catch (Exception e) {
+            sendDebugMessage("Error repairing path: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Repairs the path, or plans it again from scratch if the incremental search can't
+    private void repairOrReplan(String reason) {
+        System.out.println("DEBUG: Repairing path, " + reason);
+        if (repair()) {
+            return;
+        }
+        System.out.println("DEBUG: Repair failed, planning from scratch");
+        walk(Util.getPlayerBlockPos(), walkGoal, walkNodeCount, walkPlanner, walkDeadlineMillis, false);
+    }
+
+    // Called by the PassabilityCache on the client thread for every changed block range
+    private void onBlocksChanged(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        if (repairSearch != null) {
+            repairSearch.blocksChanged(minX, minY, minZ, maxX, maxY, maxZ);
+        }
+        if (!isActive || planning || repairPending) {
+            return;
+        }
+
+        for (AStarNode node : routeNodes) {
+            if (node.getX() >= minX - CHANGE_MARGIN && node.getX() <= maxX + CHANGE_MARGIN
+                    && node.getY() >= minY - CHANGE_MARGIN && node.getY() <= maxY + CHANGE_MARGIN
+                    && node.getZ() >= minZ - CHANGE_MARGIN && node.getZ() <= maxZ + CHANGE_MARGIN) {
+                repairPending = true;
+                return;
+            }
+        }
+    }
+
+    // Pushed further sideways off the line from where the current target was taken up to the target than
+    // walking it ever strays
+    private boolean isDisplaced(Vec3 position) {
+        BlockPos target = currentTarget.getCurrentTarget();
+        if (target == null) {
+            return false;
+        }
+        if (!target.equals(segmentTarget) || segmentStart == null) {
+            segmentTarget = target;
+            segmentStart = position;
+            return false;
+        }
+
+        double ax = segmentStart.xCoord, az = segmentStart.zCoord;
+        double bx = target.getX() + 0.5, bz = target.getZ() + 0.5;
+        double lengthSquared = (bx - ax) * (bx - ax) + (bz - az) * (bz - az);
+        double t = lengthSquared > 0
+                ? ((position.xCoord - ax) * (bx - ax) + (position.zCoord - az) * (bz - az)) / lengthSquared : 0;
+        t = Math.max(0, Math.min(1, t));
+        double dx = position.xCoord - (ax + t * (bx - ax));
+        double dz = position.zCoord - (az + t * (bz - az));
+        return dx * dx + dz * dz > DISPLACEMENT_DISTANCE * DISPLACEMENT_DISTANCE;
+    }
+
+    // Spends part of the tick budget bringing the incremental search up to date for the player's position, only
+    // when time slicing, the other modes keep search work off the client thread or out of the walk's ticks
+    private void warmRepairSearch() {
+        if (repairSearch == null || planningMode != PlanningMode.TIME_SLICED) {
+            return;
+        }
+        try {
+            repairSearch.advance(Util.getPlayerBlockPos(), System.nanoTime() + tickBudgetNanos / 2);
+        } catch (Exception e) {
+            sendDebugMessage("Error warming repair search: " + e.getMessage());
+        }
+    }
+
+    // There is no renderer when running headless
+    private void renderPath(List<PathElm> elms) {
+        PathRenderer renderer = PathRenderer.getInstance();
+        if (renderer != null) {
+            renderer.render(elms);
+        }
+    }
+
 
     // Key press in here
     @SubscribeEvent
     public void onClientTickPre(TickEvent.ClientTickEvent event) {
+        if (event.phase == TickEvent.Phase.END)
+            return;
+
+        tick();
+    }
+
+    /**
+     * One client tick of path following, before the player moves.
+     */
+    public void tick() {
         try {
-            if (event.phase == TickEvent.Phase.END || Minecraft.getMinecraft().thePlayer == null)
+            if (!WorldAccess.getPlayer().isPresent())
                 return;
     
             if (!isActive)
                 return;
+
+            advanceAnytimeSearch();
+            applyCompletedPlan();
+            advanceSlicedSearch();
+            if (planning)
+                return;
     
-            // Add null and empty check for path
-            if (path == null || path.isEmpty()) {
+            if (path.isDone()) {
                 isActive = false;
                 currentTarget = null;
                 return;
@@ -113,12 +698,12 @@ public class Walker {
     
             if (currentTarget == null) {
                 try {
-                    currentTarget = getCurrentTarget(path.get(0));
+                    currentTarget = getCurrentTarget(path.current());
                 } catch (Exception e) {
                     // If we can't get a current target, abort pathfinding
                     sendDebugMessage("Error getting target: " + e.getMessage());
                     isActive = false;
-                    path = new ArrayList<>();
+                    path = PathCursor.empty();
                     return;
                 }
             }
@@ -126,7 +711,7 @@ public class Walker {
             // Add null check for currentTarget
             if (currentTarget == null) {
                 isActive = false;
-                path = new ArrayList<>();
+                path = PathCursor.empty();
                 return;
             }
     
@@ -141,13 +726,26 @@ public class Walker {
                 // Continue with current target if onTarget fails
             }
     
+            if (repairPending) {
+                repairPending = false;
+                repairOrReplan("blocks changed near the path");
+                return;
+            }
+            if (currentTarget instanceof GapJumpTarget && ((GapJumpTarget) currentTarget).isMissed()) {
+                repairOrReplan("player missed a gap jump");
+                return;
+            }
+            if (currentTarget.getCurrentTarget() != null && isDisplaced(WorldAccess.getPlayer().getPosition())) {
+                repairOrReplan("player was pushed off the path");
+                return;
+            }
+
             // while, so we don't skip ticks
             try {
                 while (tick(currentTarget)) {
-                    // removes it
-                    path.remove(0);
+                    path.advance();
     
-                    if (path.isEmpty()) {
+                    if (path.isDone()) {
                         isActive = false;
                         currentTarget = null;
                         releaseAllKeys();
@@ -155,7 +753,7 @@ public class Walker {
                         return;
                     }
     
-                    currentTarget = getCurrentTarget(path.get(0));
+                    currentTarget = getCurrentTarget(path.current());
                     if (currentTarget == null) {
                         isActive = false;
                         releaseAllKeys();
@@ -169,26 +767,25 @@ public class Walker {
             }
     
             try {
-                KeyBinding.setKeyBindState(Keyboard.KEY_LCONTROL, true);
-                Tuple<Double, Double> angles = LookUtil.getAngles(currentTarget.getCurrentTarget());
-                LookManager.getInstance().setTarget(angles.getFirst().floatValue(), currentTarget instanceof JumpTarget ? -10 : 10);
+                Tuple<Double, Double> angles = getSteeringAngles();
+                LookManager.getInstance().setTarget(angles.getFirst().floatValue(), currentTarget instanceof JumpTarget || currentTarget instanceof GapJumpTarget ? -10 : 10);
                 
                 pressKeys(angles.getFirst().floatValue());
+                // After pressKeys, which releases every key, or the player never sprints
+                WorldAccess.getPlayer().setKeyPressed(Keyboard.KEY_LCONTROL, true);
             } catch (Exception e) {
                 sendDebugMessage("Error setting keys/angles: " + e.getMessage());
                 // If key setting fails, try to continue
             }
+
+            warmRepairSearch();
         } catch (Exception e) {
             // Catch-all for any other errors in the tick method
-            sendDebugMessage("General error in onClientTickPre: " + e.getMessage());
+            sendDebugMessage("General error in tick: " + e.getMessage());
             isActive = false;
             releaseAllKeys();
             
-            if (path != null) {
-                path.clear();
-            } else {
-                path = new ArrayList<>();
-            }
+            path = PathCursor.empty();
             
             currentTarget = null;
         }
@@ -199,11 +796,12 @@ public class Walker {
      */
     private void releaseAllKeys() {
         try {
-            KeyBinding.setKeyBindState(Keyboard.KEY_W, false);
-            KeyBinding.setKeyBindState(Keyboard.KEY_A, false);
-            KeyBinding.setKeyBindState(Keyboard.KEY_D, false);
-            KeyBinding.setKeyBindState(Keyboard.KEY_S, false);
-            KeyBinding.setKeyBindState(Keyboard.KEY_LCONTROL, false);
+            PlayerState player = WorldAccess.getPlayer();
+            player.setKeyPressed(Keyboard.KEY_W, false);
+            player.setKeyPressed(Keyboard.KEY_A, false);
+            player.setKeyPressed(Keyboard.KEY_D, false);
+            player.setKeyPressed(Keyboard.KEY_S, false);
+            player.setKeyPressed(Keyboard.KEY_LCONTROL, false);
         } catch (Exception e) {
             sendDebugMessage("Error releasing keys: " + e.getMessage());
         }
@@ -211,29 +809,30 @@ public class Walker {
 
     private void pressKeys(double targetYaw) {
         try {
-            double difference = targetYaw - Minecraft.getMinecraft().thePlayer.rotationYaw;
+            PlayerState player = WorldAccess.getPlayer();
+            double difference = targetYaw - player.getYaw();
             releaseAllKeys();
     
             if (22.5 > difference && difference > -22.5) {   // Forwards
-                KeyBinding.setKeyBindState(Keyboard.KEY_W, true);
+                player.setKeyPressed(Keyboard.KEY_W, true);
             } else if (-22.5 > difference && difference > -67.5) {   // Forwards+Right
-                KeyBinding.setKeyBindState(Keyboard.KEY_W, true);
-                KeyBinding.setKeyBindState(Keyboard.KEY_A, true);
+                player.setKeyPressed(Keyboard.KEY_W, true);
+                player.setKeyPressed(Keyboard.KEY_A, true);
             } else if (-67.5 > difference && difference > -112.5) { // Right
-                KeyBinding.setKeyBindState(Keyboard.KEY_A, true);
+                player.setKeyPressed(Keyboard.KEY_A, true);
             } else if (-112.5 > difference && difference > -157.5) { // Backwards + Right
-                KeyBinding.setKeyBindState(Keyboard.KEY_A, true);
-                KeyBinding.setKeyBindState(Keyboard.KEY_S, true);
+                player.setKeyPressed(Keyboard.KEY_A, true);
+                player.setKeyPressed(Keyboard.KEY_S, true);
             } else if ((-157.5 > difference && difference > -180) || (180 > difference && difference > 157.5)) { // Backwards
-                KeyBinding.setKeyBindState(Keyboard.KEY_S, true);
+                player.setKeyPressed(Keyboard.KEY_S, true);
             } else if (67.5 > difference && difference > 22.5) { // Forwards + Left
-                KeyBinding.setKeyBindState(Keyboard.KEY_W, true);
-                KeyBinding.setKeyBindState(Keyboard.KEY_D, true);
+                player.setKeyPressed(Keyboard.KEY_W, true);
+                player.setKeyPressed(Keyboard.KEY_D, true);
             } else if (112.5 > difference && difference > 67.5) { // Left
-                KeyBinding.setKeyBindState(Keyboard.KEY_D, true);
+                player.setKeyPressed(Keyboard.KEY_D, true);
             } else if (157.5 > difference && difference > 112.5) {  // Backwards+Left
-                KeyBinding.setKeyBindState(Keyboard.KEY_S, true);
-                KeyBinding.setKeyBindState(Keyboard.KEY_D, true);
+                player.setKeyPressed(Keyboard.KEY_S, true);
+                player.setKeyPressed(Keyboard.KEY_D, true);
             }
         } catch (Exception e) {
             sendDebugMessage("Error in pressKeys: " + e.getMessage());
@@ -241,50 +840,39 @@ public class Walker {
     }
 
     // This checks if the player is on any nodes further in the queue, which means the player, due to probably high speed, has skipped some. Then
-    // this removes the nodes behind it and sets it as the current target.
+    // this moves the cursor past the nodes behind it and sets it as the current target. Only the PathCursor's
+    // lookahead window and the elements over the player's column are checked, not the whole path.
     private WalkTarget onTarget() {
-        // Add null check for path
-        if (path == null || path.isEmpty()) {
+        if (path.isDone()) {
             return null;
         }
 
-        for (int i = 0; i < path.size(); i++) {
-            PathElm elm = path.get(i);
-            
-            try {
-                if (elm != null && elm.playerOn(Minecraft.getMinecraft().thePlayer.getPositionVector())) {
-                    sendDebugMessage("Player on path element: " + elm);
-    
-                    if (currentTarget != null && elm == currentTarget.getElm())
-                        return null;
-    
-                    // Get the next one if the player is on it
-                    // if its travel vector, we don't get the next one, cos we need to go to the dest.
-                    // if its jump, we don't get the next one, cos we need to jump.
-                    if (path.size() > i + 1 && !(elm instanceof TravelVector) && !(elm instanceof JumpNode)) {
-                        sendDebugMessage("Clearing path to next element");
-                        path.subList(0, i + 1).clear();
-                    } else {
-                        path.subList(0, i).clear();
-                    }
-    
-                    // cutting off might end jump target so stop jumping
-                    KeyBinding.setKeyBindState(Keyboard.KEY_SPACE, false);
-    
-                    // Add check to ensure path is not empty after clearing
-                    if (path.isEmpty()) {
-                        return null;
-                    }
-    
-                    return getCurrentTarget(path.get(0));
-                }
-            } catch (Exception e) {
-                sendDebugMessage("Error checking if player is on path element: " + e.getMessage());
-                // Continue with the loop even if one element fails
-            }
+        int i = path.findPlayerOn(WorldAccess.getPlayer().getPosition());
+        if (i < 0) {
+            return null;
         }
 
-        return null;
+        PathElm elm = path.peek(i - path.getIndex());
+        sendDebugMessage("Player on path element: " + elm);
+
+        if (currentTarget != null && elm == currentTarget.getElm())
+            return null;
+
+        // Get the next one if the player is on it
+        // if its travel vector, we don't get the next one, cos we need to go to the dest.
+        // if its jump, we don't get the next one, cos we need to jump. Same for a gap jump, the player still has to land.
+        if (path.peek(i - path.getIndex() + 1) != null && !(elm instanceof TravelVector) && !(elm instanceof JumpNode)
+                && !(elm instanceof GapJump)) {
+            sendDebugMessage("Clearing path to next element");
+            path.skipTo(i + 1);
+        } else {
+            path.skipTo(i);
+        }
+
+        // cutting off might end jump target so stop jumping
+        WorldAccess.getPlayer().setKeyPressed(Keyboard.KEY_SPACE, false);
+
+        return getCurrentTarget(path.current());
     }
 
     // The return value of this is if the node has been satisfied, and the next one should be polled.
@@ -294,8 +882,15 @@ public class Walker {
         }
 
         try {
-            // We should improve the predicted motion calculation. Right now it's based on the estimate that the motion will last for 12 ticks, but this is different across speeds.
-            Vec3 offset = new Vec3(Minecraft.getMinecraft().thePlayer.motionX, 0, Minecraft.getMinecraft().thePlayer.motionZ);
+            PlayerState player = WorldAccess.getPlayer();
+            if (steeringMode == SteeringMode.PURE_PURSUIT) {
+                return current.tick(MovementPhysics.stoppingOffset(player.getPosition(), player.getMotion(),
+                        player.isOnGround(), PassabilityCache.getInstance()), player.getPosition());
+            }
+
+            // The NODE estimate, the motion lasting for 12 ticks, which is different across speeds.
+            Vec3 motion = player.getMotion();
+            Vec3 offset = new Vec3(motion.xCoord, 0, motion.zCoord);
             Vec3 temp = offset;
             offset = offset.add(temp);
 
@@ -304,7 +899,7 @@ public class Walker {
                 offset = offset.add((temp = Util.vecMultiply(temp, 0.54600006f)));
             }
 
-            return current.tick(offset, Minecraft.getMinecraft().thePlayer.getPositionVector());
+            return current.tick(offset, player.getPosition());
         } catch (Exception e) {
             sendDebugMessage("Error in tick: " + e.getMessage());
             return false;
@@ -323,9 +918,11 @@ public class Walker {
                 return new TravelTarget((TravelNode) elm);
             if (elm instanceof TravelVector)
                 return new TravelVectorTarget((TravelVector) elm);
+            if (elm instanceof GapJump)
+                return new GapJumpTarget((GapJump) elm);
             if (elm instanceof JumpNode) {
-                if (path.size() > 1)
-                    return new JumpTarget((JumpNode) elm, getCurrentTarget(path.get(1)));
+                if (path.peek(1) != null)
+                    return new JumpTarget((JumpNode) elm, getCurrentTarget(path.peek(1)));
                 return new JumpTarget((JumpNode) elm, null);
             }
             sendDebugMessage("Unknown path element type: " + elm.getClass().getSimpleName());
@@ -340,23 +937,74 @@ public class Walker {
         return isActive;
     }
 
+    public boolean isPlanning() {
+        return planning;
+    }
+
     public static Walker getInstance() {
         return instance;
     }
 
+    private Tuple<Double, Double> getSteeringAngles() {
+        if (steeringMode != SteeringMode.PURE_PURSUIT) {
+            return LookUtil.getAngles(currentTarget.getCurrentTarget());
+        }
+        PlayerState player = WorldAccess.getPlayer();
+        Vec3 aim = pursuit.aim(player.getPosition(), currentTarget, path, lookaheadDistance);
+        return LookUtil.getAngles(player.getPosition().addVector(0, player.getEyeHeight(), 0), aim.addVector(0, 0.5, 0),
+                player.getYaw());
+    }
+
+    public static PlanningMode getPlanningMode() {
+        return planningMode;
+    }
+
+    public static void setPlanningMode(PlanningMode mode) {
+        planningMode = mode;
+    }
+
+    public static long getTickBudgetNanos() {
+        return tickBudgetNanos;
+    }
+
+    /**
+     * @param budget time a TIME_SLICED search may spend per client tick
+     */
+    public static void setTickBudgetNanos(long budget) {
+        tickBudgetNanos = budget;
+    }
+
+    public static SteeringMode getSteeringMode() {
+        return steeringMode;
+    }
+
+    public static void setSteeringMode(SteeringMode mode) {
+        steeringMode = mode;
+    }
+
+    public static double getLookaheadDistance() {
+        return lookaheadDistance;
+    }
+
+    /**
+     * @param distance blocks ahead along the path PURE_PURSUIT steers towards
+     */
+    public static void setLookaheadDistance(double distance) {
+        lookaheadDistance = distance;
+    }
+
     public void cancel() {
+        cancelPlanning();
+        // Repairs keep the search between their plans, a cancelled walk doesn't need it any more
+        repairSearch = null;
         isActive = false;
         currentTarget = null;
         
-        if (path != null) {
-            path.clear();
-        } else {
-            path = new ArrayList<>();
-        }
+        path = PathCursor.empty();
         
         // Release all keys
         releaseAllKeys();
-        KeyBinding.setKeyBindState(Keyboard.KEY_SPACE, false);
+        WorldAccess.getPlayer().setKeyPressed(Keyboard.KEY_SPACE, false);
         
         // Cancel look manager
         try {
@@ -385,5 +1033,16 @@ public class Walker {
             sendDebugMessage("Error clearing path renderer: " + e.getMessage());
         }
     }
-}
 
+    private static class PlanResult {
+        final int generation;
+        final List<PathElm> path;
+        final List<AStarNode> nodes;
+
+        PlanResult(int generation, List<PathElm> path, List<AStarNode> nodes) {
+            this.generation = generation;
+            this.path = path;
+            this.nodes = nodes;
+        }
+    }
+}
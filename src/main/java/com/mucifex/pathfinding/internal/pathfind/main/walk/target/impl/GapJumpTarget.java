@@ -0,0 +1,97 @@
+package com.mucifex.pathfinding.internal.pathfind.main.walk.target.impl;
+
+import net.minecraft.util.BlockPos;
+import net.minecraft.util.Vec3;
+import org.lwjgl.input.Keyboard;
+import com.mucifex.pathfinding.internal.pathfind.main.path.PathElm;
+import com.mucifex.pathfinding.internal.pathfind.main.path.impl.GapJump;
+import com.mucifex.pathfinding.internal.pathfind.main.player.MovementPhysics;
+import com.mucifex.pathfinding.internal.pathfind.main.player.PlayerState;
+import com.mucifex.pathfinding.internal.pathfind.main.walk.target.WalkTarget;
+import com.mucifex.pathfinding.internal.pathfind.main.world.WorldAccess;
+
+public class GapJumpTarget extends WalkTarget {
+    // Half the width of the player's box, it stands on the takeoff until its centre is this far past the edge
+    private static final double HALF_WIDTH = 0.3;
+    // Jumps this much before the last tick the box would still be on the takeoff
+    private static final double JUMP_MARGIN = 0.1;
+
+    GapJump node;
+    // Direction of the jump, along x or z
+    int dx;
+    int dz;
+
+    boolean jumped = false;
+    boolean missed = false;
+
+    public GapJumpTarget(GapJump node) {
+        this.node = node;
+        this.dx = Integer.signum(node.getTo().getX() - node.getFrom().getX());
+        this.dz = Integer.signum(node.getTo().getZ() - node.getFrom().getZ());
+    }
+
+    @Override
+    public boolean tick(Vec3 predictedMotionOnStop, Vec3 playerPos) {
+        setCurrentTarget(node.getTo().getBlockPos());
+        if(missed)
+            return false;
+
+        PlayerState player = WorldAccess.getPlayer();
+        if(!jumped) {
+            if(!player.isOnGround()) {
+                // walked off the edge or a step before the takeoff without jumping
+                if(playerPos.yCoord < node.getFrom().getY() - 0.5)
+                    missed = true;
+                return false;
+            }
+
+            // jump on the last tick the next move would still leave the player standing on the takeoff
+            Vec3 motion = player.getMotion();
+            double step = motion.xCoord * dx + motion.zCoord * dz + MovementPhysics.SPRINT_SPEED * MovementPhysics.FORWARD_INPUT;
+            boolean jump = toEdge(playerPos) - step < -HALF_WIDTH + JUMP_MARGIN;
+            player.setKeyPressed(Keyboard.KEY_SPACE, jump);
+            jumped = jump;
+            return false;
+        }
+
+        if(!player.isOnGround())
+            return false;
+
+        // Landed, let go of jump so the player doesn't hop on
+        player.setKeyPressed(Keyboard.KEY_SPACE, false);
+        double toEdge = toEdge(playerPos);
+        // Still on the takeoff, the jump key was pressed too late for this tick
+        if(toEdge > -HALF_WIDTH && playerPos.yCoord > node.getFrom().getY() - 0.5) {
+            jumped = false;
+            return false;
+        }
+        // Came down in the gap or below the landing
+        if(toEdge > HALF_WIDTH - node.getGap() || playerPos.yCoord < node.getTo().getY() - 0.5) {
+            missed = true;
+            return false;
+        }
+        return true;
+    }
+
+    // Blocks from the player to the takeoff's far edge along the jump, negative past it
+    private double toEdge(Vec3 playerPos) {
+        double edgeX = node.getFrom().getX() + (dx > 0 ? 1 : 0);
+        double edgeZ = node.getFrom().getZ() + (dz > 0 ? 1 : 0);
+        return dx != 0 ? (edgeX - playerPos.xCoord) * dx : (edgeZ - playerPos.zCoord) * dz;
+    }
+
+    /**
+     * @return true once the player came down short of the landing, the walker plans again from where it is
+     */
+    public boolean isMissed() {
+        return missed;
+    }
+
+    public BlockPos getNodeBlockPos() {
+        return node.getFrom().getBlockPos();
+    }
+
+    public PathElm getElm() {
+        return node;
+    }
+}
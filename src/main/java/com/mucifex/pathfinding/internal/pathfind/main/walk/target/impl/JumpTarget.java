@@ -1,14 +1,15 @@
 package com.mucifex.pathfinding.internal.pathfind.main.walk.target.impl;
 
-import net.minecraft.client.settings.KeyBinding;
 import net.minecraft.util.BlockPos;
 import net.minecraft.util.Vec3;
-import net.minecraft.util.Vec3i;
 import org.lwjgl.input.Keyboard;
-import com.mucifex.pathfinding.internal.util.Util;
 import com.mucifex.pathfinding.internal.pathfind.main.path.PathElm;
 import com.mucifex.pathfinding.internal.pathfind.main.path.impl.JumpNode;
 import com.mucifex.pathfinding.internal.pathfind.main.walk.target.WalkTarget;
+import com.mucifex.pathfinding.internal.pathfind.main.world.PassabilityCache;
+import com.mucifex.pathfinding.internal.pathfind.main.world.PassabilitySource;
+import com.mucifex.pathfinding.internal.pathfind.main.world.WorldAccess;
+import com.mucifex.pathfinding.internal.util.Util;
 
 public class JumpTarget extends WalkTarget {
 
@@ -28,7 +29,7 @@ public class JumpTarget extends WalkTarget {
     public boolean tick(Vec3 predictedMotionOnStop, Vec3 playerPos) {
         if(!originalYSet) {
             originalYSet = true;
-            originalY = (int)playerPos.yCoord;
+            originalY = standingPos(playerPos).getY();
         }
         // last one
         if(next == null)
@@ -43,16 +44,24 @@ public class JumpTarget extends WalkTarget {
             return false;
 
 
-        KeyBinding.setKeyBindState(Keyboard.KEY_SPACE, true);
+        WorldAccess.getPlayer().setKeyPressed(Keyboard.KEY_SPACE, true);
 
-        if((int)playerPos.yCoord - originalY == 1 && Util.isBlockSolid(new BlockPos(playerPos).subtract(new Vec3i(0, 1, 0)))) {
-            KeyBinding.setKeyBindState(Keyboard.KEY_SPACE, false);
+        BlockPos standing = standingPos(playerPos);
+        if(standing.getY() - originalY == 1 && PassabilityCache.getInstance().hasFloor(standing.getX(), standing.getY(), standing.getZ())) {
+            WorldAccess.getPlayer().setKeyPressed(Keyboard.KEY_SPACE, false);
             return true;
         }
 
         return false;
     }
 
+    // Block the player stands in, one above the feet when they are on a slab or another partial block
+    private static BlockPos standingPos(Vec3 playerPos) {
+        BlockPos feet = Util.toBlockPos(playerPos);
+        int cell = PassabilityCache.getInstance().getCell(feet.getX(), feet.getY() + 1, feet.getZ());
+        return (cell & PassabilitySource.CELL_PARTIAL_FLOOR) != 0 ? feet.up() : feet;
+    }
+
     public BlockPos getNodeBlockPos() {
         return node.getBlockPos();
     }
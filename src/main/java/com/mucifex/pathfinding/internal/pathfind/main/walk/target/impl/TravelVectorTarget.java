@@ -2,15 +2,26 @@ package com.mucifex.pathfinding.internal.pathfind.main.walk.target.impl;
 
 import net.minecraft.util.BlockPos;
 import net.minecraft.util.Vec3;
+import org.lwjgl.input.Keyboard;
 import com.mucifex.pathfinding.internal.util.Util;
 import com.mucifex.pathfinding.internal.pathfind.main.path.PathElm;
 import com.mucifex.pathfinding.internal.pathfind.main.path.impl.TravelVector;
+import com.mucifex.pathfinding.internal.pathfind.main.processor.impl.TravelProcessor;
 import com.mucifex.pathfinding.internal.pathfind.main.walk.target.WalkTarget;
+import com.mucifex.pathfinding.internal.pathfind.main.world.PassabilityCache;
+import com.mucifex.pathfinding.internal.pathfind.main.world.PassabilitySource;
+import com.mucifex.pathfinding.internal.pathfind.main.world.WorldAccess;
 
 public class TravelVectorTarget extends WalkTarget {
+    // How far ahead of the player a step up starts the jump, about the distance a sprint jump needs to clear it
+    private static final double STEP_LOOKAHEAD = 1.0;
+    // Blocks left to the end of a flat vector below which the player stops sprint jumping, a jump carries it
+    // about 3.6 blocks and it comes down with room to stop
+    private static final double HOP_DISTANCE = 5.0;
 
     TravelVector node;
     boolean baseReached = false;
+    private final TravelProcessor headroom = new TravelProcessor();
     public TravelVectorTarget(TravelVector node) {
         this.node = node;
     }
@@ -37,19 +48,51 @@ public class TravelVectorTarget extends WalkTarget {
         double destPositionDistance = playerPos.distanceTo(dest);
         double angle = calculateAnglePredictionDest(predictedMotionOnStop, dest.subtract(playerPos));
 
+        if(node.isStepped())
+            jumpSteps(playerPos, dest);
+        else
+            sprintJump(playerPos, dest);
 
         if(((predicatedPositionDistance > destPositionDistance && angle < PREDICTED_MOTION_ANGLE) || Util.getPlayerBlockPos().equals(Util.toBlockPos(dest)))) {
             if(!baseReached) {
                 baseReached = true;
                 setCurrentTarget(node.getTo().getBlockPos());
             }
-            else
+            else {
+                WorldAccess.getPlayer().setKeyPressed(Keyboard.KEY_SPACE, false);
                 return true;
+            }
         }
 
         return false;
     }
 
+    // Holds jump while the block ahead in the direction of travel is a step up the player fits on
+    private void jumpSteps(Vec3 playerPos, Vec3 dest) {
+        double dx = dest.xCoord - playerPos.xCoord;
+        double dz = dest.zCoord - playerPos.zCoord;
+        double length = Math.sqrt(dx * dx + dz * dz);
+
+        boolean step = false;
+        if(length > 0) {
+            PassabilitySource world = PassabilityCache.getInstance();
+            int x = (int)Math.floor(playerPos.xCoord + dx / length * STEP_LOOKAHEAD);
+            int z = (int)Math.floor(playerPos.zCoord + dz / length * STEP_LOOKAHEAD);
+            int feet = (int)Math.floor(playerPos.yCoord + 0.01);
+            step = world.isSolid(x, feet, z) && !world.isSolid(x, feet + 1, z) && !world.isSolid(x, feet + 2, z);
+        }
+        WorldAccess.getPlayer().setKeyPressed(Keyboard.KEY_SPACE, step);
+    }
+
+    // Holds jump on a long flat stretch, sprint jumping covers ground about a quarter faster than sprinting
+    private void sprintJump(Vec3 playerPos, Vec3 dest) {
+        double dx = dest.xCoord - playerPos.xCoord;
+        double dz = dest.zCoord - playerPos.zCoord;
+        boolean hop = baseReached && dx * dx + dz * dz >= HOP_DISTANCE * HOP_DISTANCE
+                && headroom.hasJumpRoom(playerPos.xCoord, playerPos.zCoord, dest.xCoord, dest.zCoord, node.getTo().getY());
+        WorldAccess.getPlayer().setKeyPressed(Keyboard.KEY_SPACE, hop);
+    }
+
     public BlockPos getNodeBlockPos() {
         return node.getFrom().getBlockPos();
     }
@@ -0,0 +1,35 @@
+package com.mucifex.pathfinding.internal.pathfind.main.world;
+
+/**
+ * Where the {@link PassabilityCache} gets its blocks from, one chunk section at a time.
+ * {@link MinecraftBlockAccess} reads the client world, a {@link VoxelWorld} is an in-memory world for running
+ * the pathing stack without a game client. Swap it with {@link WorldAccess#setBlocks}.
+ */
+public interface BlockAccess {
+    /**
+     * @return the world currently read, null if there is none. The cache starts over when this changes.
+     */
+    Object getWorld();
+
+    /**
+     * Sections of columns that aren't loaded read as air and are not cached.
+     */
+    boolean isChunkLoaded(int chunkX, int chunkZ);
+
+    /**
+     * @return the section's blocks in the PassabilitySection layout (y << 8 | z << 4 | x), one bitset per
+     *         {@link BlockClassifier} flag indexed by BlockClassifier.index, null if it is all air
+     */
+    long[][] getBlockBits(int chunkX, int sectionY, int chunkZ);
+
+    /**
+     * Copies a section cheaply on the client thread for a {@link PassabilitySnapshot}, the copy is classified
+     * later on the thread reading the snapshot.
+     * @return null if the section is all air
+     */
+    SectionCopy copySection(int chunkX, int sectionY, int chunkZ);
+
+    interface SectionCopy {
+        long[][] getBlockBits();
+    }
+}
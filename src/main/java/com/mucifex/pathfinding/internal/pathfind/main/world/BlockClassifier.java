@@ -0,0 +1,168 @@
+package com.mucifex.pathfinding.internal.pathfind.main.world;
+
+import net.minecraft.block.*;
+import net.minecraft.block.material.Material;
+import net.minecraft.block.state.IBlockState;
+
+/**
+ * Passability flags for every block state, computed once and shared by all pathing code.
+ * States are keyed by their Block.BLOCK_STATE_IDS id (block id << 4 | meta), the same id chunk sections
+ * store, so a query is one getBlockState plus one array lookup.
+ */
+public class BlockClassifier {
+    // Blocks the player, the old isBlockSolid check
+    public static final int SOLID = 1;
+    // The player can stand on top of it
+    public static final int STANDABLE = 2;
+    public static final int LIQUID = 4;
+    // Ladders and vines
+    public static final int CLIMBABLE = 8;
+    // Collision box top is not a full block (slabs, stairs, fences, snow layers...)
+    public static final int PARTIAL = 16;
+    // Flags above, a section keeps one bitset per flag
+    public static final int FLAG_COUNT = 5;
+
+    // Entry has been computed, so unknown states can be classified lazily
+    private static final int CLASSIFIED = 128;
+
+    private static final int STATE_ID_COUNT = 4096 << 4;
+    private static final byte[] FLAGS = new byte[STATE_ID_COUNT];
+
+    private static boolean initialized;
+
+    /**
+     * Builds the table for every registered block state. Call after all blocks are registered.
+     */
+    public static void init() {
+        for (Block block : Block.blockRegistry) {
+            for (IBlockState state : block.getBlockState().getValidStates()) {
+                int id = Block.BLOCK_STATE_IDS.get(state);
+                if (id >= 0 && id < STATE_ID_COUNT) {
+                    FLAGS[id] = (byte) (classify(state) | CLASSIFIED);
+                }
+            }
+        }
+        initialized = true;
+    }
+
+    public static boolean isInitialized() {
+        return initialized;
+    }
+
+    /**
+     * @return the position of a single flag's bit, for tables kept per flag
+     */
+    public static int index(int flag) {
+        return Integer.numberOfTrailingZeros(flag);
+    }
+
+    /**
+     * @param stateId a Block.BLOCK_STATE_IDS id, as stored in chunk sections
+     */
+    public static int getFlags(int stateId) {
+        if (stateId < 0 || stateId >= STATE_ID_COUNT) {
+            return 0;
+        }
+        int flags = FLAGS[stateId] & 0xFF;
+        if ((flags & CLASSIFIED) == 0) {
+            IBlockState state = Block.BLOCK_STATE_IDS.getByValue(stateId);
+            if (state == null) {
+                return 0;
+            }
+            flags = classify(state) | CLASSIFIED;
+            FLAGS[stateId] = (byte) flags;
+        }
+        return flags & ~CLASSIFIED;
+    }
+
+    public static int getFlags(IBlockState state) {
+        int id = Block.BLOCK_STATE_IDS.get(state);
+        if (id < 0 || id >= STATE_ID_COUNT) {
+            // Not a registered state id, don't cache it
+            return classify(state);
+        }
+        return getFlags(id);
+    }
+
+    private static int classify(IBlockState state) {
+        Block block = state.getBlock();
+        Material material = block.getMaterial();
+
+        int flags = 0;
+        if (isSolid(block, material)) {
+            flags |= SOLID;
+            // Standing on cactus hurts, so never plan on top of it
+            if (!(block instanceof BlockCactus)) {
+                flags |= STANDABLE;
+            }
+        }
+        if (material.isLiquid()) {
+            flags |= LIQUID;
+        }
+        if (block instanceof BlockLadder || block instanceof BlockVine) {
+            flags |= CLIMBABLE;
+        }
+        if (isPartialHeight(block)) {
+            flags |= PARTIAL;
+        }
+        return flags;
+    }
+
+    private static boolean isSolid(Block blockType, Material material) {
+        // Fast path for air blocks (most common case)
+        if (material == Material.air) {
+            return false;
+        }
+
+        // Fast path for full solid blocks
+        if (material.blocksMovement() && !material.isLiquid() && blockType.isFullCube()) {
+            return true;
+        }
+
+        // For non-standard blocks, check specific types
+        return material.isSolid() ||
+               blockType instanceof BlockSlab ||
+               blockType instanceof BlockStainedGlass ||
+               blockType instanceof BlockPane ||
+               blockType instanceof BlockFence ||
+               blockType instanceof BlockPistonExtension ||
+               blockType instanceof BlockEnderChest ||
+               blockType instanceof BlockTrapDoor ||
+               blockType instanceof BlockPistonBase ||
+               blockType instanceof BlockChest ||
+               blockType instanceof BlockStairs ||
+               blockType instanceof BlockCactus ||
+               blockType instanceof BlockWall ||
+               blockType instanceof BlockGlass ||
+               blockType instanceof BlockSkull ||
+               blockType instanceof BlockSand;
+    }
+
+    private static boolean isPartialHeight(Block block) {
+        if (block instanceof BlockSlab) {
+            return !((BlockSlab) block).isDouble();
+        }
+        return block instanceof BlockStairs ||
+               block instanceof BlockSnow ||
+               block instanceof BlockCarpet ||
+               block instanceof BlockFence ||
+               block instanceof BlockFenceGate ||
+               block instanceof BlockWall ||
+               block instanceof BlockChest ||
+               block instanceof BlockEnderChest ||
+               block instanceof BlockSoulSand ||
+               block instanceof BlockSkull ||
+               block instanceof BlockTrapDoor ||
+               block instanceof BlockCactus ||
+               block instanceof BlockBed ||
+               block instanceof BlockCake ||
+               block instanceof BlockRedstoneDiode ||
+               block instanceof BlockDaylightDetector ||
+               block instanceof BlockCauldron ||
+               block instanceof BlockAnvil ||
+               block instanceof BlockBrewingStand ||
+               block instanceof BlockEndPortalFrame ||
+               block instanceof BlockLilyPad ||
+               block instanceof BlockFlowerPot;
+    }
+}
@@ -0,0 +1,114 @@
+package com.mucifex.pathfinding.internal.pathfind.main.world;
+
+import java.util.Arrays;
+
+/**
+ * Per block clearance of a chunk section, one byte per block in the section layout (y << 8 | z << 4 | x).
+ * Each byte packs the number of solid blocks directly beside the block (0-4, what the wall hugging penalty
+ * counts) and the horizontal distance to the nearest solid block on the same layer, capped at MAX_DISTANCE.
+ * Only depends on the section and its eight horizontal neighbours, so a block change only touches the
+ * fields of sections within MAX_DISTANCE of it.
+ */
+public final class ClearanceField {
+    // Furthest wall distance that is tracked, anything more open reads as MAX_DISTANCE
+    public static final int MAX_DISTANCE = 4;
+
+    private static final int WALL_BITS = 3;
+    private static final int WALL_MASK = (1 << WALL_BITS) - 1;
+
+    // No walls anywhere near, e.g. outside the build height
+    public static final int OPEN = MAX_DISTANCE << WALL_BITS;
+
+    // Solid bits used for everything outside the known world, e.g. outside a snapshot
+    static final long[] ALL_SOLID = filled();
+
+    private static final int PADDED = 16 + 2 * MAX_DISTANCE;
+
+    private ClearanceField() {
+    }
+
+    /**
+     * @return solid blocks directly beside the block, 0-4
+     */
+    public static int walls(int clearance) {
+        return clearance & WALL_MASK;
+    }
+
+    /**
+     * @return horizontal (chessboard) distance to the nearest solid block, 0 for a solid block, at most MAX_DISTANCE
+     */
+    public static int distance(int clearance) {
+        return clearance >>> WALL_BITS;
+    }
+
+    /**
+     * @param neighbourhood solid bits of the 3x3 sections around the section on the same layer,
+     *                      index (dx + 1) * 3 + (dz + 1), the section itself at 4
+     */
+    static byte[] compute(long[][] neighbourhood) {
+        byte[] field = new byte[PassabilitySection.CELLS];
+        int[] distance = new int[PADDED * PADDED];
+
+        for (int y = 0; y < 16; y++) {
+            // Chessboard distance transform of this layer over the section padded by MAX_DISTANCE on every side
+            for (int pz = 0; pz < PADDED; pz++) {
+                for (int px = 0; px < PADDED; px++) {
+                    distance[pz * PADDED + px] = isSolid(neighbourhood, px - MAX_DISTANCE, y, pz - MAX_DISTANCE) ? 0 : MAX_DISTANCE;
+                }
+            }
+            for (int pz = 0; pz < PADDED; pz++) {
+                for (int px = 0; px < PADDED; px++) {
+                    int i = pz * PADDED + px;
+                    int d = distance[i];
+                    if (px > 0) d = Math.min(d, distance[i - 1] + 1);
+                    if (pz > 0) {
+                        d = Math.min(d, distance[i - PADDED] + 1);
+                        if (px > 0) d = Math.min(d, distance[i - PADDED - 1] + 1);
+                        if (px < PADDED - 1) d = Math.min(d, distance[i - PADDED + 1] + 1);
+                    }
+                    distance[i] = d;
+                }
+            }
+            for (int pz = PADDED - 1; pz >= 0; pz--) {
+                for (int px = PADDED - 1; px >= 0; px--) {
+                    int i = pz * PADDED + px;
+                    int d = distance[i];
+                    if (px < PADDED - 1) d = Math.min(d, distance[i + 1] + 1);
+                    if (pz < PADDED - 1) {
+                        d = Math.min(d, distance[i + PADDED] + 1);
+                        if (px < PADDED - 1) d = Math.min(d, distance[i + PADDED + 1] + 1);
+                        if (px > 0) d = Math.min(d, distance[i + PADDED - 1] + 1);
+                    }
+                    distance[i] = d;
+                }
+            }
+
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    int walls = 0;
+                    if (isSolid(neighbourhood, x + 1, y, z)) walls++;
+                    if (isSolid(neighbourhood, x - 1, y, z)) walls++;
+                    if (isSolid(neighbourhood, x, y, z + 1)) walls++;
+                    if (isSolid(neighbourhood, x, y, z - 1)) walls++;
+
+                    int d = distance[(z + MAX_DISTANCE) * PADDED + x + MAX_DISTANCE];
+                    field[(y << 8) | (z << 4) | x] = (byte) ((d << WALL_BITS) | walls);
+                }
+            }
+        }
+        return field;
+    }
+
+    // x and z relative to the centre section, may reach into the neighbouring sections
+    private static boolean isSolid(long[][] neighbourhood, int x, int y, int z) {
+        long[] solid = neighbourhood[((x >> 4) + 1) * 3 + (z >> 4) + 1];
+        int bit = (y << 8) | ((z & 15) << 4) | (x & 15);
+        return (solid[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    private static long[] filled() {
+        long[] bits = new long[PassabilitySection.WORDS];
+        Arrays.fill(bits, -1L);
+        return bits;
+    }
+}
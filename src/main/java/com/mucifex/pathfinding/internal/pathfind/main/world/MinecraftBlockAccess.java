@@ -0,0 +1,51 @@
+package com.mucifex.pathfinding.internal.pathfind.main.world;
+
+import net.minecraft.client.Minecraft;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+
+/**
+ * Blocks of the client world, classified from the raw chunk section data with the {@link BlockClassifier}.
+ */
+public class MinecraftBlockAccess implements BlockAccess {
+    @Override
+    public World getWorld() {
+        return Minecraft.getMinecraft().theWorld;
+    }
+
+    @Override
+    public boolean isChunkLoaded(int chunkX, int chunkZ) {
+        World world = getWorld();
+        if (world == null) {
+            return false;
+        }
+        Chunk chunk = world.getChunkFromChunkCoords(chunkX, chunkZ);
+        return chunk != null && !chunk.isEmpty();
+    }
+
+    @Override
+    public long[][] getBlockBits(int chunkX, int sectionY, int chunkZ) {
+        char[] data = getData(chunkX, sectionY, chunkZ);
+        return data == null ? null : PassabilitySection.blockBits(data);
+    }
+
+    @Override
+    public SectionCopy copySection(int chunkX, int sectionY, int chunkZ) {
+        char[] data = getData(chunkX, sectionY, chunkZ);
+        if (data == null) {
+            return null;
+        }
+        // Only the copy of the raw state ids is made here, classifying is left to the reader
+        char[] copy = data.clone();
+        return () -> PassabilitySection.blockBits(copy);
+    }
+
+    private char[] getData(int chunkX, int sectionY, int chunkZ) {
+        if (!isChunkLoaded(chunkX, chunkZ)) {
+            return null;
+        }
+        ExtendedBlockStorage storage = getWorld().getChunkFromChunkCoords(chunkX, chunkZ).getBlockStorageArray()[sectionY];
+        return storage == null ? null : storage.getData();
+    }
+}
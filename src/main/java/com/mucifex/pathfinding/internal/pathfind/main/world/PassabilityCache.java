@@ -0,0 +1,420 @@
+package com.mucifex.pathfinding.internal.pathfind.main.world;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.util.BlockPos;
+import net.minecraft.world.IWorldAccess;
+import net.minecraft.world.World;
+import net.minecraftforge.event.world.ChunkEvent;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Client side cache of passability bits for 16x16x16 chunk sections, built lazily from the loaded chunks
+ * of the current {@link BlockAccess}.
+ * Each section keeps a bitset per {@link BlockClassifier} flag and the floor (standable block below) and headroom
+ * (no solid block above) they make, so the pathing checks become bit tests instead of world lookups.
+ * Sections are dropped when a block in or next to them changes and when their chunk unloads.
+ * Only touch this from the client thread, other threads read a {@link #snapshot} instead.
+ */
+public class PassabilityCache implements PassabilitySource, IWorldAccess {
+    private static PassabilityCache instance;
+
+    /**
+     * Told about every block range the cache drops, so a search kept alive over the cache can repair itself.
+     */
+    public interface ChangeListener {
+        void onBlocksChanged(int minX, int minY, int minZ, int maxX, int maxY, int maxZ);
+    }
+
+    private final Map<Long, PassabilitySection> sections = new HashMap<>();
+    // Built on first use, dropped with the section or when a block change nearby can affect it
+    private final Map<Long, byte[]> clearance = new HashMap<>();
+    // Bumped every time a section is invalidated, survives the section being dropped
+    private final Map<Long, Integer> versions = new HashMap<>();
+    private final List<ChangeListener> changeListeners = new ArrayList<>();
+
+    // The BlockAccess world the cached sections belong to
+    private Object world;
+    private final VoxelWorld.Listener voxelListener = this::invalidate;
+    private PassabilitySection lastSection;
+    private long lastKey;
+    private byte[] lastClearance;
+    private long lastClearanceKey;
+
+    public PassabilityCache() {
+        instance = this;
+    }
+
+    public static PassabilityCache getInstance() {
+        if (instance == null) {
+            instance = new PassabilityCache();
+        }
+        return instance;
+    }
+
+    public void addChangeListener(ChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    public void removeChangeListener(ChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    public boolean isSolid(BlockPos pos) {
+        return isSolid(pos.getX(), pos.getY(), pos.getZ());
+    }
+
+    @Override
+    public int getCell(int x, int y, int z) {
+        if (y < 0 || y > 255) {
+            // Outside the world is air, only the layer right above the build limit can have a floor
+            return y == 256 ? getSection(x >> 4, 15, z >> 4).getCellAbove(x, z) : CELL_HEADROOM;
+        }
+
+        return getSection(x >> 4, y >> 4, z >> 4).getCell(x, y, z);
+    }
+
+    @Override
+    public int getClearance(int x, int y, int z) {
+        if (y < 0 || y > 255) {
+            return ClearanceField.OPEN;
+        }
+
+        long key = sectionKey(x >> 4, y >> 4, z >> 4);
+        byte[] field = lastClearance != null && lastClearanceKey == key ? lastClearance : clearance.get(key);
+        if (field == null) {
+            field = buildClearance(x >> 4, y >> 4, z >> 4);
+            clearance.put(key, field);
+        }
+        lastClearance = field;
+        lastClearanceKey = key;
+        return field[((y & 15) << 8) | ((z & 15) << 4) | (x & 15)] & 0xFF;
+    }
+
+    /**
+     * @return a counter that changes every time the section holding the block is invalidated
+     */
+    public int getSectionVersion(int x, int y, int z) {
+        Integer version = versions.get(sectionKey(x >> 4, y >> 4, z >> 4));
+        return version == null ? 0 : version;
+    }
+
+    /**
+     * Captures the chunk columns around the two positions, widened by margin blocks, for reading on another thread.
+     * Sections already cached are shared, the others get their block data copied and are built by the reader.
+     */
+    public PassabilitySnapshot snapshot(BlockPos from, BlockPos to, int margin) {
+        checkWorld();
+        int minChunkX = (Math.min(from.getX(), to.getX()) - margin) >> 4;
+        int minChunkZ = (Math.min(from.getZ(), to.getZ()) - margin) >> 4;
+        int maxChunkX = (Math.max(from.getX(), to.getX()) + margin) >> 4;
+        int maxChunkZ = (Math.max(from.getZ(), to.getZ()) + margin) >> 4;
+
+        PassabilitySnapshot snapshot = new PassabilitySnapshot(minChunkX, minChunkZ, maxChunkX, maxChunkZ);
+        if (world == null) {
+            return snapshot;
+        }
+
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                capture(snapshot, chunkX, chunkZ, 0, 15);
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * The same box as an earlier snapshot with the sections holding the blocks in the range, and the ones next to
+     * them above and below, captured again. Everything else is shared with the earlier snapshot, which must not be
+     * read by another thread any more.
+     */
+    public PassabilitySnapshot refresh(PassabilitySnapshot last, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        checkWorld();
+        PassabilitySnapshot snapshot = last.fork();
+        if (world == null) {
+            return snapshot;
+        }
+
+        // A block is the floor of the one above it and takes the headroom of the one below
+        int minSectionY = Math.max(0, (minY - 1) >> 4);
+        int maxSectionY = Math.min(15, (maxY + 1) >> 4);
+        for (int chunkX = minX >> 4; chunkX <= maxX >> 4; chunkX++) {
+            for (int chunkZ = minZ >> 4; chunkZ <= maxZ >> 4; chunkZ++) {
+                if (!snapshot.containsChunk(chunkX, chunkZ)) {
+                    continue;
+                }
+                capture(snapshot, chunkX, chunkZ, minSectionY, maxSectionY);
+                for (int sectionY = minSectionY; sectionY <= maxSectionY; sectionY++) {
+                    snapshot.dropClearance(chunkX, sectionY, chunkZ);
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    // Cached sections are shared, the others get their block data copied
+    private void capture(PassabilitySnapshot snapshot, int chunkX, int chunkZ, int minSectionY, int maxSectionY) {
+        BlockAccess blocks = WorldAccess.getBlocks();
+        if (!blocks.isChunkLoaded(chunkX, chunkZ)) {
+            for (int sectionY = minSectionY; sectionY <= maxSectionY; sectionY++) {
+                snapshot.putSection(chunkX, sectionY, chunkZ, PassabilitySection.EMPTY);
+            }
+            return;
+        }
+
+        for (int sectionY = minSectionY; sectionY <= maxSectionY; sectionY++) {
+            PassabilitySection cached = sections.get(sectionKey(chunkX, sectionY, chunkZ));
+            if (cached != null) {
+                snapshot.putSection(chunkX, sectionY, chunkZ, cached);
+            } else {
+                snapshot.putCopy(chunkX, sectionY, chunkZ, blocks.copySection(chunkX, sectionY, chunkZ));
+            }
+        }
+    }
+
+    public void invalidate(int x, int y, int z) {
+        invalidateSection(x >> 4, y >> 4, z >> 4);
+
+        // Clearance reaches MAX_DISTANCE blocks sideways, only neighbours that close to the block need rebuilding
+        int reach = ClearanceField.MAX_DISTANCE;
+        for (int sectionX = (x - reach) >> 4; sectionX <= (x + reach) >> 4; sectionX++) {
+            for (int sectionZ = (z - reach) >> 4; sectionZ <= (z + reach) >> 4; sectionZ++) {
+                invalidateClearance(sectionX, y >> 4, sectionZ);
+            }
+        }
+
+        // Floor and headroom bits on the section edges depend on the neighbouring sections
+        if ((y & 15) == 0) {
+            invalidateSection(x >> 4, (y >> 4) - 1, z >> 4);
+        } else if ((y & 15) == 15) {
+            invalidateSection(x >> 4, (y >> 4) + 1, z >> 4);
+        }
+        notifyChanged(x, y, z, x, y, z);
+    }
+
+    public void invalidateChunk(int chunkX, int chunkZ) {
+        for (int sectionY = 0; sectionY < 16; sectionY++) {
+            invalidateSection(chunkX, sectionY, chunkZ);
+            invalidateNeighbourClearance(chunkX, sectionY, chunkZ);
+        }
+        notifyChanged(chunkX << 4, 0, chunkZ << 4, (chunkX << 4) + 15, 255, (chunkZ << 4) + 15);
+    }
+
+    public void clear() {
+        sections.clear();
+        clearance.clear();
+        versions.clear();
+        lastSection = null;
+        lastClearance = null;
+    }
+
+    public int getCachedSectionCount() {
+        return sections.size();
+    }
+
+    private void notifyChanged(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        for (ChangeListener listener : new ArrayList<>(changeListeners)) {
+            listener.onBlocksChanged(minX, minY, minZ, maxX, maxY, maxZ);
+        }
+    }
+
+    private void invalidateSection(int sectionX, int sectionY, int sectionZ) {
+        if (sectionY < 0 || sectionY > 15) {
+            return;
+        }
+        long key = sectionKey(sectionX, sectionY, sectionZ);
+        sections.remove(key);
+        versions.merge(key, 1, Integer::sum);
+        if (lastSection != null && lastKey == key) {
+            lastSection = null;
+        }
+        invalidateClearance(sectionX, sectionY, sectionZ);
+    }
+
+    private void invalidateClearance(int sectionX, int sectionY, int sectionZ) {
+        if (sectionY < 0 || sectionY > 15) {
+            return;
+        }
+        long key = sectionKey(sectionX, sectionY, sectionZ);
+        clearance.remove(key);
+        if (lastClearance != null && lastClearanceKey == key) {
+            lastClearance = null;
+        }
+    }
+
+    private void invalidateNeighbourClearance(int sectionX, int sectionY, int sectionZ) {
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                invalidateClearance(sectionX + dx, sectionY, sectionZ + dz);
+            }
+        }
+    }
+
+    private byte[] buildClearance(int sectionX, int sectionY, int sectionZ) {
+        long[][] neighbourhood = new long[9][];
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                neighbourhood[(dx + 1) * 3 + dz + 1] = getSection(sectionX + dx, sectionY, sectionZ + dz).solid;
+            }
+        }
+        return ClearanceField.compute(neighbourhood);
+    }
+
+    private PassabilitySection getSection(int sectionX, int sectionY, int sectionZ) {
+        long key = sectionKey(sectionX, sectionY, sectionZ);
+        checkWorld();
+        if (lastSection != null && lastKey == key) {
+            return lastSection;
+        }
+
+        PassabilitySection section = sections.get(key);
+        if (section == null) {
+            BlockAccess blocks = WorldAccess.getBlocks();
+            if (!blocks.isChunkLoaded(sectionX, sectionZ)) {
+                // Not loaded, reads as air like the world does. Not cached so it is built once the chunk arrives.
+                return PassabilitySection.EMPTY;
+            }
+            section = buildSection(blocks, sectionX, sectionY, sectionZ);
+            sections.put(key, section);
+        }
+
+        lastSection = section;
+        lastKey = key;
+        return section;
+    }
+
+    private PassabilitySection buildSection(BlockAccess blocks, int sectionX, int sectionY, int sectionZ) {
+        return PassabilitySection.build(blockBits(blocks, sectionX, sectionY, sectionZ),
+                neighbourBlockBits(blocks, sectionX, sectionY - 1, sectionZ),
+                neighbourBlockBits(blocks, sectionX, sectionY + 1, sectionZ));
+    }
+
+    // Reuses the bits of an already cached section instead of classifying it again
+    private long[][] neighbourBlockBits(BlockAccess blocks, int sectionX, int sectionY, int sectionZ) {
+        if (sectionY < 0 || sectionY > 15) {
+            return PassabilitySection.EMPTY.blocks;
+        }
+        PassabilitySection cached = sections.get(sectionKey(sectionX, sectionY, sectionZ));
+        return cached != null ? cached.blocks : blockBits(blocks, sectionX, sectionY, sectionZ);
+    }
+
+    private static long[][] blockBits(BlockAccess blocks, int sectionX, int sectionY, int sectionZ) {
+        long[][] bits = blocks.getBlockBits(sectionX, sectionY, sectionZ);
+        return bits != null ? bits : PassabilitySection.EMPTY.blocks;
+    }
+
+    private static long sectionKey(int sectionX, int sectionY, int sectionZ) {
+        return ((long) (sectionX & 0x3FFFFFF) << 30) | ((long) (sectionZ & 0x3FFFFFF) << 4) | (sectionY & 15);
+    }
+
+    // Attaches to the current world of the BlockAccess, dropping everything cached for a previous one
+    private void checkWorld() {
+        Object current = WorldAccess.getBlocks().getWorld();
+        if (current != world) {
+            detach();
+            clear();
+            world = current;
+            if (world instanceof World) {
+                ((World) world).addWorldAccess(this);
+            } else if (world instanceof VoxelWorld) {
+                ((VoxelWorld) world).addListener(voxelListener);
+            }
+        }
+    }
+
+    private void detach() {
+        if (world instanceof World) {
+            ((World) world).removeWorldAccess(this);
+        } else if (world instanceof VoxelWorld) {
+            ((VoxelWorld) world).removeListener(voxelListener);
+        }
+    }
+
+    @SubscribeEvent
+    public void onWorldUnload(WorldEvent.Unload event) {
+        if (event.world == world) {
+            detach();
+            world = null;
+            clear();
+        }
+    }
+
+    @SubscribeEvent
+    public void onChunkLoad(ChunkEvent.Load event) {
+        if (event.world == world) {
+            invalidateChunk(event.getChunk().xPosition, event.getChunk().zPosition);
+        }
+    }
+
+    @SubscribeEvent
+    public void onChunkUnload(ChunkEvent.Unload event) {
+        if (event.world == world) {
+            invalidateChunk(event.getChunk().xPosition, event.getChunk().zPosition);
+        }
+    }
+
+    @Override
+    public void markBlockForUpdate(BlockPos pos) {
+        invalidate(pos.getX(), pos.getY(), pos.getZ());
+    }
+
+    @Override
+    public void markBlockRangeForRenderUpdate(int x1, int y1, int z1, int x2, int y2, int z2) {
+        // Widen by one block so the floor/headroom bits of neighbouring sections are refreshed too
+        for (int sectionX = (x1 - 1) >> 4; sectionX <= (x2 + 1) >> 4; sectionX++) {
+            for (int sectionZ = (z1 - 1) >> 4; sectionZ <= (z2 + 1) >> 4; sectionZ++) {
+                for (int sectionY = (y1 - 1) >> 4; sectionY <= (y2 + 1) >> 4; sectionY++) {
+                    invalidateSection(sectionX, sectionY, sectionZ);
+                    invalidateNeighbourClearance(sectionX, sectionY, sectionZ);
+                }
+            }
+        }
+        notifyChanged(x1, y1, z1, x2, y2, z2);
+    }
+
+    @Override
+    public void notifyLightSet(BlockPos pos) {
+    }
+
+    @Override
+    public void playSound(String soundName, double x, double y, double z, float volume, float pitch) {
+    }
+
+    @Override
+    public void playSoundToNearExcept(EntityPlayer except, String soundName, double x, double y, double z, float volume, float pitch) {
+    }
+
+    @Override
+    public void spawnParticle(int particleID, boolean ignoreRange, double xCoord, double yCoord, double zCoord, double xOffset, double yOffset, double zOffset, int... parameters) {
+    }
+
+    @Override
+    public void onEntityAdded(Entity entityIn) {
+    }
+
+    @Override
+    public void onEntityRemoved(Entity entityIn) {
+    }
+
+    @Override
+    public void playRecord(String recordName, BlockPos blockPosIn) {
+    }
+
+    @Override
+    public void broadcastSound(int soundID, BlockPos pos, int data) {
+    }
+
+    @Override
+    public void playAuxSFX(EntityPlayer player, int sfxType, BlockPos blockPosIn, int data) {
+    }
+
+    @Override
+    public void sendBlockBreakProgress(int breakerId, BlockPos pos, int progress) {
+    }
+}
@@ -0,0 +1,140 @@
+package com.mucifex.pathfinding.internal.pathfind.main.world;
+
+import java.util.Arrays;
+
+/**
+ * Bitsets of one 16x16x16 chunk section, bit index y << 8 | z << 4 | x: one per {@link BlockClassifier} flag of the
+ * blocks themselves, and the floor and headroom they make for the player.
+ * Never modified once built, so the cache and snapshots can share instances across threads.
+ */
+final class PassabilitySection {
+    static final int CELLS = 16 * 16 * 16;
+    static final int WORDS = CELLS / 64;
+    private static final int LAYER_WORDS = 256 / 64;
+
+    private static final int SOLID = BlockClassifier.index(BlockClassifier.SOLID);
+    private static final int STANDABLE = BlockClassifier.index(BlockClassifier.STANDABLE);
+    private static final int LIQUID = BlockClassifier.index(BlockClassifier.LIQUID);
+    private static final int CLIMBABLE = BlockClassifier.index(BlockClassifier.CLIMBABLE);
+    private static final int PARTIAL = BlockClassifier.index(BlockClassifier.PARTIAL);
+
+    // Shared by every flag no block of a section has, most sections hold no liquid, ladders or partial blocks
+    private static final long[] NONE = new long[WORDS];
+
+    // All air, headroom everywhere and no floor
+    static final PassabilitySection EMPTY = build(noBlocks(), noBlocks(), noBlocks());
+
+    // Indexed by BlockClassifier.index of the flag
+    final long[][] blocks;
+    final long[] solid;
+    // Standable layer below
+    final long[] floor;
+    // Standable partial height layer below, the player stands lower than the block's bottom
+    final long[] partialFloor;
+    final long[] headroom;
+
+    private PassabilitySection(long[][] blocks, long[] floor, long[] partialFloor, long[] headroom) {
+        this.blocks = blocks;
+        this.solid = blocks[SOLID];
+        this.floor = floor;
+        this.partialFloor = partialFloor;
+        this.headroom = headroom;
+    }
+
+    int getCell(int x, int y, int z) {
+        int bit = ((y & 15) << 8) | ((z & 15) << 4) | (x & 15);
+        int word = bit >>> 6;
+        long mask = 1L << bit;
+
+        int cell = 0;
+        if ((solid[word] & mask) != 0) cell |= PassabilitySource.CELL_SOLID;
+        if ((floor[word] & mask) != 0) cell |= PassabilitySource.CELL_FLOOR;
+        if ((headroom[word] & mask) != 0) cell |= PassabilitySource.CELL_HEADROOM;
+        if ((blocks[LIQUID][word] & mask) != 0) cell |= PassabilitySource.CELL_LIQUID;
+        if ((blocks[CLIMBABLE][word] & mask) != 0) cell |= PassabilitySource.CELL_CLIMBABLE;
+        if ((partialFloor[word] & mask) != 0) cell |= PassabilitySource.CELL_PARTIAL_FLOOR;
+        return cell;
+    }
+
+    /**
+     * The cell above the section's top layer, for the one layer above the build limit.
+     */
+    int getCellAbove(int x, int z) {
+        int bit = (15 << 8) | ((z & 15) << 4) | (x & 15);
+        int word = bit >>> 6;
+        long mask = 1L << bit;
+
+        int cell = PassabilitySource.CELL_HEADROOM;
+        if ((blocks[STANDABLE][word] & mask) != 0) cell |= PassabilitySource.CELL_FLOOR;
+        if ((blocks[STANDABLE][word] & blocks[PARTIAL][word] & mask) != 0) cell |= PassabilitySource.CELL_PARTIAL_FLOOR;
+        return cell;
+    }
+
+    /**
+     * @param blocks the section's own bitsets per flag
+     * @param below bitsets of the section below, for the floor of the bottom layer
+     * @param above bitsets of the section above, for the headroom of the top layer
+     */
+    static PassabilitySection build(long[][] blocks, long[][] below, long[][] above) {
+        long[] standable = blocks[STANDABLE], partial = blocks[PARTIAL], solid = blocks[SOLID];
+        long[] belowStandable = below[STANDABLE], belowPartial = below[PARTIAL], aboveSolid = above[SOLID];
+        long[] floor = new long[WORDS];
+        long[] partialFloor = new long[WORDS];
+        long[] headroom = new long[WORDS];
+
+        // Floor of layer y is the standable layer y - 1, headroom of layer y is the non-solid layer y + 1
+        for (int i = 0; i < WORDS; i++) {
+            floor[i] = i >= LAYER_WORDS ? standable[i - LAYER_WORDS] : belowStandable[WORDS - LAYER_WORDS + i];
+            long partialBelow = i >= LAYER_WORDS ? partial[i - LAYER_WORDS] : belowPartial[WORDS - LAYER_WORDS + i];
+            partialFloor[i] = floor[i] & partialBelow;
+            headroom[i] = ~(i < WORDS - LAYER_WORDS ? solid[i + LAYER_WORDS] : aboveSolid[i - (WORDS - LAYER_WORDS)]);
+        }
+        return new PassabilitySection(blocks, floor, shareNone(partialFloor), headroom);
+    }
+
+    /**
+     * Classifies a section's blocks in one pass.
+     * @param data block state ids of a section in its storage layout (y << 8 | z << 4 | x)
+     * @return one bitset per flag, indexed by BlockClassifier.index
+     */
+    static long[][] blockBits(char[] data) {
+        long[][] bits = new long[BlockClassifier.FLAG_COUNT][WORDS];
+        for (int i = 0; i < CELLS; i++) {
+            int flags = BlockClassifier.getFlags(data[i]);
+            while (flags != 0) {
+                int flag = Integer.numberOfTrailingZeros(flags);
+                bits[flag][i >>> 6] |= 1L << i;
+                flags &= flags - 1;
+            }
+        }
+        for (int flag = 0; flag < bits.length; flag++) {
+            bits[flag] = shareNone(bits[flag]);
+        }
+        return bits;
+    }
+
+    /**
+     * The bitsets of a section of full blocks, every solid one standable and nothing else, like the headless worlds.
+     */
+    static long[][] fullBlocks(long[] solid) {
+        long[][] bits = noBlocks();
+        bits[SOLID] = solid;
+        bits[STANDABLE] = solid;
+        return bits;
+    }
+
+    static long[][] noBlocks() {
+        long[][] bits = new long[BlockClassifier.FLAG_COUNT][];
+        Arrays.fill(bits, NONE);
+        return bits;
+    }
+
+    private static long[] shareNone(long[] bits) {
+        for (long word : bits) {
+            if (word != 0) {
+                return bits;
+            }
+        }
+        return NONE;
+    }
+}
@@ -0,0 +1,208 @@
+package com.mucifex.pathfinding.internal.pathfind.main.world;
+
+/**
+ * Frozen copy of the passability of a box of chunk columns, taken on the client thread by
+ * {@link PassabilityCache#snapshot} so a search can run on another thread.
+ * Everything outside the box reads as solid, which keeps the search inside the captured area.
+ * Sections are built lazily by the reading thread, so a snapshot must only be read by one thread at a time.
+ * A {@link Builder} makes one straight from solid blocks, which lets the search run without a game client.
+ */
+public final class PassabilitySnapshot implements PassabilitySource {
+    private final int minChunkX;
+    private final int minChunkZ;
+    private final int chunksX;
+    private final int chunksZ;
+
+    // 16 slots per chunk column, a slot is either a built section or the copied blocks to build it from
+    private final PassabilitySection[] sections;
+    private final BlockAccess.SectionCopy[] copies;
+    private final byte[][] clearance;
+
+    PassabilitySnapshot(int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ) {
+        this.minChunkX = minChunkX;
+        this.minChunkZ = minChunkZ;
+        this.chunksX = maxChunkX - minChunkX + 1;
+        this.chunksZ = maxChunkZ - minChunkZ + 1;
+        this.sections = new PassabilitySection[chunksX * chunksZ * 16];
+        this.copies = new BlockAccess.SectionCopy[sections.length];
+        this.clearance = new byte[sections.length][];
+    }
+
+    /**
+     * Another view of the same blocks for another thread. It starts with the sections built so far and builds the
+     * rest on its own, so a search can spread over several threads with one view each.
+     * Must be called by the thread reading this snapshot, before the view is handed over.
+     */
+    public PassabilitySnapshot fork() {
+        PassabilitySnapshot view = new PassabilitySnapshot(minChunkX, minChunkZ, minChunkX + chunksX - 1, minChunkZ + chunksZ - 1);
+        System.arraycopy(sections, 0, view.sections, 0, sections.length);
+        System.arraycopy(copies, 0, view.copies, 0, copies.length);
+        System.arraycopy(clearance, 0, view.clearance, 0, clearance.length);
+        return view;
+    }
+
+    void putSection(int chunkX, int sectionY, int chunkZ, PassabilitySection section) {
+        int slot = slot(chunkX - minChunkX, sectionY, chunkZ - minChunkZ);
+        sections[slot] = section;
+        copies[slot] = null;
+    }
+
+    void putCopy(int chunkX, int sectionY, int chunkZ, BlockAccess.SectionCopy copy) {
+        int slot = slot(chunkX - minChunkX, sectionY, chunkZ - minChunkZ);
+        copies[slot] = copy;
+        sections[slot] = null;
+    }
+
+    // Clearance of a section reads the solid blocks of the sections around it
+    void dropClearance(int chunkX, int sectionY, int chunkZ) {
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                int x = chunkX - minChunkX + dx;
+                int z = chunkZ - minChunkZ + dz;
+                if (x >= 0 && z >= 0 && x < chunksX && z < chunksZ) {
+                    clearance[slot(x, sectionY, z)] = null;
+                }
+            }
+        }
+    }
+
+    boolean containsChunk(int chunkX, int chunkZ) {
+        return contains(chunkX << 4, chunkZ << 4);
+    }
+
+    public boolean contains(int x, int z) {
+        int chunkX = (x >> 4) - minChunkX;
+        int chunkZ = (z >> 4) - minChunkZ;
+        return chunkX >= 0 && chunkZ >= 0 && chunkX < chunksX && chunkZ < chunksZ;
+    }
+
+    @Override
+    public int getCell(int x, int y, int z) {
+        if (!contains(x, z)) {
+            return CELL_SOLID;
+        }
+        if (y < 0 || y > 255) {
+            // Same as the live cache, only the layer right above the build limit can have a floor
+            return y == 256 ? getSection(slot((x >> 4) - minChunkX, 15, (z >> 4) - minChunkZ)).getCellAbove(x, z) : CELL_HEADROOM;
+        }
+        return getSection(slot((x >> 4) - minChunkX, y >> 4, (z >> 4) - minChunkZ)).getCell(x, y, z);
+    }
+
+    @Override
+    public int getClearance(int x, int y, int z) {
+        if (!contains(x, z)) {
+            return 0;
+        }
+        if (y < 0 || y > 255) {
+            return ClearanceField.OPEN;
+        }
+
+        int chunkX = (x >> 4) - minChunkX;
+        int chunkZ = (z >> 4) - minChunkZ;
+        int slot = slot(chunkX, y >> 4, chunkZ);
+        byte[] field = clearance[slot];
+        if (field == null) {
+            // Sections outside the box are solid, same as getCell
+            long[][] neighbourhood = new long[9][];
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dz = -1; dz <= 1; dz++) {
+                    int nx = chunkX + dx;
+                    int nz = chunkZ + dz;
+                    boolean inside = nx >= 0 && nz >= 0 && nx < chunksX && nz < chunksZ;
+                    neighbourhood[(dx + 1) * 3 + dz + 1] = inside ? getSection(slot(nx, y >> 4, nz)).solid : ClearanceField.ALL_SOLID;
+                }
+            }
+            field = ClearanceField.compute(neighbourhood);
+            clearance[slot] = field;
+        }
+        return field[((y & 15) << 8) | ((z & 15) << 4) | (x & 15)] & 0xFF;
+    }
+
+    private PassabilitySection getSection(int slot) {
+        PassabilitySection section = sections[slot];
+        if (section == null) {
+            int sectionY = slot & 15;
+            section = PassabilitySection.build(copiedBlockBits(slot),
+                    sectionY > 0 ? blockBits(slot - 1) : PassabilitySection.EMPTY.blocks,
+                    sectionY < 15 ? blockBits(slot + 1) : PassabilitySection.EMPTY.blocks);
+            sections[slot] = section;
+            copies[slot] = null;
+        }
+        return section;
+    }
+
+    private long[][] blockBits(int slot) {
+        PassabilitySection section = sections[slot];
+        return section != null ? section.blocks : copiedBlockBits(slot);
+    }
+
+    private long[][] copiedBlockBits(int slot) {
+        BlockAccess.SectionCopy copy = copies[slot];
+        return copy != null ? copy.getBlockBits() : PassabilitySection.EMPTY.blocks;
+    }
+
+    private int slot(int chunkX, int sectionY, int chunkZ) {
+        return ((chunkX * chunksZ + chunkZ) << 4) | sectionY;
+    }
+
+    public static Builder builder(int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ) {
+        return new Builder(minChunkX, minChunkZ, maxChunkX, maxChunkZ);
+    }
+
+    /**
+     * Headless world: collects solid blocks and bakes them into a snapshot without going through chunks
+     * or the block registry. Everything not set is air.
+     */
+    public static final class Builder {
+        private final PassabilitySnapshot snapshot;
+        private final long[][] solid;
+
+        private Builder(int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ) {
+            snapshot = new PassabilitySnapshot(minChunkX, minChunkZ, maxChunkX, maxChunkZ);
+            solid = new long[snapshot.sections.length][];
+        }
+
+        public Builder setSolid(int x, int y, int z, boolean isSolid) {
+            if (!snapshot.contains(x, z) || y < 0 || y > 255) {
+                throw new IllegalArgumentException("Block outside the snapshot: " + x + ", " + y + ", " + z);
+            }
+            int slot = snapshot.slot((x >> 4) - snapshot.minChunkX, y >> 4, (z >> 4) - snapshot.minChunkZ);
+            if (solid[slot] == null) {
+                solid[slot] = new long[PassabilitySection.WORDS];
+            }
+            int bit = ((y & 15) << 8) | ((z & 15) << 4) | (x & 15);
+            if (isSolid) {
+                solid[slot][bit >>> 6] |= 1L << bit;
+            } else {
+                solid[slot][bit >>> 6] &= ~(1L << bit);
+            }
+            return this;
+        }
+
+        public Builder fill(int x1, int y1, int z1, int x2, int y2, int z2, boolean isSolid) {
+            for (int x = Math.min(x1, x2); x <= Math.max(x1, x2); x++) {
+                for (int y = Math.min(y1, y2); y <= Math.max(y1, y2); y++) {
+                    for (int z = Math.min(z1, z2); z <= Math.max(z1, z2); z++) {
+                        setSolid(x, y, z, isSolid);
+                    }
+                }
+            }
+            return this;
+        }
+
+        public PassabilitySnapshot build() {
+            for (int slot = 0; slot < solid.length; slot++) {
+                int sectionY = slot & 15;
+                // Headless blocks are full blocks, every solid one can be stood on
+                snapshot.sections[slot] = PassabilitySection.build(blocksOf(slot),
+                        sectionY > 0 ? blocksOf(slot - 1) : PassabilitySection.EMPTY.blocks,
+                        sectionY < 15 ? blocksOf(slot + 1) : PassabilitySection.EMPTY.blocks);
+            }
+            return snapshot;
+        }
+
+        private long[][] blocksOf(int slot) {
+            return solid[slot] != null ? PassabilitySection.fullBlocks(solid[slot]) : PassabilitySection.EMPTY.blocks;
+        }
+    }
+}
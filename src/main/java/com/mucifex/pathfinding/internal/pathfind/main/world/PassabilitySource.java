@@ -0,0 +1,43 @@
+package com.mucifex.pathfinding.internal.pathfind.main.world;
+
+/**
+ * Read-only view of the passability bits the search works on.
+ * The live {@link PassabilityCache} is the client thread view, a {@link PassabilitySnapshot} can be
+ * handed to a worker thread.
+ */
+public interface PassabilitySource {
+    int CELL_SOLID = 1;
+    // Block right below the player can stand on
+    int CELL_FLOOR = 2;
+    // No solid block right above
+    int CELL_HEADROOM = 4;
+    // The block itself is water or lava, the player swims there
+    int CELL_LIQUID = 8;
+    // The block itself is a ladder or vine, the player climbs walking into it
+    int CELL_CLIMBABLE = 16;
+    // The block below is lower than a full block (slabs, stairs, snow...), the player stands below the block's
+    // bottom and a step up from it is more than a block
+    int CELL_PARTIAL_FLOOR = 32;
+
+    /**
+     * @return the CELL_ bits of the block
+     */
+    int getCell(int x, int y, int z);
+
+    /**
+     * @return the packed {@link ClearanceField} byte of the block, read with ClearanceField.walls and distance
+     */
+    int getClearance(int x, int y, int z);
+
+    default boolean isSolid(int x, int y, int z) {
+        return (getCell(x, y, z) & CELL_SOLID) != 0;
+    }
+
+    default boolean hasFloor(int x, int y, int z) {
+        return (getCell(x, y, z) & CELL_FLOOR) != 0;
+    }
+
+    default boolean hasHeadroom(int x, int y, int z) {
+        return (getCell(x, y, z) & CELL_HEADROOM) != 0;
+    }
+}
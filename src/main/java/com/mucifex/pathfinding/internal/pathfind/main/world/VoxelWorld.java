@@ -0,0 +1,288 @@
+package com.mucifex.pathfinding.internal.pathfind.main.world;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory world of solid and air blocks over a box of chunk columns, for running the pathing stack
+ * without a game client. Columns outside the box read as not loaded. Install it with
+ * {@link WorldAccess#setBlocks}, block changes are passed on to the PassabilityCache like world updates.
+ *
+ * Worlds are stored in a compact file format: a header with the magic MVOX, a version byte and the chunk
+ * box, then for every column (x major) a 16 bit mask of the sections that hold solid blocks, and for each
+ * of those sections its 4096 blocks in section order as varint run lengths alternating air and solid,
+ * starting with air.
+ */
+public class VoxelWorld implements BlockAccess {
+    private static final int MAGIC = 0x4D564F58;
+    private static final int VERSION = 1;
+
+    public interface Listener {
+        void onBlockChanged(int x, int y, int z);
+    }
+
+    private final int minChunkX;
+    private final int minChunkZ;
+    private final int maxChunkX;
+    private final int maxChunkZ;
+
+    // Solid bits per section in the PassabilitySection layout, missing sections are all air
+    private final Map<Long, long[]> sections = new HashMap<>();
+    private final List<Listener> listeners = new ArrayList<>();
+
+    public VoxelWorld(int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ) {
+        this.minChunkX = Math.min(minChunkX, maxChunkX);
+        this.minChunkZ = Math.min(minChunkZ, maxChunkZ);
+        this.maxChunkX = Math.max(minChunkX, maxChunkX);
+        this.maxChunkZ = Math.max(minChunkZ, maxChunkZ);
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public boolean contains(int x, int z) {
+        return isChunkLoaded(x >> 4, z >> 4);
+    }
+
+    public boolean isSolid(int x, int y, int z) {
+        if (!contains(x, z) || y < 0 || y > 255) {
+            return false;
+        }
+        long[] bits = sections.get(sectionKey(x >> 4, y >> 4, z >> 4));
+        int bit = bitIndex(x, y, z);
+        return bits != null && (bits[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    public VoxelWorld setSolid(int x, int y, int z, boolean isSolid) {
+        if (!contains(x, z) || y < 0 || y > 255) {
+            throw new IllegalArgumentException("Block outside the world: " + x + ", " + y + ", " + z);
+        }
+        long key = sectionKey(x >> 4, y >> 4, z >> 4);
+        long[] bits = sections.get(key);
+        if (bits == null) {
+            if (!isSolid) {
+                return this;
+            }
+            bits = new long[PassabilitySection.WORDS];
+            sections.put(key, bits);
+        }
+
+        int bit = bitIndex(x, y, z);
+        long before = bits[bit >>> 6];
+        if (isSolid) {
+            bits[bit >>> 6] |= 1L << bit;
+        } else {
+            bits[bit >>> 6] &= ~(1L << bit);
+        }
+        if (bits[bit >>> 6] != before) {
+            for (Listener listener : listeners) {
+                listener.onBlockChanged(x, y, z);
+            }
+        }
+        return this;
+    }
+
+    public VoxelWorld fill(int x1, int y1, int z1, int x2, int y2, int z2, boolean isSolid) {
+        for (int x = Math.min(x1, x2); x <= Math.max(x1, x2); x++) {
+            for (int y = Math.min(y1, y2); y <= Math.max(y1, y2); y++) {
+                for (int z = Math.min(z1, z2); z <= Math.max(z1, z2); z++) {
+                    setSolid(x, y, z, isSolid);
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @return y of the highest solid block in the column, -1 if there is none
+     */
+    public int getTopSolid(int x, int z) {
+        for (int y = 255; y >= 0; y--) {
+            if (isSolid(x, y, z)) {
+                return y;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public Object getWorld() {
+        return this;
+    }
+
+    @Override
+    public boolean isChunkLoaded(int chunkX, int chunkZ) {
+        return chunkX >= minChunkX && chunkX <= maxChunkX && chunkZ >= minChunkZ && chunkZ <= maxChunkZ;
+    }
+
+    // Voxels are full blocks, every solid one can be stood on
+    @Override
+    public long[][] getBlockBits(int chunkX, int sectionY, int chunkZ) {
+        if (!isChunkLoaded(chunkX, chunkZ)) {
+            return null;
+        }
+        long[] bits = sections.get(sectionKey(chunkX, sectionY, chunkZ));
+        // The cache keeps what it gets, later changes must not show through
+        return bits == null ? null : PassabilitySection.fullBlocks(bits.clone());
+    }
+
+    @Override
+    public SectionCopy copySection(int chunkX, int sectionY, int chunkZ) {
+        long[][] bits = getBlockBits(chunkX, sectionY, chunkZ);
+        return bits == null ? null : () -> bits;
+    }
+
+    public void save(File file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+            save(out);
+        }
+    }
+
+    public void save(OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeInt(minChunkX);
+        out.writeInt(minChunkZ);
+        out.writeInt(maxChunkX);
+        out.writeInt(maxChunkZ);
+
+        List<Integer> runs = new ArrayList<>();
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                int mask = 0;
+                for (int sectionY = 0; sectionY < 16; sectionY++) {
+                    if (!isEmpty(sections.get(sectionKey(chunkX, sectionY, chunkZ)))) {
+                        mask |= 1 << sectionY;
+                    }
+                }
+                out.writeShort(mask);
+
+                for (int sectionY = 0; sectionY < 16; sectionY++) {
+                    if ((mask & (1 << sectionY)) == 0) {
+                        continue;
+                    }
+                    long[] bits = sections.get(sectionKey(chunkX, sectionY, chunkZ));
+                    runs.clear();
+                    boolean solid = false;
+                    int run = 0;
+                    for (int i = 0; i < PassabilitySection.CELLS; i++) {
+                        boolean bit = (bits[i >>> 6] & (1L << i)) != 0;
+                        if (bit != solid) {
+                            runs.add(run);
+                            solid = bit;
+                            run = 0;
+                        }
+                        run++;
+                    }
+                    runs.add(run);
+
+                    writeVarInt(out, runs.size());
+                    for (int length : runs) {
+                        writeVarInt(out, length);
+                    }
+                }
+            }
+        }
+        out.flush();
+    }
+
+    public static VoxelWorld load(File file) throws IOException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            return load(in);
+        }
+    }
+
+    public static VoxelWorld load(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a voxel world file");
+        }
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported voxel world version " + version);
+        }
+
+        VoxelWorld world = new VoxelWorld(in.readInt(), in.readInt(), in.readInt(), in.readInt());
+        for (int chunkX = world.minChunkX; chunkX <= world.maxChunkX; chunkX++) {
+            for (int chunkZ = world.minChunkZ; chunkZ <= world.maxChunkZ; chunkZ++) {
+                int mask = in.readUnsignedShort();
+                for (int sectionY = 0; sectionY < 16; sectionY++) {
+                    if ((mask & (1 << sectionY)) == 0) {
+                        continue;
+                    }
+                    long[] bits = new long[PassabilitySection.WORDS];
+                    int runCount = readVarInt(in);
+                    int i = 0;
+                    for (int r = 0; r < runCount; r++) {
+                        int length = readVarInt(in);
+                        if (length < 0 || i + length > PassabilitySection.CELLS) {
+                            throw new IOException("Corrupt section " + chunkX + ", " + sectionY + ", " + chunkZ);
+                        }
+                        // Odd runs are solid
+                        if ((r & 1) == 1) {
+                            for (int end = i + length; i < end; i++) {
+                                bits[i >>> 6] |= 1L << i;
+                            }
+                        } else {
+                            i += length;
+                        }
+                    }
+                    if (i != PassabilitySection.CELLS) {
+                        throw new IOException("Corrupt section " + chunkX + ", " + sectionY + ", " + chunkZ);
+                    }
+                    world.sections.put(sectionKey(chunkX, sectionY, chunkZ), bits);
+                }
+            }
+        }
+        return world;
+    }
+
+    private static boolean isEmpty(long[] bits) {
+        if (bits == null) {
+            return true;
+        }
+        for (long word : bits) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Varint too long");
+    }
+
+    private static int bitIndex(int x, int y, int z) {
+        return ((y & 15) << 8) | ((z & 15) << 4) | (x & 15);
+    }
+
+    private static long sectionKey(int chunkX, int sectionY, int chunkZ) {
+        return ((long) (chunkX & 0x3FFFFFF) << 30) | ((long) (chunkZ & 0x3FFFFFF) << 4) | (sectionY & 15);
+    }
+}
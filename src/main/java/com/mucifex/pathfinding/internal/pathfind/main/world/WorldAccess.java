@@ -0,0 +1,43 @@
+package com.mucifex.pathfinding.internal.pathfind.main.world;
+
+import com.mucifex.pathfinding.internal.pathfind.main.player.MinecraftPlayerState;
+import com.mucifex.pathfinding.internal.pathfind.main.player.PlayerState;
+
+/**
+ * The blocks and the player the pathing stack reads through. Defaults to the game client, tools and
+ * benchmarks swap in a {@link VoxelWorld} and a SimulatedPlayer to run without one.
+ */
+public final class WorldAccess {
+    private static volatile BlockAccess blocks = new MinecraftBlockAccess();
+    private static volatile PlayerState player = new MinecraftPlayerState();
+
+    private WorldAccess() {
+    }
+
+    public static BlockAccess getBlocks() {
+        return blocks;
+    }
+
+    /**
+     * The PassabilityCache notices the new world on its next read and drops everything it cached.
+     */
+    public static void setBlocks(BlockAccess access) {
+        blocks = access;
+    }
+
+    public static PlayerState getPlayer() {
+        return player;
+    }
+
+    public static void setPlayer(PlayerState state) {
+        player = state;
+    }
+
+    /**
+     * Back to the game client.
+     */
+    public static void reset() {
+        blocks = new MinecraftBlockAccess();
+        player = new MinecraftPlayerState();
+    }
+}
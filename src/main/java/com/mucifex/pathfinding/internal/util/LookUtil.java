@@ -1,5 +1,7 @@
 package com.mucifex.pathfinding.internal.util;
 
+import com.mucifex.pathfinding.internal.pathfind.main.player.PlayerState;
+import com.mucifex.pathfinding.internal.pathfind.main.world.WorldAccess;
 import net.minecraft.client.Minecraft;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.EntityLivingBase;
@@ -17,8 +19,8 @@ public class LookUtil {
     }
 
     public static Tuple<Double, Double> getAngles(BlockPos pos) {
-        Entity player = Minecraft.getMinecraft().thePlayer;
-        return getAngles(player.getPositionVector().addVector(0, player.getEyeHeight(), 0), new Vec3(pos).addVector(0.5f, 0.5f, 0.5f), player.rotationYaw);
+        PlayerState player = WorldAccess.getPlayer();
+        return getAngles(player.getPosition().addVector(0, player.getEyeHeight(), 0), new Vec3(pos).addVector(0.5f, 0.5f, 0.5f), player.getYaw());
     }
 
     public static Tuple<Double, Double> getAngles(Entity origin, Vec3 target) {
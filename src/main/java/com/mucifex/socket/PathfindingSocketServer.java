@@ -1,6 +1,9 @@
 package com.mucifex.socket;
 
 import com.mucifex.pathfinding.internal.PathHandler;
+import com.mucifex.pathfinding.internal.pathfind.main.astar.Goal;
+import com.mucifex.pathfinding.internal.pathfind.main.astar.PathPlanner;
+import com.mucifex.pathfinding.internal.pathfind.main.astar.PathPlanners;
 import net.minecraft.client.Minecraft;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.util.BlockPos;
@@ -12,6 +15,8 @@ import java.io.PrintWriter;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -19,10 +24,19 @@ import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Socket server for pathfinding functionality
- * Listens on port 25566 for pathfinding commands in format: x,y,z
+ * Listens on port 25566 for pathfinding commands in format: x,y,z[,algo=name][,deadline]
+ * Instead of x,y,z the goal may be goals:x,y,z;x,y,z;... to go to whichever of them is reached first, or
+ * region:x1,y1,z1,x2,y2,z2 to go anywhere inside that box, see Goal. The options follow the last coordinate.
+ * algo is an optional PathPlanners name (e.g. bidirectional) used for that trip only, the algo= may be left out,
+ * deadline is an optional planning deadline in milliseconds: walking starts on a quick path and cheaper
+ * ones are taken over until it passes
  */
 public class PathfindingSocketServer {
     private static final int PORT = 25566; // New port for pathfinding
+    private static final String GOALS_PREFIX = "goals:";
+    private static final String REGION_PREFIX = "region:";
+    // Every goal is looked at for every expanded node
+    private static final int MAX_GOALS = 256;
     private ServerSocket serverSocket;
     private boolean running = false;
     private ExecutorService threadPool = Executors.newCachedThreadPool();
@@ -102,9 +116,43 @@ public class PathfindingSocketServer {
                 String[] parts = inputLine.split(",");
                 if (parts.length >= 3) {
                     try {
-                        final int x = Integer.parseInt(parts[0]);
-                        final int y = Integer.parseInt(parts[1]);
-                        final int z = Integer.parseInt(parts[2]);
+                        // The goal takes the first fields, the options follow it
+                        final Goal goal;
+                        int optionsStart = 3;
+                        String line = inputLine.trim();
+                        if (line.regionMatches(true, 0, GOALS_PREFIX, 0, GOALS_PREFIX.length())) {
+                            String[] goals = line.substring(GOALS_PREFIX.length()).split(";");
+                            if (goals.length > MAX_GOALS) {
+                                throw new NumberFormatException("More than " + MAX_GOALS + " goals");
+                            }
+                            List<BlockPos> positions = new ArrayList<>();
+                            for (String position : goals) {
+                                parts = position.split(",");
+                                positions.add(parseBlockPos(parts, 0));
+                            }
+                            goal = Goal.anyOf(positions);
+                        } else if (line.regionMatches(true, 0, REGION_PREFIX, 0, REGION_PREFIX.length())) {
+                            parts = line.substring(REGION_PREFIX.length()).split(",");
+                            goal = Goal.region(parseBlockPos(parts, 0), parseBlockPos(parts, 3));
+                            optionsStart = 6;
+                        } else {
+                            goal = Goal.at(parseBlockPos(parts, 0));
+                        }
+                        // The optional fields may come in either order, a number is the deadline
+                        PathPlanner requestedPlanner = null;
+                        long requestedDeadline = 0;
+                        for (int i = optionsStart; i < parts.length; i++) {
+                            String option = parts[i].trim();
+                            if (!option.isEmpty() && Character.isDigit(option.charAt(0))) {
+                                requestedDeadline = Long.parseLong(option);
+                            } else if ((requestedPlanner = parsePlanner(option)) == null) {
+                                System.err.println("Unknown path planner: " + option);
+                                out.println("PATHFINDING:INVALID_ALGO");
+                                return;
+                            }
+                        }
+                        final PathPlanner planner = requestedPlanner;
+                        final long deadlineMillis = requestedDeadline;
                         
                         // Prevent multiple initialization requests from occurring simultaneously
                         if (initializingPathfinding.get()) {
@@ -141,7 +189,9 @@ public class PathfindingSocketServer {
                         // Call pathfinding system on the main Minecraft thread to prevent threading issues
                         Minecraft mc = Minecraft.getMinecraft();
                         if (mc != null && mc.thePlayer != null) {
-                            System.out.println("Starting pathfinding to: " + x + ", " + y + ", " + z);
+                            System.out.println("Starting pathfinding to: " + goal
+                                + (planner != null ? " using " + planner.getName() : "")
+                                + (deadlineMillis > 0 ? " within " + deadlineMillis + " ms" : ""));
                             
                             // Schedule pathfinding on the main thread
                             mc.addScheduledTask(() -> {
@@ -163,7 +213,7 @@ public class PathfindingSocketServer {
                                         System.out.println("Now starting new pathfinding...");
                                         pathfindingInProgress.set(true);
                                         lastPathfindingActivityTime.set(System.currentTimeMillis());
-                                        pathHandler.travel(x, y, z);
+                                        pathHandler.travel(goal, planner, deadlineMillis);
                                     } else {
                                         System.err.println("PathHandler is null, cannot start pathfinding");
                                     }
@@ -275,6 +325,28 @@ public class PathfindingSocketServer {
         }
     }
 
+    /**
+     * @return the block in the three fields from offset on
+     */
+    private static BlockPos parseBlockPos(String[] fields, int offset) {
+        if (fields.length < offset + 3) {
+            throw new NumberFormatException("Expected x,y,z at field " + offset);
+        }
+        return new BlockPos(Integer.parseInt(fields[offset].trim()), Integer.parseInt(fields[offset + 1].trim()),
+                Integer.parseInt(fields[offset + 2].trim()));
+    }
+
+    /**
+     * @return the planner named by an algo=name or bare name option, ignoring case, or null if there is none
+     */
+    private static PathPlanner parsePlanner(String option) {
+        String name = option.trim();
+        if (name.regionMatches(true, 0, "algo=", 0, 5)) {
+            name = name.substring(5);
+        }
+        return PathPlanners.get(name);
+    }
+
     public void stop() {
         running = false;
         threadPool.shutdown();